@@ -16,6 +16,8 @@
 
 package com.the_tinkering.wk.test;
 
+import android.database.Cursor;
+
 import androidx.room.Room;
 import androidx.room.testing.MigrationTestHelper;
 import androidx.sqlite.db.SupportSQLiteDatabase;
@@ -51,8 +53,15 @@ import static com.the_tinkering.wk.db.AppDatabase.MIGRATION_64_65;
 import static com.the_tinkering.wk.db.AppDatabase.MIGRATION_65_66;
 import static com.the_tinkering.wk.db.AppDatabase.MIGRATION_66_67;
 import static com.the_tinkering.wk.db.AppDatabase.MIGRATION_67_68;
+import static com.the_tinkering.wk.db.AppDatabase.MIGRATION_68_69;
+import static com.the_tinkering.wk.db.AppDatabase.MIGRATION_69_70;
+import static com.the_tinkering.wk.db.AppDatabase.MIGRATION_70_71;
+import static com.the_tinkering.wk.db.AppDatabase.MIGRATION_71_72;
+import static com.the_tinkering.wk.db.AppDatabase.MIGRATION_72_73;
 import static java.util.Objects.requireNonNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test class to verify database migrations.
@@ -60,7 +69,7 @@ import static org.junit.Assert.assertEquals;
 @SuppressWarnings({"JavaDoc", "resource"})
 @SmallTest
 public final class DatabaseMigrationTest {
-    private static final int LATEST_VERSION = 68;
+    private static final int LATEST_VERSION = 73;
     private static final String DATABASE_NAME_TEST = "wanikani-test";
 
     @Rule
@@ -93,7 +102,12 @@ public final class DatabaseMigrationTest {
                         MIGRATION_64_65,
                         MIGRATION_65_66,
                         MIGRATION_66_67,
-                        MIGRATION_67_68)
+                        MIGRATION_67_68,
+                        MIGRATION_68_69,
+                        MIGRATION_69_70,
+                        MIGRATION_70_71,
+                        MIGRATION_71_72,
+                        MIGRATION_72_73)
                 .build();
         testHelper.closeWhenFinished(database);
         return database;
@@ -108,7 +122,7 @@ public final class DatabaseMigrationTest {
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_48_49, MIGRATION_49_50, MIGRATION_50_51,
                 MIGRATION_51_52, MIGRATION_52_53, MIGRATION_53_54, MIGRATION_54_55, MIGRATION_55_56, MIGRATION_56_57, MIGRATION_57_58,
                 MIGRATION_58_59, MIGRATION_59_60, MIGRATION_60_61, MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65,
-                MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -121,7 +135,7 @@ public final class DatabaseMigrationTest {
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_49_50, MIGRATION_50_51, MIGRATION_51_52,
                 MIGRATION_52_53, MIGRATION_53_54, MIGRATION_54_55, MIGRATION_55_56, MIGRATION_56_57, MIGRATION_57_58, MIGRATION_58_59,
                 MIGRATION_59_60, MIGRATION_60_61, MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66,
-                MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -134,7 +148,7 @@ public final class DatabaseMigrationTest {
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_50_51, MIGRATION_51_52, MIGRATION_52_53,
                 MIGRATION_53_54, MIGRATION_54_55, MIGRATION_55_56, MIGRATION_56_57, MIGRATION_57_58, MIGRATION_58_59, MIGRATION_59_60,
                 MIGRATION_60_61, MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67,
-                MIGRATION_67_68);
+                MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -146,7 +160,7 @@ public final class DatabaseMigrationTest {
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_51_52, MIGRATION_52_53, MIGRATION_53_54,
                 MIGRATION_54_55, MIGRATION_55_56, MIGRATION_56_57, MIGRATION_57_58, MIGRATION_58_59, MIGRATION_59_60, MIGRATION_60_61,
-                MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -158,7 +172,7 @@ public final class DatabaseMigrationTest {
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_52_53, MIGRATION_53_54, MIGRATION_54_55,
                 MIGRATION_55_56, MIGRATION_56_57, MIGRATION_57_58, MIGRATION_58_59, MIGRATION_59_60, MIGRATION_60_61, MIGRATION_61_62,
-                MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -170,7 +184,7 @@ public final class DatabaseMigrationTest {
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_53_54, MIGRATION_54_55, MIGRATION_55_56,
                 MIGRATION_56_57, MIGRATION_57_58, MIGRATION_58_59, MIGRATION_59_60, MIGRATION_60_61, MIGRATION_61_62, MIGRATION_62_63,
-                MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -182,7 +196,7 @@ public final class DatabaseMigrationTest {
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_54_55, MIGRATION_55_56, MIGRATION_56_57,
                 MIGRATION_57_58, MIGRATION_58_59, MIGRATION_59_60, MIGRATION_60_61, MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64,
-                MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -194,7 +208,7 @@ public final class DatabaseMigrationTest {
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_55_56, MIGRATION_56_57, MIGRATION_57_58,
                 MIGRATION_58_59, MIGRATION_59_60, MIGRATION_60_61, MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65,
-                MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -206,7 +220,7 @@ public final class DatabaseMigrationTest {
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_56_57, MIGRATION_57_58, MIGRATION_58_59,
                 MIGRATION_59_60, MIGRATION_60_61, MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66,
-                MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -218,7 +232,7 @@ public final class DatabaseMigrationTest {
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_57_58, MIGRATION_58_59, MIGRATION_59_60,
                 MIGRATION_60_61, MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67,
-                MIGRATION_67_68);
+                MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -229,7 +243,7 @@ public final class DatabaseMigrationTest {
         db.close();
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_58_59, MIGRATION_59_60, MIGRATION_60_61,
-                MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -240,7 +254,7 @@ public final class DatabaseMigrationTest {
         db.close();
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_59_60, MIGRATION_60_61, MIGRATION_61_62,
-                MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -251,7 +265,7 @@ public final class DatabaseMigrationTest {
         db.close();
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_60_61, MIGRATION_61_62, MIGRATION_62_63,
-                MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -262,7 +276,7 @@ public final class DatabaseMigrationTest {
         db.close();
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_61_62, MIGRATION_62_63, MIGRATION_63_64,
-                MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -273,7 +287,7 @@ public final class DatabaseMigrationTest {
         db.close();
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_62_63, MIGRATION_63_64, MIGRATION_64_65,
-                MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -284,7 +298,7 @@ public final class DatabaseMigrationTest {
         db.close();
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_63_64, MIGRATION_64_65, MIGRATION_65_66,
-                MIGRATION_66_67, MIGRATION_67_68);
+                MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -295,7 +309,7 @@ public final class DatabaseMigrationTest {
         db.close();
 
         testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_64_65, MIGRATION_65_66, MIGRATION_66_67,
-                MIGRATION_67_68);
+                MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -305,7 +319,7 @@ public final class DatabaseMigrationTest {
         assertEquals(65, db.getVersion());
         db.close();
 
-        testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68);
+        testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_65_66, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -315,7 +329,7 @@ public final class DatabaseMigrationTest {
         assertEquals(66, db.getVersion());
         db.close();
 
-        testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_66_67, MIGRATION_67_68);
+        testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_66_67, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 
@@ -325,7 +339,146 @@ public final class DatabaseMigrationTest {
         assertEquals(67, db.getVersion());
         db.close();
 
-        testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_67_68);
+        testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_67_68, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
+        assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
+    }
+
+    @Test
+    public void testMigration_68() throws IOException {
+        final SupportSQLiteDatabase db = testHelper.createDatabase(DATABASE_NAME_TEST, 68);
+        assertEquals(68, db.getVersion());
+        db.close();
+
+        testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_68_69, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
+        assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
+    }
+
+    @Test
+    public void testMigration_69() throws IOException {
+        final SupportSQLiteDatabase db = testHelper.createDatabase(DATABASE_NAME_TEST, 69);
+        assertEquals(69, db.getVersion());
+        db.execSQL("INSERT INTO subject (id, typeCode, lessonPosition, srsSystemId, level, audioDownloadStatus, assignmentId,"
+                + " passed, resurrected, srsStage, levelProgressScore, assignmentPatched, studyMaterialId, studyMaterialPatched,"
+                + " reviewStatisticId, meaningCorrect, meaningIncorrect, meaningMaxStreak, meaningCurrentStreak,"
+                + " readingCorrect, readingIncorrect, readingMaxStreak, readingCurrentStreak, percentageCorrect,"
+                + " leechScore, statisticPatched, frequency, joyoGrade, jlptLevel, characters, meaningMnemonic, pitchInfo)"
+                + " VALUES (42, 0, 1, 1, 3, 0, 0, 0, 0, 5, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,"
+                + " 'x', 'mnemonic', 'pitch')");
+        db.close();
+
+        final SupportSQLiteDatabase migrated =
+                testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_69_70, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
+        final Cursor cursor = migrated.query("SELECT subject.characters, subject_content.meaningMnemonic,"
+                + " subject_content.pitchInfo FROM subject JOIN subject_content ON subject_content.id = subject.id"
+                + " WHERE subject.id = 42");
+        try {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("x", cursor.getString(0));
+            assertEquals("mnemonic", cursor.getString(1));
+            assertEquals("pitch", cursor.getString(2));
+        }
+        finally {
+            cursor.close();
+        }
+        assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
+    }
+
+    @Test
+    public void testMigration_70() throws IOException {
+        final SupportSQLiteDatabase db = testHelper.createDatabase(DATABASE_NAME_TEST, 70);
+        assertEquals(70, db.getVersion());
+        db.execSQL("INSERT INTO task_definition (taskClass, priority, data) VALUES"
+                + " ('com.the_tinkering.wk.tasks.ReportSessionItemTask', 15, '1000 42 7 REVIEW 1 2 true')");
+        db.close();
+
+        final SupportSQLiteDatabase migrated =
+                testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_70_71, MIGRATION_71_72, MIGRATION_72_73);
+        final Cursor cursor = migrated.query("SELECT timestamp, subjectId, assignmentId, type, meaningIncorrect,"
+                + " readingIncorrect, justPassed FROM review_outbox");
+        try {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(1000, cursor.getLong(0));
+            assertEquals(42, cursor.getLong(1));
+            assertEquals(7, cursor.getLong(2));
+            assertEquals("REVIEW", cursor.getString(3));
+            assertEquals(1, cursor.getInt(4));
+            assertEquals(2, cursor.getInt(5));
+            assertEquals(1, cursor.getInt(6));
+            assertFalse(cursor.moveToNext());
+        }
+        finally {
+            cursor.close();
+        }
+        final Cursor taskCursor = migrated.query("SELECT taskClass FROM task_definition");
+        try {
+            assertTrue(taskCursor.moveToFirst());
+            assertEquals("com.the_tinkering.wk.tasks.SubmitReviewOutboxTask", taskCursor.getString(0));
+            assertFalse(taskCursor.moveToNext());
+        }
+        finally {
+            taskCursor.close();
+        }
+        assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
+    }
+
+    @Test
+    public void testMigration_71() throws IOException {
+        final SupportSQLiteDatabase db = testHelper.createDatabase(DATABASE_NAME_TEST, 71);
+        assertEquals(71, db.getVersion());
+        db.close();
+
+        final SupportSQLiteDatabase migrated =
+                testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_71_72, MIGRATION_72_73);
+        final Cursor emptyCursor = migrated.query("SELECT COUNT(*) FROM audio_file");
+        try {
+            assertTrue(emptyCursor.moveToFirst());
+            assertEquals(0, emptyCursor.getInt(0));
+        }
+        finally {
+            emptyCursor.close();
+        }
+        migrated.execSQL("INSERT OR REPLACE INTO audio_file (location, level, sourceId, format, size)"
+                + " VALUES ('a/b.mp3', 3, 42, 'audio/mpeg', 100)");
+        migrated.execSQL("INSERT OR REPLACE INTO audio_file (location, level, sourceId, format, size)"
+                + " VALUES ('a/b.mp3', 3, 42, 'audio/mpeg', 200)");
+        migrated.execSQL("INSERT OR REPLACE INTO audio_file (location, level, sourceId, format, size)"
+                + " VALUES ('a/b.mp3', 3, 42, 'audio/ogg', 300)");
+        final Cursor cursor = migrated.query("SELECT format, size FROM audio_file ORDER BY format");
+        try {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("audio/mpeg", cursor.getString(0));
+            assertEquals(200, cursor.getLong(1));
+            assertTrue(cursor.moveToNext());
+            assertEquals("audio/ogg", cursor.getString(0));
+            assertEquals(300, cursor.getLong(1));
+            assertFalse(cursor.moveToNext());
+        }
+        finally {
+            cursor.close();
+        }
+        assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
+    }
+
+    @Test
+    public void testMigration_72() throws IOException {
+        final SupportSQLiteDatabase db = testHelper.createDatabase(DATABASE_NAME_TEST, 72);
+        assertEquals(72, db.getVersion());
+        db.execSQL("INSERT INTO review_outbox (timestamp, subjectId, assignmentId, type, meaningIncorrect, readingIncorrect, justPassed)"
+                + " VALUES (1000, 42, 7, 'REVIEW', 1, 0, 0)");
+        db.close();
+
+        final SupportSQLiteDatabase migrated =
+                testHelper.runMigrationsAndValidate(DATABASE_NAME_TEST, LATEST_VERSION, true, MIGRATION_72_73);
+        final Cursor cursor = migrated.query("SELECT subjectId, numFailures FROM review_outbox");
+        try {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(42, cursor.getLong(0));
+            assertEquals(0, cursor.getInt(1));
+            assertFalse(cursor.moveToNext());
+        }
+        finally {
+            cursor.close();
+        }
         assertEquals(LATEST_VERSION, getMigratedRoomDatabase().getOpenHelper().getReadableDatabase().getVersion());
     }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.test;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Bundle;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.the_tinkering.wk.api.model.ApiSubject;
+import com.the_tinkering.wk.api.model.Meaning;
+import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.dao.SubjectSyncDao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Benchmark for writing synced subjects, comparing one auto-committed upsert per subject with
+ * one transaction per API page. This runs against a database file on the device, since the
+ * difference is mostly in the number of journal commits. The rates are reported as
+ * instrumentation status values.
+ */
+@SuppressWarnings("JavaDoc")
+@LargeTest
+public final class SubjectSyncBenchmarkTest {
+    private static final String DATABASE_NAME_TEST = "wanikani-benchmark";
+    private static final int NUM_SUBJECTS = 2000;
+    private static final int PAGE_SIZE = 1000;
+
+    private @Nullable AppDatabase database = null;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME_TEST);
+        database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME_TEST).build();
+    }
+
+    @After
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+        ApplicationProvider.getApplicationContext().deleteDatabase(DATABASE_NAME_TEST);
+    }
+
+    private AppDatabase requireDatabase() {
+        if (database == null) {
+            throw new IllegalStateException();
+        }
+        return database;
+    }
+
+    private static List<ApiSubject> createSubjects(final long firstId, final int count) {
+        final List<ApiSubject> result = new ArrayList<>(count);
+        for (int i=0; i<count; i++) {
+            final Meaning meaning = new Meaning();
+            meaning.setMeaning("meaning " + i);
+            meaning.setPrimary(true);
+            meaning.setAcceptedAnswer(true);
+            final ApiSubject subject = new ApiSubject();
+            subject.setId(firstId + i);
+            subject.setObject("vocabulary");
+            subject.setLevel(1 + i % 60);
+            subject.setLessonPosition(i);
+            subject.setSrsSystemId(1);
+            subject.setCharacters("語" + i);
+            subject.setSlug("slug-" + i);
+            subject.setMeanings(Collections.singletonList(meaning));
+            subject.setMeaningMnemonic("A mnemonic for subject " + i);
+            result.add(subject);
+        }
+        return result;
+    }
+
+    private int countSubjects() {
+        final Cursor cursor = requireDatabase().getOpenHelper().getReadableDatabase().query("SELECT COUNT(*) FROM subject");
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+        finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void testSubjectUpsertBenchmark() {
+        final SubjectSyncDao dao = requireDatabase().subjectSyncDao();
+        final Collection<Long> existingSubjectIds = Collections.emptySet();
+
+        final List<ApiSubject> rowSubjects = createSubjects(1, NUM_SUBJECTS);
+        final long rowStart = System.nanoTime();
+        for (final ApiSubject subject: rowSubjects) {
+            dao.insertOrUpdate(subject, existingSubjectIds);
+        }
+        final long rowElapsed = System.nanoTime() - rowStart;
+
+        final List<ApiSubject> pageSubjects = createSubjects(NUM_SUBJECTS + 1, NUM_SUBJECTS);
+        final long pageStart = System.nanoTime();
+        for (int i=0; i<NUM_SUBJECTS; i+=PAGE_SIZE) {
+            dao.insertOrUpdateAll(pageSubjects.subList(i, Math.min(i + PAGE_SIZE, NUM_SUBJECTS)), existingSubjectIds);
+        }
+        final long pageElapsed = System.nanoTime() - pageStart;
+
+        final double rowRate = NUM_SUBJECTS * 1.0e9 / rowElapsed;
+        final double pageRate = NUM_SUBJECTS * 1.0e9 / pageElapsed;
+        final Bundle results = new Bundle();
+        results.putDouble("rows_per_second_per_row", rowRate);
+        results.putDouble("rows_per_second_per_page", pageRate);
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+
+        assertEquals(2 * NUM_SUBJECTS, countSubjects());
+        assertTrue(pageRate > rowRate);
+    }
+}
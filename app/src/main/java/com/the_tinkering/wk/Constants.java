@@ -101,6 +101,11 @@ public final class Constants {
      */
     public static final int REFERENCE_DATA_VERSION = 9;
 
+    /**
+     * Version of the search index format, used to trigger a full rebuild of the index if needed.
+     */
+    public static final int SEARCH_INDEX_VERSION = 1;
+
     /**
      * API version.
      */
@@ -141,6 +146,11 @@ public final class Constants {
      */
     public static final String FONTS_DIRECTORY_NAME = "fonts";
 
+    /**
+     * Subdirectory name, inside the fonts directory, for the glyph coverage indexes of fonts.
+     */
+    public static final String FONT_COVERAGE_DIRECTORY_NAME = ".coverage";
+
     /**
      * Document to show when the user has not yet provided an API key.
      */
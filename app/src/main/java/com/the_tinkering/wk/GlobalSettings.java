@@ -23,6 +23,7 @@ import androidx.preference.PreferenceManager;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.the_tinkering.wk.db.model.Subject;
 import com.the_tinkering.wk.enums.ActiveTheme;
+import com.the_tinkering.wk.enums.ApiLogLevel;
 import com.the_tinkering.wk.enums.CloseEnoughAction;
 import com.the_tinkering.wk.enums.DontKnowButtonBehavior;
 import com.the_tinkering.wk.enums.LessonOrder;
@@ -589,6 +590,24 @@ public final class GlobalSettings {
             return NetworkRule.DOWNLOAD_WIFI_ONLY;
         }
 
+        /**
+         * How much detail about API calls goes into the debug log.
+         *
+         * @return the value
+         */
+        public static ApiLogLevel getApiLogLevel() {
+            final @Nullable String value = prefs().getString("api_log_level", null);
+            if (value != null) {
+                try {
+                    return ApiLogLevel.valueOf(value);
+                }
+                catch (final Exception e) {
+                    //
+                }
+            }
+            return ApiLogLevel.SUMMARY;
+        }
+
         /**
          * The preferred location where to store downloaded audio files.
          *
@@ -32,6 +32,7 @@ import androidx.multidex.MultiDexApplication;
 import com.the_tinkering.wk.components.EncryptedPreferenceDataStore;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.enums.ActiveTheme;
+import com.the_tinkering.wk.enums.ExecutionLane;
 import com.the_tinkering.wk.enums.NotificationPriority;
 import com.the_tinkering.wk.enums.OnlineStatus;
 import com.the_tinkering.wk.enums.SessionType;
@@ -58,6 +59,7 @@ import com.the_tinkering.wk.livedata.LiveWorkInfos;
 import com.the_tinkering.wk.model.Session;
 import com.the_tinkering.wk.services.JobRunnerService;
 import com.the_tinkering.wk.util.AsyncTask;
+import com.the_tinkering.wk.util.AudioUtil;
 import com.the_tinkering.wk.util.DbLogger;
 
 import javax.annotation.Nullable;
@@ -247,11 +249,16 @@ public final class WkApplication extends MultiDexApplication {
     }
 
     private static final class Task extends AsyncTask<Void> {
+        private Task() {
+            super(ExecutionLane.WRITE);
+        }
+
         @Override
         public @Nullable Void doInBackground() {
             final AppDatabase db = requireNonNull(database);
 
             db.propertiesDao().preload();
+            safe(AudioUtil::preloadInventory);
 
             safe(() -> {
                 db.propertiesDao().deleteProperty("migration_done_audio1");
@@ -79,6 +79,7 @@ import static com.the_tinkering.wk.Constants.FLUSH_TASKS_WARNING;
 import static com.the_tinkering.wk.Constants.MINUTE;
 import static com.the_tinkering.wk.util.ObjectSupport.isEmpty;
 import static com.the_tinkering.wk.util.ObjectSupport.join;
+import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 import static com.the_tinkering.wk.util.ObjectSupport.safeNullable;
 import static com.the_tinkering.wk.util.TextUtil.renderHtml;
@@ -286,6 +287,8 @@ public abstract class AbstractActivity extends AppCompatActivity implements Shar
 
             PreferenceManager.getDefaultSharedPreferences(this).unregisterOnSharedPreferenceChangeListener(this);
 
+            runAsync(() -> WkApplication.getDatabase().propertiesDao().flush());
+
             onPauseLocal();
         });
     }
@@ -22,6 +22,7 @@ import android.view.View;
 import com.the_tinkering.wk.GlobalSettings;
 import com.the_tinkering.wk.R;
 import com.the_tinkering.wk.api.ApiState;
+import com.the_tinkering.wk.enums.ExecutionLane;
 import com.the_tinkering.wk.jobs.RetryApiErrorJob;
 import com.the_tinkering.wk.livedata.LiveApiState;
 import com.the_tinkering.wk.livedata.LiveBurnedItems;
@@ -183,7 +184,7 @@ public final class MainActivity extends AbstractActivity {
         BackgroundAlarmReceiverPost23.scheduleOrCancelAlarm();
         BackgroundSyncWorker.scheduleOrCancelWork();
 
-        runAsync(() -> {
+        runAsync(ExecutionLane.MAINTENANCE, () -> {
             LiveBurnedItems.getInstance().forceUpdate();
             LiveCriticalCondition.getInstance().forceUpdate();
             LiveLevelDuration.getInstance().forceUpdate();
@@ -38,7 +38,7 @@ import java.util.List;
 
 import javax.annotation.Nullable;
 
-import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
+import static com.the_tinkering.wk.util.ObjectSupport.loadAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 import static java.util.Objects.requireNonNull;
 
@@ -92,7 +92,7 @@ public final class StudyMaterialsActivity extends AbstractActivity {
             final Uri uri = requireNonNull(getIntent().getData());
             final String[] path = requireNonNull(uri.getPath()).split("/");
             final long id = Long.parseLong(path[1]);
-            runAsync(
+            loadAsync(
                     this,
                     () -> WkApplication.getDatabase().subjectDao().getById(id),
                     result -> {
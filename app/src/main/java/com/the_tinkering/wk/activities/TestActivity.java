@@ -22,10 +22,14 @@ import android.view.View;
 import com.the_tinkering.wk.R;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.SubjectCache;
 import com.the_tinkering.wk.db.model.Subject;
+import com.the_tinkering.wk.enums.ExecutionLane;
 import com.the_tinkering.wk.enums.SubjectType;
+import com.the_tinkering.wk.livedata.DashboardRefresher;
 import com.the_tinkering.wk.model.PitchInfo;
 import com.the_tinkering.wk.proxy.ViewProxy;
+import com.the_tinkering.wk.util.LaneExecutor;
 import com.the_tinkering.wk.util.Logger;
 import com.the_tinkering.wk.util.PitchInfoUtil;
 import com.the_tinkering.wk.util.ReferenceDataUtil;
@@ -34,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -94,7 +99,7 @@ public final class TestActivity extends AbstractActivity {
 
         activePitchInfoDownload = true;
 
-        runAsync(() -> {
+        runAsync(ExecutionLane.MAINTENANCE, () -> {
             final AppDatabase db = WkApplication.getDatabase();
             final int maxLevel = db.subjectAggregatesDao().getMaxLevel();
 
@@ -134,7 +139,7 @@ public final class TestActivity extends AbstractActivity {
 
     @SuppressWarnings("MethodMayBeStatic")
     public void generatePitchInfo(@SuppressWarnings("unused") final View view) {
-        runAsync(() -> {
+        runAsync(ExecutionLane.MAINTENANCE, () -> {
             final AppDatabase db = WkApplication.getDatabase();
             final int maxLevel = db.subjectAggregatesDao().getMaxLevel();
 
@@ -170,7 +175,7 @@ public final class TestActivity extends AbstractActivity {
 
     @SuppressWarnings("MethodMayBeStatic")
     public void checkPitchInfo(@SuppressWarnings("unused") final View view) {
-        runAsync(() -> {
+        runAsync(ExecutionLane.MAINTENANCE, () -> {
             final AppDatabase db = WkApplication.getDatabase();
 
             LOGGER.info("Number of weblio files: %d", PitchInfoUtil.getNumWeblioFiles());
@@ -189,6 +194,12 @@ public final class TestActivity extends AbstractActivity {
         });
     }
 
+    public void showCacheStatistics(@SuppressWarnings("unused") final View view) {
+        safe(() -> document.setText(String.format(Locale.ROOT, "Subject cache: %s\nDashboard refresh: %s\nLanes: %s",
+                SubjectCache.getInstance().getDiagnostics(), DashboardRefresher.getInstance().getDiagnostics(),
+                LaneExecutor.getInstance().getDiagnostics())));
+    }
+
     public void theButton(@SuppressWarnings("unused") final View view) {
         safe(() -> {
             LOGGER.info("Test button clicked!");
@@ -21,18 +21,44 @@ import androidx.core.util.Consumer;
 import com.the_tinkering.wk.db.model.Subject;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.annotation.Nullable;
 
 /**
  * Abstract base class for items that can contain other items.
+ *
+ * <p>
+ *     Containers keep a cached position index over their direct sub-items: a prefix sum
+ *     of the visible counts of the children. Positions are resolved by binary search
+ *     on that index, so looking up an item in the adapter is O(log n) per level instead of
+ *     a walk over the whole tree. The index is rebuilt lazily after any change that
+ *     affects counts (adding items, collapsing or expanding a header), and a change
+ *     only invalidates the index of the affected container and its ancestors.
+ * </p>
  */
 public abstract class ContainerItem extends ResultItem {
     /**
      * The sub-items.
      */
-    protected final Collection<ResultItem> items = new ArrayList<>();
+    protected final List<ResultItem> items = new ArrayList<>();
+
+    /**
+     * The container this item was added to, or null for the root.
+     */
+    private @Nullable ContainerItem parent = null;
+
+    /**
+     * Prefix sums of the counts of the sub-items: element i is the position of the first row of
+     * sub-item i, relative to the first row of the first sub-item. Null if the index must be rebuilt.
+     */
+    private @Nullable int[] offsets = null;
+
+    /**
+     * The total count of visible rows of all sub-items, only valid if offsets is not null.
+     */
+    private int childCount = 0;
 
     /**
      * Add an item to the list of direct sub-items of this one.
@@ -40,7 +66,79 @@ public abstract class ContainerItem extends ResultItem {
      * @param item the item to add
      */
     public final void addItem(final ResultItem item) {
+        if (item instanceof ContainerItem) {
+            ((ContainerItem) item).parent = this;
+        }
         items.add(item);
+        invalidate();
+    }
+
+    /**
+     * Discard the cached position index of this item and all of its ancestors. Must be called
+     * whenever the visible count of this item or one of its sub-items changes.
+     */
+    protected final void invalidate() {
+        @Nullable ContainerItem container = this;
+        while (container != null) {
+            container.offsets = null;
+            container = container.parent;
+        }
+    }
+
+    /**
+     * Remove all sub-items of this one.
+     */
+    protected final void clearItems() {
+        for (final ResultItem item: items) {
+            if (item instanceof ContainerItem) {
+                ((ContainerItem) item).parent = null;
+            }
+        }
+        items.clear();
+        invalidate();
+    }
+
+    private int[] getOffsets() {
+        if (offsets == null) {
+            final int[] result = new int[items.size()];
+            int count = 0;
+            for (int i=0; i<result.length; i++) {
+                result[i] = count;
+                count += items.get(i).getCount();
+            }
+            childCount = count;
+            offsets = result;
+            return result;
+        }
+        return offsets;
+    }
+
+    /**
+     * Get the total count of visible rows of all sub-items of this one.
+     *
+     * @return the count
+     */
+    protected final int getChildCount() {
+        getOffsets();
+        return childCount;
+    }
+
+    /**
+     * Get the item at the given position, starting the count at the first row of the first sub-item.
+     *
+     * @param position the position to look for
+     * @return the item or null if the position is out of bounds
+     */
+    protected final @Nullable ResultItem getChildItem(final int position) {
+        final int[] index = getOffsets();
+        if (position < 0 || position >= childCount) {
+            return null;
+        }
+        int i = Arrays.binarySearch(index, position);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return items.get(i).getItem(position - index[i]);
     }
 
     /**
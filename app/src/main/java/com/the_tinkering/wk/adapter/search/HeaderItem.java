@@ -58,18 +58,18 @@ public abstract class HeaderItem extends ContainerItem {
      * @param collapsed true if it is
      */
     public final void setCollapsed(final boolean collapsed) {
-        this.collapsed = collapsed;
+        if (this.collapsed != collapsed) {
+            this.collapsed = collapsed;
+            invalidate();
+        }
     }
 
     @Override
     public final int getCount() {
-        int count = 1;
-        if (!collapsed) {
-            for (final ResultItem item: items) {
-                count += item.getCount();
-            }
+        if (collapsed) {
+            return 1;
         }
-        return count;
+        return 1 + getChildCount();
     }
 
     @Override
@@ -77,16 +77,9 @@ public abstract class HeaderItem extends ContainerItem {
         if (position == 0) {
             return this;
         }
-        if (!collapsed) {
-            int pos = position - 1;
-            for (final ResultItem item: items) {
-                final int count = item.getCount();
-                if (pos < count) {
-                    return item.getItem(pos);
-                }
-                pos -= count;
-            }
+        if (collapsed) {
+            return null;
         }
-        return null;
+        return getChildItem(position - 1);
     }
 }
@@ -24,24 +24,12 @@ import javax.annotation.Nullable;
 public final class RootItem extends ContainerItem {
     @Override
     public int getCount() {
-        int count = 0;
-        for (final ResultItem item: items) {
-            count += item.getCount();
-        }
-        return count;
+        return getChildCount();
     }
 
     @Override
     public @Nullable ResultItem getItem(final int position) {
-        int pos = position;
-        for (final ResultItem item: items) {
-            final int count = item.getCount();
-            if (pos < count) {
-                return item.getItem(pos);
-            }
-            pos -= count;
-        }
-        return null;
+        return getChildItem(position);
     }
 
     @Override
@@ -58,6 +46,6 @@ public final class RootItem extends ContainerItem {
      * Remove all contained items.
      */
     public void clear() {
-        items.clear();
+        clearItems();
     }
 }
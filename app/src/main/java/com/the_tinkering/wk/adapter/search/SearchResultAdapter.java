@@ -52,6 +52,7 @@ import static java.util.Objects.requireNonNull;
 public final class SearchResultAdapter extends RecyclerView.Adapter<ResultItemViewHolder> {
     private final WeakLcoRef<SearchResultFragment> fragmentRef;
     private final RootItem rootItem = new RootItem();
+    private final SearchFormItem formItem = new SearchFormItem();
     private SearchSortOrder sortOrder = SearchSortOrder.TYPE;
     private int numSubjects = 0;
     private long searchTime = 0;
@@ -148,7 +149,7 @@ public final class SearchResultAdapter extends RecyclerView.Adapter<ResultItemVi
     private @Nullable ResultItem getItem(final int position) {
         if (showingForm) {
             if (position == 0) {
-                return new SearchFormItem();
+                return formItem;
             }
             return rootItem.getItem(position - 1);
         }
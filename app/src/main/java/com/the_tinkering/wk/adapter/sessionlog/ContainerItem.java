@@ -17,17 +17,43 @@
 package com.the_tinkering.wk.adapter.sessionlog;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
 
 /**
  * Abstract base class for items that can contain other items.
+ *
+ * <p>
+ *     Containers keep a cached position index over their direct sub-items: a prefix sum
+ *     of the visible counts of the children, searched with a binary search. The index is
+ *     rebuilt lazily after adding items or collapsing/expanding a header.
+ * </p>
  */
 public abstract class ContainerItem extends LogItem {
     /**
      * The sub-items.
      */
-    protected final Collection<LogItem> items = new ArrayList<>();
+    protected final List<LogItem> items = new ArrayList<>();
+
+    /**
+     * The container this item was added to, or null for the root.
+     */
+    private @Nullable ContainerItem parent = null;
+
+    /**
+     * Prefix sums of the counts of the sub-items: element i is the position of the first row of
+     * sub-item i, relative to the first row of the first sub-item. Null if the index must be rebuilt.
+     */
+    private @Nullable int[] offsets = null;
+
+    /**
+     * The total count of visible rows of all sub-items, only valid if offsets is not null.
+     */
+    private int childCount = 0;
 
     /**
      * The contained items. This is filled even if this item is collapsed.
@@ -44,7 +70,11 @@ public abstract class ContainerItem extends LogItem {
      * @param item the item to add
      */
     public final void addItem(final LogItem item) {
+        if (item instanceof ContainerItem) {
+            ((ContainerItem) item).parent = this;
+        }
         items.add(item);
+        invalidate();
     }
 
     /**
@@ -55,4 +85,72 @@ public abstract class ContainerItem extends LogItem {
     public final boolean isEmpty() {
         return items.isEmpty();
     }
+
+    /**
+     * Discard the cached position index of this item and all of its ancestors. Must be called
+     * whenever the visible count of this item or one of its sub-items changes.
+     */
+    protected final void invalidate() {
+        @Nullable ContainerItem container = this;
+        while (container != null) {
+            container.offsets = null;
+            container = container.parent;
+        }
+    }
+
+    /**
+     * Remove all sub-items of this one.
+     */
+    protected final void clearItems() {
+        for (final LogItem item: items) {
+            if (item instanceof ContainerItem) {
+                ((ContainerItem) item).parent = null;
+            }
+        }
+        items.clear();
+        invalidate();
+    }
+
+    private int[] getOffsets() {
+        if (offsets == null) {
+            final int[] result = new int[items.size()];
+            int count = 0;
+            for (int i=0; i<result.length; i++) {
+                result[i] = count;
+                count += items.get(i).getCount();
+            }
+            childCount = count;
+            offsets = result;
+            return result;
+        }
+        return offsets;
+    }
+
+    /**
+     * Get the total count of visible rows of all sub-items of this one.
+     *
+     * @return the count
+     */
+    protected final int getChildCount() {
+        getOffsets();
+        return childCount;
+    }
+
+    /**
+     * Get the item at the given position, starting the count at the first row of the first sub-item.
+     *
+     * @param position the position to look for
+     * @return the item or null if the position is out of bounds
+     */
+    protected final @Nullable LogItem getChildItem(final int position) {
+        final int[] index = getOffsets();
+        if (position < 0 || position >= childCount) {
+            return null;
+        }
+        int i = Arrays.binarySearch(index, position);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return items.get(i).getItem(position - index[i]);
+    }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.api;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.the_tinkering.wk.api.model.WaniKaniEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * One page of a collection response from the API, parsed in a streaming fashion.
+ *
+ * <p>
+ *     The response body is never turned into a JSON tree. Instead, the elements of the data
+ *     array are bound directly to entity instances as they are encountered in the stream,
+ *     and the properties of the envelope that the app cares about are picked up along the way.
+ *     Everything else is skipped without being materialized.
+ * </p>
+ *
+ * @param <T> the type of the entities in this page
+ */
+public final class ApiCollectionPage<T extends WaniKaniEntity> {
+    private final List<T> entities = new ArrayList<>();
+    private @Nullable String nextUrl = null;
+    private boolean hasData = false;
+    private boolean entitiesValid = true;
+
+    private ApiCollectionPage() {
+        //
+    }
+
+    /**
+     * Create a valid page without any entities or a next page.
+     *
+     * @param <T> the type of the entities
+     * @return the page
+     */
+    public static <T extends WaniKaniEntity> ApiCollectionPage<T> empty() {
+        final ApiCollectionPage<T> page = new ApiCollectionPage<>();
+        page.hasData = true;
+        return page;
+    }
+
+    /**
+     * Parse a page from a response body stream. The stream is consumed but not closed.
+     *
+     * @param mapper the object mapper to bind entities with
+     * @param is the response body
+     * @param cls the class to map the entities to
+     * @param <T> the type of the entities
+     * @return the parsed page, check isValid() to see if the response had the expected structure
+     * @throws IOException if the stream could not be read or is not valid JSON
+     */
+    public static <T extends WaniKaniEntity> ApiCollectionPage<T> parse(final ObjectMapper mapper, final InputStream is,
+                                                                        final Class<? extends T> cls) throws IOException {
+        final ApiCollectionPage<T> page = new ApiCollectionPage<>();
+        try (final JsonParser parser = mapper.getFactory().createParser(is)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return page;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                final JsonToken token = parser.nextToken();
+                if ("data".equals(name) && token == JsonToken.START_ARRAY) {
+                    page.hasData = true;
+                    @Nullable JsonToken elementToken;
+                    while ((elementToken = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (elementToken == null) {
+                            throw new IOException("Unexpected end of input in data array");
+                        }
+                        if (elementToken != JsonToken.START_OBJECT) {
+                            // Not an entity at all, so the page can't be trusted to be complete
+                            page.entitiesValid = false;
+                            parser.skipChildren();
+                            continue;
+                        }
+                        final @Nullable T entity = parseEntity(mapper, parser, cls);
+                        if (entity == null) {
+                            page.entitiesValid = false;
+                        }
+                        else {
+                            page.entities.add(entity);
+                        }
+                    }
+                }
+                else if ("pages".equals(name) && token == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        final String pagesName = parser.getCurrentName();
+                        final JsonToken pagesToken = parser.nextToken();
+                        if ("next_url".equals(pagesName) && pagesToken == JsonToken.VALUE_STRING) {
+                            page.nextUrl = parser.getText();
+                        }
+                        else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Parse a single element of the data array, respecting WK's specific representation of entities.
+     * Specifically, the ID, object and data_updated_at properties are outside of the entity data
+     * object itself, but we want them to be included in the entity class, if at all. On entry,
+     * the parser must be positioned at the start of the element's object, on exit it is positioned
+     * at the end of it.
+     *
+     * @param mapper the object mapper to bind the entity with
+     * @param parser the parser
+     * @param cls the class to map the entity to
+     * @param <T> the type of the entity
+     * @return the entity, or null if the element is missing one of the required properties
+     * @throws IOException if the stream could not be read or the entity could not be mapped
+     */
+    private static @Nullable <T extends WaniKaniEntity> T parseEntity(final ObjectMapper mapper, final JsonParser parser,
+                                                                      final Class<? extends T> cls) throws IOException {
+        @Nullable T value = null;
+        long id = 0;
+        @Nullable String object = null;
+        boolean hasId = false;
+        boolean hasDataUpdatedAt = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            switch (name) {
+                case "id":
+                    id = parser.getValueAsLong();
+                    hasId = true;
+                    break;
+                case "object":
+                    object = parser.getValueAsString();
+                    break;
+                case "data_updated_at":
+                    hasDataUpdatedAt = true;
+                    break;
+                case "data":
+                    if (token == JsonToken.START_OBJECT) {
+                        value = mapper.readValue(parser, cls);
+                    }
+                    else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        if (value == null || !hasId || object == null || !hasDataUpdatedAt) {
+            return null;
+        }
+        value.setId(id);
+        value.setObject(object);
+        return value;
+    }
+
+    /**
+     * The entities in this page, in the order they appeared in the response.
+     *
+     * @return the list
+     */
+    public List<T> getEntities() {
+        return entities;
+    }
+
+    /**
+     * The URL for the next page of this collection.
+     *
+     * @return the URL or null if this is the last page
+     */
+    public @Nullable String getNextUrl() {
+        return nextUrl;
+    }
+
+    /**
+     * Did the response have the expected structure, with a data array where every element had all the required properties?.
+     *
+     * @return true if it did
+     */
+    public boolean isValid() {
+        return hasData && entitiesValid;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.api;
+
+import com.the_tinkering.wk.GlobalSettings;
+import com.the_tinkering.wk.enums.ApiLogLevel;
+import com.the_tinkering.wk.util.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+
+import javax.annotation.Nullable;
+
+/**
+ * A trace of a single API call for the debug log. By default this logs one summary line per call,
+ * with the method, URL, status, byte count, entity count and timings. Only if the API log level
+ * is set to FULL are the request and response bodies logged as well, exactly as they went over the
+ * wire and capped at MAX_BODY_LENGTH bytes, so this never re-serializes a response just to log it.
+ */
+public final class ApiTrace {
+    private static final Logger LOGGER = Logger.get(ApiTrace.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The maximum number of bytes of a body to capture for the log.
+     */
+    private static final int MAX_BODY_LENGTH = 20_000;
+
+    private final String method;
+    private final URL url;
+    private final boolean full;
+    private final long startTime = System.nanoTime();
+    private long headersTime = 0;
+    private int code = 0;
+    private long numBytes = 0;
+    private int numEntities = -1;
+    private @Nullable ByteArrayOutputStream body = null;
+
+    /**
+     * The constructor.
+     *
+     * @param method the HTTP method
+     * @param url the URL
+     */
+    public ApiTrace(final String method, final URL url) {
+        this.method = method;
+        this.url = url;
+        full = GlobalSettings.Api.getApiLogLevel() == ApiLogLevel.FULL;
+    }
+
+    /**
+     * Log the request body, if the log level asks for it.
+     *
+     * @param requestBody the request body as sent to the server
+     */
+    public void onRequestBody(final byte[] requestBody) {
+        if (full) {
+            LOGGER.info("Request body: %s", new String(requestBody, 0, Math.min(requestBody.length, MAX_BODY_LENGTH), UTF_8));
+        }
+    }
+
+    /**
+     * Record the arrival of the response headers.
+     *
+     * @param responseCode the HTTP status code
+     */
+    public void onHeaders(final int responseCode) {
+        headersTime = System.nanoTime();
+        code = responseCode;
+    }
+
+    /**
+     * Wrap the response body stream, to count the bytes read from it and capture the start of
+     * the body if the log level asks for it.
+     *
+     * @param is the response body stream
+     * @return the wrapped stream
+     */
+    public InputStream wrap(final InputStream is) {
+        if (full) {
+            body = new ByteArrayOutputStream();
+        }
+        return new TracingInputStream(is);
+    }
+
+    /**
+     * Record the number of entities in the response.
+     *
+     * @param count the number
+     */
+    public void setNumEntities(final int count) {
+        numEntities = count;
+    }
+
+    /**
+     * Write the trace to the log.
+     */
+    public void finish() {
+        final long now = System.nanoTime();
+        final long totalMs = (now - startTime) / 1_000_000L;
+        final long headersMs = headersTime == 0 ? totalMs : (headersTime - startTime) / 1_000_000L;
+        if (numEntities >= 0) {
+            LOGGER.info("API %s %s: %d, %d bytes, %d entities, %d ms (headers after %d ms)",
+                    method, url, code, numBytes, numEntities, totalMs, headersMs);
+        }
+        else {
+            LOGGER.info("API %s %s: %d, %d bytes, %d ms (headers after %d ms)",
+                    method, url, code, numBytes, totalMs, headersMs);
+        }
+        if (body != null) {
+            LOGGER.info("Response body: %s", new String(body.toByteArray(), UTF_8));
+        }
+    }
+
+    /**
+     * Input stream wrapper that counts bytes and captures the first part of the stream.
+     */
+    private final class TracingInputStream extends FilterInputStream {
+        private TracingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        private void capture(final byte[] b, final int off, final int len) {
+            numBytes += len;
+            if (body != null && body.size() < MAX_BODY_LENGTH) {
+                body.write(b, off, Math.min(len, MAX_BODY_LENGTH - body.size()));
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                numBytes++;
+                if (body != null && body.size() < MAX_BODY_LENGTH) {
+                    body.write(b);
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                capture(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+            numBytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
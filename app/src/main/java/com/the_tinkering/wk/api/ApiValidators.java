@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.api;
+
+import javax.annotation.Nullable;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static com.the_tinkering.wk.Constants.DAY;
+
+/**
+ * The cache validators of an API response: the ETag and Last-Modified headers, and when the
+ * response was received.
+ *
+ * <p>
+ *     Sending these back with the next request for the same URI lets the API answer with
+ *     304 Not Modified and no body if nothing has changed. Validators are only used for a
+ *     limited time after the full response was received and processed, so the local data
+ *     is rebuilt from a full response at least once in a while, even if the account is idle.
+ * </p>
+ *
+ * <p>
+ *     This class has no Android dependencies, so it can be tested on the JVM.
+ * </p>
+ */
+public final class ApiValidators {
+    /**
+     * The maximum age of validators that are still sent with a request.
+     */
+    public static final long MAX_AGE = DAY;
+
+    private final @Nullable String etag;
+    private final @Nullable String lastModified;
+    private final long receivedAt;
+
+    /**
+     * The constructor.
+     *
+     * @param etag the ETag header of the response
+     * @param lastModified the Last-Modified header of the response
+     * @param receivedAt the timestamp when the response was received
+     */
+    public ApiValidators(final @Nullable String etag, final @Nullable String lastModified, final long receivedAt) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * Get the validators of a response.
+     *
+     * @param response the response
+     * @param now the current timestamp
+     * @return the validators, or null if the response doesn't have any
+     */
+    public static @Nullable ApiValidators fromResponse(final Response response, final long now) {
+        final @Nullable String etag = response.header("ETag");
+        final @Nullable String lastModified = response.header("Last-Modified");
+        if (etag == null && lastModified == null) {
+            return null;
+        }
+        return new ApiValidators(etag, lastModified, now);
+    }
+
+    /**
+     * Decode validators from the representation used for storage.
+     *
+     * @param encoded the encoded form, as produced by encode()
+     * @return the validators, or null if the encoded form is null or not valid
+     */
+    public static @Nullable ApiValidators decode(final @Nullable String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        final String[] parts = encoded.split("\n", -1);
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new ApiValidators(parts[1].isEmpty() ? null : parts[1], parts[2].isEmpty() ? null : parts[2],
+                    Long.parseLong(parts[0]));
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Encode these validators for storage. Header values can't contain newlines, so the
+     * fields are separated by them.
+     *
+     * @return the encoded form
+     */
+    public String encode() {
+        return receivedAt + "\n" + (etag == null ? "" : etag) + "\n" + (lastModified == null ? "" : lastModified);
+    }
+
+    /**
+     * Can these validators still be sent with a request?.
+     *
+     * @param now the current timestamp
+     * @return true if they can
+     */
+    public boolean isUsable(final long now) {
+        return now >= receivedAt && now - receivedAt < MAX_AGE;
+    }
+
+    /**
+     * Add the conditional request headers to a request.
+     *
+     * @param builder the builder for the request
+     */
+    public void apply(final Request.Builder builder) {
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+    }
+
+    /**
+     * The ETag header of the response.
+     * @return the value
+     */
+    public @Nullable String getEtag() {
+        return etag;
+    }
+
+    /**
+     * The Last-Modified header of the response.
+     * @return the value
+     */
+    public @Nullable String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * The timestamp when the response was received.
+     * @return the value
+     */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+}
@@ -16,17 +16,60 @@
 
 package com.the_tinkering.wk.api;
 
+import java.util.Locale;
+
+import javax.annotation.Nullable;
+
 /**
- * A simple burst-capable rate limiter for the WaniKani API. To be a good API
- * citizen, the request rate is set to an average of one call per 1.1 seconds,
- * with a burst of 1.
+ * A thread-safe token bucket rate limiter for the WaniKani API.
+ *
+ * <p>
+ *     The bucket holds up to BURST tokens, and gains one token every REFILL_INTERVAL ms.
+ *     Every API call takes a token, waiting for one to become available if needed. On its own this
+ *     holds the app to the API's limit of 60 requests per minute on average, while still allowing
+ *     short bursts. A burst can push a single minute a few requests over the limit, which is what the
+ *     server feedback below is for.
+ * </p>
+ *
+ * <p>
+ *     On top of that, the limiter listens to what the server tells it. The RateLimit-Remaining and
+ *     RateLimit-Reset response headers clamp the bucket to what the server says is left in the current
+ *     window, and an HTTP 429 blocks all calls until the time indicated by Retry-After, or a short
+ *     default pause if the server didn't say.
+ * </p>
  */
 public final class RateLimiter {
-    private static final RateLimiter instance = new RateLimiter();
-    private static final int BURST = 1;
-    private final long delay;
-    private int load = 0;
-    private long lastUpdate = System.currentTimeMillis();
+    private static final RateLimiter instance = new RateLimiter(new SystemTimeSource());
+
+    /**
+     * The maximum number of tokens in the bucket.
+     */
+    static final int BURST = 5;
+
+    /**
+     * The time it takes to add one token to the bucket, which matches the API's 60 requests per minute.
+     */
+    static final long REFILL_INTERVAL = 1000;
+
+    /**
+     * The pause after an HTTP 429 if the server didn't include a usable Retry-After header.
+     */
+    static final long DEFAULT_PAUSE = 5000;
+
+    /**
+     * The longest pause the limiter will accept from the server's headers. This guards against
+     * a device clock that is way off compared to the server's.
+     */
+    static final long MAX_PAUSE = 65000;
+
+    private final TimeSource timeSource;
+    private int tokens = BURST;
+    private long lastRefill;
+    private long blockedUntil = 0;
+    private long numRequests = 0;
+    private long numWaits = 0;
+    private long totalWaitTime = 0;
+    private long numTooManyRequests = 0;
 
     /**
      * Get the singleton instance.
@@ -37,45 +80,244 @@ public final class RateLimiter {
         return instance;
     }
 
-    private RateLimiter() {
-        delay = 1100;
+    /**
+     * The constructor, only used directly for tests.
+     *
+     * @param timeSource the source of time for this instance
+     */
+    RateLimiter(final TimeSource timeSource) {
+        this.timeSource = timeSource;
+        lastRefill = timeSource.currentTimeMillis();
     }
 
     /**
-     * If the API reports an HTTP 429 indicating we're talking too fast, back off
-     * for a moment by simulating we've gone over the burst by a few requests.
-     * This forces the app to back off for a few seconds before trying again.
+     * Add the tokens that have accumulated since the last refill. Must be called with the lock held.
+     *
+     * @param now the current timestamp
+     */
+    private void refill(final long now) {
+        if (now < lastRefill) {
+            // The clock went backwards, just restart the refill schedule
+            lastRefill = now;
+            return;
+        }
+        final long numRefills = (now - lastRefill) / REFILL_INTERVAL;
+        if (numRefills > 0) {
+            tokens = (int) Math.min(BURST, tokens + numRefills);
+            lastRefill += numRefills * REFILL_INTERVAL;
+        }
+        if (tokens == BURST) {
+            lastRefill = now;
+        }
+    }
+
+    /**
+     * Try to take a token from the bucket.
+     *
+     * @return 0 if a token was taken, or otherwise the time to wait before trying again
+     */
+    private synchronized long tryAcquire() {
+        final long now = timeSource.currentTimeMillis();
+        refill(now);
+        if (now < blockedUntil) {
+            return blockedUntil - now;
+        }
+        if (tokens > 0) {
+            tokens--;
+            numRequests++;
+            return 0;
+        }
+        return Math.max(1, lastRefill + REFILL_INTERVAL - now);
+    }
+
+    /**
+     * Record a wait for statistics.
+     *
+     * @param waitTime the time waited
      */
-    public void pause() {
-        load = BURST + 3;
+    private synchronized void recordWait(final long waitTime) {
+        numWaits++;
+        totalWaitTime += waitTime;
     }
 
     /**
-     * Prepare for an API call by waiting for a burst slot to become available,
-     * if necessary.
+     * Prepare for an API call by waiting for a token to become available, if necessary.
+     * The lock is not held while waiting, so other threads can report responses in the meantime.
+     * If the calling thread is interrupted, this returns without a token and with the interrupt
+     * status still set, so the caller can check it and abandon the call.
      */
     public void prepare() {
         while (true) {
-            if (load < BURST) {
-                if (load == 0) {
-                    lastUpdate = System.currentTimeMillis();
-                }
-                load++;
+            final long waitTime = tryAcquire();
+            if (waitTime <= 0) {
                 return;
             }
+            recordWait(waitTime);
             try {
-                final long waitTime = Math.min(delay - (System.currentTimeMillis() - lastUpdate), delay);
-                if (waitTime > 0) {
-                    //noinspection BusyWait
-                    Thread.sleep(waitTime);
-                }
+                timeSource.sleep(waitTime);
             } catch (final InterruptedException e) {
-                //
-            }
-            while (load > 0 && lastUpdate + delay <= System.currentTimeMillis()) {
-                load--;
-                lastUpdate += delay;
+                Thread.currentThread().interrupt();
+                return;
             }
         }
     }
+
+    /**
+     * Parse a header value as a long.
+     *
+     * @param value the header value, may be null
+     * @return the value or -1 if missing or not a valid number
+     */
+    private static long parseHeader(final @Nullable String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim(), 10);
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Block all calls until the given time, unless there is already a longer block in place.
+     * Must be called with the lock held.
+     *
+     * @param now the current timestamp
+     * @param until the timestamp to block until
+     */
+    private void blockUntil(final long now, final long until) {
+        blockedUntil = Math.max(blockedUntil, Math.min(until, now + MAX_PAUSE));
+    }
+
+    /**
+     * Update the state of the limiter from the rate limit headers in an API response.
+     *
+     * @param remaining the value of the RateLimit-Remaining header, if present
+     * @param reset the value of the RateLimit-Reset header, if present, in seconds since the epoch
+     */
+    public synchronized void onResponse(final @Nullable String remaining, final @Nullable String reset) {
+        final long now = timeSource.currentTimeMillis();
+        refill(now);
+        final long numRemaining = parseHeader(remaining);
+        if (numRemaining < 0) {
+            return;
+        }
+        if (numRemaining < tokens) {
+            tokens = (int) numRemaining;
+        }
+        final long resetTime = parseHeader(reset);
+        if (numRemaining == 0 && resetTime > 0) {
+            blockUntil(now, resetTime * 1000);
+        }
+    }
+
+    /**
+     * If the API reports an HTTP 429 indicating we're talking too fast, back off
+     * until the server says we can try again. This empties the bucket, and blocks all
+     * calls for the duration of the Retry-After header, or a short default pause.
+     *
+     * @param retryAfter the value of the Retry-After header, if present, in seconds
+     */
+    public synchronized void pause(final @Nullable String retryAfter) {
+        final long now = timeSource.currentTimeMillis();
+        refill(now);
+        numTooManyRequests++;
+        tokens = 0;
+        lastRefill = now;
+        final long seconds = parseHeader(retryAfter);
+        blockUntil(now, now + (seconds >= 0 ? seconds * 1000 : DEFAULT_PAUSE));
+    }
+
+    /**
+     * The number of tokens currently available, for tests.
+     *
+     * @return the number
+     */
+    synchronized int getAvailableTokens() {
+        refill(timeSource.currentTimeMillis());
+        return tokens;
+    }
+
+    /**
+     * The number of API calls that have been let through by this limiter.
+     *
+     * @return the number
+     */
+    public synchronized long getNumRequests() {
+        return numRequests;
+    }
+
+    /**
+     * The number of times a caller had to wait for a token.
+     *
+     * @return the number
+     */
+    public synchronized long getNumWaits() {
+        return numWaits;
+    }
+
+    /**
+     * The total time in ms callers have spent waiting for a token.
+     *
+     * @return the time
+     */
+    public synchronized long getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    /**
+     * The number of HTTP 429 responses reported to this limiter.
+     *
+     * @return the number
+     */
+    public synchronized long getNumTooManyRequests() {
+        return numTooManyRequests;
+    }
+
+    /**
+     * Get a summary of the counters for diagnostic logging.
+     *
+     * @return the summary
+     */
+    public synchronized String getDiagnostics() {
+        return String.format(Locale.ROOT, "requests:%d waits:%d waitTime:%dms tooManyRequests:%d",
+                numRequests, numWaits, totalWaitTime, numTooManyRequests);
+    }
+
+    /**
+     * Abstraction of the clock, so tests can run against a fake one.
+     */
+    interface TimeSource {
+        /**
+         * The current time.
+         *
+         * @return the timestamp in ms
+         */
+        long currentTimeMillis();
+
+        /**
+         * Wait for the given time.
+         *
+         * @param ms the time to wait in ms
+         * @throws InterruptedException if the wait was interrupted
+         */
+        void sleep(long ms) throws InterruptedException;
+    }
+
+    /**
+     * The real clock.
+     */
+    private static final class SystemTimeSource implements TimeSource {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public void sleep(final long ms) throws InterruptedException {
+            //noinspection BusyWait
+            Thread.sleep(ms);
+        }
+    }
 }
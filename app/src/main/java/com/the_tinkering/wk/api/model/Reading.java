@@ -104,8 +104,15 @@ public final class Reading {
         }
     }
 
+    /**
+     * Check if an answer matches a reading string except for a digraph mismatch.
+     *
+     * @param answer the answer to check
+     * @param baseLine the reading string to compare against
+     * @return the digraph match details if the answer is correct except for the digraph mismatch
+     */
     @JsonIgnore
-    private static @Nullable DigraphMatch matchesForDigraph(final CharSequence answer, final @Nullable CharSequence baseLine) {
+    public static @Nullable DigraphMatch matchesForDigraph(final CharSequence answer, final @Nullable CharSequence baseLine) {
         if (baseLine == null || answer.length() != baseLine.length()) {
             return null;
         }
@@ -16,6 +16,8 @@
 
 package com.the_tinkering.wk.db;
 
+import android.database.Cursor;
+
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
@@ -26,9 +28,11 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
 import com.the_tinkering.wk.GlobalSettings;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.dao.AudioDownloadStatusDao;
+import com.the_tinkering.wk.db.dao.AudioFileDao;
 import com.the_tinkering.wk.db.dao.LevelProgressionDao;
 import com.the_tinkering.wk.db.dao.LogRecordDao;
 import com.the_tinkering.wk.db.dao.PropertiesDao;
+import com.the_tinkering.wk.db.dao.ReviewOutboxDao;
 import com.the_tinkering.wk.db.dao.SearchPresetDao;
 import com.the_tinkering.wk.db.dao.SessionItemDao;
 import com.the_tinkering.wk.db.dao.SrsSystemDao;
@@ -39,19 +43,24 @@ import com.the_tinkering.wk.db.dao.SubjectSyncDao;
 import com.the_tinkering.wk.db.dao.SubjectViewsDao;
 import com.the_tinkering.wk.db.dao.TaskDefinitionDao;
 import com.the_tinkering.wk.db.model.AudioDownloadStatus;
+import com.the_tinkering.wk.db.model.AudioFile;
 import com.the_tinkering.wk.db.model.LevelProgressionEntityDefinition;
 import com.the_tinkering.wk.db.model.LogRecordEntityDefinition;
 import com.the_tinkering.wk.db.model.PronunciationAudioOwner;
 import com.the_tinkering.wk.db.model.Property;
+import com.the_tinkering.wk.db.model.ReviewOutboxItem;
 import com.the_tinkering.wk.db.model.SearchPreset;
 import com.the_tinkering.wk.db.model.SessionItem;
 import com.the_tinkering.wk.db.model.SrsSystemDefinition;
+import com.the_tinkering.wk.db.model.SubjectContentEntityDefinition;
 import com.the_tinkering.wk.db.model.SubjectEntityDefinition;
+import com.the_tinkering.wk.db.model.SubjectSearchEntityDefinition;
 import com.the_tinkering.wk.db.model.TaskDefinition;
 import com.the_tinkering.wk.enums.SessionType;
 import com.the_tinkering.wk.jobs.TickJob;
 import com.the_tinkering.wk.model.Session;
 import com.the_tinkering.wk.services.JobRunnerService;
+import com.the_tinkering.wk.tasks.BuildSearchIndexTask;
 import com.the_tinkering.wk.tasks.DownloadAudioTask;
 import com.the_tinkering.wk.tasks.DownloadPitchInfoTask;
 import com.the_tinkering.wk.tasks.GetAssignmentsTask;
@@ -66,11 +75,10 @@ import com.the_tinkering.wk.tasks.GetSubjectsTask;
 import com.the_tinkering.wk.tasks.GetSummaryTask;
 import com.the_tinkering.wk.tasks.GetUserTask;
 import com.the_tinkering.wk.tasks.LoadReferenceDataTask;
-import com.the_tinkering.wk.tasks.ReportSessionItemTask;
 import com.the_tinkering.wk.tasks.ScanAudioDownloadStatusTask;
+import com.the_tinkering.wk.tasks.SubmitReviewOutboxTask;
 import com.the_tinkering.wk.tasks.SubmitStudyMaterialTask;
-
-import java.util.Locale;
+import com.the_tinkering.wk.util.Logger;
 
 import javax.annotation.Nullable;
 
@@ -89,10 +97,16 @@ import static com.the_tinkering.wk.util.ObjectSupport.join;
         SessionItem.class,
         LogRecordEntityDefinition.class,
         AudioDownloadStatus.class,
-        SearchPreset.class
-}, version = 68)
+        SearchPreset.class,
+        SubjectSearchEntityDefinition.class,
+        SubjectContentEntityDefinition.class,
+        ReviewOutboxItem.class,
+        AudioFile.class
+}, version = 73)
 @TypeConverters(Converters.class)
 public abstract class AppDatabase extends RoomDatabase {
+    private static final Logger LOGGER = Logger.get(AppDatabase.class);
+
     /**
      * The singleton instance.
      */
@@ -333,6 +347,145 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    /**
+     * Migration from 68 to 69: add the subject_search full-text index. It starts out empty, BuildSearchIndexTask fills it.
+     */
+    public static final Migration MIGRATION_68_69 = new Migration(68, 69) {
+        @Override
+        public void migrate(final SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `subject_search` USING FTS4(`characters` TEXT, `meanings` TEXT,"
+                    + " `readings` TEXT, `synonyms` TEXT, `mnemonics` TEXT)");
+        }
+    };
+
+    /**
+     * Migration from 69 to 70: move the bulky text columns of the subject table into the new subject_content table.
+     * SQLite can't drop columns, so the subject table is rebuilt without them. The old searchTarget and
+     * smallSearchTarget columns are dropped along the way, the subject_search index replaces them.
+     */
+    public static final Migration MIGRATION_69_70 = new Migration(69, 70) {
+        @Override
+        public void migrate(final SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `subject_content` (`id` INTEGER NOT NULL, `meaningMnemonic` TEXT,"
+                    + " `meaningHint` TEXT, `readingMnemonic` TEXT, `readingHint` TEXT, `contextSentences` TEXT,"
+                    + " `pronunciationAudios` TEXT, `pitchInfo` TEXT, `strokeData` TEXT, PRIMARY KEY(`id`))");
+            database.execSQL("INSERT INTO subject_content (id, meaningMnemonic, meaningHint, readingMnemonic, readingHint,"
+                    + " contextSentences, pronunciationAudios, pitchInfo, strokeData)"
+                    + " SELECT id, meaningMnemonic, meaningHint, readingMnemonic, readingHint,"
+                    + " contextSentences, pronunciationAudios, pitchInfo, strokeData FROM subject");
+
+            database.execSQL("CREATE TABLE IF NOT EXISTS `subject_new` (`id` INTEGER NOT NULL, `object` TEXT,"
+                    + " `typeCode` INTEGER NOT NULL, `hiddenAt` INTEGER, `lessonPosition` INTEGER NOT NULL,"
+                    + " `srsSystemId` INTEGER NOT NULL, `level` INTEGER NOT NULL, `characters` TEXT, `slug` TEXT,"
+                    + " `documentUrl` TEXT, `meanings` TEXT, `auxiliaryMeanings` TEXT, `readings` TEXT,"
+                    + " `componentSubjectIds` TEXT, `amalgamationSubjectIds` TEXT, `visuallySimilarSubjectIds` TEXT,"
+                    + " `partsOfSpeech` TEXT, `audioDownloadStatus` INTEGER NOT NULL, `assignmentId` INTEGER NOT NULL,"
+                    + " `availableAt` INTEGER, `burnedAt` INTEGER, `passedAt` INTEGER, `resurrectedAt` INTEGER,"
+                    + " `startedAt` INTEGER, `unlockedAt` INTEGER, `passed` INTEGER NOT NULL, `resurrected` INTEGER NOT NULL,"
+                    + " `srsStage` INTEGER NOT NULL, `levelProgressScore` INTEGER NOT NULL, `lastIncorrectAnswer` INTEGER,"
+                    + " `assignmentPatched` INTEGER NOT NULL, `studyMaterialId` INTEGER NOT NULL, `meaningNote` TEXT,"
+                    + " `meaningSynonyms` TEXT, `readingNote` TEXT, `studyMaterialPatched` INTEGER NOT NULL,"
+                    + " `reviewStatisticId` INTEGER NOT NULL, `meaningCorrect` INTEGER NOT NULL,"
+                    + " `meaningIncorrect` INTEGER NOT NULL, `meaningMaxStreak` INTEGER NOT NULL,"
+                    + " `meaningCurrentStreak` INTEGER NOT NULL, `readingCorrect` INTEGER NOT NULL,"
+                    + " `readingIncorrect` INTEGER NOT NULL, `readingMaxStreak` INTEGER NOT NULL,"
+                    + " `readingCurrentStreak` INTEGER NOT NULL, `percentageCorrect` INTEGER NOT NULL,"
+                    + " `leechScore` INTEGER NOT NULL, `statisticPatched` INTEGER NOT NULL, `frequency` INTEGER NOT NULL,"
+                    + " `joyoGrade` INTEGER NOT NULL, `jlptLevel` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+            final String columns = "id, object, typeCode, hiddenAt, lessonPosition, srsSystemId, level, characters, slug,"
+                    + " documentUrl, meanings, auxiliaryMeanings, readings, componentSubjectIds, amalgamationSubjectIds,"
+                    + " visuallySimilarSubjectIds, partsOfSpeech, audioDownloadStatus, assignmentId, availableAt, burnedAt,"
+                    + " passedAt, resurrectedAt, startedAt, unlockedAt, passed, resurrected, srsStage, levelProgressScore,"
+                    + " lastIncorrectAnswer, assignmentPatched, studyMaterialId, meaningNote, meaningSynonyms, readingNote,"
+                    + " studyMaterialPatched, reviewStatisticId, meaningCorrect, meaningIncorrect, meaningMaxStreak,"
+                    + " meaningCurrentStreak, readingCorrect, readingIncorrect, readingMaxStreak, readingCurrentStreak,"
+                    + " percentageCorrect, leechScore, statisticPatched, frequency, joyoGrade, jlptLevel";
+            database.execSQL("INSERT INTO subject_new (" + columns + ") SELECT " + columns + " FROM subject");
+            database.execSQL("DROP TABLE subject");
+            database.execSQL("ALTER TABLE subject_new RENAME TO subject");
+
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_subject_level` ON `subject` (`level`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_subject_characters` ON `subject` (`characters`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_subject_availableAt` ON `subject` (`availableAt`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_subject_burnedAt` ON `subject` (`burnedAt`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_subject_startedAt` ON `subject` (`startedAt`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_subject_unlockedAt` ON `subject` (`unlockedAt`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_subject_srsStage` ON `subject` (`srsStage`)");
+        }
+    };
+
+    /**
+     * Migration from 70 to 71: add the review outbox table, and move pending session item reports
+     * from the task table into it.
+     */
+    public static final Migration MIGRATION_70_71 = new Migration(70, 71) {
+        @Override
+        public void migrate(final SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `review_outbox` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                    + " `timestamp` INTEGER NOT NULL, `subjectId` INTEGER NOT NULL, `assignmentId` INTEGER NOT NULL,"
+                    + " `type` TEXT, `meaningIncorrect` INTEGER NOT NULL, `readingIncorrect` INTEGER NOT NULL,"
+                    + " `justPassed` INTEGER NOT NULL)");
+
+            final String legacyClass = "com.the_tinkering.wk.tasks.ReportSessionItemTask";
+            boolean found = false;
+            final Cursor cursor = database.query("SELECT data FROM task_definition WHERE taskClass = ? ORDER BY id",
+                    new Object[] {legacyClass});
+            try {
+                while (cursor.moveToNext()) {
+                    final @Nullable String data = cursor.getString(0);
+                    final String[] parts = (data == null ? "" : data).split(" ");
+                    if (parts.length < 6) {
+                        LOGGER.info("Dropping legacy session item report with too few fields: '%s'", data);
+                        continue;
+                    }
+                    try {
+                        final boolean justPassed = parts.length >= 7 && Boolean.parseBoolean(parts[6]);
+                        database.execSQL("INSERT INTO review_outbox (timestamp, subjectId, assignmentId, type,"
+                                        + " meaningIncorrect, readingIncorrect, justPassed) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                                new Object[] {Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                                        SessionType.valueOf(parts[3]).name(), Integer.parseInt(parts[4]),
+                                        Integer.parseInt(parts[5]), justPassed ? 1 : 0});
+                        found = true;
+                    } catch (final RuntimeException e) {
+                        LOGGER.error(e, "Dropping malformed legacy session item report: '%s'", data);
+                    }
+                }
+            }
+            finally {
+                cursor.close();
+            }
+            database.execSQL("DELETE FROM task_definition WHERE taskClass = ?", new Object[] {legacyClass});
+            if (found) {
+                // The priority is fixed at what it was when this migration was written, like the rest of the schema here
+                database.execSQL("INSERT INTO task_definition (taskClass, priority, data) VALUES (?, 15, '')",
+                        new Object[] {"com.the_tinkering.wk.tasks.SubmitReviewOutboxTask"});
+            }
+        }
+    };
+
+    /**
+     * Migration from 71 to 72: add the audio file inventory table. It starts out empty, and is filled
+     * by walking the audio directories the first time it is needed.
+     */
+    public static final Migration MIGRATION_71_72 = new Migration(71, 72) {
+        @Override
+        public void migrate(final SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `audio_file` (`location` TEXT NOT NULL, `level` INTEGER NOT NULL,"
+                    + " `sourceId` INTEGER NOT NULL, `format` TEXT NOT NULL, `size` INTEGER NOT NULL,"
+                    + " PRIMARY KEY(`location`, `level`, `sourceId`, `format`))");
+        }
+    };
+
+    /**
+     * Migration from 72 to 73: add the failure count to the review outbox, so items the API keeps rejecting can be parked.
+     */
+    public static final Migration MIGRATION_72_73 = new Migration(72, 73) {
+        @Override
+        public void migrate(final SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE review_outbox ADD COLUMN numFailures INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
     /**
      * Get the singleton instance.
      *
@@ -362,7 +515,12 @@ public abstract class AppDatabase extends RoomDatabase {
                             MIGRATION_64_65,
                             MIGRATION_65_66,
                             MIGRATION_66_67,
-                            MIGRATION_67_68)
+                            MIGRATION_67_68,
+                            MIGRATION_68_69,
+                            MIGRATION_69_70,
+                            MIGRATION_70_71,
+                            MIGRATION_71_72,
+                            MIGRATION_72_73)
                     .fallbackToDestructiveMigration()
                     .build();
         }
@@ -539,24 +697,44 @@ public abstract class AppDatabase extends RoomDatabase {
     }
 
     /**
-     * Add a task for reporting the status of a finished session item.
+     * Add a task for submitting the review outbox if it doesn't exist already.
+     */
+    public final void assertSubmitReviewOutboxTask() {
+        final int count = taskDefinitionDao().getCountByType(SubmitReviewOutboxTask.class);
+        if (count == 0) {
+            final TaskDefinition taskDefinition = new TaskDefinition();
+            taskDefinition.setTaskClass(SubmitReviewOutboxTask.class);
+            taskDefinition.setPriority(SubmitReviewOutboxTask.PRIORITY);
+            taskDefinition.setData("");
+            taskDefinitionDao().insertTaskDefinition(taskDefinition);
+        }
+    }
+
+    /**
+     * Add a finished session item to the review outbox, and make sure there is a task to submit it.
      *
      * @param timeStamp the timetamp the item was finished
-     * @param subjectId the subject ID this task applies to
+     * @param subjectId the subject ID this item applies to
      * @param assignmentId the assignment ID for this item, or 0 if not known
      * @param type the type of the session this item is from
      * @param meaningIncorrect number of incorrect meaning answers
      * @param readingIncorrect number of incorrect reading answers
      * @param justPassed true if the subject just passed with this update (went to Guru I for the first time)
      */
-    public final void assertReportSessionItemTask(final long timeStamp, final long subjectId, final long assignmentId, final SessionType type,
-                                                  final int meaningIncorrect, final int readingIncorrect, final boolean justPassed) {
-        final TaskDefinition taskDefinition = new TaskDefinition();
-        taskDefinition.setTaskClass(ReportSessionItemTask.class);
-        taskDefinition.setPriority(ReportSessionItemTask.PRIORITY);
-        taskDefinition.setData(String.format(Locale.ROOT, "%d %d %d %s %d %d %s", timeStamp,
-                subjectId, assignmentId, type, meaningIncorrect, readingIncorrect, justPassed));
-        taskDefinitionDao().insertTaskDefinition(taskDefinition);
+    public final void addToReviewOutbox(final long timeStamp, final long subjectId, final long assignmentId, final SessionType type,
+                                        final int meaningIncorrect, final int readingIncorrect, final boolean justPassed) {
+        final ReviewOutboxItem item = new ReviewOutboxItem();
+        item.setTimestamp(timeStamp);
+        item.setSubjectId(subjectId);
+        item.setAssignmentId(assignmentId);
+        item.setType(type);
+        item.setMeaningIncorrect(meaningIncorrect);
+        item.setReadingIncorrect(readingIncorrect);
+        item.setJustPassed(justPassed);
+        runInTransaction(() -> {
+            reviewOutboxDao().insert(item);
+            assertSubmitReviewOutboxTask();
+        });
     }
 
     /**
@@ -612,6 +790,20 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     }
 
+    /**
+     * Add a task for (re)building the search index for all subjects in one go.
+     */
+    public final void assertBuildSearchIndexTask() {
+        final int count = taskDefinitionDao().getCountByType(BuildSearchIndexTask.class);
+        if (count == 0) {
+            final TaskDefinition taskDefinition = new TaskDefinition();
+            taskDefinition.setTaskClass(BuildSearchIndexTask.class);
+            taskDefinition.setPriority(BuildSearchIndexTask.PRIORITY);
+            taskDefinition.setData("");
+            taskDefinitionDao().insertTaskDefinition(taskDefinition);
+        }
+    }
+
     /**
      * Add a task for scanning audio download status for all subjects in one go.
      */
@@ -658,11 +850,14 @@ public abstract class AppDatabase extends RoomDatabase {
         propertiesDao().setLastSrsSystemSyncSuccessDate(0);
         propertiesDao().setLastLevelProgressionSyncSuccessDate(0);
         propertiesDao().setLastSummarySyncSuccessDate(0);
+        propertiesDao().deleteAllApiValidators();
         propertiesDao().setSessionType(SessionType.NONE);
         propertiesDao().setSessionOnkun(false);
         Session.getInstance().reset();
         taskDefinitionDao().deleteAll();
+        reviewOutboxDao().deleteAll();
         subjectDao().deleteAll();
+        subjectSyncDao().deleteSearchIndex();
         srsSystemDao().deleteAll();
         sessionItemDao().deleteAll();
         levelProgressionDao().deleteAll();
@@ -755,10 +950,24 @@ public abstract class AppDatabase extends RoomDatabase {
      */
     public abstract AudioDownloadStatusDao audioDownloadStatusDao();
 
+    /**
+     * Get the DAO instance for the audio file inventory.
+     *
+     * @return the DAO
+     */
+    public abstract AudioFileDao audioFileDao();
+
     /**
      * Get the DAO instance for search presets.
      *
      * @return the DAO
      */
     public abstract SearchPresetDao searchPresetDao();
+
+    /**
+     * Get the DAO instance for the review outbox.
+     *
+     * @return the DAO
+     */
+    public abstract ReviewOutboxDao reviewOutboxDao();
 }
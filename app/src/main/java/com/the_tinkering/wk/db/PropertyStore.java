@@ -0,0 +1,440 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.db;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.annotation.Nullable;
+
+/**
+ * Thread-safe in-memory store for the properties table, used by PropertiesDao.
+ *
+ * <p>
+ *     All properties are loaded once, on first access. Threads that need the properties while a load
+ *     is in progress share that load instead of waiting for a lock. A thread that isn't allowed to
+ *     load the properties itself hands the load to the backend to run elsewhere, and any other thread
+ *     that needs the properties before then runs it instead. A load that fails is not kept, the next
+ *     access tries again. Reads are served from a concurrent map.
+ *     Values are kept as strings until they are first read through one of the typed accessors,
+ *     after which the parsed value is kept instead, so hot int, long and boolean properties
+ *     are not parsed on every read.
+ * </p>
+ *
+ * <p>
+ *     Writes are applied to the map right away, and recorded as pending changes for the backend.
+ *     Repeated writes to the same property are coalesced, only the last value is written. Writes
+ *     that don't change the value are dropped. The owner of the store is told when the first
+ *     pending change arrives, and is expected to call flush() a short while later. If writing the
+ *     changes fails, they are put back, unless the property has been changed again in the meantime.
+ * </p>
+ *
+ * <p>
+ *     This class has no Android dependencies, so it can be tested on the JVM.
+ * </p>
+ */
+public final class PropertyStore {
+    /**
+     * The persistent storage behind the store.
+     */
+    public interface Backend {
+        /**
+         * Load all properties.
+         *
+         * @return the properties, as a map from name to value
+         * @throws Exception if the properties could not be loaded
+         */
+        Map<String, String> loadAll() throws Exception;
+
+        /**
+         * Can loadAll() be called on the current thread?.
+         *
+         * @return true if it can
+         */
+        boolean canLoadOnCurrentThread();
+
+        /**
+         * Run a load of the properties on another thread, for a thread that can't call loadAll() itself.
+         *
+         * @param load the load to run
+         */
+        void loadInBackground(Runnable load);
+
+        /**
+         * Write a batch of changes, preferably in a single transaction.
+         *
+         * @param changes the changes, as a map from name to value. A null value means the property must be deleted.
+         */
+        void write(Map<String, String> changes);
+    }
+
+    private final Backend backend;
+    private final Runnable onFirstPendingChange;
+    private final Object loadLock = new Object();
+    private final Object flushLock = new Object();
+    private volatile @Nullable ConcurrentMap<String, Object> values = null;
+    private @Nullable FutureTask<ConcurrentMap<String, Object>> load = null;
+    private final Map<String, String> pending = new HashMap<>();
+
+    private long numWrites = 0;
+    private long numDroppedWrites = 0;
+    private long numFlushes = 0;
+    private long numFlushedChanges = 0;
+
+    /**
+     * The constructor.
+     *
+     * @param backend the persistent storage behind the store
+     * @param onFirstPendingChange called when a change is recorded while there were no pending changes
+     */
+    public PropertyStore(final Backend backend, final Runnable onFirstPendingChange) {
+        this.backend = backend;
+        this.onFirstPendingChange = onFirstPendingChange;
+    }
+
+    /**
+     * Load the properties if that hasn't happened yet.
+     */
+    public void load() {
+        getValues();
+    }
+
+    private ConcurrentMap<String, Object> getValues() {
+        final @Nullable ConcurrentMap<String, Object> current = values;
+        if (current != null) {
+            return current;
+        }
+        final FutureTask<ConcurrentMap<String, Object>> task;
+        synchronized (loadLock) {
+            if (values != null) {
+                return values;
+            }
+            if (load == null) {
+                load = new FutureTask<>(this::loadValues);
+            }
+            task = load;
+        }
+
+        if (backend.canLoadOnCurrentThread()) {
+            // Does nothing if the load has already been started by another thread
+            task.run();
+        }
+        else {
+            backend.loadInBackground(task);
+        }
+
+        try {
+            final ConcurrentMap<String, Object> map = task.get();
+            synchronized (loadLock) {
+                values = map;
+                return map;
+            }
+        } catch (final InterruptedException | ExecutionException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (loadLock) {
+                if (load == task) {
+                    load = null;
+                }
+            }
+            // Serve this access without caching anything, so the next one tries again
+            return overlayPendingChanges(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Load the values from the backend. Changes recorded while an earlier load had failed may not have been
+     * written yet, so those are applied on top.
+     *
+     * @return the values
+     * @throws Exception if the backend fails
+     */
+    private ConcurrentMap<String, Object> loadValues() throws Exception {
+        return overlayPendingChanges(new ConcurrentHashMap<>(backend.loadAll()));
+    }
+
+    private ConcurrentMap<String, Object> overlayPendingChanges(final ConcurrentMap<String, Object> map) {
+        synchronized (pending) {
+            for (final Map.Entry<String, String> entry: pending.entrySet()) {
+                if (entry.getValue() == null) {
+                    map.remove(entry.getKey());
+                }
+                else {
+                    map.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Get a property as a string.
+     *
+     * @param name the property name
+     * @return the value or null if it doesn't exist
+     */
+    public @Nullable String getString(final String name) {
+        final @Nullable Object value = getValues().get(name);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Get a property as a boolean.
+     *
+     * @param name the property name
+     * @return the value or false if it doesn't exist
+     */
+    public boolean getBoolean(final String name) {
+        final ConcurrentMap<String, Object> map = getValues();
+        final @Nullable Object value = map.get(name);
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        final boolean parsed = "true".equalsIgnoreCase(value.toString());
+        if (value instanceof String && Boolean.toString(parsed).equals(value)) {
+            map.replace(name, value, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Get a property as an int.
+     *
+     * @param name the property name
+     * @return the value or 0 if it doesn't exist or can't be parsed
+     */
+    public int getInt(final String name) {
+        final ConcurrentMap<String, Object> map = getValues();
+        final @Nullable Object value = map.get(name);
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        try {
+            final int parsed = Integer.parseInt(value.toString(), 10);
+            if (value instanceof String && Integer.toString(parsed).equals(value)) {
+                map.replace(name, value, parsed);
+            }
+            return parsed;
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Get a property as a long.
+     *
+     * @param name the property name
+     * @return the value or 0 if it doesn't exist or can't be parsed
+     */
+    public long getLong(final String name) {
+        final ConcurrentMap<String, Object> map = getValues();
+        final @Nullable Object value = map.get(name);
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        try {
+            final long parsed = Long.parseLong(value.toString(), 10);
+            if (value instanceof String && Long.toString(parsed).equals(value)) {
+                map.replace(name, value, parsed);
+            }
+            return parsed;
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Set a property to a string value.
+     *
+     * @param name the property name
+     * @param value the new value
+     */
+    public void setString(final String name, final String value) {
+        set(name, value);
+    }
+
+    /**
+     * Set a property to a boolean value.
+     *
+     * @param name the property name
+     * @param value the new value
+     */
+    public void setBoolean(final String name, final boolean value) {
+        set(name, value);
+    }
+
+    /**
+     * Set a property to an int value.
+     *
+     * @param name the property name
+     * @param value the new value
+     */
+    public void setInt(final String name, final int value) {
+        set(name, value);
+    }
+
+    /**
+     * Set a property to a long value.
+     *
+     * @param name the property name
+     * @param value the new value
+     */
+    public void setLong(final String name, final long value) {
+        set(name, value);
+    }
+
+    /**
+     * Delete a property, if it exists.
+     *
+     * @param name the property name
+     */
+    public void delete(final String name) {
+        set(name, null);
+    }
+
+    /**
+     * Delete all properties whose name starts with a prefix.
+     *
+     * @param prefix the prefix
+     */
+    public void deleteWithPrefix(final String prefix) {
+        for (final String name: getValues().keySet()) {
+            if (name.startsWith(prefix)) {
+                set(name, null);
+            }
+        }
+    }
+
+    /**
+     * Update the map and record the pending change. This is done under the lock for the pending
+     * changes, so the order of changes in the map and in the pending changes is always the same.
+     *
+     * @param name the property name
+     * @param value the new value, or null to delete the property
+     */
+    private void set(final String name, final @Nullable Object value) {
+        final ConcurrentMap<String, Object> map = getValues();
+        final boolean first;
+        synchronized (pending) {
+            numWrites++;
+            final @Nullable Object oldValue = map.get(name);
+            final @Nullable String oldString = oldValue == null ? null : oldValue.toString();
+            final @Nullable String newString = value == null ? null : value.toString();
+            if (oldString == null ? newString == null : oldString.equals(newString)) {
+                numDroppedWrites++;
+                return;
+            }
+            if (value == null) {
+                map.remove(name);
+            }
+            else {
+                map.put(name, value);
+            }
+            first = pending.isEmpty();
+            pending.put(name, newString);
+        }
+        if (first) {
+            onFirstPendingChange.run();
+        }
+    }
+
+    /**
+     * Are there any changes that haven't been written to the backend yet?.
+     *
+     * @return true if there are
+     */
+    public boolean hasPendingChanges() {
+        synchronized (pending) {
+            return !pending.isEmpty();
+        }
+    }
+
+    /**
+     * Write all pending changes to the backend. When this method returns, all changes made before
+     * the call have been written, including any that were already being written by another thread.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            final Map<String, String> changes;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                changes = new HashMap<>(pending);
+                pending.clear();
+                numFlushes++;
+                numFlushedChanges += changes.size();
+            }
+            try {
+                backend.write(changes);
+            } catch (final RuntimeException e) {
+                requeue(changes);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Put changes that could not be written back in the pending changes. A property that has been
+     * changed again since then keeps its newer value. If there were no pending changes before, the owner
+     * is told, just like for a new change, so another flush gets scheduled.
+     *
+     * @param changes the changes to put back
+     */
+    private void requeue(final Map<String, String> changes) {
+        final boolean first;
+        synchronized (pending) {
+            first = pending.isEmpty();
+            for (final Map.Entry<String, String> entry: changes.entrySet()) {
+                if (!pending.containsKey(entry.getKey())) {
+                    pending.put(entry.getKey(), entry.getValue());
+                }
+            }
+            numFlushedChanges -= changes.size();
+        }
+        if (first) {
+            onFirstPendingChange.run();
+        }
+    }
+
+    /**
+     * Get a summary of the store statistics, for debugging purposes.
+     *
+     * @return the summary
+     */
+    public String getDiagnostics() {
+        synchronized (pending) {
+            return String.format(Locale.ROOT, "%d writes, %d unchanged, %d flushes, %d rows written",
+                    numWrites, numDroppedWrites, numFlushes, numFlushedChanges);
+        }
+    }
+}
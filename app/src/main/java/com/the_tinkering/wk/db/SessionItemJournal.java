@@ -0,0 +1,280 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.db;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.the_tinkering.wk.WkApplication;
+import com.the_tinkering.wk.db.model.SessionItem;
+import com.the_tinkering.wk.enums.SessionItemState;
+import com.the_tinkering.wk.util.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
+
+/**
+ * Write-behind journal for the progress of session items.
+ *
+ * <p>
+ *     Answering a question changes the state of a session item, and that change has to be persisted
+ *     so the session can be restored by Session.load() if the app is killed. Instead of scheduling
+ *     a job for every change, the journal takes a snapshot of the item and appends it to an in-memory
+ *     log, replacing any earlier snapshot of the same item that hasn't been written yet. The log is
+ *     written a short while later on a background thread, in a single transaction. If that fails,
+ *     the snapshots are put back in the log, unless a newer snapshot of the same item has been
+ *     recorded in the meantime, and another flush is scheduled.
+ * </p>
+ *
+ * <p>
+ *     Any code that reads or modifies session items in the database must call flush() first, so
+ *     that it sees the latest state and its own changes are not overwritten by older snapshots.
+ * </p>
+ */
+public final class SessionItemJournal {
+    private static final Logger LOGGER = Logger.get(SessionItemJournal.class);
+    private static final long DELAY = 500;
+    private static final SessionItemJournal instance = new SessionItemJournal();
+
+    private final Object flushLock = new Object();
+    private final Map<Long, Entry> pending = new LinkedHashMap<>();
+    private boolean scheduled = false;
+
+    /**
+     * Get the singleton instance.
+     *
+     * @return the instance
+     */
+    public static SessionItemJournal getInstance() {
+        return instance;
+    }
+
+    private SessionItemJournal() {
+        //
+    }
+
+    /**
+     * Record the current state of a session item, to be written to the database later.
+     *
+     * @param item the item
+     */
+    public void record(final SessionItem item) {
+        final Entry entry = new Entry(item);
+        synchronized (this) {
+            pending.remove(entry.id);
+            pending.put(entry.id, entry);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Make sure a flush is scheduled to run a short while from now, unless one is already pending.
+     */
+    private void scheduleFlush() {
+        synchronized (this) {
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        new Handler(Looper.getMainLooper()).postDelayed(() -> runAsync(() -> {
+            synchronized (this) {
+                scheduled = false;
+            }
+            flush();
+        }), DELAY);
+    }
+
+    /**
+     * Write all recorded snapshots to the database right now. This must be called from a background
+     * thread. When this method returns, all snapshots recorded before the call have been written,
+     * including any that were already being written by another thread.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            final Collection<Entry> entries;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                entries = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+            try {
+                WkApplication.getDatabase().sessionItemDao().updateProgress(entries);
+            }
+            catch (final Exception e) {
+                LOGGER.error(e, "Writing %d session item snapshots failed, keeping them for the next flush", entries.size());
+                requeue(entries);
+            }
+        }
+    }
+
+    /**
+     * Put snapshots that could not be written back in the log. Snapshots recorded since they were
+     * taken out are newer, so they win, and the old snapshots go before them to keep the log in order.
+     * A new flush is scheduled, so the snapshots don't have to wait for the next recorded change.
+     *
+     * @param entries the snapshots to put back
+     */
+    private void requeue(final Iterable<Entry> entries) {
+        synchronized (this) {
+            final Map<Long, Entry> newer = new LinkedHashMap<>(pending);
+            pending.clear();
+            for (final Entry entry: entries) {
+                if (!newer.containsKey(entry.id)) {
+                    pending.put(entry.id, entry);
+                }
+            }
+            pending.putAll(newer);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * A snapshot of the mutable state of a session item.
+     */
+    public static final class Entry {
+        private final long id;
+        private final SessionItemState state;
+        private final boolean question1Done;
+        private final int question1Incorrect;
+        private final boolean question2Done;
+        private final int question2Incorrect;
+        private final boolean question3Done;
+        private final int question3Incorrect;
+        private final boolean question4Done;
+        private final int question4Incorrect;
+        private final int numAnswers;
+        private final long lastAnswer;
+
+        private Entry(final SessionItem item) {
+            id = item.getId();
+            state = item.getState();
+            question1Done = item.isQuestion1Done();
+            question1Incorrect = item.getQuestion1Incorrect();
+            question2Done = item.isQuestion2Done();
+            question2Incorrect = item.getQuestion2Incorrect();
+            question3Done = item.isQuestion3Done();
+            question3Incorrect = item.getQuestion3Incorrect();
+            question4Done = item.isQuestion4Done();
+            question4Incorrect = item.getQuestion4Incorrect();
+            numAnswers = item.getNumAnswers();
+            lastAnswer = item.getLastAnswer();
+        }
+
+        /**
+         * The subject ID of the item.
+         * @return the value
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * The state of the item.
+         * @return the value
+         */
+        public SessionItemState getState() {
+            return state;
+        }
+
+        /**
+         * Is question 1 done?.
+         * @return the value
+         */
+        public boolean isQuestion1Done() {
+            return question1Done;
+        }
+
+        /**
+         * The number of incorrect answers for question 1.
+         * @return the value
+         */
+        public int getQuestion1Incorrect() {
+            return question1Incorrect;
+        }
+
+        /**
+         * Is question 2 done?.
+         * @return the value
+         */
+        public boolean isQuestion2Done() {
+            return question2Done;
+        }
+
+        /**
+         * The number of incorrect answers for question 2.
+         * @return the value
+         */
+        public int getQuestion2Incorrect() {
+            return question2Incorrect;
+        }
+
+        /**
+         * Is question 3 done?.
+         * @return the value
+         */
+        public boolean isQuestion3Done() {
+            return question3Done;
+        }
+
+        /**
+         * The number of incorrect answers for question 3.
+         * @return the value
+         */
+        public int getQuestion3Incorrect() {
+            return question3Incorrect;
+        }
+
+        /**
+         * Is question 4 done?.
+         * @return the value
+         */
+        public boolean isQuestion4Done() {
+            return question4Done;
+        }
+
+        /**
+         * The number of incorrect answers for question 4.
+         * @return the value
+         */
+        public int getQuestion4Incorrect() {
+            return question4Incorrect;
+        }
+
+        /**
+         * The number of answers given for this item.
+         * @return the value
+         */
+        public int getNumAnswers() {
+            return numAnswers;
+        }
+
+        /**
+         * The timestamp of the last answer given for this item.
+         * @return the value
+         */
+        public long getLastAnswer() {
+            return lastAnswer;
+        }
+    }
+}
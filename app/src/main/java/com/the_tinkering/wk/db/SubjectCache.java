@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.db;
+
+import com.the_tinkering.wk.db.model.Subject;
+import com.the_tinkering.wk.db.model.SubjectEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Process-wide, size-bounded cache of subject entities by ID, used by the single-subject and by-ID lookups in the DAOs.
+ *
+ * <p>
+ *     Cached entities have their JSON columns parsed once when they are added, and are never handed out directly.
+ *     Every lookup returns a shallow copy, so callers are free to use the setters on the resulting Subject without
+ *     affecting the cached snapshot. Entries are invalidated when a subject changes, either through
+ *     SubjectChangeWatcher or through one of the direct update methods in SubjectDao.
+ * </p>
+ *
+ * <p>
+ *     To avoid a race where a lookup reads a row from the database just before a change is committed, and then adds
+ *     the stale row to the cache just after the invalidation for that change, every invalidation bumps a generation
+ *     counter. A loaded entity is only added if no invalidation happened since the lookup started.
+ * </p>
+ */
+public final class SubjectCache {
+    private static final int MAX_SIZE = 2500;
+    private static final SubjectCache instance = new SubjectCache();
+
+    private final Map<Long, SubjectEntity> entities = new LinkedHashMap<Long, SubjectEntity>(256, 0.75f, true) {
+        private static final long serialVersionUID = 5297643785614262873L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Long, SubjectEntity> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private long generation = 0;
+    private long numHits = 0;
+    private long numMisses = 0;
+    private long numInvalidations = 0;
+
+    /**
+     * Get the singleton instance.
+     *
+     * @return the instance
+     */
+    public static SubjectCache getInstance() {
+        return instance;
+    }
+
+    private SubjectCache() {
+        //
+    }
+
+    /**
+     * Get the current generation, to be passed to put() after the entity has been loaded from the database.
+     *
+     * @return the generation
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Look up a subject entity in the cache.
+     *
+     * @param id the subject ID
+     * @return a private copy of the cached entity, or null if it is not in the cache
+     */
+    public synchronized @Nullable SubjectEntity get(final long id) {
+        final @Nullable SubjectEntity entity = entities.get(id);
+        if (entity == null) {
+            numMisses++;
+            return null;
+        }
+        numHits++;
+        return entity.copy();
+    }
+
+    /**
+     * Add a freshly loaded subject entity to the cache. The JSON columns of the entity are parsed as a side effect,
+     * and the cache keeps its own copy, so the caller can continue to use the entity as it sees fit. Partial entities
+     * from a lightweight projection are refused, since later lookups by ID must return the complete subject.
+     *
+     * @param entity the entity as loaded from the database
+     * @param loadGeneration the generation as returned by getGeneration() before the entity was loaded
+     */
+    public void put(final SubjectEntity entity, final long loadGeneration) {
+        if (entity.partial) {
+            return;
+        }
+        final Subject subject = new Subject(entity);
+        subject.getMeanings();
+        subject.getAuxiliaryMeanings();
+        subject.getReadings();
+        subject.getComponentSubjectIds();
+        subject.getAmalgamationSubjectIds();
+        subject.getVisuallySimilarSubjectIds();
+        subject.getMeaningSynonyms();
+        final SubjectEntity snapshot = entity.copy();
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                entities.put(snapshot.id, snapshot);
+            }
+        }
+    }
+
+    /**
+     * Remove a subject from the cache.
+     *
+     * @param id the subject ID
+     */
+    public synchronized void invalidate(final long id) {
+        generation++;
+        numInvalidations++;
+        entities.remove(id);
+    }
+
+    /**
+     * Remove a collection of subjects from the cache.
+     *
+     * @param ids the subject IDs
+     */
+    public synchronized void invalidate(final Iterable<Long> ids) {
+        generation++;
+        for (final long id: ids) {
+            numInvalidations++;
+            entities.remove(id);
+        }
+    }
+
+    /**
+     * Remove all subjects from the cache.
+     */
+    public synchronized void clear() {
+        generation++;
+        numInvalidations += entities.size();
+        entities.clear();
+    }
+
+    /**
+     * Get a summary of the state of the cache, for debug logging and the test screen.
+     *
+     * @return the summary
+     */
+    public synchronized String getDiagnostics() {
+        final long numLookups = numHits + numMisses;
+        final long hitRate = numLookups == 0 ? 0 : numHits * 100 / numLookups;
+        return String.format(Locale.ROOT, "%d/%d entries, %d hits, %d misses (%d%% hit rate), %d invalidations",
+                entities.size(), MAX_SIZE, numHits, numMisses, hitRate, numInvalidations);
+    }
+}
@@ -55,4 +55,20 @@ public abstract class AudioDownloadStatusDao {
     @Query("INSERT OR REPLACE INTO audio_download_status (level, numTotal, numNoAudio, numMissingAudio, numPartialAudio, numFullAudio) "
             + "VALUES (:level, :numTotal, :numNoAudio, :numMissingAudio, :numPartialAudio, :numFullAudio)")
     public abstract void insertOrUpdate(int level, int numTotal, int numNoAudio, int numMissingAudio, int numPartialAudio, int numFullAudio);
+
+    /**
+     * Room-generated method: move one subject from one status bucket to another, by adding
+     * the deltas to the counts of a level.
+     *
+     * @param level the level
+     * @param deltaNoAudio the change in numNoAudio
+     * @param deltaMissingAudio the change in numMissingAudio
+     * @param deltaPartialAudio the change in numPartialAudio
+     * @param deltaFullAudio the change in numFullAudio
+     * @return the number of records updated, 0 if there is no record for the level yet
+     */
+    @Query("UPDATE audio_download_status SET numNoAudio = numNoAudio + :deltaNoAudio,"
+            + " numMissingAudio = numMissingAudio + :deltaMissingAudio, numPartialAudio = numPartialAudio + :deltaPartialAudio,"
+            + " numFullAudio = numFullAudio + :deltaFullAudio WHERE level = :level")
+    public abstract int adjust(int level, int deltaNoAudio, int deltaMissingAudio, int deltaPartialAudio, int deltaFullAudio);
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.db.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.the_tinkering.wk.db.model.AudioFile;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO for the audio file inventory.
+ */
+@Dao
+public abstract class AudioFileDao {
+    /**
+     * Room-generated method: get all records.
+     *
+     * @return the list of records
+     */
+    @Query("SELECT * FROM audio_file")
+    public abstract List<AudioFile> getAll();
+
+    /**
+     * Room-generated method: delete all records.
+     */
+    @Query("DELETE FROM audio_file")
+    protected abstract void deleteAllHelper();
+
+    /**
+     * Room-generated method: insert or replace a batch of records.
+     *
+     * @param files the records
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    protected abstract void insertOrReplaceHelper(Collection<AudioFile> files);
+
+    /**
+     * Room-generated method: delete a record.
+     *
+     * @param location the storage location
+     * @param level the level
+     * @param sourceId the source ID
+     * @param format the format
+     */
+    @Query("DELETE FROM audio_file WHERE location = :location AND level = :level AND sourceId = :sourceId AND format = :format")
+    protected abstract void deleteHelper(String location, int level, long sourceId, String format);
+
+    /**
+     * Room-wrapped method: replace all records in a single transaction.
+     *
+     * @param files the new records
+     */
+    @Transaction
+    public void replaceAll(final Collection<AudioFile> files) {
+        deleteAllHelper();
+        insertOrReplaceHelper(files);
+    }
+
+    /**
+     * Room-wrapped method: remove and add records in a single transaction.
+     *
+     * @param removed the records to remove
+     * @param added the records to insert or replace
+     */
+    @Transaction
+    public void update(final Collection<AudioFile> removed, final Collection<AudioFile> added) {
+        for (final AudioFile file: removed) {
+            deleteHelper(file.getLocation(), file.getLevel(), file.getSourceId(), file.getFormat());
+        }
+        insertOrReplaceHelper(added);
+    }
+}
@@ -20,10 +20,12 @@ import android.util.Log;
 
 import androidx.room.Dao;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
 import com.the_tinkering.wk.db.model.LogRecord;
 import com.the_tinkering.wk.db.model.LogRecordSummary;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -140,4 +142,27 @@ public abstract class LogRecordDao {
     public final void insert(final LogRecord record) {
         insertHelper(record.timestamp, record.tag, record.length, record.message);
     }
+
+    /**
+     * Room-wrapped method: insert a batch of records in a single transaction.
+     *
+     * @param records the records to insert
+     */
+    @Transaction
+    protected void insertAllHelper(final Iterable<LogRecord> records) {
+        for (final LogRecord record: records) {
+            insert(record);
+        }
+    }
+
+    /**
+     * Insert a batch of records.
+     *
+     * @param records the records to insert
+     */
+    public final void insertAll(final Collection<LogRecord> records) {
+        if (!records.isEmpty()) {
+            insertAllHelper(records);
+        }
+    }
 }
@@ -16,29 +16,33 @@
 
 package com.the_tinkering.wk.db.dao;
 
-import android.annotation.SuppressLint;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.room.Dao;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
+import com.the_tinkering.wk.api.ApiValidators;
 import com.the_tinkering.wk.db.Converters;
+import com.the_tinkering.wk.db.PropertyStore;
 import com.the_tinkering.wk.db.model.Property;
+import com.the_tinkering.wk.enums.ExecutionLane;
 import com.the_tinkering.wk.enums.QuestionType;
 import com.the_tinkering.wk.enums.SessionType;
 import com.the_tinkering.wk.model.AlertContext;
+import com.the_tinkering.wk.util.LaneExecutor;
+import com.the_tinkering.wk.util.Logger;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Semaphore;
 
 import javax.annotation.Nullable;
 
 import static com.the_tinkering.wk.Constants.MONTH;
 import static com.the_tinkering.wk.db.Converters.sessionTypeToString;
 import static com.the_tinkering.wk.db.Converters.stringToSessionType;
-import static com.the_tinkering.wk.util.ObjectSupport.isEmpty;
-import static com.the_tinkering.wk.util.ObjectSupport.isEqualIgnoreCase;
 import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 
@@ -47,7 +51,31 @@ import static com.the_tinkering.wk.util.ObjectSupport.safe;
  */
 @Dao
 public abstract class PropertiesDao {
-    private @Nullable Map<String, String> properties = null;
+    private static final Logger LOGGER = Logger.get(PropertiesDao.class);
+    private static final long FLUSH_DELAY = 1000;
+
+    private final PropertyStore store = new PropertyStore(new PropertyStore.Backend() {
+        @Override
+        public Map<String, String> loadAll() {
+            return loadAllProperties();
+        }
+
+        @Override
+        public boolean canLoadOnCurrentThread() {
+            // Room refuses to run queries on the main thread
+            return Looper.myLooper() != Looper.getMainLooper();
+        }
+
+        @Override
+        public void loadInBackground(final Runnable load) {
+            LaneExecutor.getInstance().submit(ExecutionLane.INTERACTIVE, LaneExecutor.PRIORITY_HIGH, null, load);
+        }
+
+        @Override
+        public void write(final Map<String, String> changes) {
+            writeChangesHelper(changes);
+        }
+    }, this::scheduleFlush);
 
     /**
      * Room-generated method: get all properties.
@@ -57,31 +85,53 @@ public abstract class PropertiesDao {
     @Query("SELECT * FROM properties ORDER BY name")
     public abstract List<Property> getAll();
 
+    /**
+     * Load all properties into a map. This is never called on the main thread: if the store is used there
+     * before the application's startup task has preloaded it, the load runs in the interactive lane.
+     *
+     * @return the map
+     */
+    private Map<String, String> loadAllProperties() {
+        try {
+            final Map<String, String> map = new HashMap<>();
+            for (final Property property: getAll()) {
+                map.put(property.name, property.value);
+            }
+            return map;
+        } catch (final RuntimeException e) {
+            LOGGER.error(e, "Loading properties failed");
+            throw e;
+        }
+    }
+
     /**
      * Preload the property cache.
      */
-    @SuppressLint("NewApi")
     public final void preload() {
-        if (properties != null) {
-            return;
-        }
-        final Semaphore semaphore = new Semaphore(0);
-        new Thread(() -> {
-            safe(() -> {
-                final Map<String, String> map = new HashMap<>();
-                getAll().forEach(property -> map.put(property.name, property.value));
-                properties = map;
-            });
-            semaphore.release();
-        }).start();
-        safe(semaphore::acquire);
+        store.load();
     }
 
-    private @Nullable String getProperty(final String name) {
-        if (properties == null) {
-            preload();
-        }
-        return properties.get(name);
+    /**
+     * Schedule a flush of the pending property changes after a short delay.
+     */
+    private void scheduleFlush() {
+        new Handler(Looper.getMainLooper()).postDelayed(() -> runAsync(store::flush), FLUSH_DELAY);
+    }
+
+    /**
+     * Write all pending property changes to the database right now. This must be called from a background thread.
+     */
+    public final void flush() {
+        store.flush();
+    }
+
+    /**
+     * Get a summary of the property store statistics, for debugging purposes.
+     *
+     * @return the summary
+     */
+    public final String getDiagnostics() {
+        return store.getDiagnostics();
     }
 
     /**
@@ -93,14 +143,6 @@ public abstract class PropertiesDao {
     @Query("INSERT OR REPLACE INTO properties (name, value) VALUES (:name, :value)")
     protected abstract void setPropertyHelper(final String name, final String value);
 
-    private void setProperty(final String name, final String value) {
-        if (properties == null) {
-            preload();
-        }
-        properties.put(name, value);
-        runAsync(() -> setPropertyHelper(name, value));
-    }
-
     /**
      * Room-generated method: delete a property.
      *
@@ -109,55 +151,59 @@ public abstract class PropertiesDao {
     @Query("DELETE FROM properties WHERE name = :name")
     protected abstract void deletePropertyHelper(final String name);
 
+    /**
+     * Room-wrapped method: write a batch of property changes in a single transaction.
+     *
+     * @param changes the changes, a null value means the property must be deleted
+     */
+    @Transaction
+    protected void writeChangesHelper(final Map<String, String> changes) {
+        for (final Map.Entry<String, String> entry: changes.entrySet()) {
+            final @Nullable String value = entry.getValue();
+            if (value == null) {
+                deletePropertyHelper(entry.getKey());
+            }
+            else {
+                setPropertyHelper(entry.getKey(), value);
+            }
+        }
+    }
+
+    private @Nullable String getProperty(final String name) {
+        return store.getString(name);
+    }
+
+    private void setProperty(final String name, final String value) {
+        store.setString(name, value);
+    }
+
     /**
      * Delete a property by name, if it exists.
      *
      * @param name the property's name
      */
     public final void deleteProperty(final String name) {
-        if (properties == null) {
-            preload();
-        }
-        properties.remove(name);
-        runAsync(() -> deletePropertyHelper(name));
+        store.delete(name);
     }
 
     private boolean getBooleanProperty(final String name) {
-        final @Nullable String value = getProperty(name);
-
-        if (value == null) {
-            return false;
-        }
-
-        return isEqualIgnoreCase(value, "true");
+        return store.getBoolean(name);
     }
 
     private void setBooleanProperty(final String name, final boolean value) {
-        setProperty(name, Boolean.toString(value));
+        store.setBoolean(name, value);
     }
 
     private int getIntegerProperty(final String name) {
-        final @Nullable String value = getProperty(name);
-
-        if (isEmpty(value)) {
-            return 0;
-        }
-
-        return safe(0, () -> Integer.parseInt(value, 10));
+        return store.getInt(name);
     }
 
     private void setIntegerProperty(final String name, final int value) {
-        setProperty(name, Integer.toString(value));
+        store.setInt(name, value);
     }
 
     private long getLongProperty(final String name, final long delta) {
-        final @Nullable String value = getProperty(name);
-
-        if (isEmpty(value)) {
-            return 0;
-        }
-
-        long longValue = safe(0L, () -> Long.parseLong(value, 10));
+        long longValue = store.getLong(name);
         if (longValue >= delta) {
             longValue -= delta;
         }
@@ -166,7 +212,7 @@ public abstract class PropertiesDao {
     }
 
     private void setLongProperty(final String name, final long value) {
-        setProperty(name, Long.toString(value));
+        store.setLong(name, value);
     }
 
     /**
@@ -372,6 +418,38 @@ public abstract class PropertiesDao {
         setLongProperty("last_summary_sync_success", value);
     }
 
+    /**
+     * The cache validators of the last fully processed response for an API URI.
+     *
+     * @param uri the request URI
+     * @return the validators, or null if there are none
+     */
+    public final @Nullable ApiValidators getApiValidators(final String uri) {
+        return ApiValidators.decode(getProperty("api_validators:" + uri));
+    }
+
+    /**
+     * The cache validators of the last fully processed response for an API URI.
+     *
+     * @param uri the request URI
+     * @param value the validators, or null to remove them
+     */
+    public final void setApiValidators(final String uri, final @Nullable ApiValidators value) {
+        if (value == null) {
+            deleteProperty("api_validators:" + uri);
+        }
+        else {
+            setProperty("api_validators:" + uri, value.encode());
+        }
+    }
+
+    /**
+     * Remove the cache validators for all API URIs, so the next calls fetch full responses.
+     */
+    public final void deleteAllApiValidators() {
+        store.deleteWithPrefix("api_validators:");
+    }
+
     /**
      * When was the last time there was a check for audio that needed to be downloaded?.
      *
@@ -593,6 +671,24 @@ public abstract class PropertiesDao {
         setIntegerProperty("reference_data_version", referenceDataVersion);
     }
 
+    /**
+     * The version of the currently built search index.
+     *
+     * @return the version
+     */
+    public final int getSearchIndexVersion() {
+        return getIntegerProperty("search_index_version");
+    }
+
+    /**
+     * The version of the currently built search index.
+     *
+     * @param searchIndexVersion the version
+     */
+    public final void setSearchIndexVersion(final int searchIndexVersion) {
+        setIntegerProperty("search_index_version", searchIndexVersion);
+    }
+
     /**
      * Has a notification been set?.
      *
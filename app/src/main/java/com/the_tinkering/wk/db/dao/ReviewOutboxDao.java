@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.db.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import com.the_tinkering.wk.db.model.ReviewOutboxItem;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO for the review outbox.
+ */
+@Dao
+public abstract class ReviewOutboxDao {
+    /**
+     * Room-generated method: delete all records.
+     */
+    @Query("DELETE FROM review_outbox")
+    public abstract void deleteAll();
+
+    /**
+     * Room-generated method: get the number of items waiting to be reported. Parked items are not counted.
+     *
+     * @return the number
+     */
+    @Query("SELECT COUNT(*) FROM review_outbox WHERE numFailures < " + ReviewOutboxItem.MAX_FAILURES)
+    public abstract int getCount();
+
+    /**
+     * Room-generated method: get the oldest items waiting to be reported, in the order they were added.
+     * Parked items are skipped.
+     *
+     * @param limit the maximum number of items to return
+     * @return the items
+     */
+    @Query("SELECT * FROM review_outbox WHERE numFailures < " + ReviewOutboxItem.MAX_FAILURES + " ORDER BY id LIMIT :limit")
+    public abstract List<ReviewOutboxItem> getNextItems(int limit);
+
+    /**
+     * Room-generated method: record that the API has rejected an item.
+     *
+     * @param id the ID of the item
+     */
+    @Query("UPDATE review_outbox SET numFailures = numFailures + 1 WHERE id = :id")
+    public abstract void recordFailure(long id);
+
+    /**
+     * Room-generated method: insert a new item.
+     *
+     * @param item the item to insert
+     */
+    @Insert
+    public abstract void insert(ReviewOutboxItem item);
+
+    /**
+     * Room-generated method: delete a batch of items by ID.
+     *
+     * @param ids the IDs of the items to delete
+     */
+    @Query("DELETE FROM review_outbox WHERE id IN (:ids)")
+    public abstract void deleteByIds(Collection<Long> ids);
+}
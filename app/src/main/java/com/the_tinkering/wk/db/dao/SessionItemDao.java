@@ -19,9 +19,13 @@ package com.the_tinkering.wk.db.dao;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import com.the_tinkering.wk.db.SessionItemJournal;
 import com.the_tinkering.wk.db.model.SessionItem;
+import com.the_tinkering.wk.enums.SessionItemState;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -69,4 +73,63 @@ public abstract class SessionItemDao {
      */
     @Update
     public abstract void update(SessionItem sessionItem);
+
+    /**
+     * Room-generated method: update the progress fields of an item.
+     *
+     * @param id the subject ID
+     * @param state the item state
+     * @param question1Done is question 1 done?
+     * @param question1Incorrect number of incorrect answers for question 1
+     * @param question2Done is question 2 done?
+     * @param question2Incorrect number of incorrect answers for question 2
+     * @param question3Done is question 3 done?
+     * @param question3Incorrect number of incorrect answers for question 3
+     * @param question4Done is question 4 done?
+     * @param question4Incorrect number of incorrect answers for question 4
+     * @param numAnswers number of answers given
+     * @param lastAnswer timestamp of the last answer
+     */
+    @Query("UPDATE session_item SET state = :state,"
+            + " meaningDone = :question1Done, meaningIncorrect = :question1Incorrect,"
+            + " readingDone = :question2Done, readingIncorrect = :question2Incorrect,"
+            + " onyomiDone = :question3Done, onyomiIncorrect = :question3Incorrect,"
+            + " kunyomiDone = :question4Done, kunyomiIncorrect = :question4Incorrect,"
+            + " numAnswers = :numAnswers, lastAnswer = :lastAnswer"
+            + " WHERE id = :id")
+    protected abstract void updateProgressHelper(long id, SessionItemState state,
+                                                 boolean question1Done, int question1Incorrect,
+                                                 boolean question2Done, int question2Incorrect,
+                                                 boolean question3Done, int question3Incorrect,
+                                                 boolean question4Done, int question4Incorrect,
+                                                 int numAnswers, long lastAnswer);
+
+    /**
+     * Room-wrapped method: update the progress fields of a batch of items in a single transaction.
+     *
+     * @param entries the journal entries to write
+     */
+    @Transaction
+    protected void updateProgressBatchHelper(final Iterable<SessionItemJournal.Entry> entries) {
+        for (final SessionItemJournal.Entry entry: entries) {
+            updateProgressHelper(entry.getId(), entry.getState(),
+                    entry.isQuestion1Done(), entry.getQuestion1Incorrect(),
+                    entry.isQuestion2Done(), entry.getQuestion2Incorrect(),
+                    entry.isQuestion3Done(), entry.getQuestion3Incorrect(),
+                    entry.isQuestion4Done(), entry.getQuestion4Incorrect(),
+                    entry.getNumAnswers(), entry.getLastAnswer());
+        }
+    }
+
+    /**
+     * Update the progress fields of a batch of items, as recorded by the session item journal.
+     *
+     * @param entries the journal entries to write
+     */
+    public final void updateProgress(final Collection<SessionItemJournal.Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        updateProgressBatchHelper(entries);
+    }
 }
@@ -21,52 +21,82 @@ import android.annotation.SuppressLint;
 import androidx.room.Dao;
 import androidx.room.Query;
 import androidx.room.RawQuery;
+import androidx.room.RoomWarnings;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteQuery;
 
+import com.the_tinkering.wk.db.SubjectCache;
 import com.the_tinkering.wk.db.model.Subject;
 import com.the_tinkering.wk.db.model.SubjectEntity;
 import com.the_tinkering.wk.enums.SubjectType;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 /**
  * DAO for subjects.
  */
 @Dao
 public abstract class SubjectCollectionsDao {
+    /**
+     * The columns for the lightweight subject projection used by the dashboard queries. This has everything needed to
+     * show, count and order subjects: ID, type, level, characters, meanings and readings for the primary meaning and reading,
+     * and the assignment, review statistic and reference data fields. It leaves out mnemonics, hints, context sentences,
+     * audio metadata, study material notes, pitch info and stroke data. Subjects loaded with this projection are marked
+     * as partial, and must not be used to show subject details or run a session. Load them by ID via the subject cache
+     * for that, which refuses to cache partial subjects.
+     */
+    private static final String LIGHTWEIGHT_COLUMNS = "id, object, typeCode, hiddenAt, lessonPosition, srsSystemId, level,"
+            + " characters, slug, meanings, readings,"
+            + " assignmentId, availableAt, burnedAt, passedAt, resurrectedAt, startedAt, unlockedAt, srsStage,"
+            + " lastIncorrectAnswer, assignmentPatched, studyMaterialId, studyMaterialPatched,"
+            + " reviewStatisticId, meaningCorrect, meaningIncorrect, meaningMaxStreak, meaningCurrentStreak,"
+            + " readingCorrect, readingIncorrect, readingMaxStreak, readingCurrentStreak, percentageCorrect,"
+            + " leechScore, statisticPatched, frequency, joyoGrade, jlptLevel";
+
     @SuppressLint("NewApi")
     private static List<Subject> buildList(final Collection<SubjectEntity> list) {
         return list.stream().map(Subject::new).collect(Collectors.toList());
     }
 
+    private static List<Subject> buildPartialList(final Collection<SubjectEntity> list) {
+        for (final SubjectEntity entity: list) {
+            entity.partial = true;
+        }
+        return buildList(list);
+    }
+
     /**
-     * Room-generated method: get a list of all subjects unlocked after a cutoff date.
+     * Room-generated method: get a list of all subjects unlocked after a cutoff date, in the lightweight projection.
      *
      * @param cutoff the cutoff date
      * @return the list
      */
-    @Query("SELECT * FROM subject"
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
+    @Query("SELECT " + LIGHTWEIGHT_COLUMNS + " FROM subject"
             + " WHERE hiddenAt = 0 AND object IS NOT NULL"
             + " AND unlockedAt != 0 AND unlockedAt >= :cutoff"
             + " ORDER BY unlockedAt DESC, level DESC, lessonPosition DESC, id DESC LIMIT 10")
     public abstract List<SubjectEntity> getRecentUnlocksHelper(final long cutoff);
 
     /**
-     * Get a list of all subjects unlocked after a cutoff date.
+     * Get a list of all subjects unlocked after a cutoff date, in the lightweight projection.
      *
      * @param cutoff the cutoff date
      * @return the list
      */
     public final List<Subject> getRecentUnlocks(final long cutoff) {
-        return buildList(getRecentUnlocksHelper(cutoff));
+        return buildPartialList(getRecentUnlocksHelper(cutoff));
     }
 
     /**
@@ -74,9 +104,9 @@ public abstract class SubjectCollectionsDao {
      *
      * @return the list
      */
-    @Query("SELECT * FROM subject"
+    @Query(SubjectEntity.SELECT_WITH_CONTENT
             + " WHERE hiddenAt = 0 AND object IS NOT NULL"
-            + " AND id IN (SELECT id FROM session_item)")
+            + " AND subject.id IN (SELECT id FROM session_item)")
     public abstract List<SubjectEntity> getSessionSubjectsHelper();
 
     /**
@@ -93,44 +123,45 @@ public abstract class SubjectCollectionsDao {
     }
 
     /**
-     * Get a list of non-passed subjects with a total score of less than 75%.
+     * Get a list of non-passed subjects with a total score of less than 75%, in the lightweight projection.
      *
      * @param filter the SRS stage filter
      * @return the list
      */
     public final List<Subject> getCriticalCondition(final String filter) {
-        final String sql = String.format(Locale.ROOT, "SELECT * FROM subject"
+        final String sql = String.format(Locale.ROOT, "SELECT " + LIGHTWEIGHT_COLUMNS + " FROM subject"
                 + " WHERE hiddenAt = 0 AND object IS NOT NULL AND %s"
                 + " AND percentageCorrect < 75 AND unlockedAt != 0 AND reviewStatisticId != 0"
                 + " ORDER BY percentageCorrect, lessonPosition DESC, id DESC LIMIT 10", filter);
 
-        return getSubjectsWithRawQuery(new SimpleSQLiteQuery(sql));
+        return buildPartialList(getSubjectsWithRawQueryHelper(new SimpleSQLiteQuery(sql)));
     }
 
     /**
-     * Get a list of all subjects burned after a cutoff date.
+     * Get a list of all subjects burned after a cutoff date, in the lightweight projection.
      *
      * @param filter the SRS stage filter
      * @param cutoff the cutoff date
      * @return the list
      */
     public final List<Subject> getBurnedItems(final String filter, final long cutoff) {
-        final String sql = String.format(Locale.ROOT, "SELECT * FROM subject"
+        final String sql = String.format(Locale.ROOT, "SELECT " + LIGHTWEIGHT_COLUMNS + " FROM subject"
                 + " WHERE hiddenAt = 0 AND %s AND object IS NOT NULL"
                 + " AND burnedAt != 0 AND burnedAt >= ?"
                 + " ORDER BY burnedAt DESC, level DESC, lessonPosition DESC, id DESC LIMIT 10", filter);
 
-        return getSubjectsWithRawQuery(new SimpleSQLiteQuery(sql, new Object[] {cutoff}));
+        return buildPartialList(getSubjectsWithRawQueryHelper(new SimpleSQLiteQuery(sql, new Object[] {cutoff})));
     }
 
     /**
-     * Room-generated method: get a list of all subjects available for lesson.
+     * Room-generated method: get a list of all subjects available for lesson, in the lightweight projection.
      *
      * @param maxLevel the maximum level available on the user's subscription
      * @param userLevel the user's level
      * @return the list
      */
-    @Query("SELECT * FROM subject"
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
+    @Query("SELECT " + LIGHTWEIGHT_COLUMNS + " FROM subject"
             + " WHERE hiddenAt = 0 AND object IS NOT NULL"
             + " AND level <= :maxLevel AND level <= :userLevel"
             + " AND (resurrectedAt != 0 OR burnedAt = 0)"
@@ -139,26 +170,27 @@ public abstract class SubjectCollectionsDao {
     protected abstract List<SubjectEntity> getAvailableLessonItemsHelper(final int maxLevel, final int userLevel);
 
     /**
-     * Get a list of all subjects available for lesson.
+     * Get a list of all subjects available for lesson, in the lightweight projection.
      *
      * @param maxLevel the maximum level available on the user's subscription
      * @param userLevel the user's level
      * @return the list
      */
     public final List<Subject> getAvailableLessonItems(final int maxLevel, final int userLevel) {
-        return buildList(getAvailableLessonItemsHelper(maxLevel, userLevel));
+        return buildPartialList(getAvailableLessonItemsHelper(maxLevel, userLevel));
     }
 
     /**
      * Room-generated method: get a list of all subjects available for review, where the review
-     * becomes/became available before the given cutoff date.
+     * becomes/became available before the given cutoff date, in the lightweight projection.
      *
      * @param maxLevel the maximum level available on the user's subscription
      * @param userLevel the user's level
      * @param cutoff the cutoff date
      * @return the list
      */
-    @Query("SELECT * FROM subject"
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
+    @Query("SELECT " + LIGHTWEIGHT_COLUMNS + " FROM subject"
             + " WHERE hiddenAt = 0 AND object IS NOT NULL"
             + " AND level <= :maxLevel AND level <= :userLevel"
             + " AND availableAt != 0 AND availableAt < :cutoff")
@@ -166,7 +198,7 @@ public abstract class SubjectCollectionsDao {
 
     /**
      * Get a list of all subjects available for review, where the review
-     * becomes/became available before the given cutoff date.
+     * becomes/became available before the given cutoff date, in the lightweight projection.
      *
      * @param maxLevel the maximum level available on the user's subscription
      * @param userLevel the user's level
@@ -174,7 +206,7 @@ public abstract class SubjectCollectionsDao {
      * @return the list
      */
     public final List<Subject> getUpcomingReviewItems(final int maxLevel, final int userLevel, final long cutoff) {
-        return buildList(getUpcomingReviewItemsHelper(maxLevel, userLevel, cutoff));
+        return buildPartialList(getUpcomingReviewItemsHelper(maxLevel, userLevel, cutoff));
     }
 
     /**
@@ -183,10 +215,10 @@ public abstract class SubjectCollectionsDao {
      * @param level the level
      * @return the kanji subjects for this level
      */
-    @Query("SELECT * FROM subject"
+    @Query(SubjectEntity.SELECT_WITH_CONTENT
             + " WHERE hiddenAt = 0 AND object = 'kanji'"
             + " AND level = :level"
-            + " ORDER BY lessonPosition, id")
+            + " ORDER BY lessonPosition, subject.id")
     protected abstract List<SubjectEntity> getKanjiForLevelHelper(final int level);
 
     /**
@@ -204,7 +236,7 @@ public abstract class SubjectCollectionsDao {
      *
      * @return the candidates
      */
-    @Query("SELECT * FROM subject"
+    @Query(SubjectEntity.SELECT_WITH_CONTENT
             + " WHERE hiddenAt = 0 AND object = 'vocabulary'"
             + " AND (pitchInfo IS NULL OR pitchInfo = '' OR pitchInfo LIKE '@%')")
     protected abstract List<SubjectEntity> getPitchInfoDownloadCandidatesHelper();
@@ -224,24 +256,47 @@ public abstract class SubjectCollectionsDao {
      * @param ids the subject IDs to fetch
      * @return the list of subjects
      */
-    @Query("SELECT * FROM subject"
-            + " WHERE id in (:ids) AND hiddenAt = 0 AND object IS NOT NULL")
+    @Query(SubjectEntity.SELECT_WITH_CONTENT
+            + " WHERE subject.id in (:ids) AND hiddenAt = 0 AND object IS NOT NULL")
     protected abstract List<SubjectEntity> getByIdsHelper(Collection<Long> ids);
 
     /**
-     * Get the subjects for the given collection of IDs. Fetch in batches of 100 to avoid SQL queries that are too long.
+     * Get the subjects for the given collection of IDs, in the order of the IDs. Subjects are served from the
+     * subject cache if possible, the rest are fetched in batches of 100 to avoid SQL queries that are too long.
      *
      * @param ids the subject IDs to fetch
      * @return the list of subjects
      */
     public final List<Subject> getByIds(final Collection<Long> ids) {
-        final List<Long> worklist = new ArrayList<>(ids);
-        final List<Subject> result = new ArrayList<>();
+        final SubjectCache cache = SubjectCache.getInstance();
+        final Collection<Long> uniqueIds = new LinkedHashSet<>(ids);
+        final Map<Long, SubjectEntity> entities = new HashMap<>();
+        final List<Long> worklist = new ArrayList<>();
+        for (final long id: uniqueIds) {
+            final @Nullable SubjectEntity entity = cache.get(id);
+            if (entity == null) {
+                worklist.add(id);
+            }
+            else {
+                entities.put(id, entity);
+            }
+        }
         while (!worklist.isEmpty()) {
             final int num = Math.min(worklist.size(), 100);
-            result.addAll(buildList(getByIdsHelper(worklist.subList(0, num))));
+            final long generation = cache.getGeneration();
+            for (final SubjectEntity entity: getByIdsHelper(worklist.subList(0, num))) {
+                cache.put(entity, generation);
+                entities.put(entity.id, entity);
+            }
             worklist.subList(0, num).clear();
         }
+        final List<Subject> result = new ArrayList<>();
+        for (final long id: uniqueIds) {
+            final @Nullable SubjectEntity entity = entities.get(id);
+            if (entity != null && entity.hiddenAt == 0 && entity.type != null) {
+                result.add(new Subject(entity));
+            }
+        }
         return result;
     }
 
@@ -252,8 +307,8 @@ public abstract class SubjectCollectionsDao {
      * @param lastLevel the lowest level for requested subjects
      * @return the list of subjects
      */
-    @Query("SELECT * FROM subject"
-            + " WHERE level >= :firstLevel AND level <= :lastLevel AND hiddenAt = 0 ORDER BY level, lessonPosition, id")
+    @Query(SubjectEntity.SELECT_WITH_CONTENT
+            + " WHERE level >= :firstLevel AND level <= :lastLevel AND hiddenAt = 0 ORDER BY level, lessonPosition, subject.id")
     protected abstract List<SubjectEntity> getByLevelRangeHelper(int firstLevel, int lastLevel);
 
     /**
@@ -268,12 +323,13 @@ public abstract class SubjectCollectionsDao {
     }
 
     /**
-     * Room-generated method: get a list of all subjects for a given level/type pair.
+     * Room-generated method: get a list of all subjects for a given level/type pair, without the subject_content columns.
      *
      * @param level the level for the subjects
      * @param type the type for the subjects
      * @return the list of subjects
      */
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
     @Query("SELECT * FROM subject"
             + " WHERE level = :level AND object = :type AND hiddenAt = 0")
     protected abstract List<SubjectEntity> getLevelProgressSubjectsHelper(int level, SubjectType type);
@@ -319,15 +375,28 @@ public abstract class SubjectCollectionsDao {
      */
     public final Collection<Long> getLevelUpIds(final int userLevel, final int maxLevel) {
         final Collection<Long> result = new HashSet<>();
-        if (userLevel < maxLevel) {
-            for (final Subject subject: getKanjiForLevel(userLevel)) {
-                result.add(subject.getId());
-                result.addAll(subject.getComponentSubjectIds());
-            }
+        for (final Subject subject: getLevelUpKanji(userLevel, maxLevel)) {
+            result.add(subject.getId());
+            result.addAll(subject.getComponentSubjectIds());
         }
         return result;
     }
 
+    /**
+     * Get the kanji that the level-up track of getLevelUpIds() is built from: the current-level kanji.
+     * Empty list if the user is at max level.
+     *
+     * @param userLevel the user's level
+     * @param maxLevel the max level allowed by the user's subscription
+     * @return the kanji subjects
+     */
+    public final List<Subject> getLevelUpKanji(final int userLevel, final int maxLevel) {
+        if (userLevel < maxLevel) {
+            return getKanjiForLevel(userLevel);
+        }
+        return Collections.emptyList();
+    }
+
     /**
      * Get the subject IDs for the subjects that have a specific number of stars.
      *
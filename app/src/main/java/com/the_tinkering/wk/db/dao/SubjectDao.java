@@ -18,7 +18,9 @@ package com.the_tinkering.wk.db.dao;
 
 import androidx.room.Dao;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
+import com.the_tinkering.wk.db.SubjectCache;
 import com.the_tinkering.wk.db.model.Subject;
 import com.the_tinkering.wk.db.model.SubjectEntity;
 import com.the_tinkering.wk.livedata.SubjectChangeWatcher;
@@ -36,7 +38,30 @@ public abstract class SubjectDao {
      * Room-generated method: delete all subjects.
      */
     @Query("DELETE FROM Subject")
-    public abstract void deleteAll();
+    protected abstract void deleteAllSubjectsHelper();
+
+    /**
+     * Room-generated method: delete all subject content.
+     */
+    @Query("DELETE FROM subject_content")
+    protected abstract void deleteAllContentHelper();
+
+    /**
+     * Delete all subjects and their content in a single transaction.
+     */
+    @Transaction
+    protected void deleteAllHelper() {
+        deleteAllSubjectsHelper();
+        deleteAllContentHelper();
+    }
+
+    /**
+     * Delete all subjects.
+     */
+    public final void deleteAll() {
+        deleteAllHelper();
+        SubjectCache.getInstance().clear();
+    }
 
     /**
      * Room-generated method: get a single kanji subject by the characters column.
@@ -44,7 +69,7 @@ public abstract class SubjectDao {
      * @param characters the character to look for
      * @return the subject or null if not found
      */
-    @Query("SELECT * FROM subject WHERE object = 'kanji' AND hiddenAt = 0 AND characters = :characters LIMIT 1")
+    @Query(SubjectEntity.SELECT_WITH_CONTENT + " WHERE object = 'kanji' AND hiddenAt = 0 AND characters = :characters LIMIT 1")
     protected abstract @Nullable SubjectEntity getKanjiByCharactersHelper(String characters);
 
     /**
@@ -64,22 +89,81 @@ public abstract class SubjectDao {
      * @param id the subject's ID
      * @return the subject or null if not found
      */
-    @Query("SELECT * FROM subject WHERE id = :id")
+    @Query(SubjectEntity.SELECT_WITH_CONTENT + " WHERE subject.id = :id")
     protected abstract @Nullable SubjectEntity getByIdHelper(long id);
 
     /**
-     * Get a single subject by ID.
+     * Get a single subject by ID. This is served from the subject cache if possible.
      *
      * @param id the subject's ID
      * @return the subject or null if not found
      */
     public final @Nullable Subject getById(final long id) {
+        final SubjectCache cache = SubjectCache.getInstance();
+        final @Nullable SubjectEntity cached = cache.get(id);
+        if (cached != null) {
+            return new Subject(cached);
+        }
+        final long generation = cache.getGeneration();
         final @Nullable SubjectEntity entity = getByIdHelper(id);
-        return entity == null ? null : new Subject(entity);
+        if (entity == null) {
+            return null;
+        }
+        cache.put(entity, generation);
+        return new Subject(entity);
+    }
+
+    /**
+     * Room-generated methiod: update the reference data for a subject in the subject table.
+     *
+     * @param id the subject ID
+     * @param frequency the frequency
+     * @param joyoGrade the Joyo grade
+     * @param jlptLevel the JLPT level
+     */
+    @Query("UPDATE subject SET frequency = :frequency, joyoGrade = :joyoGrade, jlptLevel = :jlptLevel WHERE id = :id")
+    protected abstract void updateReferenceScalarsHelper(final long id, final int frequency, final int joyoGrade, final int jlptLevel);
+
+    /**
+     * Room-generated method: make sure a subject_content record exists for a subject.
+     *
+     * @param id the subject ID
+     */
+    @Query("INSERT OR IGNORE INTO subject_content (id) VALUES (:id)")
+    protected abstract void ensureContentHelper(final long id);
+
+    /**
+     * Room-generated method: update the reference data for a subject in the subject_content table.
+     *
+     * @param id the subject ID
+     * @param pitchInfo the pitch info, encoded as a JSON string
+     * @param strokeData the stroke data, encoded as a JSON string
+     */
+    @Query("UPDATE subject_content SET pitchInfo = :pitchInfo, strokeData = :strokeData WHERE id = :id")
+    protected abstract void updateReferenceContentHelper(final long id,
+                                                         @androidx.annotation.Nullable final String pitchInfo,
+                                                         @androidx.annotation.Nullable final String strokeData);
+
+    /**
+     * Update the reference data for a subject in both tables, in a single transaction.
+     *
+     * @param id the subject ID
+     * @param frequency the frequency
+     * @param joyoGrade the Joyo grade
+     * @param jlptLevel the JLPT level
+     * @param pitchInfo the pitch info, encoded as a JSON string
+     * @param strokeData the stroke data, encoded as a JSON string
+     */
+    @Transaction
+    protected void updateReferenceDataHelper(final long id, final int frequency, final int joyoGrade, final int jlptLevel,
+                                             final @Nullable String pitchInfo, final @Nullable String strokeData) {
+        updateReferenceScalarsHelper(id, frequency, joyoGrade, jlptLevel);
+        ensureContentHelper(id);
+        updateReferenceContentHelper(id, pitchInfo, strokeData);
     }
 
     /**
-     * Room-generated methiod: update the reference data for a subject.
+     * Update the reference data for a subject.
      *
      * @param id the subject ID
      * @param frequency the frequency
@@ -88,10 +172,11 @@ public abstract class SubjectDao {
      * @param pitchInfo the pitch info, encoded as a JSON string
      * @param strokeData the stroke data, encoded as a JSON string
      */
-    @Query("UPDATE subject SET frequency = :frequency, joyoGrade = :joyoGrade, jlptLevel = :jlptLevel, pitchInfo = :pitchInfo,"
-            + " strokeData = :strokeData WHERE id = :id")
-    public abstract void updateReferenceData(final long id, final int frequency, final int joyoGrade, final int jlptLevel,
-                                             @androidx.annotation.Nullable final String pitchInfo, @androidx.annotation.Nullable final String strokeData);
+    public final void updateReferenceData(final long id, final int frequency, final int joyoGrade, final int jlptLevel,
+                                          final @Nullable String pitchInfo, final @Nullable String strokeData) {
+        updateReferenceDataHelper(id, frequency, joyoGrade, jlptLevel, pitchInfo, strokeData);
+        SubjectCache.getInstance().invalidate(id);
+    }
 
     /**
      * Room-generated method: update the last incorrect answer timestamp.
@@ -102,7 +187,19 @@ public abstract class SubjectDao {
      */
     @Query("UPDATE subject SET lastIncorrectAnswer = :lastIncorrectAnswer "
             + "WHERE id = :id AND lastIncorrectAnswer < :lastIncorrectAnswer")
-    public abstract void updateLastIncorrectAnswer(final long id, final long lastIncorrectAnswer);
+    protected abstract void updateLastIncorrectAnswerHelper(final long id, final long lastIncorrectAnswer);
+
+    /**
+     * Update the last incorrect answer timestamp.
+     * Only update if the new value is later than the previous value.
+     *
+     * @param id the subject ID
+     * @param lastIncorrectAnswer the new timestamp
+     */
+    public final void updateLastIncorrectAnswer(final long id, final long lastIncorrectAnswer) {
+        updateLastIncorrectAnswerHelper(id, lastIncorrectAnswer);
+        SubjectCache.getInstance().invalidate(id);
+    }
 
     /**
      * Room-generated method: update the star rating.
@@ -130,7 +227,17 @@ public abstract class SubjectDao {
      * @param subjectIds the subject IDs
      */
     @Query("UPDATE subject SET statisticPatched = 0 WHERE statisticPatched AND id in (:subjectIds)")
-    public abstract void resolvePatchedReviewStatistics(Collection<Long> subjectIds);
+    protected abstract void resolvePatchedReviewStatisticsHelper(Collection<Long> subjectIds);
+
+    /**
+     * Clear the statisticPatched flag from a collection of subjects.
+     *
+     * @param subjectIds the subject IDs
+     */
+    public final void resolvePatchedReviewStatistics(final Collection<Long> subjectIds) {
+        resolvePatchedReviewStatisticsHelper(subjectIds);
+        SubjectCache.getInstance().invalidate(subjectIds);
+    }
 
     /**
      * Room-generated method: clear the assignmentPatched flag from a collection of subjects.
@@ -138,7 +245,17 @@ public abstract class SubjectDao {
      * @param subjectIds the subject IDs
      */
     @Query("UPDATE subject SET assignmentPatched = 0 WHERE assignmentPatched AND id in (:subjectIds)")
-    public abstract void resolvePatchedAssignments(Collection<Long> subjectIds);
+    protected abstract void resolvePatchedAssignmentsHelper(Collection<Long> subjectIds);
+
+    /**
+     * Clear the assignmentPatched flag from a collection of subjects.
+     *
+     * @param subjectIds the subject IDs
+     */
+    public final void resolvePatchedAssignments(final Collection<Long> subjectIds) {
+        resolvePatchedAssignmentsHelper(subjectIds);
+        SubjectCache.getInstance().invalidate(subjectIds);
+    }
 
     /**
      * Room-generated method: clear the studyMaterialPatched flag from a collection of subjects.
@@ -146,5 +263,15 @@ public abstract class SubjectDao {
      * @param subjectIds the subject IDs
      */
     @Query("UPDATE subject SET studyMaterialPatched = 0 WHERE studyMaterialPatched AND id in (:subjectIds)")
-    public abstract void resolvePatchedStudyMaterials(Collection<Long> subjectIds);
+    protected abstract void resolvePatchedStudyMaterialsHelper(Collection<Long> subjectIds);
+
+    /**
+     * Clear the studyMaterialPatched flag from a collection of subjects.
+     *
+     * @param subjectIds the subject IDs
+     */
+    public final void resolvePatchedStudyMaterials(final Collection<Long> subjectIds) {
+        resolvePatchedStudyMaterialsHelper(subjectIds);
+        SubjectCache.getInstance().invalidate(subjectIds);
+    }
 }
@@ -20,6 +20,8 @@ import android.database.sqlite.SQLiteConstraintException;
 
 import androidx.room.Dao;
 import androidx.room.Query;
+import androidx.room.RoomWarnings;
+import androidx.room.Transaction;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.the_tinkering.wk.Constants;
@@ -30,6 +32,7 @@ import com.the_tinkering.wk.api.model.ApiSubject;
 import com.the_tinkering.wk.db.Converters;
 import com.the_tinkering.wk.db.model.Subject;
 import com.the_tinkering.wk.db.model.SubjectEntity;
+import com.the_tinkering.wk.db.model.SubjectSearchEntityDefinition;
 import com.the_tinkering.wk.enums.SubjectType;
 import com.the_tinkering.wk.livedata.SubjectChangeWatcher;
 import com.the_tinkering.wk.model.SrsSystem;
@@ -37,6 +40,7 @@ import com.the_tinkering.wk.util.Logger;
 import com.the_tinkering.wk.util.ReferenceDataUtil;
 import com.the_tinkering.wk.util.SearchUtil;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -55,7 +59,7 @@ public abstract class SubjectSyncDao {
      * @param id the subject's ID
      * @return the subject or null if not found
      */
-    @Query("SELECT * FROM subject WHERE id = :id")
+    @Query(SubjectEntity.SELECT_WITH_CONTENT + " WHERE subject.id = :id")
     protected abstract @Nullable SubjectEntity getByIdHelper(long id);
 
     /**
@@ -69,6 +73,112 @@ public abstract class SubjectSyncDao {
         return entity == null ? null : new Subject(entity);
     }
 
+    /**
+     * Room-generated method: get a batch of subjects by ID.
+     *
+     * @param ids the subject IDs
+     * @return the subjects that were found
+     */
+    @Query(SubjectEntity.SELECT_WITH_CONTENT + " WHERE subject.id IN (:ids)")
+    protected abstract List<SubjectEntity> getByIdsHelper(Collection<Long> ids);
+
+    /**
+     * Room-generated method: get only the study material fields of a single subject by ID.
+     *
+     * @param id the subject's ID
+     * @return the partially loaded subject or null if not found
+     */
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
+    @Query("SELECT id, meaningNote, meaningSynonyms, readingNote FROM subject WHERE id = :id")
+    protected abstract @Nullable SubjectEntity getStudyMaterialByIdHelper(long id);
+
+    /**
+     * Room-generated method: remove a subject from the search index.
+     *
+     * @param id the subject's ID
+     */
+    @Query("DELETE FROM subject_search WHERE rowid = :id")
+    protected abstract void deleteSearchIndexEntryHelper(long id);
+
+    /**
+     * Room-generated method: add a subject to the search index.
+     *
+     * @param id the subject's ID
+     * @param characters search index field
+     * @param meanings search index field
+     * @param readings search index field
+     * @param synonyms search index field
+     * @param mnemonics search index field
+     */
+    @Query("INSERT INTO subject_search (rowid, characters, meanings, readings, synonyms, mnemonics)"
+            + " VALUES (:id, :characters, :meanings, :readings, :synonyms, :mnemonics)")
+    protected abstract void insertSearchIndexEntryHelper(long id,
+                                                         @Nullable String characters,
+                                                         @Nullable String meanings,
+                                                         @Nullable String readings,
+                                                         @Nullable String synonyms,
+                                                         @Nullable String mnemonics);
+
+    /**
+     * Room-generated method: remove a batch of subjects from the search index.
+     *
+     * @param ids the subject IDs
+     */
+    @Query("DELETE FROM subject_search WHERE rowid IN (:ids)")
+    protected abstract void deleteSearchIndexEntriesHelper(Collection<Long> ids);
+
+    /**
+     * Room-generated method: remove all subjects from the search index.
+     */
+    @Query("DELETE FROM subject_search")
+    public abstract void deleteSearchIndex();
+
+    /**
+     * Bring the search index entry for a subject up to date with the subject table. FTS tables
+     * can't do an upsert, so this is a delete followed by an insert.
+     *
+     * @param id the subject's ID
+     */
+    private void updateSearchIndexEntry(final long id) {
+        final @Nullable Subject subject = getById(id);
+        deleteSearchIndexEntryHelper(id);
+        if (subject == null) {
+            return;
+        }
+        final SubjectSearchEntityDefinition entry = SearchUtil.getSearchIndexEntry(subject);
+        insertSearchIndexEntryHelper(entry.id, entry.characters, entry.meanings, entry.readings, entry.synonyms, entry.mnemonics);
+    }
+
+    /**
+     * Bring the search index entry for a subject up to date after it has been synced from the API. The entry is
+     * built from the API subject, only the user's study material fields are loaded from the database.
+     *
+     * @param apiSubject the API subject
+     */
+    private void updateSearchIndexEntry(final ApiSubject apiSubject) {
+        final @Nullable SubjectEntity studyMaterial = getStudyMaterialByIdHelper(apiSubject.getId());
+        deleteSearchIndexEntryHelper(apiSubject.getId());
+        if (studyMaterial == null) {
+            return;
+        }
+        final SubjectSearchEntityDefinition entry = SearchUtil.getSearchIndexEntry(apiSubject, new Subject(studyMaterial));
+        insertSearchIndexEntryHelper(entry.id, entry.characters, entry.meanings, entry.readings, entry.synonyms, entry.mnemonics);
+    }
+
+    /**
+     * Room-wrapped method: bring the search index entries for a batch of subjects up to date in a single transaction.
+     *
+     * @param ids the subject IDs
+     */
+    @Transaction
+    public void updateSearchIndex(final Collection<Long> ids) {
+        deleteSearchIndexEntriesHelper(ids);
+        for (final SubjectEntity entity: getByIdsHelper(ids)) {
+            final SubjectSearchEntityDefinition entry = SearchUtil.getSearchIndexEntry(new Subject(entity));
+            insertSearchIndexEntryHelper(entry.id, entry.characters, entry.meanings, entry.readings, entry.synonyms, entry.mnemonics);
+        }
+    }
+
     // Note: the following are a bunch of methods that offer a very convoluted way to insert and update
     // subjects in the database. It's ugly and could be a lot cleaner, but this approach makes the
     // first time setup (somewhat) acceptably fast.
@@ -104,12 +214,6 @@ public abstract class SubjectSyncDao {
      * @param characters subject field
      * @param slug subject field
      * @param documentUrl subject field
-     * @param meaningMnemonic subject field
-     * @param meaningHint subject field
-     * @param readingMnemonic subject field
-     * @param readingHint subject field
-     * @param searchTarget subject field
-     * @param smallSearchTarget subject field
      * @param meanings subject field
      * @param auxiliaryMeanings subject field
      * @param readings subject field
@@ -117,16 +221,12 @@ public abstract class SubjectSyncDao {
      * @param amalgamationSubjectIds subject field
      * @param visuallySimilarSubjectIds subject field
      * @param partsOfSpeech subject field
-     * @param contextSentences subject field
-     * @param pronunciationAudios subject field
      * @param lessonPosition subject field
      * @param level subject field
      * @param hiddenAt subject field
      * @param frequency subject field
      * @param joyoGrade subject field
      * @param jlptLevel subject field
-     * @param pitchInfo subject field
-     * @param strokeData subject field
      * @param srsSystemId subject field
      * @return true if there was a record to update
      */
@@ -135,12 +235,6 @@ public abstract class SubjectSyncDao {
             + " characters = :characters,"
             + " slug = :slug,"
             + " documentUrl = :documentUrl,"
-            + " meaningMnemonic = :meaningMnemonic,"
-            + " meaningHint = :meaningHint,"
-            + " readingMnemonic = :readingMnemonic,"
-            + " readingHint = :readingHint,"
-            + " searchTarget = :searchTarget,"
-            + " smallSearchTarget = :smallSearchTarget,"
             + " meanings = :meanings,"
             + " auxiliaryMeanings = :auxiliaryMeanings,"
             + " readings = :readings,"
@@ -148,16 +242,12 @@ public abstract class SubjectSyncDao {
             + " amalgamationSubjectIds = :amalgamationSubjectIds,"
             + " visuallySimilarSubjectIds = :visuallySimilarSubjectIds,"
             + " partsOfSpeech = :partsOfSpeech,"
-            + " contextSentences = :contextSentences,"
-            + " pronunciationAudios = :pronunciationAudios,"
             + " lessonPosition = :lessonPosition,"
             + " level = :level,"
             + " hiddenAt = :hiddenAt,"
             + " frequency = :frequency,"
             + " joyoGrade = :joyoGrade,"
             + " jlptLevel = :jlptLevel,"
-            + " pitchInfo = :pitchInfo,"
-            + " strokeData = :strokeData,"
             + " srsSystemId = :srsSystemId"
             + " WHERE id = :subjectId")
     protected abstract int tryUpdateHelper(final long subjectId,
@@ -165,12 +255,6 @@ public abstract class SubjectSyncDao {
                                            @androidx.annotation.Nullable final String characters,
                                            @androidx.annotation.Nullable final String slug,
                                            @androidx.annotation.Nullable final String documentUrl,
-                                           @androidx.annotation.Nullable final String meaningMnemonic,
-                                           @androidx.annotation.Nullable final String meaningHint,
-                                           @androidx.annotation.Nullable final String readingMnemonic,
-                                           @androidx.annotation.Nullable final String readingHint,
-                                           final String searchTarget,
-                                           final String smallSearchTarget,
                                            final String meanings,
                                            final String auxiliaryMeanings,
                                            final String readings,
@@ -178,16 +262,12 @@ public abstract class SubjectSyncDao {
                                            final String amalgamationSubjectIds,
                                            final String visuallySimilarSubjectIds,
                                            final String partsOfSpeech,
-                                           final String contextSentences,
-                                           final String pronunciationAudios,
                                            final int lessonPosition,
                                            final int level,
                                            final long hiddenAt,
                                            final int frequency,
                                            final int joyoGrade,
                                            final int jlptLevel,
-                                           @androidx.annotation.Nullable final String pitchInfo,
-                                           @androidx.annotation.Nullable final String strokeData,
                                            final long srsSystemId);
 
     /**
@@ -204,12 +284,6 @@ public abstract class SubjectSyncDao {
                 apiSubject.getCharacters(),
                 apiSubject.getSlug(),
                 apiSubject.getDocumentUrl(),
-                apiSubject.getMeaningMnemonic(),
-                apiSubject.getMeaningHint(),
-                apiSubject.getReadingMnemonic(),
-                apiSubject.getReadingHint(),
-                SearchUtil.findSearchTarget(apiSubject),
-                SearchUtil.findSmallSearchTarget(apiSubject),
                 serializeToJsonString(apiSubject.getMeanings()),
                 serializeToJsonString(apiSubject.getAuxiliaryMeanings()),
                 serializeToJsonString(apiSubject.getReadings()),
@@ -217,16 +291,12 @@ public abstract class SubjectSyncDao {
                 serializeToJsonString(apiSubject.getAmalgamationSubjectIds()),
                 serializeToJsonString(apiSubject.getVisuallySimilarSubjectIds()),
                 serializeToJsonString(apiSubject.getPartsOfSpeech()),
-                serializeToJsonString(apiSubject.getContextSentences()),
-                serializeToJsonString(apiSubject.getPronunciationAudios()),
                 apiSubject.getLessonPosition(),
                 apiSubject.getLevel(),
                 apiSubject.getHiddenAt(),
                 ReferenceDataUtil.getFrequency(type, apiSubject.getCharacters()),
                 ReferenceDataUtil.getJoyoGrade(type, apiSubject.getCharacters()),
                 ReferenceDataUtil.getJlptLevel(type, apiSubject.getCharacters()),
-                ReferenceDataUtil.getPitchInfo(type, apiSubject.getCharacters()),
-                ReferenceDataUtil.getStrokeData(type, apiSubject.getId(), apiSubject.getCharacters()),
                 apiSubject.getSrsSystemId()
         );
         return count > 0;
@@ -241,12 +311,6 @@ public abstract class SubjectSyncDao {
      * @param characters subject field
      * @param slug subject field
      * @param documentUrl subject field
-     * @param meaningMnemonic subject field
-     * @param meaningHint subject field
-     * @param readingMnemonic subject field
-     * @param readingHint subject field
-     * @param searchTarget subject field
-     * @param smallSearchTarget subject field
      * @param meanings subject field
      * @param auxiliaryMeanings subject field
      * @param readings subject field
@@ -254,35 +318,30 @@ public abstract class SubjectSyncDao {
      * @param amalgamationSubjectIds subject field
      * @param visuallySimilarSubjectIds subject field
      * @param partsOfSpeech subject field
-     * @param contextSentences subject field
-     * @param pronunciationAudios subject field
      * @param lessonPosition subject field
      * @param level subject field
      * @param hiddenAt subject field
      * @param frequency subject field
      * @param joyoGrade subject field
      * @param jlptLevel subject field
-     * @param pitchInfo subject field
-     * @param strokeData subject field
      * @param srsSystemId subject field
      */
     @Query("INSERT INTO subject"
-            + " (id, object, characters, slug, documentUrl, meaningMnemonic, meaningHint, readingMnemonic, readingHint, searchTarget, smallSearchTarget,"
+            + " (id, object, characters, slug, documentUrl,"
             + " meanings, auxiliaryMeanings, readings, componentSubjectIds, amalgamationSubjectIds, visuallySimilarSubjectIds,"
-            + " partsOfSpeech, contextSentences, pronunciationAudios,"
-            + " typeCode, lessonPosition, level, hiddenAt, frequency, joyoGrade, jlptLevel, pitchInfo, strokeData, srsSystemId,"
+            + " partsOfSpeech,"
+            + " typeCode, lessonPosition, level, hiddenAt, frequency, joyoGrade, jlptLevel, srsSystemId,"
             + " assignmentId, passed, resurrected, srsStage, assignmentPatched, studyMaterialId, studyMaterialPatched,"
             + " reviewStatisticId, meaningCorrect, meaningIncorrect, meaningMaxStreak, meaningCurrentStreak,"
             + " readingCorrect, readingIncorrect, readingMaxStreak, readingCurrentStreak, percentageCorrect,"
             + " statisticPatched, leechScore, levelProgressScore, audioDownloadStatus,"
             + " resurrectedAt, burnedAt, unlockedAt, startedAt, passedAt, availableAt, lastIncorrectAnswer"
             + " )"
-            + " VALUES (:subjectId, :object, :characters, :slug, :documentUrl, :meaningMnemonic, :meaningHint, :readingMnemonic, :readingHint,"
-            + " :searchTarget, :smallSearchTarget,"
+            + " VALUES (:subjectId, :object, :characters, :slug, :documentUrl,"
             + " :meanings, :auxiliaryMeanings, :readings, :componentSubjectIds, :amalgamationSubjectIds, :visuallySimilarSubjectIds,"
-            + " :partsOfSpeech, :contextSentences, :pronunciationAudios,"
+            + " :partsOfSpeech,"
             + " 0, :lessonPosition, :level, :hiddenAt,"
-            + " :frequency, :joyoGrade, :jlptLevel, :pitchInfo, :strokeData, :srsSystemId,"
+            + " :frequency, :joyoGrade, :jlptLevel, :srsSystemId,"
             + " 0, 0, 0, -999, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,"
             + " 0, 0, 0, 0, 0, 0, 0"
             + ")")
@@ -291,12 +350,6 @@ public abstract class SubjectSyncDao {
                                             @androidx.annotation.Nullable final String characters,
                                             @androidx.annotation.Nullable final String slug,
                                             @androidx.annotation.Nullable final String documentUrl,
-                                            @androidx.annotation.Nullable final String meaningMnemonic,
-                                            @androidx.annotation.Nullable final String meaningHint,
-                                            @androidx.annotation.Nullable final String readingMnemonic,
-                                            @androidx.annotation.Nullable final String readingHint,
-                                            final String searchTarget,
-                                            final String smallSearchTarget,
                                             final String meanings,
                                             final String auxiliaryMeanings,
                                             final String readings,
@@ -304,16 +357,12 @@ public abstract class SubjectSyncDao {
                                             final String amalgamationSubjectIds,
                                             final String visuallySimilarSubjectIds,
                                             final String partsOfSpeech,
-                                            final String contextSentences,
-                                            final String pronunciationAudios,
                                             final int lessonPosition,
                                             final int level,
                                             final long hiddenAt,
                                             final int frequency,
                                             final int joyoGrade,
                                             final int jlptLevel,
-                                            @androidx.annotation.Nullable final String pitchInfo,
-                                            @androidx.annotation.Nullable final String strokeData,
                                             final long srsSystemId);
 
     /**
@@ -331,12 +380,6 @@ public abstract class SubjectSyncDao {
                     apiSubject.getCharacters(),
                     apiSubject.getSlug(),
                     apiSubject.getDocumentUrl(),
-                    apiSubject.getMeaningMnemonic(),
-                    apiSubject.getMeaningHint(),
-                    apiSubject.getReadingMnemonic(),
-                    apiSubject.getReadingHint(),
-                    SearchUtil.findSearchTarget(apiSubject),
-                    SearchUtil.findSmallSearchTarget(apiSubject),
                     serializeToJsonString(apiSubject.getMeanings()),
                     serializeToJsonString(apiSubject.getAuxiliaryMeanings()),
                     serializeToJsonString(apiSubject.getReadings()),
@@ -344,16 +387,12 @@ public abstract class SubjectSyncDao {
                     serializeToJsonString(apiSubject.getAmalgamationSubjectIds()),
                     serializeToJsonString(apiSubject.getVisuallySimilarSubjectIds()),
                     serializeToJsonString(apiSubject.getPartsOfSpeech()),
-                    serializeToJsonString(apiSubject.getContextSentences()),
-                    serializeToJsonString(apiSubject.getPronunciationAudios()),
                     apiSubject.getLessonPosition(),
                     apiSubject.getLevel(),
                     apiSubject.getHiddenAt(),
                     ReferenceDataUtil.getFrequency(type, apiSubject.getCharacters()),
                     ReferenceDataUtil.getJoyoGrade(type, apiSubject.getCharacters()),
                     ReferenceDataUtil.getJlptLevel(type, apiSubject.getCharacters()),
-                    ReferenceDataUtil.getPitchInfo(type, apiSubject.getCharacters()),
-                    ReferenceDataUtil.getStrokeData(type, apiSubject.getId(), apiSubject.getCharacters()),
                     apiSubject.getSrsSystemId()
             );
         }
@@ -363,6 +402,55 @@ public abstract class SubjectSyncDao {
         return true;
     }
 
+    /**
+     * Room-generated method: insert or replace the subject_content record for a subject. This covers the
+     * bulky text data that is only needed when showing the subject in full.
+     *
+     * @param subjectId the subject ID
+     * @param meaningMnemonic subject field
+     * @param meaningHint subject field
+     * @param readingMnemonic subject field
+     * @param readingHint subject field
+     * @param contextSentences subject field
+     * @param pronunciationAudios subject field
+     * @param pitchInfo subject field
+     * @param strokeData subject field
+     */
+    @Query("INSERT OR REPLACE INTO subject_content"
+            + " (id, meaningMnemonic, meaningHint, readingMnemonic, readingHint, contextSentences, pronunciationAudios,"
+            + " pitchInfo, strokeData)"
+            + " VALUES (:subjectId, :meaningMnemonic, :meaningHint, :readingMnemonic, :readingHint, :contextSentences,"
+            + " :pronunciationAudios, :pitchInfo, :strokeData)")
+    protected abstract void upsertContentHelper(final long subjectId,
+                                                @androidx.annotation.Nullable final String meaningMnemonic,
+                                                @androidx.annotation.Nullable final String meaningHint,
+                                                @androidx.annotation.Nullable final String readingMnemonic,
+                                                @androidx.annotation.Nullable final String readingHint,
+                                                final String contextSentences,
+                                                final String pronunciationAudios,
+                                                @androidx.annotation.Nullable final String pitchInfo,
+                                                @androidx.annotation.Nullable final String strokeData);
+
+    /**
+     * Insert or replace the subject_content record from an API subject instance.
+     *
+     * @param apiSubject the API subject to pull data from
+     */
+    private void upsertContent(final ApiSubject apiSubject) {
+        final @Nullable SubjectType type = Converters.stringToSubjectType(apiSubject.getObject());
+        upsertContentHelper(
+                apiSubject.getId(),
+                apiSubject.getMeaningMnemonic(),
+                apiSubject.getMeaningHint(),
+                apiSubject.getReadingMnemonic(),
+                apiSubject.getReadingHint(),
+                serializeToJsonString(apiSubject.getContextSentences()),
+                serializeToJsonString(apiSubject.getPronunciationAudios()),
+                ReferenceDataUtil.getPitchInfo(type, apiSubject.getCharacters()),
+                ReferenceDataUtil.getStrokeData(type, apiSubject.getId(), apiSubject.getCharacters())
+        );
+    }
+
     /**
      * Room-generated method: insert an empty subject into the database. This is used to prepare an update with
      * an assignment or something like that for which the subject doesn't exist yet. The subject will be
@@ -398,12 +486,13 @@ public abstract class SubjectSyncDao {
     }
 
     /**
-     * Insert or update an API subject depending on whether it exists in the database already.
+     * Insert or update an API subject depending on whether it exists in the database already,
+     * without reporting the change.
      *
      * @param apiSubject the API subject
      * @param existingSubjectIds the set of existing subject IDs, to predict the likely (non-)existence of the subject
      */
-    public final void insertOrUpdate(final ApiSubject apiSubject, final Collection<Long> existingSubjectIds) {
+    private void insertOrUpdateHelper(final ApiSubject apiSubject, final Collection<Long> existingSubjectIds) {
         if (existingSubjectIds.contains(apiSubject.getId())) {
             final boolean updated = tryUpdate(apiSubject);
             if (!updated) {
@@ -416,9 +505,55 @@ public abstract class SubjectSyncDao {
                 tryUpdate(apiSubject);
             }
         }
+        upsertContent(apiSubject);
+        updateSearchIndexEntry(apiSubject);
+    }
+
+    /**
+     * Insert or update an API subject depending on whether it exists in the database already.
+     *
+     * @param apiSubject the API subject
+     * @param existingSubjectIds the set of existing subject IDs, to predict the likely (non-)existence of the subject
+     */
+    public final void insertOrUpdate(final ApiSubject apiSubject, final Collection<Long> existingSubjectIds) {
+        insertOrUpdateHelper(apiSubject, existingSubjectIds);
         SubjectChangeWatcher.getInstance().reportChange(apiSubject.getId());
     }
 
+    /**
+     * Room-wrapped method: insert or update a batch of API subjects in a single transaction.
+     * The update and insert statements are compiled once and reused for every subject in the batch,
+     * and there is only one journal commit for the whole batch.
+     *
+     * @param apiSubjects the API subjects
+     * @param existingSubjectIds the set of existing subject IDs, to predict the likely (non-)existence of the subjects
+     */
+    @Transaction
+    protected void insertOrUpdateAllHelper(final Collection<ApiSubject> apiSubjects, final Collection<Long> existingSubjectIds) {
+        for (final ApiSubject apiSubject: apiSubjects) {
+            insertOrUpdateHelper(apiSubject, existingSubjectIds);
+        }
+    }
+
+    /**
+     * Insert or update a batch of API subjects, typically one page of an API response. The changes are
+     * written in a single transaction, and reported to the change watcher in one go afterwards.
+     *
+     * @param apiSubjects the API subjects
+     * @param existingSubjectIds the set of existing subject IDs, to predict the likely (non-)existence of the subjects
+     */
+    public final void insertOrUpdateAll(final Collection<ApiSubject> apiSubjects, final Collection<Long> existingSubjectIds) {
+        if (apiSubjects.isEmpty()) {
+            return;
+        }
+        insertOrUpdateAllHelper(apiSubjects, existingSubjectIds);
+        final Collection<Long> subjectIds = new ArrayList<>(apiSubjects.size());
+        for (final ApiSubject apiSubject: apiSubjects) {
+            subjectIds.add(apiSubject.getId());
+        }
+        SubjectChangeWatcher.getInstance().reportChanges(subjectIds);
+    }
+
     /**
      * Room-generated method: update a subject with data from an assignment.
      *
@@ -476,19 +611,59 @@ public abstract class SubjectSyncDao {
     }
 
     /**
-     * Insert or update an API assignment depending on whether it exists in the database already.
+     * Insert or update an API assignment depending on whether it exists in the database already,
+     * without reporting the change.
      *
      * @param apiAssignment the API assignment
      */
-    public final void insertOrUpdateAssignment(final ApiAssignment apiAssignment) {
+    private void insertOrUpdateAssignmentHelper(final ApiAssignment apiAssignment) {
         final boolean updated = tryUpdateAssignment(apiAssignment);
         if (!updated) {
             tryInsertIdOnly(apiAssignment.getSubjectId());
             tryUpdateAssignment(apiAssignment);
         }
+    }
+
+    /**
+     * Insert or update an API assignment depending on whether it exists in the database already.
+     *
+     * @param apiAssignment the API assignment
+     */
+    public final void insertOrUpdateAssignment(final ApiAssignment apiAssignment) {
+        insertOrUpdateAssignmentHelper(apiAssignment);
         SubjectChangeWatcher.getInstance().reportChange(apiAssignment.getSubjectId());
     }
 
+    /**
+     * Room-wrapped method: insert or update a batch of API assignments in a single transaction.
+     *
+     * @param apiAssignments the API assignments
+     */
+    @Transaction
+    protected void insertOrUpdateAssignmentsHelper(final Collection<ApiAssignment> apiAssignments) {
+        for (final ApiAssignment apiAssignment: apiAssignments) {
+            insertOrUpdateAssignmentHelper(apiAssignment);
+        }
+    }
+
+    /**
+     * Insert or update a batch of API assignments, typically one page of an API response. The changes are
+     * written in a single transaction, and reported to the change watcher in one go afterwards.
+     *
+     * @param apiAssignments the API assignments
+     */
+    public final void insertOrUpdateAssignments(final Collection<ApiAssignment> apiAssignments) {
+        if (apiAssignments.isEmpty()) {
+            return;
+        }
+        insertOrUpdateAssignmentsHelper(apiAssignments);
+        final Collection<Long> subjectIds = new ArrayList<>(apiAssignments.size());
+        for (final ApiAssignment apiAssignment: apiAssignments) {
+            subjectIds.add(apiAssignment.getSubjectId());
+        }
+        SubjectChangeWatcher.getInstance().reportChanges(subjectIds);
+    }
+
     /**
      * Room-generated method: update a subject with data from a study material.
      *
@@ -556,20 +731,62 @@ public abstract class SubjectSyncDao {
     }
 
     /**
-     * Insert or update an API study material depending on whether it exists in the database already.
+     * Insert or update an API study material depending on whether it exists in the database already,
+     * without reporting the change.
      *
      * @param apiStudyMaterial the API study material
      * @param patched if true, leave the study material ID in the subject alone
      */
-    public final void insertOrUpdateStudyMaterial(final ApiStudyMaterial apiStudyMaterial, final boolean patched) {
+    private void insertOrUpdateStudyMaterialHelper(final ApiStudyMaterial apiStudyMaterial, final boolean patched) {
         final boolean updated = tryUpdateStudyMaterial(apiStudyMaterial, patched);
         if (!updated) {
             tryInsertIdOnly(apiStudyMaterial.getSubjectId());
             tryUpdateStudyMaterial(apiStudyMaterial, patched);
         }
+        updateSearchIndexEntry(apiStudyMaterial.getSubjectId());
+    }
+
+    /**
+     * Insert or update an API study material depending on whether it exists in the database already.
+     *
+     * @param apiStudyMaterial the API study material
+     * @param patched if true, leave the study material ID in the subject alone
+     */
+    public final void insertOrUpdateStudyMaterial(final ApiStudyMaterial apiStudyMaterial, final boolean patched) {
+        insertOrUpdateStudyMaterialHelper(apiStudyMaterial, patched);
         SubjectChangeWatcher.getInstance().reportChange(apiStudyMaterial.getSubjectId());
     }
 
+    /**
+     * Room-wrapped method: insert or update a batch of API study materials in a single transaction.
+     *
+     * @param apiStudyMaterials the API study materials
+     */
+    @Transaction
+    protected void insertOrUpdateStudyMaterialsHelper(final Collection<ApiStudyMaterial> apiStudyMaterials) {
+        for (final ApiStudyMaterial apiStudyMaterial: apiStudyMaterials) {
+            insertOrUpdateStudyMaterialHelper(apiStudyMaterial, false);
+        }
+    }
+
+    /**
+     * Insert or update a batch of API study materials, typically one page of an API response. The changes are
+     * written in a single transaction, and reported to the change watcher in one go afterwards.
+     *
+     * @param apiStudyMaterials the API study materials
+     */
+    public final void insertOrUpdateStudyMaterials(final Collection<ApiStudyMaterial> apiStudyMaterials) {
+        if (apiStudyMaterials.isEmpty()) {
+            return;
+        }
+        insertOrUpdateStudyMaterialsHelper(apiStudyMaterials);
+        final Collection<Long> subjectIds = new ArrayList<>(apiStudyMaterials.size());
+        for (final ApiStudyMaterial apiStudyMaterial: apiStudyMaterials) {
+            subjectIds.add(apiStudyMaterial.getSubjectId());
+        }
+        SubjectChangeWatcher.getInstance().reportChanges(subjectIds);
+    }
+
     /**
      * Room-generated method: update a subject with data from a study material.
      *
@@ -650,19 +867,110 @@ public abstract class SubjectSyncDao {
     }
 
     /**
-     * Insert or update an API review statistic depending on whether it exists in the database already.
+     * Insert or update an API review statistic depending on whether it exists in the database already,
+     * without reporting the change.
      *
      * @param apiReviewStatistic the API review statistic
      */
-    public final void insertOrUpdateReviewStatistic(final ApiReviewStatistic apiReviewStatistic) {
+    private void insertOrUpdateReviewStatisticHelper(final ApiReviewStatistic apiReviewStatistic) {
         final boolean updated = tryUpdateReviewStatistic(apiReviewStatistic);
         if (!updated) {
             tryInsertIdOnly(apiReviewStatistic.getSubjectId());
             tryUpdateReviewStatistic(apiReviewStatistic);
         }
+    }
+
+    /**
+     * Insert or update an API review statistic depending on whether it exists in the database already.
+     *
+     * @param apiReviewStatistic the API review statistic
+     */
+    public final void insertOrUpdateReviewStatistic(final ApiReviewStatistic apiReviewStatistic) {
+        insertOrUpdateReviewStatisticHelper(apiReviewStatistic);
         SubjectChangeWatcher.getInstance().reportChange(apiReviewStatistic.getSubjectId());
     }
 
+    /**
+     * Room-wrapped method: insert or update a batch of API review statistics in a single transaction.
+     *
+     * @param apiReviewStatistics the API review statistics
+     */
+    @Transaction
+    protected void insertOrUpdateReviewStatisticsHelper(final Collection<ApiReviewStatistic> apiReviewStatistics) {
+        for (final ApiReviewStatistic apiReviewStatistic: apiReviewStatistics) {
+            insertOrUpdateReviewStatisticHelper(apiReviewStatistic);
+        }
+    }
+
+    /**
+     * Insert or update a batch of API review statistics, typically one page of an API response. The changes are
+     * written in a single transaction, and reported to the change watcher in one go afterwards.
+     *
+     * @param apiReviewStatistics the API review statistics
+     */
+    public final void insertOrUpdateReviewStatistics(final Collection<ApiReviewStatistic> apiReviewStatistics) {
+        if (apiReviewStatistics.isEmpty()) {
+            return;
+        }
+        insertOrUpdateReviewStatisticsHelper(apiReviewStatistics);
+        final Collection<Long> subjectIds = new ArrayList<>(apiReviewStatistics.size());
+        for (final ApiReviewStatistic apiReviewStatistic: apiReviewStatistics) {
+            subjectIds.add(apiReviewStatistic.getSubjectId());
+        }
+        SubjectChangeWatcher.getInstance().reportChanges(subjectIds);
+    }
+
+    /**
+     * Room-generated method: delete a batch of review outbox items by ID.
+     *
+     * @param ids the IDs of the items to delete
+     */
+    @Query("DELETE FROM review_outbox WHERE id IN (:ids)")
+    protected abstract void deleteReviewOutboxItemsHelper(Collection<Long> ids);
+
+    /**
+     * Room-wrapped method: apply a batch of review outbox responses and remove the reported items
+     * from the outbox in a single transaction.
+     *
+     * @param apiAssignments the API assignments from the responses
+     * @param apiReviewStatistics the API review statistics from the responses
+     * @param outboxIds the IDs of the outbox items that have been reported
+     */
+    @Transaction
+    protected void applyReviewOutboxResultsHelper(final Collection<ApiAssignment> apiAssignments,
+                                                  final Collection<ApiReviewStatistic> apiReviewStatistics,
+                                                  final Collection<Long> outboxIds) {
+        for (final ApiAssignment apiAssignment: apiAssignments) {
+            insertOrUpdateAssignmentHelper(apiAssignment);
+        }
+        for (final ApiReviewStatistic apiReviewStatistic: apiReviewStatistics) {
+            insertOrUpdateReviewStatisticHelper(apiReviewStatistic);
+        }
+        deleteReviewOutboxItemsHelper(outboxIds);
+    }
+
+    /**
+     * Apply a batch of review outbox responses. The updated assignments and review statistics are written
+     * in the same transaction that removes the reported items from the outbox, so a crash can never leave
+     * an item both applied and still waiting to be reported. The changes are reported to the change
+     * watcher in one go afterwards.
+     *
+     * @param apiAssignments the API assignments from the responses
+     * @param apiReviewStatistics the API review statistics from the responses
+     * @param outboxIds the IDs of the outbox items that have been reported
+     * @param subjectIds the IDs of the subjects affected by the batch
+     */
+    public final void applyReviewOutboxResults(final Collection<ApiAssignment> apiAssignments,
+                                               final Collection<ApiReviewStatistic> apiReviewStatistics,
+                                               final Collection<Long> outboxIds,
+                                               final Collection<Long> subjectIds) {
+        if (outboxIds.isEmpty()) {
+            return;
+        }
+        applyReviewOutboxResultsHelper(apiAssignments, apiReviewStatistics, outboxIds);
+        SubjectChangeWatcher.getInstance().reportChanges(subjectIds);
+    }
+
     /**
      * Room-generated method: locally patch the assignment data for a record.
      *
@@ -846,12 +1154,13 @@ public abstract class SubjectSyncDao {
     }
 
     /**
-     * Room-generated method: get a list of all subjects available for lesson.
+     * Room-generated method: get a list of all subjects available for lesson, without the subject_content columns.
      *
      * @param maxLevel the maximum level available on the user's subscription
      * @param userLevel the user's level
      * @return the list
      */
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
     @Query("SELECT * FROM subject"
             + " WHERE hiddenAt = 0 AND object IS NOT NULL"
             + " AND level <= :maxLevel AND level <= :userLevel"
@@ -921,13 +1230,14 @@ public abstract class SubjectSyncDao {
 
     /**
      * Room-generated method: get a list of all subjects available for review, where the review
-     * becomes/became available before the given cutoff date.
+     * becomes/became available before the given cutoff date, without the subject_content columns.
      *
      * @param maxLevel the maximum level available on the user's subscription
      * @param userLevel the user's level
      * @param cutoff the cutoff date
      * @return the list
      */
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
     @Query("SELECT * FROM subject"
             + " WHERE hiddenAt = 0 AND object IS NOT NULL"
             + " AND level <= :maxLevel AND level <= :userLevel"
@@ -134,7 +134,9 @@ public abstract class SubjectViewsDao {
      *
      * @return the list of reference data
      */
-    @Query("SELECT id, object AS type, characters, frequency, joyoGrade, jlptLevel, pitchInfo, strokeData FROM subject")
+    @Query("SELECT subject.id AS id, object AS type, characters, frequency, joyoGrade, jlptLevel,"
+            + " subject_content.pitchInfo AS pitchInfo, subject_content.strokeData AS strokeData"
+            + " FROM subject LEFT JOIN subject_content ON subject_content.id = subject.id")
     public abstract List<SubjectReferenceData> getReferenceData();
 
     /**
@@ -143,6 +145,8 @@ public abstract class SubjectViewsDao {
      * @param level the level
      * @return the list of audio records
      */
-    @Query("SELECT id, level, pronunciationAudios FROM subject WHERE hiddenAt = 0 AND level = :level")
+    @Query("SELECT subject.id AS id, level, subject_content.pronunciationAudios AS pronunciationAudios"
+            + " FROM subject LEFT JOIN subject_content ON subject_content.id = subject.id"
+            + " WHERE hiddenAt = 0 AND level = :level")
     public abstract List<SubjectPronunciationAudio> getAudioByLevel(int level);
 }
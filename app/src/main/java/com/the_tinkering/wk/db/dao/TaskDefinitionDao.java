@@ -21,10 +21,13 @@ import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import com.the_tinkering.wk.db.model.ReviewOutboxItem;
 import com.the_tinkering.wk.db.model.TaskDefinition;
 import com.the_tinkering.wk.model.TaskCounts;
 import com.the_tinkering.wk.tasks.ApiTask;
 
+import java.util.Collection;
+
 import javax.annotation.Nullable;
 
 /**
@@ -63,12 +66,16 @@ public abstract class TaskDefinitionDao {
 
     /**
      * Room-generated method: get a LiveData instance containing the counts of tasks (API and audio separately).
+     * Items waiting in the review outbox are counted as individual API tasks, instead of the single task that submits them.
+     * Parked outbox items are not counted.
      *
      * @return the LiveData instance
      */
     @Query("SELECT apiCount, audioCount, pitchInfoCount FROM "
-            + "(SELECT COUNT(*) AS apiCount FROM task_definition "
-            + "WHERE taskClass!='com.the_tinkering.wk.tasks.DownloadAudioTask' AND taskClass!='com.the_tinkering.wk.tasks.DownloadPitchInfoTask'), "
+            + "(SELECT (SELECT COUNT(*) FROM task_definition "
+            + "WHERE taskClass!='com.the_tinkering.wk.tasks.DownloadAudioTask' AND taskClass!='com.the_tinkering.wk.tasks.DownloadPitchInfoTask' "
+            + "AND taskClass!='com.the_tinkering.wk.tasks.SubmitReviewOutboxTask') "
+            + "+ (SELECT COUNT(*) FROM review_outbox WHERE numFailures < " + ReviewOutboxItem.MAX_FAILURES + ") AS apiCount), "
             + "(SELECT count(*) AS audioCount FROM task_definition "
             + "WHERE taskClass='com.the_tinkering.wk.tasks.DownloadAudioTask'), "
             + "(SELECT count(*) AS pitchInfoCount FROM task_definition "
@@ -83,6 +90,27 @@ public abstract class TaskDefinitionDao {
     @Query("SELECT * FROM task_definition ORDER BY priority, id LIMIT 1")
     public abstract @Nullable TaskDefinition getNextTaskDefinition();
 
+    /**
+     * Room-generated method: get the next task to execute of a specific class, skipping tasks that are already running.
+     *
+     * @param taskClass the class to look for
+     * @param excludedIds the IDs of tasks to skip
+     * @return the task or null if none are pending
+     */
+    @Query("SELECT * FROM task_definition WHERE taskClass = :taskClass AND id NOT IN (:excludedIds) ORDER BY priority, id LIMIT 1")
+    public abstract @Nullable TaskDefinition getNextTaskDefinitionOfClass(String taskClass, Collection<Integer> excludedIds);
+
+    /**
+     * Room-generated method: get the next task to execute that is not of one of the given classes,
+     * skipping tasks that are already running.
+     *
+     * @param taskClasses the classes to skip
+     * @param excludedIds the IDs of tasks to skip
+     * @return the task or null if none are pending
+     */
+    @Query("SELECT * FROM task_definition WHERE taskClass NOT IN (:taskClasses) AND id NOT IN (:excludedIds) ORDER BY priority, id LIMIT 1")
+    public abstract @Nullable TaskDefinition getNextTaskDefinitionNotOfClass(Collection<String> taskClasses, Collection<Integer> excludedIds);
+
     /**
      * Room-generated method: get the number of tasks for a certain task class.
      *
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.db.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+
+/**
+ * Room entity for the audio_file table. Each record is a downloaded pronunciation audio file,
+ * as recorded in the audio inventory.
+ */
+@Entity(tableName = "audio_file", primaryKeys = {"location", "level", "sourceId", "format"})
+public final class AudioFile {
+    @NonNull private String location = "";
+    private int level = 0;
+    private long sourceId = 0L;
+    @NonNull private String format = "";
+    private long size = 0L;
+
+    /**
+     * The constructor.
+     */
+    public AudioFile() {
+        //
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param location the storage location, as returned by AudioUtil.getLocationValues()
+     * @param level the level of the subject the audio belongs to
+     * @param sourceId the source ID of the audio
+     * @param format the format of the file, which is also its extension
+     * @param size the size of the file in bytes
+     */
+    @Ignore
+    public AudioFile(final String location, final int level, final long sourceId, final String format, final long size) {
+        this.location = location;
+        this.level = level;
+        this.sourceId = sourceId;
+        this.format = format;
+        this.size = size;
+    }
+
+    /**
+     * The storage location, as returned by AudioUtil.getLocationValues().
+     * @return the value
+     */
+    @NonNull
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * The storage location, as returned by AudioUtil.getLocationValues().
+     * @param location the value
+     */
+    public void setLocation(@NonNull final String location) {
+        this.location = location;
+    }
+
+    /**
+     * The level of the subject the audio belongs to, which is also the directory the file is in.
+     * @return the value
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * The level of the subject the audio belongs to, which is also the directory the file is in.
+     * @param level the value
+     */
+    public void setLevel(final int level) {
+        this.level = level;
+    }
+
+    /**
+     * The source ID of the audio, which is also the base name of the file.
+     * @return the value
+     */
+    public long getSourceId() {
+        return sourceId;
+    }
+
+    /**
+     * The source ID of the audio, which is also the base name of the file.
+     * @param sourceId the value
+     */
+    public void setSourceId(final long sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    /**
+     * The format of the file, 'mp3' or 'ogg', which is also its extension.
+     * @return the value
+     */
+    @NonNull
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * The format of the file, 'mp3' or 'ogg', which is also its extension.
+     * @param format the value
+     */
+    public void setFormat(@NonNull final String format) {
+        this.format = format;
+    }
+
+    /**
+     * The size of the file in bytes.
+     * @return the value
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * The size of the file in bytes.
+     * @param size the value
+     */
+    public void setSize(final long size) {
+        this.size = size;
+    }
+
+    /**
+     * The name of the file within its level directory.
+     * @return the value
+     */
+    public String getFileName() {
+        return sourceId + "." + format;
+    }
+}
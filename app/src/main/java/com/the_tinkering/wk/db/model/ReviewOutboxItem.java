@@ -0,0 +1,190 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.db.model;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import com.the_tinkering.wk.enums.SessionType;
+
+/**
+ * Room entity for the review_outbox table. These are finished session items that still have to be
+ * reported to the API. Each record is removed in the same transaction that applies the API's response.
+ * A record that the API keeps rejecting is parked after MAX_FAILURES attempts: it stays in the table,
+ * but it is no longer submitted or counted as pending.
+ */
+@Entity(tableName = "review_outbox")
+public final class ReviewOutboxItem {
+    /**
+     * The number of times the API can reject an item before it is parked.
+     */
+    public static final int MAX_FAILURES = 5;
+
+    @PrimaryKey(autoGenerate = true) private long id = 0L;
+    private long timestamp = 0L;
+    private long subjectId = 0L;
+    private long assignmentId = 0L;
+    private SessionType type = SessionType.NONE;
+    private int meaningIncorrect = 0;
+    private int readingIncorrect = 0;
+    private boolean justPassed = false;
+    private int numFailures = 0;
+
+    /**
+     * The unique ID, which also determines the order of submission.
+     * @return the value
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * The unique ID, which also determines the order of submission.
+     * @param id the value
+     */
+    public void setId(final long id) {
+        this.id = id;
+    }
+
+    /**
+     * The timestamp the item was finished.
+     * @return the value
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * The timestamp the item was finished.
+     * @param timestamp the value
+     */
+    public void setTimestamp(final long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * The subject ID this item applies to.
+     * @return the value
+     */
+    public long getSubjectId() {
+        return subjectId;
+    }
+
+    /**
+     * The subject ID this item applies to.
+     * @param subjectId the value
+     */
+    public void setSubjectId(final long subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    /**
+     * The assignment ID for this item, or 0 if not known.
+     * @return the value
+     */
+    public long getAssignmentId() {
+        return assignmentId;
+    }
+
+    /**
+     * The assignment ID for this item, or 0 if not known.
+     * @param assignmentId the value
+     */
+    public void setAssignmentId(final long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    /**
+     * The type of the session this item is from.
+     * @return the value
+     */
+    public SessionType getType() {
+        return type;
+    }
+
+    /**
+     * The type of the session this item is from.
+     * @param type the value
+     */
+    public void setType(final SessionType type) {
+        this.type = type;
+    }
+
+    /**
+     * Number of incorrect meaning answers.
+     * @return the value
+     */
+    public int getMeaningIncorrect() {
+        return meaningIncorrect;
+    }
+
+    /**
+     * Number of incorrect meaning answers.
+     * @param meaningIncorrect the value
+     */
+    public void setMeaningIncorrect(final int meaningIncorrect) {
+        this.meaningIncorrect = meaningIncorrect;
+    }
+
+    /**
+     * Number of incorrect reading answers.
+     * @return the value
+     */
+    public int getReadingIncorrect() {
+        return readingIncorrect;
+    }
+
+    /**
+     * Number of incorrect reading answers.
+     * @param readingIncorrect the value
+     */
+    public void setReadingIncorrect(final int readingIncorrect) {
+        this.readingIncorrect = readingIncorrect;
+    }
+
+    /**
+     * True if the subject just passed with this item (went to Guru I for the first time).
+     * @return the value
+     */
+    public boolean isJustPassed() {
+        return justPassed;
+    }
+
+    /**
+     * True if the subject just passed with this item (went to Guru I for the first time).
+     * @param justPassed the value
+     */
+    public void setJustPassed(final boolean justPassed) {
+        this.justPassed = justPassed;
+    }
+
+    /**
+     * The number of times the API has rejected this item.
+     * @return the value
+     */
+    public int getNumFailures() {
+        return numFailures;
+    }
+
+    /**
+     * The number of times the API has rejected this item.
+     * @param numFailures the value
+     */
+    public void setNumFailures(final int numFailures) {
+        this.numFailures = numFailures;
+    }
+}
@@ -22,9 +22,10 @@ import androidx.room.Ignore;
 import androidx.room.PrimaryKey;
 
 import com.the_tinkering.wk.GlobalSettings;
+import com.the_tinkering.wk.db.SessionItemJournal;
 import com.the_tinkering.wk.jobs.ReportSessionItemJob;
-import com.the_tinkering.wk.jobs.UpdateSessionItemJob;
 import com.the_tinkering.wk.enums.KanjiAcceptedReadingType;
+import com.the_tinkering.wk.model.AnswerMatcher;
 import com.the_tinkering.wk.model.Question;
 import com.the_tinkering.wk.model.Session;
 import com.the_tinkering.wk.enums.SessionItemState;
@@ -33,6 +34,7 @@ import com.the_tinkering.wk.model.SrsSystemRepository;
 import com.the_tinkering.wk.model.TypefaceConfiguration;
 import com.the_tinkering.wk.services.JobRunnerService;
 import com.the_tinkering.wk.util.FontStorageUtil;
+import com.the_tinkering.wk.util.GlyphCoverage;
 import com.the_tinkering.wk.util.Logger;
 
 import java.util.ArrayList;
@@ -48,8 +50,6 @@ import static com.the_tinkering.wk.enums.SessionItemState.ACTIVE;
 import static com.the_tinkering.wk.enums.SessionItemState.PENDING;
 import static com.the_tinkering.wk.enums.SessionItemState.REPORTED;
 import static com.the_tinkering.wk.util.ObjectSupport.nextRandomInt;
-import static com.the_tinkering.wk.util.TextUtil.hasGlyphs;
-import static com.the_tinkering.wk.util.TextUtil.isTildeCapable;
 
 /**
  * Room entity for the session_item table, which persists items in a session.
@@ -81,6 +81,7 @@ public final class SessionItem {
     private KanjiAcceptedReadingType kanjiAcceptedReadingType = KanjiAcceptedReadingType.NEITHER;
     @Ignore private @Nullable TypefaceConfiguration typefaceConfiguration = null;
     @Ignore private @Nullable Subject subject = null;
+    @Ignore private @Nullable AnswerMatcher answerMatcher = null;
     @Ignore private int choiceDelay = 0;
     @Ignore private final Collection<Question> questions = new ArrayList<>();
 
@@ -575,6 +576,22 @@ public final class SessionItem {
         this.subject = subject;
     }
 
+    /**
+     * Not stored in the database; the prepared answers for checking answers about the subject.
+     * This is built on first use, and rebuilt if the subject or its synonyms have changed since.
+     *
+     * @param subject the subject of this item
+     * @return the matcher
+     */
+    public AnswerMatcher getAnswerMatcher(final Subject subject) {
+        @Nullable AnswerMatcher matcher = answerMatcher;
+        if (matcher == null || !matcher.isFor(subject)) {
+            matcher = new AnswerMatcher(subject);
+            answerMatcher = matcher;
+        }
+        return matcher;
+    }
+
     /**
      * Get the starting SRS stage for this item, i.e. the stage it had before the session started.
      *
@@ -652,23 +669,10 @@ public final class SessionItem {
     }
 
     /**
-     * Schedule a job to update this item in the database.
+     * Record the current state of this item in the session item journal, to be written to the database shortly.
      */
     public void update() {
-        final String data = String.format(Locale.ROOT, "%d %s %s %d %s %d %s %d %s %d %d %d",
-                id,
-                state,
-                question1Done,
-                question1Incorrect,
-                question2Done,
-                question2Incorrect,
-                question3Done,
-                question3Incorrect,
-                question4Done,
-                question4Incorrect,
-                numAnswers,
-                lastAnswer);
-        JobRunnerService.schedule(UpdateSessionItemJob.class, data);
+        SessionItemJournal.getInstance().record(this);
     }
 
     /**
@@ -683,11 +687,12 @@ public final class SessionItem {
         if (typefaceConfiguration == null) {
             return;
         }
-        if (hasGlyphs(typefaceConfiguration.getTypeface(), text)) {
+        final GlyphCoverage coverage = typefaceConfiguration.getCoverage();
+        if (coverage.hasGlyphs(text)) {
             typefaces.add(typefaceConfiguration);
         }
-        else if (text.contains("〜") && !isTildeCapable(typefaceConfiguration.getTypeface())
-                && hasGlyphs(typefaceConfiguration.getTypeface(), TILDE_PATTERN.matcher(text).replaceAll("~"))) {
+        else if (text.contains("〜") && !coverage.hasGlyph('〜')
+                && coverage.hasGlyphs(TILDE_PATTERN.matcher(text).replaceAll("~"))) {
             typefaces.add(typefaceConfiguration);
         }
     }
@@ -70,7 +70,6 @@ public final class Subject implements PronunciationAudioOwner {
      * The backing entity for this subject.
      */
     private final SubjectEntity entity;
-    private int ranking = 0;
 
     /**
      * The constructor.
@@ -87,24 +86,6 @@ public final class Subject implements PronunciationAudioOwner {
     private static @Nullable String internalize(final @Nullable String value) {
         return value == null ? null : value.intern();
     }
-
-    /**
-     * Temporary storage for search result ranking.
-     *
-     * @return the ranking
-     */
-    public int getRanking() {
-        return ranking;
-    }
-
-    /**
-     * Temporary storage for search result ranking.
-     *
-     * @param ranking the ranking
-     */
-    public void setRanking(final int ranking) {
-        this.ranking = ranking;
-    }
     /*
      *************************************************************************************************************************************************
      * Identification
@@ -143,6 +124,16 @@ public final class Subject implements PronunciationAudioOwner {
         return getType().getOrder();
     }
 
+    /**
+     * True if this subject was loaded with a lightweight projection, and only has the data needed
+     * to show, count and order it. Load the subject by ID to get the full data.
+     *
+     * @return true if it is
+     */
+    public boolean isPartial() {
+        return entity.partial;
+    }
+
     @Override
     public long getId() {
         return entity.id;
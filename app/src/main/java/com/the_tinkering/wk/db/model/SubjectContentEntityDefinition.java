@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.db.model;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import javax.annotation.Nullable;
+
+/**
+ * Room entity for the subject_content table. See LogRecordEntityDefinition for an explanation of why this class exists.
+ *
+ * <p>
+ *     This table holds the large text and JSON columns of a subject that are only needed when the subject
+ *     is shown in full: mnemonics, hints, context sentences, audio, pitch info and stroke data. Keeping them
+ *     out of the subject table keeps that table's rows small, so scans for lists, counts and the timeline
+ *     don't have to page through them. The search targets are not stored here, they live in the
+ *     subject_search index. The ID is the subject ID.
+ * </p>
+ */
+@SuppressWarnings({"JavaDoc", "unused"})
+@Entity(tableName = "subject_content")
+public final class SubjectContentEntityDefinition {
+    @PrimaryKey public long id = 0L;
+    public @Nullable String meaningMnemonic;
+    public @Nullable String meaningHint;
+    public @Nullable String readingMnemonic;
+    public @Nullable String readingHint;
+    public @Nullable String contextSentences;
+    public @Nullable String pronunciationAudios;
+    public @Nullable String pitchInfo;
+    public @Nullable String strokeData;
+}
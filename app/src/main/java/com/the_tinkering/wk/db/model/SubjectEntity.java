@@ -41,8 +41,24 @@ import javax.annotation.Nullable;
  * Room entity for the subject table. This class combines all information about a subject in
  * a single entity for convenience - subject, assignment, review statistics, study materials
  * and reference data.
+ *
+ * <p>
+ *     The bulky content columns are stored in the separate subject_content table. Queries that need
+ *     a complete subject select from SELECT_WITH_CONTENT, queries that only need the compact data
+ *     select from the subject table directly and leave the content fields null.
+ * </p>
  */
-public final class SubjectEntity {
+public final class SubjectEntity implements Cloneable {
+    /**
+     * The start of a query that selects complete subjects, including the columns from subject_content.
+     * Any reference to the id column in the rest of the query must be qualified as subject.id.
+     */
+    public static final String SELECT_WITH_CONTENT = "SELECT subject.*, subject_content.meaningMnemonic,"
+            + " subject_content.meaningHint, subject_content.readingMnemonic, subject_content.readingHint,"
+            + " subject_content.contextSentences, subject_content.pronunciationAudios,"
+            + " subject_content.pitchInfo, subject_content.strokeData"
+            + " FROM subject LEFT JOIN subject_content ON subject_content.id = subject.id";
+
     // From base subject
 
     /**
@@ -173,16 +189,6 @@ public final class SubjectEntity {
     @ColumnInfo(name = "audioDownloadStatus")
     public int unused3 = 0;
 
-    /**
-     * A concatenation of all searchable text in this subject. Used to speed up searches.
-     */
-    public @Nullable String searchTarget;
-
-    /**
-     * A concatenation of the most important searchable text in this subject. Used to speed up searches.
-     */
-    public @Nullable String smallSearchTarget;
-
     /**
      * The unique ID of this subject's assignment, or 0 if it doesn't exist.
      */
@@ -429,4 +435,24 @@ public final class SubjectEntity {
      * Parsed version of meaningSynonyms, inflated on demand.
      */
     @Ignore public @Nullable List<String> parsedStrokeData;
+
+    /**
+     * True if this entity was loaded with a lightweight projection that leaves out some of the
+     * subject's columns. Such an entity must not be cached, or used to show subject details.
+     */
+    @Ignore public boolean partial = false;
+
+    /**
+     * Make a shallow copy of this entity. The parsed values are shared between the original and the copy,
+     * so they must be treated as immutable.
+     *
+     * @return the copy
+     */
+    public SubjectEntity copy() {
+        try {
+            return (SubjectEntity) clone();
+        } catch (final CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
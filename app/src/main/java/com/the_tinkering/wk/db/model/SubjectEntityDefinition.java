@@ -26,6 +26,11 @@ import javax.annotation.Nullable;
 
 /**
  * Room entity for the subject table. See LogRecordEntityDefinition for an explanation of why this class exists.
+ *
+ * <p>
+ *     The bulky text columns that are only needed when a subject is shown in full live in the
+ *     subject_content table, see SubjectContentEntityDefinition.
+ * </p>
  */
 @SuppressWarnings({"JavaDoc", "unused"})
 @Entity(tableName = "subject")
@@ -43,22 +48,14 @@ public final class SubjectEntityDefinition {
     public @Nullable String slug;
     public @Nullable String documentUrl;
     public @Nullable String meanings;
-    public @Nullable String meaningMnemonic;
-    public @Nullable String meaningHint;
     public @Nullable String auxiliaryMeanings;
     public @Nullable String readings;
-    public @Nullable String readingMnemonic;
-    public @Nullable String readingHint;
     public @Nullable String componentSubjectIds;
     public @Nullable String amalgamationSubjectIds;
     public @Nullable String visuallySimilarSubjectIds;
     public @Nullable String partsOfSpeech;
-    public @Nullable String contextSentences;
-    public @Nullable String pronunciationAudios;
     @ColumnInfo(name = "audioDownloadStatus")
     public int unused3 = 0;
-    public @Nullable String searchTarget;
-    public @Nullable String smallSearchTarget;
     public long assignmentId = 0L;
     @ColumnInfo(index = true) public @Nullable Long availableAt;
     @ColumnInfo(index = true) public @Nullable Long burnedAt;
@@ -95,6 +92,4 @@ public final class SubjectEntityDefinition {
     public int frequency = 0;
     public int joyoGrade = 0;
     public int jlptLevel = 0;
-    public @Nullable String pitchInfo;
-    public @Nullable String strokeData;
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.db.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+import javax.annotation.Nullable;
+
+/**
+ * Room entity for the subject_search table, an FTS4 full-text index over the searchable text of
+ * subjects. The rowid of each record is the subject ID. The text in each column has been run
+ * through SearchUtil.tokenize(), so the tokens line up with what the FTS 'simple' tokenizer
+ * understands, and Japanese text is indexed one character at a time.
+ *
+ * <p>
+ *     The columns are ordered by importance, search ranking weighs hits in each column differently.
+ * </p>
+ */
+@Fts4
+@Entity(tableName = "subject_search")
+public final class SubjectSearchEntityDefinition {
+    /**
+     * The subject ID.
+     */
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    public long id = 0L;
+
+    /**
+     * The subject's characters.
+     */
+    public @Nullable String characters;
+
+    /**
+     * The slug, meanings and auxiliary meanings.
+     */
+    public @Nullable String meanings;
+
+    /**
+     * The readings.
+     */
+    public @Nullable String readings;
+
+    /**
+     * The user's meaning synonyms.
+     */
+    public @Nullable String synonyms;
+
+    /**
+     * Mnemonics, hints, notes, parts of speech and context sentences.
+     */
+    public @Nullable String mnemonics;
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.enums;
+
+/**
+ * How much detail about API calls goes into the debug log.
+ */
+public enum ApiLogLevel {
+    /**
+     * One line per call: method, URL, status, byte count, entity count and timings.
+     */
+    SUMMARY,
+
+    /**
+     * The summary, plus the request and response bodies as they went over the wire, up to a maximum length.
+     */
+    FULL
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.enums;
+
+import android.os.Process;
+
+/**
+ * The lanes that in-process background work is executed in, see LaneExecutor. Each lane has its
+ * own workers and its own queue, so a backlog of writes can't hold up a read that the user is
+ * waiting for.
+ */
+public enum ExecutionLane {
+    /**
+     * Reads and other work whose result is shown to the user, typically started from an activity
+     * or fragment. These run at normal thread priority, with a few workers so one slow load doesn't
+     * block the next.
+     */
+    INTERACTIVE(3, Process.THREAD_PRIORITY_DEFAULT),
+
+    /**
+     * Database writes, both fire-and-forget ones and ones whose result is reported back to an activity
+     * or fragment, such as starting a session or importing data. This lane has a single worker, so writes
+     * are applied in the order they were submitted and never run concurrently.
+     */
+    WRITE(1, Process.THREAD_PRIORITY_BACKGROUND),
+
+    /**
+     * LiveData refreshes, notification updates and other bookkeeping that nobody is directly
+     * waiting for.
+     */
+    MAINTENANCE(1, Process.THREAD_PRIORITY_BACKGROUND),
+
+    /**
+     * API calls that a task fans out to run concurrently, such as the review outbox submissions.
+     * The number of workers matches the rate limiter's burst size, more would only wait for tokens.
+     */
+    API(5, Process.THREAD_PRIORITY_BACKGROUND);
+
+    private final int maxWorkers;
+    private final int threadPriority;
+
+    ExecutionLane(final int maxWorkers, final int threadPriority) {
+        this.maxWorkers = maxWorkers;
+        this.threadPriority = threadPriority;
+    }
+
+    /**
+     * The maximum number of tasks that can run concurrently in this lane.
+     *
+     * @return the number
+     */
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    /**
+     * The Android thread priority for the workers in this lane.
+     *
+     * @return the priority
+     */
+    public int getThreadPriority() {
+        return threadPriority;
+    }
+}
@@ -18,19 +18,14 @@ package com.the_tinkering.wk.enums;
 
 import com.the_tinkering.wk.GlobalSettings;
 import com.the_tinkering.wk.R;
-import com.the_tinkering.wk.api.model.AuxiliaryMeaning;
-import com.the_tinkering.wk.api.model.Meaning;
 import com.the_tinkering.wk.api.model.Reading;
 import com.the_tinkering.wk.db.model.Subject;
+import com.the_tinkering.wk.model.AnswerMatcher;
 import com.the_tinkering.wk.model.AnswerVerdict;
 import com.the_tinkering.wk.model.DigraphMatch;
-import com.the_tinkering.wk.util.FuzzyMatching;
 import com.the_tinkering.wk.util.PseudoIme;
 import com.the_tinkering.wk.util.ThemeUtil;
 
-import java.util.Collection;
-import java.util.HashSet;
-
 import javax.annotation.Nullable;
 
 /**
@@ -67,27 +62,12 @@ public enum QuestionType {
         }
 
         @Override
-        public AnswerVerdict checkAnswer(final Subject subject, final @Nullable Subject matchingKanji,
+        public AnswerVerdict checkAnswer(final AnswerMatcher matcher, final @Nullable Subject matchingKanji,
                                          final String answer, final CloseEnoughAction closeEnoughAction) {
-            final Collection<String> accepted = new HashSet<>();
-            final Collection<String> rejected = new HashSet<>();
-            for (final Meaning m: subject.getMeanings()) {
-                (m.isAcceptedAnswer() ? accepted : rejected).add(m.getMeaning());
-            }
-            for (final AuxiliaryMeaning m: subject.getAuxiliaryMeanings()) {
-                if (m.isWhiteList()) {
-                    accepted.add(m.getMeaning());
-                }
-                else if (m.isBlackList()) {
-                    rejected.add(m.getMeaning());
-                }
-            }
-            accepted.addAll(subject.getMeaningSynonyms());
-
-            final AnswerVerdict verdict = FuzzyMatching.matches(answer, accepted, rejected, closeEnoughAction);
+            final AnswerVerdict verdict = matcher.getMeaningMatcher().matches(answer, closeEnoughAction);
             if (!verdict.isOk() && !verdict.isRetry()) {
                 final String kanaAnswer = PseudoIme.simulateInput(answer);
-                for (final Reading r: subject.getReadings()) {
+                for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                     if (r.matches(kanaAnswer, false)) {
                         return AnswerVerdict.NOK_WITH_RETRY;
                     }
@@ -133,27 +113,12 @@ public enum QuestionType {
         }
 
         @Override
-        public AnswerVerdict checkAnswer(final Subject subject, final @Nullable Subject matchingKanji,
+        public AnswerVerdict checkAnswer(final AnswerMatcher matcher, final @Nullable Subject matchingKanji,
                                          final String answer, final CloseEnoughAction closeEnoughAction) {
-            final Collection<String> accepted = new HashSet<>();
-            final Collection<String> rejected = new HashSet<>();
-            for (final Meaning m: subject.getMeanings()) {
-                (m.isAcceptedAnswer() ? accepted : rejected).add(m.getMeaning());
-            }
-            for (final AuxiliaryMeaning m: subject.getAuxiliaryMeanings()) {
-                if (m.isWhiteList()) {
-                    accepted.add(m.getMeaning());
-                }
-                else if (m.isBlackList()) {
-                    rejected.add(m.getMeaning());
-                }
-            }
-            accepted.addAll(subject.getMeaningSynonyms());
-
-            final AnswerVerdict verdict = FuzzyMatching.matches(answer, accepted, rejected, closeEnoughAction);
+            final AnswerVerdict verdict = matcher.getMeaningMatcher().matches(answer, closeEnoughAction);
             if (!verdict.isOk() && !verdict.isRetry()) {
                 final String kanaAnswer = PseudoIme.simulateInput(answer);
-                for (final Reading r: subject.getReadings()) {
+                for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                     if (r.matches(kanaAnswer, false)) {
                         return AnswerVerdict.NOK_WITH_RETRY;
                     }
@@ -199,27 +164,12 @@ public enum QuestionType {
         }
 
         @Override
-        public AnswerVerdict checkAnswer(final Subject subject, final @Nullable Subject matchingKanji,
+        public AnswerVerdict checkAnswer(final AnswerMatcher matcher, final @Nullable Subject matchingKanji,
                                          final String answer, final CloseEnoughAction closeEnoughAction) {
-            final Collection<String> accepted = new HashSet<>();
-            final Collection<String> rejected = new HashSet<>();
-            for (final Meaning m: subject.getMeanings()) {
-                (m.isAcceptedAnswer() ? accepted : rejected).add(m.getMeaning());
-            }
-            for (final AuxiliaryMeaning m: subject.getAuxiliaryMeanings()) {
-                if (m.isWhiteList()) {
-                    accepted.add(m.getMeaning());
-                }
-                else if (m.isBlackList()) {
-                    rejected.add(m.getMeaning());
-                }
-            }
-            accepted.addAll(subject.getMeaningSynonyms());
-
-            final AnswerVerdict verdict = FuzzyMatching.matches(answer, accepted, rejected, closeEnoughAction);
+            final AnswerVerdict verdict = matcher.getMeaningMatcher().matches(answer, closeEnoughAction);
             if (!verdict.isOk() && !verdict.isRetry()) {
                 final String kanaAnswer = PseudoIme.simulateInput(answer);
-                for (final Reading r: subject.getReadings()) {
+                for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                     if (r.matches(kanaAnswer, false)) {
                         return AnswerVerdict.NOK_WITH_RETRY;
                     }
@@ -271,23 +221,23 @@ public enum QuestionType {
         }
 
         @Override
-        public AnswerVerdict checkAnswer(final Subject subject, final @Nullable Subject matchingKanji,
+        public AnswerVerdict checkAnswer(final AnswerMatcher matcher, final @Nullable Subject matchingKanji,
                                          final String answer, final CloseEnoughAction closeEnoughAction) {
             final boolean requireOnInKatakana = GlobalSettings.Other.getRequireOnInKatakana();
 
-            for (final Reading r: subject.getReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                 if (r.isAcceptedAnswer() && r.matches(answer, requireOnInKatakana)) {
                     return new AnswerVerdict(true, false, false, answer, r.getReading(), null);
                 }
             }
 
-            for (final Reading r: subject.getReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                 if (!r.isAcceptedAnswer() && r.matches(answer, requireOnInKatakana)) {
                     return new AnswerVerdict(false, true, false, answer, r.getReading(), null);
                 }
             }
 
-            for (final Reading r: subject.getAcceptedReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getAcceptedReadings()) {
                 final @Nullable DigraphMatch match = r.matchesForDigraph(answer);
                 if (match != null) {
                     return new AnswerVerdict(false, false, false, answer, r.getReading(), match);
@@ -333,17 +283,17 @@ public enum QuestionType {
         }
 
         @Override
-        public AnswerVerdict checkAnswer(final Subject subject, final @Nullable Subject matchingKanji,
+        public AnswerVerdict checkAnswer(final AnswerMatcher matcher, final @Nullable Subject matchingKanji,
                                          final String answer, final CloseEnoughAction closeEnoughAction) {
             final boolean requireOnInKatakana = GlobalSettings.Other.getRequireOnInKatakana();
 
-            for (final Reading r: subject.getReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                 if (r.isAcceptedAnswer() && r.matches(answer, requireOnInKatakana)) {
                     return new AnswerVerdict(true, false, false, answer, r.getReading(), null);
                 }
             }
 
-            for (final Reading r: subject.getReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                 if (!r.isAcceptedAnswer() && r.matches(answer, requireOnInKatakana)) {
                     return new AnswerVerdict(false, true, false, answer, r.getReading(), null);
                 }
@@ -357,7 +307,7 @@ public enum QuestionType {
                 }
             }
 
-            for (final Reading r: subject.getReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                 final @Nullable DigraphMatch match = r.matchesForDigraph(answer);
                 if (match != null) {
                     return new AnswerVerdict(false, false, false, answer, r.getReading(), match);
@@ -403,29 +353,29 @@ public enum QuestionType {
         }
 
         @Override
-        public AnswerVerdict checkAnswer(final Subject subject, final @Nullable Subject matchingKanji,
+        public AnswerVerdict checkAnswer(final AnswerMatcher matcher, final @Nullable Subject matchingKanji,
                                          final String answer, final CloseEnoughAction closeEnoughAction) {
             final boolean requireOnInKatakana = GlobalSettings.Other.getRequireOnInKatakana();
 
-            for (final Reading r: subject.getOnYomiReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getOnYomiReadings()) {
                 if (r.isAcceptedAnswer() && r.matches(answer, requireOnInKatakana)) {
                     return new AnswerVerdict(true, false, false, answer, r.getReading(), null);
                 }
             }
-            if (!subject.hasAcceptedOnYomi()) {
-                for (final Reading r: subject.getOnYomiReadings()) {
+            if (!matcher.hasAcceptedOnYomi()) {
+                for (final AnswerMatcher.CompiledReading r: matcher.getOnYomiReadings()) {
                     if (r.matches(answer, requireOnInKatakana)) {
                         return new AnswerVerdict(true, false, false, answer, r.getReading(), null);
                     }
                 }
             }
-            for (final Reading r: subject.getReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                 if (r.matches(answer, requireOnInKatakana)) {
                     return AnswerVerdict.NOK_WITH_RETRY;
                 }
             }
 
-            for (final Reading r: subject.getReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                 final @Nullable DigraphMatch match = r.matchesForDigraph(answer);
                 if (match != null) {
                     return new AnswerVerdict(false, false, false, answer, r.getReading(), match);
@@ -471,29 +421,29 @@ public enum QuestionType {
         }
 
         @Override
-        public AnswerVerdict checkAnswer(final Subject subject, final @Nullable Subject matchingKanji,
+        public AnswerVerdict checkAnswer(final AnswerMatcher matcher, final @Nullable Subject matchingKanji,
                                          final String answer, final CloseEnoughAction closeEnoughAction) {
             final boolean requireOnInKatakana = GlobalSettings.Other.getRequireOnInKatakana();
 
-            for (final Reading r: subject.getKunYomiReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getKunYomiReadings()) {
                 if (r.isAcceptedAnswer() && r.matches(answer, requireOnInKatakana)) {
                     return new AnswerVerdict(true, false, false, answer, r.getReading(), null);
                 }
             }
-            if (!subject.hasAcceptedKunYomi()) {
-                for (final Reading r: subject.getKunYomiReadings()) {
+            if (!matcher.hasAcceptedKunYomi()) {
+                for (final AnswerMatcher.CompiledReading r: matcher.getKunYomiReadings()) {
                     if (r.matches(answer, requireOnInKatakana)) {
                         return new AnswerVerdict(true, false, false, answer, r.getReading(), null);
                     }
                 }
             }
-            for (final Reading r: subject.getReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getReadings()) {
                 if (r.matches(answer, requireOnInKatakana)) {
                     return AnswerVerdict.NOK_WITH_RETRY;
                 }
             }
 
-            for (final Reading r: subject.getAcceptedReadings()) {
+            for (final AnswerMatcher.CompiledReading r: matcher.getAcceptedReadings()) {
                 final @Nullable DigraphMatch match = r.matchesForDigraph(answer);
                 if (match != null) {
                     return new AnswerVerdict(false, false, false, answer, r.getReading(), match);
@@ -626,13 +576,13 @@ public enum QuestionType {
     /**
      * Check a given answer to this question type.
      *
-     * @param subject the subject this question is for
+     * @param matcher the prepared answers for the subject this question is for
      * @param matchingKanji if this subject is a vocab item that consists of only one kanji character, this is that kanji.
      * @param answer the user's answer
      * @param closeEnoughAction action for an answer that is close enough for typo lenience.
      * @return the verdict for this answer
      */
-    public abstract AnswerVerdict checkAnswer(Subject subject, @Nullable Subject matchingKanji,
+    public abstract AnswerVerdict checkAnswer(AnswerMatcher matcher, @Nullable Subject matchingKanji,
                                               String answer, CloseEnoughAction closeEnoughAction);
 
     /**
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.enums;
+
+import com.the_tinkering.wk.tasks.ApiTask;
+import com.the_tinkering.wk.tasks.DownloadAudioTask;
+import com.the_tinkering.wk.tasks.DownloadPitchInfoTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
+import static com.the_tinkering.wk.util.ObjectSupport.isEqual;
+
+/**
+ * The lanes that background tasks are scheduled in. Each lane has its own workers and
+ * picks its own tasks from the task_definition table, so a long backlog in one lane
+ * doesn't hold up the tasks in another.
+ */
+public enum TaskLane {
+    /**
+     * WaniKani API calls and local maintenance tasks. This lane takes every task that isn't
+     * claimed by another lane. It has a single worker, since these tasks share the API rate limiter
+     * and rely on their priority order (user before subjects before assignments, and so on).
+     */
+    API(null, 1, true),
+
+    /**
+     * Audio downloads from the WaniKani CDN. Downloads are independent of each other, so a few
+     * run in parallel to hide the latency of fetching many small files.
+     */
+    AUDIO(DownloadAudioTask.class, 4, false),
+
+    /**
+     * Pitch info downloads from Weblio.
+     */
+    WEBLIO(DownloadPitchInfoTask.class, 1, false);
+
+    private final @Nullable Class<? extends ApiTask> taskClass;
+    private final int maxWorkers;
+    private final boolean reportsProgress;
+
+    TaskLane(final @Nullable Class<? extends ApiTask> taskClass, final int maxWorkers, final boolean reportsProgress) {
+        this.taskClass = taskClass;
+        this.maxWorkers = maxWorkers;
+        this.reportsProgress = reportsProgress;
+    }
+
+    /**
+     * The task class handled by this lane, or null for the lane that handles everything else.
+     *
+     * @return the class
+     */
+    public @Nullable Class<? extends ApiTask> getTaskClass() {
+        return taskClass;
+    }
+
+    /**
+     * The maximum number of tasks that can run concurrently in this lane.
+     *
+     * @return the number
+     */
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    /**
+     * Do tasks in this lane own the sync progress display? Only one lane can, since there is only one display.
+     *
+     * @return true if they do
+     */
+    public boolean reportsProgress() {
+        return reportsProgress;
+    }
+
+    /**
+     * The task classes that have a dedicated lane, i.e. the classes the API lane must skip.
+     *
+     * @return the collection of class names
+     */
+    public static Collection<String> getDedicatedTaskClassNames() {
+        final Collection<String> result = new ArrayList<>();
+        for (final TaskLane lane: values()) {
+            if (lane.taskClass != null) {
+                result.add(lane.taskClass.getCanonicalName());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the lane a task class is scheduled in.
+     *
+     * @param taskClass the task class
+     * @return the lane
+     */
+    public static TaskLane forTaskClass(final Class<? extends ApiTask> taskClass) {
+        for (final TaskLane lane: values()) {
+            if (lane.taskClass != null && isEqual(lane.taskClass, taskClass)) {
+                return lane;
+            }
+        }
+        return API;
+    }
+}
@@ -56,6 +56,7 @@ import javax.annotation.Nullable;
 
 import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;
 import static android.view.ViewGroup.LayoutParams.WRAP_CONTENT;
+import static com.the_tinkering.wk.util.ObjectSupport.loadAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 
@@ -229,7 +230,7 @@ public final class BrowseOverviewFragment extends AbstractFragment {
             }
         }));
 
-        runAsync(
+        loadAsync(
                 this,
                 () -> WkApplication.getDatabase().subjectAggregatesDao().getMaxLevel(),
                 result -> render(result == null ? 60 : result)
@@ -58,6 +58,7 @@ import java.util.Locale;
 import javax.annotation.Nullable;
 
 import static com.the_tinkering.wk.util.ObjectSupport.isEmpty;
+import static com.the_tinkering.wk.util.ObjectSupport.loadAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 
@@ -199,7 +200,7 @@ public final class SearchResultFragment extends AbstractFragment {
         resultView.setAdapter(adapter);
         resultView.setHasFixedSize(true);
 
-        runAsync(this, () -> {
+        loadAsync(this, () -> {
             if (searchType == 0) {
                 final int level = Integer.parseInt(searchParameters, 10);
                 adapter.setSortOrder(SearchSortOrder.TYPE);
@@ -31,7 +31,7 @@ import com.the_tinkering.wk.views.SwipingScrollView;
 
 import javax.annotation.Nullable;
 
-import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
+import static com.the_tinkering.wk.util.ObjectSupport.loadAsync;
 
 /**
  * A fragment to show the full subject info dump.
@@ -86,7 +86,7 @@ public final class SubjectInfoFragment extends AbstractFragment implements Swipi
         if (args != null) {
             final long subjectId = args.getLong("id", -1);
             if (subjectId != -1) {
-                runAsync(
+                loadAsync(
                         this,
                         () -> WkApplication.getDatabase().subjectDao().getById(subjectId),
                         result -> {
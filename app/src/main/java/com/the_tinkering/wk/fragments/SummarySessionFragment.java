@@ -29,10 +29,12 @@ import com.the_tinkering.wk.GlobalSettings;
 import com.the_tinkering.wk.R;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.SessionItemJournal;
 import com.the_tinkering.wk.db.model.SessionItem;
 import com.the_tinkering.wk.db.model.Subject;
 import com.the_tinkering.wk.enums.FragmentTransitionAnimation;
 import com.the_tinkering.wk.jobs.ReportSessionItemJob;
+import com.the_tinkering.wk.livedata.DashboardRefresher;
 import com.the_tinkering.wk.livedata.LiveBurnedItems;
 import com.the_tinkering.wk.livedata.LiveCriticalCondition;
 import com.the_tinkering.wk.livedata.LiveLevelProgress;
@@ -378,6 +380,7 @@ public final class SummarySessionFragment extends AbstractSessionFragment {
     @SuppressWarnings("SameReturnValue")
     private static @Nullable Void doInBackground(final Consumer<Object[]> publisher) {
         int count = 0;
+        SessionItemJournal.getInstance().flush();
         for (final SessionItem item: WkApplication.getDatabase().sessionItemDao().getAll()) {
             if (item.isPending()) {
                 final ReportSessionItemJob job = new ReportSessionItemJob(
@@ -393,11 +396,12 @@ public final class SummarySessionFragment extends AbstractSessionFragment {
             }
         }
 
-        LiveTimeLine.getInstance().update();
-        LiveSrsBreakDown.getInstance().update();
-        LiveLevelProgress.getInstance().update();
-        LiveCriticalCondition.getInstance().update();
-        LiveBurnedItems.getInstance().update();
+        DashboardRefresher.getInstance().update(
+                LiveTimeLine.getInstance(),
+                LiveSrsBreakDown.getInstance(),
+                LiveLevelProgress.getInstance(),
+                LiveCriticalCondition.getInstance(),
+                LiveBurnedItems.getInstance());
         BackgroundAlarmReceiver.processAlarm(null);
 
         return null;
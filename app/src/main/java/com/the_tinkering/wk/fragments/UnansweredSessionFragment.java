@@ -52,8 +52,8 @@ import java.util.Locale;
 import javax.annotation.Nullable;
 
 import static com.the_tinkering.wk.util.ObjectSupport.isTrue;
+import static com.the_tinkering.wk.util.ObjectSupport.loadAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.orElse;
-import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 
 /**
@@ -157,7 +157,7 @@ public final class UnansweredSessionFragment extends AbstractSessionFragment {
         final String characters = orElse(subject.getCharacters(), "");
         if (subject.getType().isVocabulary() && characters.length() == 1
                 && GlobalSettings.AdvancedOther.getShakeOnMatchingKanji()) {
-            runAsync(
+            loadAsync(
                     this,
                     () -> WkApplication.getDatabase().subjectDao().getKanjiByCharacters(characters),
                     result -> matchingKanji = result);
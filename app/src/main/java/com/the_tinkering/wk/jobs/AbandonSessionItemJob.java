@@ -18,6 +18,7 @@ package com.the_tinkering.wk.jobs;
 
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.SessionItemJournal;
 import com.the_tinkering.wk.db.model.SessionItem;
 
 import javax.annotation.Nullable;
@@ -44,6 +45,7 @@ public final class AbandonSessionItemJob extends Job {
     @Override
     public void runLocal() {
         final AppDatabase db = WkApplication.getDatabase();
+        SessionItemJournal.getInstance().flush();
         final @Nullable SessionItem item = db.sessionItemDao().getById(subjectId);
         if (item != null) {
             item.setState(ABANDONED);
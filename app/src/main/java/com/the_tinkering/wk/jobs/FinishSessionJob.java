@@ -18,6 +18,7 @@ package com.the_tinkering.wk.jobs;
 
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.SessionItemJournal;
 
 import static com.the_tinkering.wk.enums.SessionType.NONE;
 
@@ -37,6 +38,7 @@ public final class FinishSessionJob extends Job {
     @Override
     public void runLocal() {
         final AppDatabase db = WkApplication.getDatabase();
+        SessionItemJournal.getInstance().flush();
         db.sessionItemDao().deleteAll();
         db.propertiesDao().setSessionType(NONE);
         db.propertiesDao().setSessionOnkun(false);
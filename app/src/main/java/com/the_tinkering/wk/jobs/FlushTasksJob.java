@@ -34,6 +34,7 @@ public final class FlushTasksJob extends Job {
     @Override
     public void runLocal() {
         WkApplication.getDatabase().taskDefinitionDao().deleteAll();
+        WkApplication.getDatabase().reviewOutboxDao().deleteAll();
         houseKeeping();
     }
 }
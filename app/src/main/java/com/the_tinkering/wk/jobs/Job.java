@@ -34,6 +34,7 @@ import static com.the_tinkering.wk.Constants.DAY;
 import static com.the_tinkering.wk.Constants.HOUR;
 import static com.the_tinkering.wk.Constants.MINUTE;
 import static com.the_tinkering.wk.Constants.REFERENCE_DATA_VERSION;
+import static com.the_tinkering.wk.Constants.SEARCH_INDEX_VERSION;
 import static com.the_tinkering.wk.Constants.WEEK;
 import static com.the_tinkering.wk.enums.OnlineStatus.NO_CONNECTION;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
@@ -137,6 +138,10 @@ public abstract class Job {
             db.loadReferenceData();
         }
 
+        if (db.propertiesDao().getSearchIndexVersion() != SEARCH_INDEX_VERSION) {
+            db.assertBuildSearchIndexTask();
+        }
+
         LiveApiState.getInstance().post(currentApiState);
 
         if (canTriggerApiTasks) {
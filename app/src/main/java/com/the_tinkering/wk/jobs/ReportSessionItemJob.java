@@ -18,14 +18,15 @@ package com.the_tinkering.wk.jobs;
 
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.SessionItemJournal;
 import com.the_tinkering.wk.db.model.SessionItem;
 import com.the_tinkering.wk.db.model.Subject;
 import com.the_tinkering.wk.enums.SessionType;
+import com.the_tinkering.wk.livedata.DashboardRefresher;
 import com.the_tinkering.wk.livedata.LiveBurnedItems;
 import com.the_tinkering.wk.livedata.LiveCriticalCondition;
 import com.the_tinkering.wk.livedata.LiveLevelProgress;
 import com.the_tinkering.wk.livedata.LiveSrsBreakDown;
-import com.the_tinkering.wk.livedata.LiveTimeLine;
 import com.the_tinkering.wk.model.SrsSystem;
 import com.the_tinkering.wk.services.BackgroundAlarmReceiver;
 
@@ -200,6 +201,7 @@ public final class ReportSessionItemJob extends Job {
     @Override
     public void runLocal() {
         final AppDatabase db = WkApplication.getDatabase();
+        SessionItemJournal.getInstance().flush();
 
         final @Nullable SessionItem item = db.sessionItemDao().getById(subjectId);
         if (item != null) {
@@ -219,9 +221,8 @@ public final class ReportSessionItemJob extends Job {
             processLessonFinished(ts);
 
             if (updateLiveData) {
-                LiveTimeLine.getInstance().update();
-                LiveSrsBreakDown.getInstance().update();
-                LiveLevelProgress.getInstance().update();
+                DashboardRefresher.getInstance().applyTimeLineChange(subjectId);
+                DashboardRefresher.getInstance().update(LiveSrsBreakDown.getInstance(), LiveLevelProgress.getInstance());
                 BackgroundAlarmReceiver.processAlarm(null);
             }
         }
@@ -230,17 +231,18 @@ public final class ReportSessionItemJob extends Job {
             justPassed = processReviewFinished(ts);
 
             if (updateLiveData) {
-                LiveTimeLine.getInstance().update();
-                LiveSrsBreakDown.getInstance().update();
-                LiveLevelProgress.getInstance().update();
-                LiveCriticalCondition.getInstance().update();
-                LiveBurnedItems.getInstance().update();
+                DashboardRefresher.getInstance().applyTimeLineChange(subjectId);
+                DashboardRefresher.getInstance().update(
+                        LiveSrsBreakDown.getInstance(),
+                        LiveLevelProgress.getInstance(),
+                        LiveCriticalCondition.getInstance(),
+                        LiveBurnedItems.getInstance());
                 BackgroundAlarmReceiver.processAlarm(null);
             }
         }
 
         if (type.isReportingTaskNeeded()) {
-            db.assertReportSessionItemTask(ts, subjectId, assignmentId, type, itemMeaningIncorrect, itemReadingIncorrect, justPassed);
+            db.addToReviewOutbox(ts, subjectId, assignmentId, type, itemMeaningIncorrect, itemReadingIncorrect, justPassed);
         }
 
         if (itemMeaningIncorrect > 0 || itemReadingIncorrect > 0) {
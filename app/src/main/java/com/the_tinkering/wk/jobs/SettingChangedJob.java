@@ -55,6 +55,7 @@ public final class SettingChangedJob extends Job {
                 db.propertiesDao().setApiInError(false);
                 db.propertiesDao().setLastApiSuccessDate(0);
                 db.propertiesDao().setLastUserSyncSuccessDate(0);
+                db.propertiesDao().deleteAllApiValidators();
                 db.assertGetUserTask();
                 LiveApiState.getInstance().forceUpdate();
                 break;
@@ -44,10 +44,8 @@ public final class StartAudioDownloadJob extends Job {
             final int firstLevel = Integer.parseInt(args[0]);
             final int lastLevel = Integer.parseInt(args[1]);
 
-            final Iterable<String> locationValues = AudioUtil.getLocationValues();
-
             for (final Subject subject: db.subjectCollectionsDao().getByLevelRange(firstLevel, lastLevel)) {
-                final int status = AudioUtil.findAudioDownloadStatus(subject.getLevel(), subject.getParsedPronunciationAudios(), locationValues);
+                final int status = AudioUtil.findAudioDownloadStatus(subject.getLevel(), subject.getParsedPronunciationAudios());
                 if (status == 1 || status == 2) {
                     db.assertDownloadAudioTask(subject);
                 }
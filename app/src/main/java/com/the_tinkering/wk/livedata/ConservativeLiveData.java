@@ -18,6 +18,8 @@ package com.the_tinkering.wk.livedata;
 
 import androidx.lifecycle.LiveData;
 
+import com.the_tinkering.wk.enums.ExecutionLane;
+
 import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 
@@ -41,13 +43,9 @@ public abstract class ConservativeLiveData<T> extends LiveData<T> {
      * the update until there are.
      */
     public final void update() {
-        if (hasActiveObservers() || hasNullValue()) {
-            pendingUpdate = false;
+        if (startUpdate(false)) {
             updateLocal();
         }
-        else {
-            pendingUpdate = true;
-        }
     }
 
     /**
@@ -55,10 +53,26 @@ public abstract class ConservativeLiveData<T> extends LiveData<T> {
      * executed immediately.
      */
     public final void forceUpdate() {
-        pendingUpdate = false;
+        startUpdate(true);
         updateLocal();
     }
 
+    /**
+     * Decide if a requested update should be executed now. If not, it is recorded as pending
+     * until an observer becomes active.
+     *
+     * @param force true for a forced update, which is always executed
+     * @return true if the caller should execute the update now
+     */
+    final boolean startUpdate(final boolean force) {
+        if (force || hasActiveObservers() || hasNullValue()) {
+            pendingUpdate = false;
+            return true;
+        }
+        pendingUpdate = true;
+        return false;
+    }
+
     /**
      * Ping the observers by re-reporting the current value.
      */
@@ -103,7 +117,7 @@ public abstract class ConservativeLiveData<T> extends LiveData<T> {
         safe(() -> {
             if (pendingUpdate) {
                 pendingUpdate = false;
-                runAsync(this::forceUpdate);
+                runAsync(ExecutionLane.MAINTENANCE, this::forceUpdate);
             }
         });
     }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.livedata;
+
+import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.model.SrsSystem;
+import com.the_tinkering.wk.model.SrsSystemRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The user state that the dashboard LiveData instances are computed from. A refresh reads this
+ * once and hands the same instance to every model it updates, so the models can't disagree
+ * about the user's level or the SRS systems in use.
+ */
+public final class DashboardInputs {
+    private final int userLevel;
+    private final int maxLevel;
+    private final boolean vacationMode;
+    private final List<SrsSystem> srsSystems;
+
+    /**
+     * The constructor.
+     *
+     * @param userLevel the user's level
+     * @param maxLevel the max level granted by the user's subscription
+     * @param vacationMode true if the user is in vacation mode
+     * @param srsSystems the registered SRS systems
+     */
+    private DashboardInputs(final int userLevel, final int maxLevel, final boolean vacationMode, final List<SrsSystem> srsSystems) {
+        this.userLevel = userLevel;
+        this.maxLevel = maxLevel;
+        this.vacationMode = vacationMode;
+        this.srsSystems = srsSystems;
+    }
+
+    /**
+     * Read the current inputs.
+     *
+     * @param db the database
+     * @return the inputs
+     */
+    public static DashboardInputs load(final AppDatabase db) {
+        return new DashboardInputs(
+                db.propertiesDao().getUserLevel(),
+                db.propertiesDao().getUserMaxLevelGranted(),
+                db.propertiesDao().getVacationMode(),
+                Collections.unmodifiableList(new ArrayList<>(LiveSrsSystems.getInstance().get())));
+    }
+
+    /**
+     * The user's level.
+     * @return the value
+     */
+    public int getUserLevel() {
+        return userLevel;
+    }
+
+    /**
+     * The max level granted by the user's subscription.
+     * @return the value
+     */
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * True if the user is in vacation mode.
+     * @return the value
+     */
+    public boolean getVacationMode() {
+        return vacationMode;
+    }
+
+    /**
+     * Get the system identified by the given API ID.
+     *
+     * @param id the ID
+     * @return the system, or the classic system if the ID is unknown
+     */
+    public SrsSystem getSrsSystem(final long id) {
+        return SrsSystemRepository.getSrsSystem(srsSystems, id);
+    }
+
+    /**
+     * SQL filter to find subjects that are candidates for the critical condition overview.
+     *
+     * @return the filter expression
+     */
+    public String getCriticalConditionFilter() {
+        return SrsSystemRepository.getCriticalConditionFilter(srsSystems);
+    }
+
+    /**
+     * SQL filter to find subjects that are candidates for the recently burned overview.
+     *
+     * @return the filter expression
+     */
+    public String getBurnedFilter() {
+        return SrsSystemRepository.getBurnedFilter(srsSystems);
+    }
+}
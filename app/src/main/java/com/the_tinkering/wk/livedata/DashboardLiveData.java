@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.livedata;
+
+import com.the_tinkering.wk.WkApplication;
+
+/**
+ * A ConservativeLiveData for the dashboard, which computes its value from a shared DashboardInputs
+ * instance. The update is split in two: the computation, which only reads from the database and
+ * can run inside the read transaction of a DashboardRefresher refresh, and any side effects that
+ * have to wait until that transaction has ended.
+ *
+ * <p>
+ *     A plain update() or forceUpdate() reads its own inputs and runs both parts.
+ * </p>
+ *
+ * @param <T> the type of data stored in this instance
+ */
+public abstract class DashboardLiveData<T> extends ConservativeLiveData<T> {
+    @Override
+    protected final void updateLocal() {
+        final DashboardInputs inputs = DashboardInputs.load(WkApplication.getDatabase());
+        updateLocal(inputs);
+        afterUpdate(inputs);
+    }
+
+    /**
+     * Compute the new value from the inputs and post it. This must not write to the database.
+     *
+     * @param inputs the inputs for this update
+     */
+    protected abstract void updateLocal(DashboardInputs inputs);
+
+    /**
+     * Perform the side effects of an update, after updateLocal() has posted the new value.
+     * This is free to write to the database. The default does nothing.
+     *
+     * @param inputs the inputs for this update
+     */
+    protected void afterUpdate(final DashboardInputs inputs) {
+        //
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.livedata;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.the_tinkering.wk.WkApplication;
+import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.enums.ExecutionLane;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
+import static com.the_tinkering.wk.util.ObjectSupport.safe;
+
+/**
+ * Coordinator for refreshing the dashboard LiveData instances after changes to the database.
+ *
+ * <p>
+ *     Instead of updating each LiveData instance right away, code that changes subjects marks the
+ *     affected instances as dirty here. The first request schedules a refresh a short while later,
+ *     and any requests that arrive in the meantime are folded into the same refresh. A refresh updates
+ *     every dirty instance once.
+ * </p>
+ *
+ * <p>
+ *     A refresh reads the inputs the models depend on, such as the user's level and the SRS systems,
+ *     once, and passes the same DashboardInputs to every model. All models then do their reads inside
+ *     a single non-exclusive transaction, so they see the same state of the database. The side effects
+ *     of an update, such as the timeline's notification check and audio scan, write to the database
+ *     and schedule tasks, so they only run after the transaction has ended. That keeps the transaction
+ *     short and free of writes, and any change that lands while it waits for the database requests
+ *     another refresh of its own.
+ * </p>
+ *
+ * <p>
+ *     Changes to individual subjects' assignments can be passed on to the timeline, which can then
+ *     be updated incrementally instead of being rebuilt, see LiveTimeLine.applyChanges().
+ * </p>
+ */
+public final class DashboardRefresher {
+    private static final long DELAY = 250;
+    private static final DashboardRefresher instance = new DashboardRefresher();
+
+    private final Set<DashboardLiveData<?>> pendingUpdates = new LinkedHashSet<>();
+    private final Set<DashboardLiveData<?>> pendingForcedUpdates = new LinkedHashSet<>();
+    private final Set<Long> pendingTimeLineChanges = new HashSet<>();
+    private boolean scheduled = false;
+
+    private long numRequests = 0;
+    private long numRefreshes = 0;
+    private long numModelUpdates = 0;
+    private long totalDuration = 0;
+    private long maxDuration = 0;
+
+    /**
+     * Get the singleton instance.
+     *
+     * @return the instance
+     */
+    public static DashboardRefresher getInstance() {
+        return instance;
+    }
+
+    private DashboardRefresher() {
+        //
+    }
+
+    /**
+     * Request an update for one or more LiveData instances. Like ConservativeLiveData.update(), the
+     * update is deferred further if an instance has no active observers.
+     *
+     * @param models the instances to update
+     */
+    public void update(final DashboardLiveData<?>... models) {
+        synchronized (this) {
+            pendingUpdates.addAll(Arrays.asList(models));
+            numRequests++;
+        }
+        schedule();
+    }
+
+    /**
+     * Request a forced update for one or more LiveData instances, see ConservativeLiveData.forceUpdate().
+     *
+     * @param models the instances to update
+     */
+    public void forceUpdate(final DashboardLiveData<?>... models) {
+        synchronized (this) {
+            pendingForcedUpdates.addAll(Arrays.asList(models));
+            numRequests++;
+        }
+        schedule();
+    }
+
+    /**
+     * Request an update of the timeline for changes to the assignments of some subjects. If a full
+     * timeline update is requested before the refresh happens, these changes are covered by that.
+     *
+     * @param subjectIds the IDs of the subjects that have changed
+     */
+    public void applyTimeLineChanges(final Collection<Long> subjectIds) {
+        synchronized (this) {
+            pendingTimeLineChanges.addAll(subjectIds);
+            numRequests++;
+        }
+        schedule();
+    }
+
+    /**
+     * Request an update of the timeline for a change to the assignment of a single subject.
+     *
+     * @param subjectId the ID of the subject that has changed
+     */
+    public void applyTimeLineChange(final long subjectId) {
+        applyTimeLineChanges(Collections.singleton(subjectId));
+    }
+
+    /**
+     * Schedule a refresh after the debounce delay, unless one is scheduled already.
+     */
+    private void schedule() {
+        synchronized (this) {
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        new Handler(Looper.getMainLooper()).postDelayed(() -> runAsync(ExecutionLane.MAINTENANCE, this::refresh), DELAY);
+    }
+
+    /**
+     * Run all pending updates.
+     */
+    private void refresh() {
+        final List<DashboardLiveData<?>> updates;
+        final List<DashboardLiveData<?>> forcedUpdates;
+        final Collection<Long> timeLineChanges;
+        synchronized (this) {
+            scheduled = false;
+            forcedUpdates = new ArrayList<>(pendingForcedUpdates);
+            updates = new ArrayList<>(pendingUpdates);
+            updates.removeAll(pendingForcedUpdates);
+            timeLineChanges = new ArrayList<>(pendingTimeLineChanges);
+            pendingForcedUpdates.clear();
+            pendingUpdates.clear();
+            pendingTimeLineChanges.clear();
+        }
+
+        final LiveTimeLine timeLine = LiveTimeLine.getInstance();
+        final boolean applyTimeLineChanges = !timeLineChanges.isEmpty()
+                && !updates.contains(timeLine) && !forcedUpdates.contains(timeLine);
+
+        final List<DashboardLiveData<?>> models = new ArrayList<>();
+        for (final DashboardLiveData<?> model: forcedUpdates) {
+            model.startUpdate(true);
+            models.add(model);
+        }
+        for (final DashboardLiveData<?> model: updates) {
+            if (model.startUpdate(false)) {
+                models.add(model);
+            }
+        }
+        if (models.isEmpty() && !applyTimeLineChanges) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final AppDatabase db = WkApplication.getDatabase();
+        final SupportSQLiteDatabase sqlDb = db.getOpenHelper().getWritableDatabase();
+        final DashboardInputs inputs;
+        sqlDb.beginTransactionNonExclusive();
+        try {
+            inputs = DashboardInputs.load(db);
+            for (final DashboardLiveData<?> model: models) {
+                safe(() -> model.updateLocal(inputs));
+            }
+            if (applyTimeLineChanges && safe(false, () -> timeLine.applyChanges(timeLineChanges, inputs))) {
+                models.add(timeLine);
+            }
+            sqlDb.setTransactionSuccessful();
+        } finally {
+            sqlDb.endTransaction();
+        }
+        for (final DashboardLiveData<?> model: models) {
+            safe(() -> model.afterUpdate(inputs));
+        }
+        final long duration = (System.nanoTime() - start) / 1000000L;
+
+        synchronized (this) {
+            numRefreshes++;
+            numModelUpdates += models.size();
+            totalDuration += duration;
+            if (duration > maxDuration) {
+                maxDuration = duration;
+            }
+        }
+    }
+
+    /**
+     * Get a summary of the refresh statistics, for debugging purposes.
+     *
+     * @return the summary
+     */
+    public synchronized String getDiagnostics() {
+        final long averageDuration = numRefreshes == 0 ? 0 : totalDuration / numRefreshes;
+        return String.format(Locale.ROOT, "%d requests, %d refreshes, %d model updates, %d ms average, %d ms max",
+                numRequests, numRefreshes, numModelUpdates, averageDuration, maxDuration);
+    }
+}
@@ -88,6 +88,17 @@ public final class LiveApiProgress extends ConservativeLiveData<Object> {
         }
     }
 
+    /**
+     * Report that a batch of entities has been processed by the current task.
+     *
+     * @param num the number of processed entities
+     */
+    public static void addProcessedEntities(final int num) {
+        instance.numProcessedEntities += num;
+        instance.postValue(new Object());
+        instance.lastReportedCount = instance.numProcessedEntities;
+    }
+
     /**
      * Reset the state for a new task.
      *
@@ -20,7 +20,6 @@ import com.the_tinkering.wk.GlobalSettings;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.db.model.Subject;
-import com.the_tinkering.wk.model.SrsSystemRepository;
 
 import java.util.Collections;
 import java.util.List;
@@ -30,7 +29,7 @@ import static com.the_tinkering.wk.Constants.MONTH;
 /**
  * LiveData that records up to the last 10 items burned in the last 30 days.
  */
-public final class LiveBurnedItems extends ConservativeLiveData<List<Subject>> {
+public final class LiveBurnedItems extends DashboardLiveData<List<Subject>> {
     /**
      * The singleton instance.
      */
@@ -53,11 +52,11 @@ public final class LiveBurnedItems extends ConservativeLiveData<List<Subject>> {
     }
 
     @Override
-    protected void updateLocal() {
+    protected void updateLocal(final DashboardInputs inputs) {
         if (GlobalSettings.Dashboard.getShowBurnedItems() || hasNullValue()) {
             final AppDatabase db = WkApplication.getDatabase();
             final long cutoff = System.currentTimeMillis() - MONTH;
-            final List<Subject> items = db.subjectCollectionsDao().getBurnedItems(SrsSystemRepository.getBurnedFilter(), cutoff);
+            final List<Subject> items = db.subjectCollectionsDao().getBurnedItems(inputs.getBurnedFilter(), cutoff);
             instance.postValue(items);
         }
         else {
@@ -20,7 +20,6 @@ import com.the_tinkering.wk.GlobalSettings;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.db.model.Subject;
-import com.the_tinkering.wk.model.SrsSystemRepository;
 
 import java.util.Collections;
 import java.util.List;
@@ -28,7 +27,7 @@ import java.util.List;
 /**
  * LiveData that records up to the last 10 items in critical condition (not passed, percentage correct &lt;75%).
  */
-public final class LiveCriticalCondition extends ConservativeLiveData<List<Subject>> {
+public final class LiveCriticalCondition extends DashboardLiveData<List<Subject>> {
     /**
      * The singleton instance.
      */
@@ -51,10 +50,10 @@ public final class LiveCriticalCondition extends ConservativeLiveData<List<Subje
     }
 
     @Override
-    protected void updateLocal() {
+    protected void updateLocal(final DashboardInputs inputs) {
         if (GlobalSettings.Dashboard.getShowCriticalCondition() || hasNullValue()) {
             final AppDatabase db = WkApplication.getDatabase();
-            final List<Subject> items = db.subjectCollectionsDao().getCriticalCondition(SrsSystemRepository.getCriticalConditionFilter());
+            final List<Subject> items = db.subjectCollectionsDao().getCriticalCondition(inputs.getCriticalConditionFilter());
             instance.postValue(items);
         }
         else {
@@ -26,7 +26,7 @@ import com.the_tinkering.wk.model.JlptProgress;
 /**
  * LiveData that records the JLPT progress.
  */
-public final class LiveJlptProgress extends ConservativeLiveData<JlptProgress> {
+public final class LiveJlptProgress extends DashboardLiveData<JlptProgress> {
     /**
      * The singleton instance.
      */
@@ -50,7 +50,7 @@ public final class LiveJlptProgress extends ConservativeLiveData<JlptProgress> {
 
     @SuppressLint("NewApi")
     @Override
-    protected void updateLocal() {
+    protected void updateLocal(final DashboardInputs inputs) {
         if (GlobalSettings.Dashboard.getShowJlptProgress() || hasNullValue()) {
             final AppDatabase db = WkApplication.getDatabase();
             final JlptProgress progress = new JlptProgress();
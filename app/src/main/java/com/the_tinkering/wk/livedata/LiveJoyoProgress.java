@@ -26,7 +26,7 @@ import com.the_tinkering.wk.model.JoyoProgress;
 /**
  * LiveData that records the Joyo kanji progress.
  */
-public final class LiveJoyoProgress extends ConservativeLiveData<JoyoProgress> {
+public final class LiveJoyoProgress extends DashboardLiveData<JoyoProgress> {
     /**
      * The singleton instance.
      */
@@ -50,7 +50,7 @@ public final class LiveJoyoProgress extends ConservativeLiveData<JoyoProgress> {
 
     @SuppressLint("NewApi")
     @Override
-    protected void updateLocal() {
+    protected void updateLocal(final DashboardInputs inputs) {
         if (GlobalSettings.Dashboard.getShowJoyoProgress() || hasNullValue()) {
             final AppDatabase db = WkApplication.getDatabase();
             final JoyoProgress progress = new JoyoProgress();
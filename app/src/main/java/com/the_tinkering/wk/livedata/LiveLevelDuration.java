@@ -25,7 +25,7 @@ import static com.the_tinkering.wk.util.ObjectSupport.orElse;
 /**
  * LiveData that tracks how long the user has been on their current level.
  */
-public final class LiveLevelDuration extends ConservativeLiveData<LevelDuration> {
+public final class LiveLevelDuration extends DashboardLiveData<LevelDuration> {
     /**
      * The singleton instance.
      */
@@ -48,9 +48,9 @@ public final class LiveLevelDuration extends ConservativeLiveData<LevelDuration>
     }
 
     @Override
-    protected void updateLocal() {
+    protected void updateLocal(final DashboardInputs inputs) {
         final AppDatabase db = WkApplication.getDatabase();
-        final int level = db.propertiesDao().getUserLevel();
+        final int level = inputs.getUserLevel();
 
         long since = db.levelProgressionDao().getLevelReachedDate(level);
         if (since == 0) {
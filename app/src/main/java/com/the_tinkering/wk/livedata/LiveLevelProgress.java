@@ -26,7 +26,7 @@ import com.the_tinkering.wk.model.LevelProgressItem;
 /**
  * LiveData that tracks the data for the level progression bars on the dashboard.
  */
-public final class LiveLevelProgress extends ConservativeLiveData<LevelProgress> {
+public final class LiveLevelProgress extends DashboardLiveData<LevelProgress> {
     /**
      * The singleton instance.
      */
@@ -50,9 +50,9 @@ public final class LiveLevelProgress extends ConservativeLiveData<LevelProgress>
 
     @SuppressLint("NewApi")
     @Override
-    protected void updateLocal() {
+    protected void updateLocal(final DashboardInputs inputs) {
         final AppDatabase db = WkApplication.getDatabase();
-        final int userLevel = db.propertiesDao().getUserLevel();
+        final int userLevel = inputs.getUserLevel();
         final LevelProgress levelProgress = new LevelProgress(userLevel);
 
         for (final LevelProgressItem item: db.subjectViewsDao().getLevelProgressTotalItems(userLevel)) {
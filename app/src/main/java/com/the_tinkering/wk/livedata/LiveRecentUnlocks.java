@@ -28,7 +28,7 @@ import java.util.List;
 /**
  * LiveData that records up to the last 10 items unlocked in the last 30 days.
  */
-public final class LiveRecentUnlocks extends ConservativeLiveData<List<Subject>> {
+public final class LiveRecentUnlocks extends DashboardLiveData<List<Subject>> {
     /**
      * The singleton instance.
      */
@@ -51,7 +51,7 @@ public final class LiveRecentUnlocks extends ConservativeLiveData<List<Subject>>
     }
 
     @Override
-    protected void updateLocal() {
+    protected void updateLocal(final DashboardInputs inputs) {
         if (GlobalSettings.Dashboard.getShowRecentUnlocks() || hasNullValue()) {
             final AppDatabase db = WkApplication.getDatabase();
             final long cutoff = System.currentTimeMillis() - Constants.MONTH;
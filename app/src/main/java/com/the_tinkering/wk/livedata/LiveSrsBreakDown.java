@@ -22,12 +22,11 @@ import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.model.SrsBreakDown;
 import com.the_tinkering.wk.model.SrsSystem;
-import com.the_tinkering.wk.model.SrsSystemRepository;
 
 /**
  * LiveData that tracks the SRS breakdown data for the dashboard.
  */
-public final class LiveSrsBreakDown extends ConservativeLiveData<SrsBreakDown> {
+public final class LiveSrsBreakDown extends DashboardLiveData<SrsBreakDown> {
     /**
      * The singleton instance.
      */
@@ -51,12 +50,12 @@ public final class LiveSrsBreakDown extends ConservativeLiveData<SrsBreakDown> {
 
     @SuppressLint("NewApi")
     @Override
-    protected void updateLocal() {
+    protected void updateLocal(final DashboardInputs inputs) {
         final AppDatabase db = WkApplication.getDatabase();
-        final int userLevel = db.propertiesDao().getUserLevel();
+        final int userLevel = inputs.getUserLevel();
         final SrsBreakDown breakDown = new SrsBreakDown();
         db.subjectViewsDao().getSrsBreakDownItems(userLevel).forEach(item -> {
-            final SrsSystem.Stage stage = SrsSystemRepository.getSrsSystem(item.getSystemId()).getStage(item.getStageId());
+            final SrsSystem.Stage stage = inputs.getSrsSystem(item.getSystemId()).getStage(item.getStageId());
             breakDown.addCount(stage, item.getCount());
         });
         breakDown.setOverLevel(db.subjectViewsDao().getSrsBreakDownOverLevel(userLevel));
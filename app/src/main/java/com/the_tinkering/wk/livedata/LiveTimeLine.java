@@ -29,19 +29,87 @@ import com.the_tinkering.wk.util.PitchInfoUtil;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
 
 import static com.the_tinkering.wk.Constants.DAY;
 import static com.the_tinkering.wk.Constants.HOUR;
+import static com.the_tinkering.wk.util.ObjectSupport.getTopOfHour;
 
 /**
  * LiveData that tracks available and uncoming lessons and reviews, for the dashboard.
+ *
+ * <p>
+ *     A full update rebuilds the timeline from the database. When only a few subjects have changed,
+ *     applyChanges() patches the most recent timeline for just those subjects instead. That falls back
+ *     to a full update when the user's level, subscription or vacation mode has changed, when the set of
+ *     subjects on the level-up path has changed, or when the hour has rolled over since the last full update.
+ * </p>
+ *
+ * <p>
+ *     The level-up path is the current-level kanji and their components. That only depends on the
+ *     subjects themselves, not on their assignments, so applyChanges() keeps it up to date from the
+ *     changed subjects alone, without querying all current-level kanji again.
+ * </p>
  */
-public final class LiveTimeLine extends ConservativeLiveData<TimeLine> {
+public final class LiveTimeLine extends DashboardLiveData<TimeLine> {
     /**
      * The singleton instance.
      */
     private static final LiveTimeLine instance = new LiveTimeLine();
 
+    /**
+     * Lock guarding the state of the most recent timeline below.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The most recently built timeline. This can be ahead of getValue(), since a posted value
+     * only takes effect once the main thread gets to it.
+     */
+    private @Nullable TimeLine latest = null;
+
+    /**
+     * The user level the most recent timeline was built for.
+     */
+    private int latestUserLevel = 0;
+
+    /**
+     * The max level the most recent timeline was built for.
+     */
+    private int latestMaxLevel = 0;
+
+    /**
+     * The vacation mode the most recent timeline was built for.
+     */
+    private boolean latestVacationMode = false;
+
+    /**
+     * The cutoff date for upcoming reviews in the most recent timeline.
+     */
+    private long latestCutoff = 0;
+
+    /**
+     * The kanji on the level-up path of the most recent timeline, mapped to their component subject IDs.
+     */
+    private Map<Long, Collection<Long>> latestLevelUpKanji = Collections.emptyMap();
+
+    /**
+     * The level-up subject IDs the most recent timeline was built with.
+     */
+    private Collection<Long> latestLevelUpIds = Collections.emptySet();
+
+    /**
+     * The IDs of the subjects in the most recent full update, for the audio scan in afterUpdate().
+     * Null if there has been no full update since the last scan check.
+     */
+    private @Nullable Collection<Long> pendingScanSubjectIds = null;
+
     /**
      * Get the singleton instance.
      *
@@ -60,51 +128,76 @@ public final class LiveTimeLine extends ConservativeLiveData<TimeLine> {
 
     @SuppressLint("NewApi")
     @Override
-    protected void updateLocal() {
+    protected void updateLocal(final DashboardInputs inputs) {
         final AppDatabase db = WkApplication.getDatabase();
-        final int maxLevel = db.propertiesDao().getUserMaxLevelGranted();
-        final int userLevel = db.propertiesDao().getUserLevel();
-        final boolean vacationMode = db.propertiesDao().getVacationMode();
+        final int maxLevel = inputs.getMaxLevel();
+        final int userLevel = inputs.getUserLevel();
+        final boolean vacationMode = inputs.getVacationMode();
 
-        final Collection<Long> levelUpIds = db.subjectCollectionsDao().getLevelUpIds(userLevel, maxLevel);
+        final Map<Long, Collection<Long>> levelUpKanji = new HashMap<>();
+        for (final Subject subject: db.subjectCollectionsDao().getLevelUpKanji(userLevel, maxLevel)) {
+            levelUpKanji.put(subject.getId(), subject.getComponentSubjectIds());
+        }
+        final Collection<Long> levelUpIds = getLevelUpIds(levelUpKanji);
 
         final int size = GlobalSettings.Dashboard.getTimeLineChartSize();
         final TimeLine timeLine = new TimeLine(size);
-        final Collection<Subject> scanSubjects = new ArrayList<>();
-
-        if (!vacationMode) {
-            db.subjectCollectionsDao().getAvailableLessonItems(maxLevel, userLevel).forEach(subject -> {
-                timeLine.addLesson(subject);
-                scanSubjects.add(subject);
-            });
-
-            final long ahead = size * HOUR;
-            final long cutoff = System.currentTimeMillis() + ahead;
-            db.subjectCollectionsDao().getUpcomingReviewItems(maxLevel, userLevel, cutoff).forEach(subject -> {
-                timeLine.addReview(subject, !subject.isPassed() && levelUpIds.contains(subject.getId()));
-                scanSubjects.add(subject);
-            });
-
-            final long longDate = db.subjectAggregatesDao().getNextLongTermReviewDate(maxLevel, userLevel, cutoff);
-            timeLine.setLongTermUpcomingReviewDate(longDate);
-            if (longDate == 0) {
-                timeLine.setNumLongTermUpcomingReviews(0);
-            }
-            else {
-                timeLine.setNumLongTermUpcomingReviews(db.subjectAggregatesDao().getNextLongTermReviewCount(maxLevel, userLevel, longDate));
+        final Collection<Long> scanSubjectIds = new ArrayList<>();
+        final long cutoff = System.currentTimeMillis() + size * HOUR;
+
+        synchronized (lock) {
+            if (!vacationMode) {
+                db.subjectCollectionsDao().getAvailableLessonItems(maxLevel, userLevel).forEach(subject -> {
+                    timeLine.addLesson(subject);
+                    scanSubjectIds.add(subject.getId());
+                });
+
+                db.subjectCollectionsDao().getUpcomingReviewItems(maxLevel, userLevel, cutoff).forEach(subject -> {
+                    timeLine.addReview(subject, !subject.isPassed() && levelUpIds.contains(subject.getId()));
+                    scanSubjectIds.add(subject.getId());
+                });
+
+                updateLongTermReviews(db, timeLine, maxLevel, userLevel, cutoff);
             }
+
+            latest = timeLine;
+            latestUserLevel = userLevel;
+            latestMaxLevel = maxLevel;
+            latestVacationMode = vacationMode;
+            latestCutoff = cutoff;
+            latestLevelUpKanji = levelUpKanji;
+            latestLevelUpIds = levelUpIds;
+            pendingScanSubjectIds = scanSubjectIds;
+            instance.postValue(timeLine);
         }
+    }
 
-        instance.postValue(timeLine);
+    @Override
+    protected void afterUpdate(final DashboardInputs inputs) {
+        final AppDatabase db = WkApplication.getDatabase();
+        final @Nullable TimeLine timeLine;
+        final @Nullable Collection<Long> scanSubjectIds;
+        synchronized (lock) {
+            timeLine = latest;
+            scanSubjectIds = pendingScanSubjectIds;
+            pendingScanSubjectIds = null;
+        }
 
-        if (db.propertiesDao().getNotificationSet() && !timeLine.hasAvailableLessons() && !timeLine.hasAvailableReviews()) {
+        if (timeLine != null && db.propertiesDao().getNotificationSet()
+                && !timeLine.hasAvailableLessons() && !timeLine.hasAvailableReviews()) {
             BackgroundAlarmReceiver.processAlarm(null);
         }
 
+        if (scanSubjectIds == null) {
+            return;
+        }
+
         if (GlobalSettings.Api.getAutoDownloadAudio()) {
             final long lastAudioScanDate = db.propertiesDao().getLastAudioScanDate();
             if (lastAudioScanDate == 0 || System.currentTimeMillis() - lastAudioScanDate > DAY/2) {
-                scanSubjects.addAll(db.subjectCollectionsDao().getByLevelRange(userLevel, userLevel));
+                // The time line only has lightweight subjects without audio metadata, so load the full subjects for the scan
+                final Collection<Subject> scanSubjects = new ArrayList<>(db.subjectCollectionsDao().getByIds(scanSubjectIds));
+                scanSubjects.addAll(db.subjectCollectionsDao().getByLevelRange(inputs.getUserLevel(), inputs.getUserLevel()));
                 AudioUtil.scheduleDownloadTasks(scanSubjects, 100);
                 db.propertiesDao().setLastAudioScanDate(System.currentTimeMillis());
             }
@@ -119,6 +212,156 @@ public final class LiveTimeLine extends ConservativeLiveData<TimeLine> {
         }
     }
 
+    /**
+     * Look up the first review date beyond the timeline and the number of reviews on that date.
+     *
+     * @param db the database
+     * @param timeLine the timeline to update
+     * @param maxLevel the max level granted by the user's subscription
+     * @param userLevel the user's level
+     * @param cutoff the end of the timeline
+     */
+    private static void updateLongTermReviews(final AppDatabase db, final TimeLine timeLine,
+                                              final int maxLevel, final int userLevel, final long cutoff) {
+        final long longDate = db.subjectAggregatesDao().getNextLongTermReviewDate(maxLevel, userLevel, cutoff);
+        timeLine.setLongTermUpcomingReviewDate(longDate);
+        if (longDate == 0) {
+            timeLine.setNumLongTermUpcomingReviews(0);
+        }
+        else {
+            timeLine.setNumLongTermUpcomingReviews(db.subjectAggregatesDao().getNextLongTermReviewCount(maxLevel, userLevel, longDate));
+        }
+    }
+
+    /**
+     * Get the subject IDs on the level-up path, see SubjectCollectionsDao.getLevelUpIds().
+     *
+     * @param levelUpKanji the kanji on the level-up path, mapped to their component subject IDs
+     * @return the IDs of the kanji and their components
+     */
+    private static Collection<Long> getLevelUpIds(final Map<Long, Collection<Long>> levelUpKanji) {
+        final Collection<Long> result = new HashSet<>();
+        for (final Map.Entry<Long, Collection<Long>> entry: levelUpKanji.entrySet()) {
+            result.add(entry.getKey());
+            result.addAll(entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Is this subject available for lesson? This matches the criteria of getAvailableLessonItems().
+     *
+     * @param subject the subject
+     * @return true if it is
+     */
+    private static boolean isAvailableLesson(final Subject subject) {
+        return (subject.getResurrectedAt() != 0 || subject.getBurnedAt() == 0)
+                && subject.getUnlockedAt() != 0 && subject.getStartedAt() == 0;
+    }
+
+    /**
+     * Update the timeline for changes in the assignments of a few subjects, for example after
+     * a lesson or review has been reported. Only the changed subjects are reloaded, the rest of the
+     * timeline is carried over from the most recent update. If that is not possible, this does a full
+     * update instead. Like update(), nothing is done until there are active observers.
+     *
+     * <p>
+     *     Like updateLocal(), this only reads from the database. If it returns true, the caller
+     *     must call afterUpdate() with the same inputs once it is done reading.
+     * </p>
+     *
+     * @param subjectIds the IDs of the subjects that have changed
+     * @param inputs the inputs for this update
+     * @return true if the timeline has been updated
+     */
+    boolean applyChanges(final Collection<Long> subjectIds, final DashboardInputs inputs) {
+        if (!startUpdate(false)) {
+            synchronized (lock) {
+                latest = null;
+            }
+            return false;
+        }
+
+        final AppDatabase db = WkApplication.getDatabase();
+        final int maxLevel = inputs.getMaxLevel();
+        final int userLevel = inputs.getUserLevel();
+        final boolean vacationMode = inputs.getVacationMode();
+        final @Nullable TimeLine timeLine;
+
+        synchronized (lock) {
+            if (latest == null || maxLevel != latestMaxLevel || userLevel != latestUserLevel || vacationMode != latestVacationMode
+                    || getTopOfHour(System.currentTimeMillis()) != latest.getFirstSlot()) {
+                timeLine = null;
+            }
+            else if (vacationMode) {
+                return false;
+            }
+            else {
+                final List<Subject> subjects = db.subjectCollectionsDao().getByIds(subjectIds);
+                final Map<Long, Collection<Long>> levelUpKanji = updateLevelUpKanji(subjectIds, subjects, maxLevel, userLevel);
+                final Collection<Long> levelUpIds = getLevelUpIds(levelUpKanji);
+                // The level-up flags of the subjects that haven't changed depend on this too, so if it's different, start over
+                if (!levelUpIds.equals(latestLevelUpIds)) {
+                    timeLine = null;
+                }
+                else {
+                    timeLine = latest.copy();
+                    for (final long id: subjectIds) {
+                        timeLine.removeSubject(id);
+                    }
+                    for (final Subject subject: subjects) {
+                        if (subject.getLevel() > maxLevel || subject.getLevel() > userLevel) {
+                            continue;
+                        }
+                        if (isAvailableLesson(subject)) {
+                            timeLine.insertLesson(subject);
+                        }
+                        if (subject.getAvailableAt() != 0 && subject.getAvailableAt() < latestCutoff) {
+                            timeLine.addReview(subject, !subject.isPassed() && levelUpIds.contains(subject.getId()));
+                        }
+                    }
+                    updateLongTermReviews(db, timeLine, maxLevel, userLevel, latestCutoff);
+
+                    latest = timeLine;
+                    latestLevelUpKanji = levelUpKanji;
+                    instance.postValue(timeLine);
+                }
+            }
+        }
+
+        if (timeLine == null) {
+            updateLocal(inputs);
+        }
+        return true;
+    }
+
+    /**
+     * Update the level-up kanji of the most recent timeline for some changed subjects. A changed
+     * subject is on the level-up path if it is a kanji of the user's current level. Hidden subjects
+     * are left out of the changed subjects, so a changed kanji that is missing there has left it.
+     *
+     * @param subjectIds the IDs of the subjects that have changed
+     * @param subjects the changed subjects, as they are now
+     * @param maxLevel the max level granted by the user's subscription
+     * @param userLevel the user's level
+     * @return the updated map of level-up kanji to their component subject IDs
+     */
+    private Map<Long, Collection<Long>> updateLevelUpKanji(final Iterable<Long> subjectIds, final Iterable<Subject> subjects,
+                                                           final int maxLevel, final int userLevel) {
+        final Map<Long, Collection<Long>> result = new HashMap<>(latestLevelUpKanji);
+        for (final long id: subjectIds) {
+            result.remove(id);
+        }
+        if (userLevel < maxLevel) {
+            for (final Subject subject: subjects) {
+                if (subject.getType().isKanji() && subject.getLevel() == userLevel) {
+                    result.put(subject.getId(), subject.getComponentSubjectIds());
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public TimeLine getDefaultValue() {
         return new TimeLine(24);
@@ -21,9 +21,11 @@ import android.os.Looper;
 
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.SubjectCache;
 import com.the_tinkering.wk.db.model.Subject;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.WeakHashMap;
@@ -38,6 +40,11 @@ import static com.the_tinkering.wk.util.ObjectSupport.safe;
  * <p>
  *     Listeners are asked ahead of time if they are interested in updates for a specific subject ID.
  * </p>
+ *
+ * <p>
+ *     Every reported change also invalidates the subject in the subject cache, before the listeners
+ *     are given the updated subject.
+ * </p>
  */
 public final class SubjectChangeWatcher {
     private static final SubjectChangeWatcher instance = new SubjectChangeWatcher();
@@ -72,6 +79,7 @@ public final class SubjectChangeWatcher {
      * @param subjectId the ID of the subject that has been changed
      */
     public void reportChange(final long subjectId) {
+        SubjectCache.getInstance().invalidate(subjectId);
         safe(() -> {
             @Nullable Subject subject = null;
             final Iterable<SubjectChangeListener> listeners = new ArrayList<>(map.keySet());
@@ -89,4 +97,36 @@ public final class SubjectChangeWatcher {
             }
         });
     }
+
+    /**
+     * Report changes to a batch of subjects. This is equivalent to calling reportChange() for each
+     * subject ID, but the listener set is only copied once, and nothing is done at all if there are no listeners.
+     *
+     * @param subjectIds the IDs of the subjects that have been changed
+     */
+    public void reportChanges(final Collection<Long> subjectIds) {
+        SubjectCache.getInstance().invalidate(subjectIds);
+        safe(() -> {
+            final Collection<SubjectChangeListener> listeners = new ArrayList<>(map.keySet());
+            if (listeners.isEmpty()) {
+                return;
+            }
+            final AppDatabase db = WkApplication.getDatabase();
+            final Handler handler = new Handler(Looper.getMainLooper());
+            for (final long subjectId: subjectIds) {
+                @Nullable Subject subject = null;
+                for (final SubjectChangeListener listener: listeners) {
+                    if (listener.isInterestedInSubject(subjectId)) {
+                        if (subject == null) {
+                            subject = db.subjectDao().getById(subjectId);
+                        }
+                        if (subject != null) {
+                            final Subject theSubject = subject;
+                            handler.post(() -> safe(() -> listener.onSubjectChange(theSubject)));
+                        }
+                    }
+                }
+            }
+        });
+    }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.model;
+
+import com.the_tinkering.wk.api.model.AuxiliaryMeaning;
+import com.the_tinkering.wk.api.model.Meaning;
+import com.the_tinkering.wk.api.model.Reading;
+import com.the_tinkering.wk.db.model.Subject;
+import com.the_tinkering.wk.util.FuzzyMatcher;
+import com.the_tinkering.wk.util.PseudoIme;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import static com.the_tinkering.wk.util.ObjectSupport.isEqual;
+
+/**
+ * The answers for one subject, prepared for checking answers to questions about that subject.
+ *
+ * <p>
+ *     Building this collects and cleans up the accepted and rejected meanings, and converts
+ *     on'yomi readings to katakana, so that none of that has to be repeated for every answer
+ *     the user submits. An instance is cached on the session item, and rebuilt when the item's
+ *     subject or the user's synonyms change.
+ * </p>
+ */
+public final class AnswerMatcher {
+    private final Subject subject;
+    private final List<String> meaningSynonyms;
+    private final FuzzyMatcher meaningMatcher;
+    private final CompiledReading[] readings;
+    private final CompiledReading[] acceptedReadings;
+    private final CompiledReading[] onYomiReadings;
+    private final CompiledReading[] kunYomiReadings;
+    private final boolean acceptedOnYomi;
+    private final boolean acceptedKunYomi;
+
+    /**
+     * A reading with its katakana variant precomputed.
+     */
+    public static final class CompiledReading {
+        private final @Nullable String reading;
+        private final @Nullable String katakana;
+        private final boolean acceptedAnswer;
+
+        private CompiledReading(final Reading reading) {
+            this.reading = reading.getReading();
+            katakana = reading.isOnYomi() ? PseudoIme.toKatakana(this.reading) : null;
+            acceptedAnswer = reading.isAcceptedAnswer();
+        }
+
+        /**
+         * The reading as it is registered for the subject.
+         * @return the value
+         */
+        public @Nullable String getReading() {
+            return reading;
+        }
+
+        /**
+         * Is this reading accepted as an answer?.
+         * @return the value
+         */
+        public boolean isAcceptedAnswer() {
+            return acceptedAnswer;
+        }
+
+        /**
+         * Check if an answer matches this reading. Same as Reading.matches().
+         *
+         * @param answer the answer to check
+         * @param requireOnInKatakana true if the answer must be in katakana if the reading is on'yomi
+         * @return true if it is a match
+         */
+        public boolean matches(final String answer, final boolean requireOnInKatakana) {
+            if (katakana != null) {
+                if (requireOnInKatakana) {
+                    return katakana.equals(answer);
+                }
+                return isEqual(reading, answer) || katakana.equals(answer);
+            }
+            return isEqual(reading, answer);
+        }
+
+        /**
+         * Check if an answer matches this reading except for a digraph mismatch. Same as Reading.matchesForDigraph().
+         *
+         * @param answer the answer to check
+         * @return the digraph match details if the answer is correct except for the digraph mismatch
+         */
+        public @Nullable DigraphMatch matchesForDigraph(final CharSequence answer) {
+            final @Nullable DigraphMatch regularMatch = Reading.matchesForDigraph(answer, reading);
+            if (regularMatch != null || katakana == null) {
+                return regularMatch;
+            }
+            return Reading.matchesForDigraph(answer, katakana);
+        }
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param subject the subject to prepare the answers for
+     */
+    public AnswerMatcher(final Subject subject) {
+        this.subject = subject;
+        meaningSynonyms = subject.getMeaningSynonyms();
+
+        final Collection<String> accepted = new HashSet<>();
+        final Collection<String> rejected = new HashSet<>();
+        for (final Meaning m: subject.getMeanings()) {
+            (m.isAcceptedAnswer() ? accepted : rejected).add(m.getMeaning());
+        }
+        for (final AuxiliaryMeaning m: subject.getAuxiliaryMeanings()) {
+            if (m.isWhiteList()) {
+                accepted.add(m.getMeaning());
+            }
+            else if (m.isBlackList()) {
+                rejected.add(m.getMeaning());
+            }
+        }
+        accepted.addAll(meaningSynonyms);
+        meaningMatcher = new FuzzyMatcher(accepted, rejected);
+
+        readings = compile(subject.getReadings());
+        acceptedReadings = compile(subject.getAcceptedReadings());
+        onYomiReadings = compile(subject.getOnYomiReadings());
+        kunYomiReadings = compile(subject.getKunYomiReadings());
+        acceptedOnYomi = subject.hasAcceptedOnYomi();
+        acceptedKunYomi = subject.hasAcceptedKunYomi();
+    }
+
+    private static CompiledReading[] compile(final List<Reading> readings) {
+        final CompiledReading[] result = new CompiledReading[readings.size()];
+        for (int i=0; i<result.length; i++) {
+            result[i] = new CompiledReading(readings.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Is this matcher up to date for the given subject?.
+     *
+     * @param subject the subject to check
+     * @return true if this matcher was built for this subject, and the subject's synonyms haven't changed since
+     */
+    public boolean isFor(final Subject subject) {
+        return this.subject == subject && meaningSynonyms == subject.getMeaningSynonyms();
+    }
+
+    /**
+     * Matcher for the accepted and rejected meanings, auxiliary meanings and synonyms.
+     * @return the value
+     */
+    public FuzzyMatcher getMeaningMatcher() {
+        return meaningMatcher;
+    }
+
+    /**
+     * All readings of the subject.
+     * @return the value
+     */
+    public CompiledReading[] getReadings() {
+        //noinspection AssignmentOrReturnOfFieldWithMutableType
+        return readings;
+    }
+
+    /**
+     * The readings of the subject that are accepted as answers.
+     * @return the value
+     */
+    public CompiledReading[] getAcceptedReadings() {
+        //noinspection AssignmentOrReturnOfFieldWithMutableType
+        return acceptedReadings;
+    }
+
+    /**
+     * The on'yomi readings of the subject.
+     * @return the value
+     */
+    public CompiledReading[] getOnYomiReadings() {
+        //noinspection AssignmentOrReturnOfFieldWithMutableType
+        return onYomiReadings;
+    }
+
+    /**
+     * The kun'yomi readings of the subject.
+     * @return the value
+     */
+    public CompiledReading[] getKunYomiReadings() {
+        //noinspection AssignmentOrReturnOfFieldWithMutableType
+        return kunYomiReadings;
+    }
+
+    /**
+     * Does the subject have any accepted on'yomi readings?.
+     * @return the value
+     */
+    public boolean hasAcceptedOnYomi() {
+        return acceptedOnYomi;
+    }
+
+    /**
+     * Does the subject have any accepted kun'yomi readings?.
+     * @return the value
+     */
+    public boolean hasAcceptedKunYomi() {
+        return acceptedKunYomi;
+    }
+}
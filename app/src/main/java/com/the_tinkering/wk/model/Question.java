@@ -129,7 +129,7 @@ public final class Question {
 
         final Subject subject = requireNonNull(item.getSubject());
 
-        return type.checkAnswer(subject, matchingKanji, answer, closeEnoughAction);
+        return type.checkAnswer(item.getAnswerMatcher(subject), matchingKanji, answer, closeEnoughAction);
     }
 
     /**
@@ -22,6 +22,7 @@ import com.the_tinkering.wk.GlobalSettings;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.adapter.sessionlog.SessionLogAdapter;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.SessionItemJournal;
 import com.the_tinkering.wk.db.model.SessionItem;
 import com.the_tinkering.wk.db.model.Subject;
 import com.the_tinkering.wk.enums.LessonOrder;
@@ -1155,6 +1156,7 @@ s     *
             items = new ArrayList<>();
             history.clear();
             final Map<Long, Subject> subjects = db.subjectCollectionsDao().getSessionSubjects();
+            SessionItemJournal.getInstance().flush();
             for (final SessionItem item: db.sessionItemDao().getAll()) {
                 final @Nullable Subject subject = subjects.get(item.getId());
                 if (subject != null) {
@@ -1318,6 +1320,10 @@ s     *
             list = trimSelection(list, maxSize);
         }
 
+        // The candidates may come from the lightweight dashboard queries, so load the full subjects for the selection
+        list = WkApplication.getDatabase().subjectCollectionsDao().getByIds(
+                list.stream().map(Subject::getId).collect(Collectors.toList()));
+
         LOGGER.info("Subject IDs for session: %s", list.stream().map(Subject::getId).map(Object::toString).collect(Collectors.joining(",")));
 
         if (GlobalSettings.getShuffleAfterSelection(type)) {
@@ -1333,6 +1339,7 @@ s     *
         }
 
         final AppDatabase db = WkApplication.getDatabase();
+        SessionItemJournal.getInstance().flush();
         db.sessionItemDao().deleteAll();
 
         items = new ArrayList<>();
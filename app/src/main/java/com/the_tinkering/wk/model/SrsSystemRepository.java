@@ -49,7 +49,18 @@ public final class SrsSystemRepository {
      * @return the system, or the classic system if the ID is unknown
      */
     public static SrsSystem getSrsSystem(final long id) {
-        for (final SrsSystem system: getSystems()) {
+        return getSrsSystem(getSystems(), id);
+    }
+
+    /**
+     * Get the system identified by the given API ID, from a snapshot of the registered systems.
+     *
+     * @param systems the systems to search
+     * @param id the ID
+     * @return the system, or the classic system if the ID is unknown
+     */
+    public static SrsSystem getSrsSystem(final Iterable<SrsSystem> systems, final long id) {
+        for (final SrsSystem system: systems) {
             if (system.getId() == id) {
                 return system;
             }
@@ -89,8 +100,19 @@ public final class SrsSystemRepository {
      * @return the filter expression
      */
     public static String getCriticalConditionFilter() {
+        return getCriticalConditionFilter(getSystems());
+    }
+
+    /**
+     * SQL filter to find subjects that are candidates for the critical condition overview,
+     * for a snapshot of the registered systems.
+     *
+     * @param systems the systems to include
+     * @return the filter expression
+     */
+    public static String getCriticalConditionFilter(final Iterable<SrsSystem> systems) {
         final Collection<String> fragments = new ArrayList<>();
-        for (final SrsSystem system: getSystems()) {
+        for (final SrsSystem system: systems) {
             fragments.add(system.getCriticalConditionFilter());
         }
         return join(" OR ", "(", ")", fragments);
@@ -102,8 +124,19 @@ public final class SrsSystemRepository {
      * @return the filter expression
      */
     public static String getBurnedFilter() {
+        return getBurnedFilter(getSystems());
+    }
+
+    /**
+     * SQL filter to find subjects that are candidates for the recently burned overview,
+     * for a snapshot of the registered systems.
+     *
+     * @param systems the systems to include
+     * @return the filter expression
+     */
+    public static String getBurnedFilter(final Iterable<SrsSystem> systems) {
         final Collection<String> fragments = new ArrayList<>();
-        for (final SrsSystem system: getSystems()) {
+        for (final SrsSystem system: systems) {
             fragments.add(system.getBurnedFilter());
         }
         return join(" OR ", "(", ")", fragments);
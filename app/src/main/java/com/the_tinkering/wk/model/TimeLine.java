@@ -20,7 +20,10 @@ import com.the_tinkering.wk.db.model.Subject;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import static com.the_tinkering.wk.Constants.HOUR;
 import static com.the_tinkering.wk.util.ObjectSupport.getTopOfHour;
@@ -28,6 +31,11 @@ import static com.the_tinkering.wk.util.ObjectSupport.getTopOfHour;
 /**
  * A model for the dashboard timeline, containing the available and upcoming lessons and reviews.
  * A lesson or review is represented by the subject it's for.
+ *
+ * <p>
+ *     An instance is built once by adding all lessons and reviews, and can then be kept up to date with
+ *     changes to individual subjects by making a copy, and removing and re-adding the changed subjects.
+ * </p>
  */
 public final class TimeLine {
     private final long createdAt;
@@ -36,6 +44,7 @@ public final class TimeLine {
     private final List<Subject> availableReviews = new ArrayList<>();
     private final List<List<Subject>> timeLine = new ArrayList<>();
     private final List<Integer> numRequiredForLevelUp = new ArrayList<>();
+    private final Set<Long> requiredForLevelUpIds = new HashSet<>();
     private long longTermUpcomingReviewDate = 0;
     private int numLongTermUpcomingReviews = 0;
 
@@ -54,6 +63,35 @@ public final class TimeLine {
         firstSlot = getTopOfHour(createdAt);
     }
 
+    /**
+     * Copy constructor, see copy().
+     *
+     * @param source the instance to copy
+     */
+    private TimeLine(final TimeLine source) {
+        createdAt = source.createdAt;
+        firstSlot = source.firstSlot;
+        availableLessons.addAll(source.availableLessons);
+        availableReviews.addAll(source.availableReviews);
+        for (final List<Subject> slot: source.timeLine) {
+            timeLine.add(new ArrayList<>(slot));
+        }
+        numRequiredForLevelUp.addAll(source.numRequiredForLevelUp);
+        requiredForLevelUpIds.addAll(source.requiredForLevelUpIds);
+        longTermUpcomingReviewDate = source.longTermUpcomingReviewDate;
+        numLongTermUpcomingReviews = source.numLongTermUpcomingReviews;
+    }
+
+    /**
+     * Make a copy of this instance that can be modified without affecting this instance. The copy
+     * keeps the creation timestamp and slots of this instance.
+     *
+     * @return the copy
+     */
+    public TimeLine copy() {
+        return new TimeLine(this);
+    }
+
     /**
      * The date of the first slot of the timeline, the leftmost bar in the chart.
      * This is the top of the hour at the time this object was created.
@@ -139,7 +177,59 @@ public final class TimeLine {
     }
 
     /**
-     * During construction: add a review to this instance.
+     * During an update: add a lesson to this instance, keeping the list of lessons in the same order as
+     * the database query that builds the timeline: by level, lesson position and ID.
+     *
+     * @param lesson the lesson to add
+     */
+    public void insertLesson(final Subject lesson) {
+        int index = availableLessons.size();
+        while (index > 0 && compareLessons(availableLessons.get(index - 1), lesson) > 0) {
+            index--;
+        }
+        availableLessons.add(index, lesson);
+    }
+
+    private static int compareLessons(final Subject s1, final Subject s2) {
+        if (s1.getLevel() != s2.getLevel()) {
+            return Integer.compare(s1.getLevel(), s2.getLevel());
+        }
+        if (s1.getLessonPosition() != s2.getLessonPosition()) {
+            return Integer.compare(s1.getLessonPosition(), s2.getLessonPosition());
+        }
+        return Long.compare(s1.getId(), s2.getId());
+    }
+
+    /**
+     * During an update: remove all lessons and reviews for a subject from this instance.
+     *
+     * @param subjectId the ID of the subject to remove
+     */
+    public void removeSubject(final long subjectId) {
+        removeFromList(availableLessons, subjectId);
+        removeFromList(availableReviews, subjectId);
+        final boolean requiredForLevelUp = requiredForLevelUpIds.remove(subjectId);
+        for (int i=0; i<timeLine.size(); i++) {
+            if (removeFromList(timeLine.get(i), subjectId) && requiredForLevelUp) {
+                numRequiredForLevelUp.set(i, numRequiredForLevelUp.get(i) - 1);
+            }
+        }
+    }
+
+    private static boolean removeFromList(final Iterable<Subject> list, final long subjectId) {
+        boolean removed = false;
+        final Iterator<Subject> iterator = list.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getId() == subjectId) {
+                iterator.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * During construction or an update: add a review to this instance.
      *
      * @param review the review to add
      * @param requiredForLevelUp is this item on the level-up progression path?
@@ -161,6 +251,7 @@ public final class TimeLine {
             timeLine.get(slot).add(review);
             if (requiredForLevelUp) {
                 numRequiredForLevelUp.set(slot, numRequiredForLevelUp.get(slot) + 1);
+                requiredForLevelUpIds.add(review.getId());
             }
         }
     }
@@ -18,6 +18,8 @@ package com.the_tinkering.wk.model;
 
 import android.graphics.Typeface;
 
+import com.the_tinkering.wk.util.GlyphCoverage;
+
 /**
  * Wrapper class that contains a typeface and assorted information needed for rendering.
  */
@@ -28,23 +30,26 @@ public final class TypefaceConfiguration {
     public static final TypefaceConfiguration DEFAULT = new TypefaceConfiguration(Typeface.DEFAULT);
 
     private final Typeface typeface;
+    private final GlyphCoverage coverage;
     private final int paddingPercTop;
     private final int paddingPercBottom;
     private final int paddingPercLeft;
     private final int paddingPercRight;
 
     /**
-     * Constructor with padding.
+     * Constructor with padding and a glyph coverage index.
      *
      * @param typeface The typeface to render.
+     * @param coverage The glyph coverage index for the typeface.
      * @param paddingPercTop Padding at the top as a percentage.
      * @param paddingPercBottom Padding at the bottom as a percentage.
      * @param paddingPercLeft Padding at the left as a percentage.
      * @param paddingPercRight Padding at the right as a percentage.
      */
-    public TypefaceConfiguration(final Typeface typeface, final int paddingPercTop, final int paddingPercBottom,
-                                 final int paddingPercLeft, final int paddingPercRight) {
+    public TypefaceConfiguration(final Typeface typeface, final GlyphCoverage coverage, final int paddingPercTop,
+                                 final int paddingPercBottom, final int paddingPercLeft, final int paddingPercRight) {
         this.typeface = typeface;
+        this.coverage = coverage;
         this.paddingPercTop = paddingPercTop;
         this.paddingPercBottom = paddingPercBottom;
         this.paddingPercLeft = paddingPercLeft;
@@ -52,12 +57,12 @@ public final class TypefaceConfiguration {
     }
 
     /**
-     * Constructor without padding.
+     * Constructor without padding, with a glyph coverage index that is only kept in memory.
      *
      * @param typeface The typeface to render.
      */
     public TypefaceConfiguration(final Typeface typeface) {
-        this(typeface, 0, 0, 0, 0);
+        this(typeface, new GlyphCoverage(typeface, null, ""), 0, 0, 0, 0);
     }
 
     /**
@@ -68,6 +73,14 @@ public final class TypefaceConfiguration {
         return typeface;
     }
 
+    /**
+     * The glyph coverage index for the typeface.
+     * @return the value
+     */
+    public GlyphCoverage getCoverage() {
+        return coverage;
+    }
+
     /**
      * Padding at the top as a percentage.
      * @return the value
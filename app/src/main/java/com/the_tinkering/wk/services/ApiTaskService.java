@@ -16,26 +16,34 @@
 
 package com.the_tinkering.wk.services;
 
+import android.content.Context;
 import android.content.Intent;
+import android.os.PowerManager;
 
 import androidx.core.app.JobIntentService;
 
+import com.the_tinkering.wk.Constants;
 import com.the_tinkering.wk.GlobalSettings;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.db.model.TaskDefinition;
+import com.the_tinkering.wk.enums.TaskLane;
 import com.the_tinkering.wk.jobs.TickJob;
 import com.the_tinkering.wk.livedata.LiveFirstTimeSetup;
 import com.the_tinkering.wk.model.Session;
 import com.the_tinkering.wk.tasks.ApiTask;
+import com.the_tinkering.wk.util.AudioUtil;
+import com.the_tinkering.wk.util.Logger;
 
 import java.util.Collection;
+import java.util.EnumSet;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import static com.the_tinkering.wk.StableIds.API_TASK_SERVICE_JOB_ID;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
+import static java.util.Objects.requireNonNull;
 
 /**
  * An intent service for running tasks. Tasks are actions that need to run
@@ -44,54 +52,75 @@ import static com.the_tinkering.wk.util.ObjectSupport.safe;
  * so they will be executed even across restarts and when errors occur.
  *
  * <p>
- *     Tasks are recorded in the database. This service will loop over them
- *     one by one in priority order, taking into account the current online
- *     status.
+ *     Tasks are recorded in the database. They are divided over a few lanes (see TaskLane),
+ *     and each lane has its own worker threads that loop over the lane's tasks one by one in
+ *     priority order, taking into account the current online status. This way a long backlog
+ *     of audio downloads can't hold up the API calls, such as review reports. The service waits
+ *     for all lanes to go idle, so the job keeps the process alive while tasks are running. Lanes
+ *     can also be woken up outside the service by schedule(), so the workers hold a wake lock as well.
  * </p>
  */
 public final class ApiTaskService extends JobIntentService {
+    private static final Logger LOGGER = Logger.get(ApiTaskService.class);
+
+    /**
+     * The scheduler that runs the lanes. This also makes sure the background sync
+     * doesn't start workers in parallel with this.
+     */
+    private static final LaneScheduler<TaskLane, TaskDefinition> SCHEDULER =
+            new LaneScheduler<>(EnumSet.allOf(TaskLane.class), new Backend());
+
     /**
-     * A single dummy object to synchronize on, to make sure the background sync doesn't
-     * overlap with this.
+     * Wake lock held while any lane is busy, since workers can be started outside the service.
+     * Guarded by the scheduler's lock.
      */
-    private static final Object TASK_MONITOR = new Object();
+    private static @Nullable PowerManager.WakeLock wakeLock = null;
 
     /**
      * Schedule a run of the service to be executed on a background thread.
-     * This is regularly called from job housekeeping.
+     * This is regularly called from job housekeeping. Lanes that have room for more
+     * workers are woken up right away, so new tasks don't have to wait for the service.
      */
     public static void schedule() {
+        safe(SCHEDULER::dispatch);
         final Intent intent = new Intent(WkApplication.getInstance(), ApiTaskService.class);
         enqueueWork(WkApplication.getInstance(), ApiTaskService.class, API_TASK_SERVICE_JOB_ID, intent);
     }
 
-    private static void runTasksImpl() throws Exception {
-        final AppDatabase db = WkApplication.getDatabase();
-        while (db.hasPendingApiTasks()) {
-            //noinspection SynchronizationOnStaticField
-            synchronized (TASK_MONITOR) {
-                final @Nullable TaskDefinition taskDefinition = db.taskDefinitionDao().getNextTaskDefinition();
-                if (taskDefinition == null) {
-                    break;
-                }
-
-                final @Nullable Class<? extends ApiTask> clas = taskDefinition.getTaskClass();
-                if (clas == null) {
-                    db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
-                }
-                else {
-                    final ApiTask apiTask = taskDefinition.getTaskClass()
-                            .getConstructor(TaskDefinition.class)
-                            .newInstance(taskDefinition);
-
-                    if (!apiTask.canRun()) {
-                        break;
-                    }
-
-                    apiTask.run();
-                }
+    /**
+     * Acquire or refresh the wake lock that keeps the lanes running. Must be called with the scheduler's lock held,
+     * or from a running task.
+     */
+    private static void acquireWakeLock() {
+        if (wakeLock == null) {
+            final @Nullable PowerManager pm = (PowerManager) WkApplication.getInstance().getSystemService(Context.POWER_SERVICE);
+            if (pm == null) {
+                return;
             }
+            wakeLock = pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "wk:tasks");
+            wakeLock.setReferenceCounted(false);
         }
+        wakeLock.acquire(10 * Constants.MINUTE);
+    }
+
+    /**
+     * Release the wake lock if it is held. Must be called with the scheduler's lock held.
+     */
+    private static void releaseWakeLock() {
+        if (wakeLock != null && wakeLock.isHeld()) {
+            wakeLock.release();
+        }
+    }
+
+    /**
+     * Housekeeping when all lanes have gone idle.
+     *
+     * @throws Exception on any error
+     */
+    private static void onIdle() throws Exception {
+        final AppDatabase db = WkApplication.getDatabase();
+        LOGGER.info("All task lanes are idle");
+        AudioUtil.flushDownloadStatus();
         if (db.taskDefinitionDao().getApiCount() == 0) {
             if (GlobalSettings.getFirstTimeSetup() == 0) {
                 GlobalSettings.setFirstTimeSetup(1);
@@ -120,9 +149,16 @@ public final class ApiTaskService extends JobIntentService {
         }
     }
 
+    private static void runTasksImpl() throws Exception {
+        SCHEDULER.dispatch();
+        // Wait for all lanes to go idle, so the caller keeps the process alive until everything has been done
+        SCHEDULER.awaitIdle();
+    }
+
     /**
-     * Loop through all available tasks and execute them one by one, taking into
-     * account the priority order and online status.
+     * Loop through all available tasks and execute them, taking into account the lanes,
+     * the priority order within each lane, and online status. This returns when all
+     * lanes have gone idle.
      *
      * <p>
      *     Each task is response for removing itself from the database when
@@ -135,6 +171,78 @@ public final class ApiTaskService extends JobIntentService {
 
     @Override
     protected void onHandleWork(final @Nonnull Intent intent) {
+        // Keep the job running until the lanes are done, so the process isn't frozen or killed halfway through a task
         runTasks();
     }
+
+    /**
+     * The scheduler backend that stores tasks in the database.
+     */
+    private static final class Backend implements LaneScheduler.Backend<TaskLane, TaskDefinition> {
+        @Override
+        public int getMaxWorkers(final TaskLane lane) {
+            return lane.getMaxWorkers();
+        }
+
+        @Override
+        public @Nullable TaskDefinition claimNextTask(final TaskLane lane, final Collection<Integer> runningTaskIds) {
+            final AppDatabase db = WkApplication.getDatabase();
+            final @Nullable Class<? extends ApiTask> taskClass = lane.getTaskClass();
+            return taskClass == null
+                    ? db.taskDefinitionDao().getNextTaskDefinitionNotOfClass(TaskLane.getDedicatedTaskClassNames(), runningTaskIds)
+                    : db.taskDefinitionDao().getNextTaskDefinitionOfClass(requireNonNull(taskClass.getCanonicalName()), runningTaskIds);
+        }
+
+        @Override
+        public int getTaskId(final TaskDefinition task) {
+            return task.getId();
+        }
+
+        @Override
+        public boolean runTask(final TaskLane lane, final TaskDefinition taskDefinition) throws Exception {
+            final AppDatabase db = WkApplication.getDatabase();
+            final @Nullable Class<? extends ApiTask> clas = taskDefinition.getTaskClass();
+            if (clas == null) {
+                db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
+                return true;
+            }
+
+            final ApiTask apiTask = clas
+                    .getConstructor(TaskDefinition.class)
+                    .newInstance(taskDefinition);
+
+            if (!apiTask.canRun()) {
+                return false;
+            }
+
+            //noinspection SynchronizationOnStaticField
+            synchronized (SCHEDULER) {
+                acquireWakeLock();
+            }
+            apiTask.run();
+            return true;
+        }
+
+        @Override
+        public void onIdle() throws Exception {
+            ApiTaskService.onIdle();
+        }
+
+        @Override
+        public void onBusyChanged(final boolean busy) {
+            safe(() -> {
+                if (busy) {
+                    acquireWakeLock();
+                }
+                else {
+                    releaseWakeLock();
+                }
+            });
+        }
+
+        @Override
+        public void onError(final Exception e) {
+            LOGGER.uerr(e);
+        }
+    }
 }
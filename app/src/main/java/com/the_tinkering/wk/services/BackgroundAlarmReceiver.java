@@ -28,6 +28,7 @@ import com.the_tinkering.wk.GlobalSettings;
 import com.the_tinkering.wk.StableIds;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.enums.ExecutionLane;
 import com.the_tinkering.wk.model.AlertContext;
 import com.the_tinkering.wk.util.Logger;
 
@@ -127,7 +128,7 @@ public final class BackgroundAlarmReceiver extends BroadcastReceiver {
      *                 the alarm have been processed. This may happen after this method call returns.
      */
     public static void processAlarm(final @Nullable PowerManager.WakeLock wakeLock) {
-        runAsync(() -> {
+        runAsync(ExecutionLane.MAINTENANCE, () -> {
             if (isAlarmRequired()) {
                 final AppDatabase db = WkApplication.getDatabase();
                 final int maxLevel = db.propertiesDao().getUserMaxLevelGranted();
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.services;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nullable;
+
+/**
+ * Scheduler that runs persistent tasks in separate lanes, each with its own worker threads.
+ *
+ * <p>
+ *     Dispatching never waits for tasks to finish: it starts at most one extra worker for each lane
+ *     that has room for more, and returns. A worker keeps claiming and running tasks from its lane
+ *     until the lane runs dry, or a task reports that it can't run right now. Each time a worker has
+ *     finished a task, it starts another worker if its lane still has room, so a lane with a backlog
+ *     ramps up to its maximum, while a lane with nothing to do costs a single short-lived worker.
+ *     Workers run on a shared pool of threads that are reused between dispatches.
+ * </p>
+ *
+ * <p>
+ *     Tasks are claimed under a per-lane lock, so a task is never claimed twice, and the backend's
+ *     queries don't hold up the other lanes or dispatch(). New tasks must be stored before
+ *     dispatch() is called. Every dispatch is counted per lane, and a worker that finds its lane
+ *     empty only stops if no dispatch has happened since it started looking, so a task stored before
+ *     a dispatch is always picked up by either an existing worker or a new one.
+ * </p>
+ *
+ * <p>
+ *     This class has no Android dependencies, so it can be tested on the JVM.
+ * </p>
+ *
+ * @param <L> the type that identifies a lane
+ * @param <T> the type of the tasks
+ */
+public final class LaneScheduler<L, T> {
+    private final Backend<L, T> backend;
+    private final Map<L, LaneState> laneStates = new LinkedHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "TaskLane");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int numWorkers = 0;
+    private int numIdleCallbacks = 0;
+    private boolean busy = false;
+
+    /**
+     * The constructor.
+     *
+     * @param lanes the lanes to schedule tasks in
+     * @param backend the backend that stores and runs the tasks
+     */
+    public LaneScheduler(final Iterable<L> lanes, final Backend<L, T> backend) {
+        this.backend = backend;
+        for (final L lane: lanes) {
+            laneStates.put(lane, new LaneState(lane));
+        }
+    }
+
+    /**
+     * Start a worker for every lane that has room for more, and return without waiting for them.
+     * Lanes that turn out to have nothing to do stop again right away.
+     */
+    public synchronized void dispatch() {
+        for (final LaneState state: laneStates.values()) {
+            state.numDispatches++;
+            startWorkerIfRoom(state);
+        }
+    }
+
+    /**
+     * Start a worker for a lane, if it has room for more. Must be called with the lock held.
+     *
+     * @param state the lane state
+     */
+    private void startWorkerIfRoom(final LaneState state) {
+        if (state.numWorkers >= backend.getMaxWorkers(state.lane)) {
+            return;
+        }
+        state.numWorkers++;
+        numWorkers++;
+        updateBusy();
+        executor.execute(() -> runLane(state));
+    }
+
+    /**
+     * Wait until all lanes have gone idle, and the idle callback has finished.
+     *
+     * @throws InterruptedException if the wait was interrupted
+     */
+    public synchronized void awaitIdle() throws InterruptedException {
+        while (busy) {
+            wait();
+        }
+    }
+
+    /**
+     * Is any lane still running tasks, or is the idle callback still running?.
+     *
+     * @return true if it is
+     */
+    public synchronized boolean isBusy() {
+        return busy;
+    }
+
+    /**
+     * Update the busy state, and tell the backend if it changed. Must be called with the lock held.
+     */
+    private void updateBusy() {
+        final boolean newBusy = numWorkers > 0 || numIdleCallbacks > 0;
+        if (newBusy != busy) {
+            busy = newBusy;
+            backend.onBusyChanged(busy);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Claim the next task for a lane. This takes the lane's claim lock, and must be called without the scheduler's lock held.
+     *
+     * @param state the lane state
+     * @return the task, or null if the lane has nothing left to do
+     */
+    private @Nullable T claimNextTask(final LaneState state) {
+        synchronized (state.claimLock) {
+            try {
+                final @Nullable T task = backend.claimNextTask(state.lane, state.runningTaskIds);
+                if (task != null) {
+                    state.runningTaskIds.add(backend.getTaskId(task));
+                }
+                return task;
+            } catch (final Exception e) {
+                backend.onError(e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Remove a worker from the books. Must be called with the lock held.
+     *
+     * @param state the lane state
+     * @return true if this was the last running worker of all lanes
+     */
+    private boolean stopWorker(final LaneState state) {
+        state.numWorkers--;
+        numWorkers--;
+        if (numWorkers > 0) {
+            return false;
+        }
+        // The idle callback counts as activity, so the scheduler only becomes idle when it's done
+        numIdleCallbacks++;
+        return true;
+    }
+
+    /**
+     * The main loop of a lane worker: keep claiming and running tasks until the lane
+     * runs dry, or a task can't run right now. The last worker to stop runs the idle callback.
+     *
+     * @param state the lane state
+     */
+    private void runLane(final LaneState state) {
+        Thread.currentThread().setName("TaskLane-" + state.lane);
+        boolean last = false;
+        boolean running = true;
+        while (running) {
+            final long numDispatches;
+            synchronized (this) {
+                numDispatches = state.numDispatches;
+            }
+            final @Nullable T task = claimNextTask(state);
+            if (task == null) {
+                synchronized (this) {
+                    // A dispatch while the lane was being searched may be for a task the search missed, so look again
+                    if (state.numDispatches == numDispatches) {
+                        last = stopWorker(state);
+                        running = false;
+                    }
+                }
+                continue;
+            }
+            boolean proceed = false;
+            try {
+                proceed = backend.runTask(state.lane, task);
+            } catch (final Exception e) {
+                backend.onError(e);
+            }
+            synchronized (state.claimLock) {
+                state.runningTaskIds.remove(backend.getTaskId(task));
+            }
+            synchronized (this) {
+                if (proceed) {
+                    startWorkerIfRoom(state);
+                }
+                else {
+                    last = stopWorker(state);
+                    running = false;
+                }
+            }
+        }
+        if (!last) {
+            return;
+        }
+        try {
+            backend.onIdle();
+        } catch (final Exception e) {
+            backend.onError(e);
+        }
+        synchronized (this) {
+            numIdleCallbacks--;
+            updateBusy();
+        }
+    }
+
+    /**
+     * The storage and execution of tasks, provided by the user of the scheduler.
+     *
+     * @param <L> the type that identifies a lane
+     * @param <T> the type of the tasks
+     */
+    public interface Backend<L, T> {
+        /**
+         * The maximum number of tasks that can run concurrently in a lane.
+         *
+         * @param lane the lane
+         * @return the number
+         */
+        int getMaxWorkers(L lane);
+
+        /**
+         * Find the next task to run in a lane. Called with the lane's claim lock held, so this is never called
+         * concurrently for the same lane, but it can be for different lanes. The scheduler's lock is not held.
+         *
+         * @param lane the lane
+         * @param runningTaskIds the IDs of the tasks in this lane that are already running, which must be skipped
+         * @return the task, or null if the lane has nothing left to do
+         * @throws Exception on any error
+         */
+        @Nullable T claimNextTask(L lane, Collection<Integer> runningTaskIds) throws Exception;
+
+        /**
+         * The ID of a task.
+         *
+         * @param task the task
+         * @return the ID
+         */
+        int getTaskId(T task);
+
+        /**
+         * Run a task.
+         *
+         * @param lane the lane the task was claimed for
+         * @param task the task
+         * @return false if the task can't run right now, which means the lane should stop
+         * @throws Exception on any error
+         */
+        boolean runTask(L lane, T task) throws Exception;
+
+        /**
+         * Called on the last worker's thread when all lanes have gone idle.
+         *
+         * @throws Exception on any error
+         */
+        void onIdle() throws Exception;
+
+        /**
+         * Called when the scheduler goes from idle to busy or back. Called with the scheduler's lock held.
+         *
+         * @param busy true if the scheduler is now busy
+         */
+        void onBusyChanged(boolean busy);
+
+        /**
+         * Report an exception thrown by one of the other methods.
+         *
+         * @param e the exception
+         */
+        void onError(Exception e);
+    }
+
+    /**
+     * The scheduling state of a single lane. The running task IDs are guarded by the claim lock,
+     * the other fields by the scheduler's lock.
+     */
+    private final class LaneState {
+        private final L lane;
+        private final Object claimLock = new Object();
+        private final Collection<Integer> runningTaskIds = new HashSet<>();
+        private int numWorkers = 0;
+        private long numDispatches = 0;
+
+        private LaneState(final L lane) {
+            this.lane = lane;
+        }
+    }
+}
@@ -32,6 +32,7 @@ import com.the_tinkering.wk.R;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.activities.MainActivity;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.enums.ExecutionLane;
 import com.the_tinkering.wk.enums.NotificationUpdateFrequency;
 import com.the_tinkering.wk.livedata.LiveTimeLine;
 import com.the_tinkering.wk.model.AlertContext;
@@ -101,7 +102,7 @@ public final class NotificationWorker {
         final AppDatabase db = WkApplication.getDatabase();
         db.propertiesDao().setNotificationSet(true);
 
-        runAsync(() -> LiveTimeLine.getInstance().update());
+        runAsync(ExecutionLane.MAINTENANCE, () -> LiveTimeLine.getInstance().update());
     }
 
     private static void cancelNotification() {
@@ -22,41 +22,53 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.NullNode;
-import com.the_tinkering.wk.BuildConfig;
-import com.the_tinkering.wk.Constants;
-import com.the_tinkering.wk.GlobalSettings;
-import com.the_tinkering.wk.Identification;
 import com.the_tinkering.wk.WkApplication;
+import com.the_tinkering.wk.api.ApiCollectionPage;
+import com.the_tinkering.wk.api.ApiTrace;
+import com.the_tinkering.wk.api.ApiValidators;
 import com.the_tinkering.wk.api.RateLimiter;
 import com.the_tinkering.wk.api.model.WaniKaniEntity;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.db.Converters;
 import com.the_tinkering.wk.db.model.TaskDefinition;
+import com.the_tinkering.wk.enums.TaskLane;
 import com.the_tinkering.wk.livedata.LiveApiProgress;
 import com.the_tinkering.wk.livedata.LiveApiState;
 import com.the_tinkering.wk.util.DbLogger;
+import com.the_tinkering.wk.util.HttpStack;
 import com.the_tinkering.wk.util.Logger;
-import com.the_tinkering.wk.util.StreamUtil;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
-import javax.net.ssl.HttpsURLConnection;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 import static com.the_tinkering.wk.Constants.API_RETRY_DELAY;
 import static com.the_tinkering.wk.Constants.HTTP_TOO_MANY_REQUESTS;
 import static com.the_tinkering.wk.Constants.HTTP_UNPROCESSABLE_ENTITY;
-import static com.the_tinkering.wk.Constants.MINUTE;
 import static com.the_tinkering.wk.Constants.NUM_API_TRIES;
 import static com.the_tinkering.wk.Constants.SECOND;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 import static com.the_tinkering.wk.util.ObjectSupport.safeNullable;
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
+import static java.util.Objects.requireNonNull;
 
 /**
  * Abstract base class for background tasks. This class handles logging and exception
@@ -66,6 +78,16 @@ import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 public abstract class ApiTask {
     private static final Logger LOGGER = Logger.get(ApiTask.class);
 
+    /**
+     * The number of fetched collection pages that can be waiting for the consumer in pagedCollectionApiCall().
+     */
+    private static final int PREFETCH_QUEUE_SIZE = 1;
+
+    /**
+     * The media type of request bodies sent to the API.
+     */
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
     /**
      * The task definition this invocation is defined by.
      */
@@ -81,59 +103,69 @@ public abstract class ApiTask {
     }
 
     /**
-     * Helper method to do a GET WaniKani API call and return the JSON response. Sets an API error
-     * status if needed, and returns null if no JSON-parseable response body could be received for
-     * any reason. Respects the API rate limits and will back off if the API signals we're going
-     * too fast anyway.
+     * Helper method to do a GET WaniKani API call and return the response, as interpreted by the
+     * supplied body reader. Sets an API error status if needed, and returns null if no parseable
+     * response body could be received for any reason. Respects the API rate limits and will back
+     * off if the API signals we're going too fast anyway.
+     *
+     * <p>
+     *     If this is a conditional call and the API answers 304 Not Modified, the conditional call
+     *     is marked as such, and the reader is invoked with the empty response body. It must
+     *     check the conditional call and produce a non-null result without parsing the body.
+     * </p>
+     *
+     * <p>
+     *     If the calling thread is interrupted, the call is abandoned without setting an API error
+     *     status, since the failure says nothing about the state of the API.
+     * </p>
      *
      * @param uri the request URI, which is either absolute (https://...) or site-relative (starts with '/')
-     * @return the response body, parsed as a JSON document
+     * @param conditional the conditional call state, or null for an unconditional call
+     * @param bodyReader the reader that interprets the response body stream
+     * @param <T> the type of the interpreted response body
+     * @return the response body, as interpreted by the reader
      */
-    private static @Nullable JsonNode getApiCall(final String uri) {
+    private static @Nullable <T> T getApiCall(final String uri, final @Nullable ConditionalCall conditional,
+                                              final ResponseBodyReader<T> bodyReader) {
         RateLimiter.getInstance().prepare();
-        final ObjectMapper mapper = Converters.getObjectMapper();
+        if (Thread.currentThread().isInterrupted()) {
+            return null;
+        }
         final AppDatabase db = WkApplication.getDatabase();
-        @Nullable HttpsURLConnection connection = null;
+        @Nullable Response response = null;
+        @Nullable ApiTrace trace = null;
         try {
             String urlString = uri;
             if (!urlString.startsWith("https://") && !urlString.startsWith("http://")) {
-                urlString = "https://api.wanikani.com" + uri;
-            }
-            final URL url = new URL(urlString);
-            LOGGER.info("Fetching: %s", url);
-            connection = (HttpsURLConnection) url.openConnection();
-            connection.setRequestProperty("Authorization", "Bearer " + GlobalSettings.Api.getApiKey());
-            connection.setRequestProperty("Wanikani-Revision", Constants.API_VERSION);
-            connection.setRequestProperty("User-Agent", Identification.APP_NAME_UA + "/" + BuildConfig.VERSION_NAME);
-            connection.setRequestMethod("GET");
-            connection.setDoInput(true);
-            connection.setDoOutput(false);
-            connection.setAllowUserInteraction(false);
-            connection.setConnectTimeout((int) (10 * SECOND));
-            connection.setReadTimeout((int) MINUTE);
-            connection.getHeaderFields();
-            LOGGER.info("Response code: %d %s", connection.getResponseCode(), connection.getResponseMessage());
-            try (final InputStream is = connection.getInputStream()) {
-                final JsonNode value = mapper.readTree(is);
-                LOGGER.info("Response body: %s", mapper.writerWithDefaultPrettyPrinter().writeValueAsString(value));
-                return value;
+                urlString = "https://" + HttpStack.API_HOST + uri;
+            }
+            final Request.Builder builder = new Request.Builder()
+                    .url(urlString)
+                    .get();
+            if (conditional != null) {
+                conditional.prepare(builder);
+            }
+            final Request request = builder.build();
+            trace = new ApiTrace("GET", request.url().url());
+            response = HttpStack.getInstance().getClient(HttpStack.Profile.API).newCall(request).execute();
+            trace.onHeaders(response.code());
+            RateLimiter.getInstance().onResponse(response.header("RateLimit-Remaining"), response.header("RateLimit-Reset"));
+            if (conditional != null) {
+                conditional.onResponse(response);
+            }
+            if (!response.isSuccessful() && (conditional == null || !conditional.isNotModified())) {
+                throw new IOException(String.format(Locale.ROOT, "API call failed: %d %s", response.code(), response.message()));
+            }
+            try (final InputStream is = trace.wrap(requireNonNull(response.body()).byteStream())) {
+                return bodyReader.read(is, trace);
             }
         }
         catch (final Exception e) {
-            int code = 0;
-            if (connection != null) {
-                try {
-                    code = connection.getResponseCode();
-                    // Last resort attempt to log the response body in case of errors
-                    if (code >= 100) {
-                        LOGGER.info("Response code: %d %s", code, connection.getResponseMessage());
-                        final byte[] body = StreamUtil.slurp(connection.getErrorStream());
-                        LOGGER.info("Response body: %s", new String(body, "ISO-8859-1"));
-                    }
-                } catch (final Exception e1) {
-                    //
-                }
+            if (Thread.currentThread().isInterrupted()) {
+                LOGGER.info("API call interrupted: %s", uri);
+                return null;
             }
+            final int code = getErrorCode(response);
             if (code == HTTP_UNAUTHORIZED) {
                 // Unauthorized
                 db.propertiesDao().setApiKeyRejected(true);
@@ -142,7 +174,7 @@ public abstract class ApiTask {
             }
             else if (code == HTTP_TOO_MANY_REQUESTS) {
                 // Too many requests
-                RateLimiter.getInstance().pause();
+                RateLimiter.getInstance().pause(response == null ? null : response.header("Retry-After"));
             }
             else {
                 // Server error >= 500 or some other error
@@ -152,30 +184,90 @@ public abstract class ApiTask {
             LOGGER.error(e, "API error");
             return null;
         }
+        finally {
+            if (response != null) {
+                response.close();
+            }
+            if (trace != null) {
+                trace.finish();
+            }
+        }
+    }
+
+    /**
+     * Get the status code of a failed API call, and log the response body for the debug log.
+     *
+     * @param response the response, or null if the call failed before a response was received
+     * @return the status code, or 0 if there is none
+     */
+    private static int getErrorCode(final @Nullable Response response) {
+        if (response == null) {
+            return 0;
+        }
+        final int code = response.code();
+        // Last resort attempt to log the response body in case of errors
+        if (!response.isSuccessful()) {
+            try {
+                LOGGER.info("Response code: %d %s", code, response.message());
+                final @Nullable ResponseBody body = response.body();
+                if (body != null) {
+                    LOGGER.info("Response body: %s", new String(body.bytes(), "ISO-8859-1"));
+                }
+            } catch (final Exception e) {
+                //
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Response body reader that parses the response body as a JSON document.
+     *
+     * @param is the response body stream
+     * @param trace the trace for this call, to record the number of entities in
+     * @return the response body, parsed as a JSON document
+     * @throws IOException if the stream could not be read or parsed
+     */
+    private static JsonNode readJsonBody(final InputStream is, final ApiTrace trace) throws IOException {
+        final JsonNode value = Converters.getObjectMapper().readTree(is);
+        final @Nullable JsonNode data = value.get("data");
+        if (data != null) {
+            trace.setNumEntities(data.isArray() ? data.size() : 1);
+        }
+        return value;
     }
 
     /**
      * Same as getApiCall, but implement a retry schedule to compensate for short-term connectivity
      * hiccups. The API error status will only be set if the last attempt fails, as long as the error
-     * condition is not that the user's API token is rejected.
+     * condition is not that the user's API token is rejected. If the calling thread is interrupted,
+     * no further attempts are made, and the wait between attempts is cut short.
      *
      * @param uri the request URI, which is either absolute (https://...) or site-relative (starts with '/')
+     * @param conditional the conditional call state, or null for an unconditional call
+     * @param bodyReader the reader that interprets the response body stream
      * @param numTries the maximum number of attempts to make, counting the first attempt as well
      * @param delay the delay between retries
-     * @return the response body, parsed as a JSON document
+     * @param <T> the type of the interpreted response body
+     * @return the response body, as interpreted by the reader
      */
     @SuppressWarnings("SameParameterValue")
-    private static @Nullable JsonNode getApiCallWithRetry(final String uri, final int numTries, final long delay) {
+    private static @Nullable <T> T getApiCallWithRetry(final String uri, final @Nullable ConditionalCall conditional,
+                                                       final ResponseBodyReader<T> bodyReader, final int numTries, final long delay) {
         final AppDatabase db = WkApplication.getDatabase();
         // First try, just do the call and bail out if it succeeds.
         {
-            final @Nullable JsonNode result = safeNullable(() -> getApiCall(uri));
+            final @Nullable T result = safeNullable(() -> getApiCall(uri, conditional, bodyReader));
             if (result != null) {
                 return result;
             }
         }
         // First attempt failed, go into the retry loop
         for (int i=1; i<numTries; i++) {
+            // If the caller has given up on this call, don't try again.
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
             // If the reason for the previous attempt failing is a rejected token, bail out immediately.
             // This will not recover without user intervention.
             if (db.propertiesDao().isApiKeyRejected()) {
@@ -187,11 +279,14 @@ public abstract class ApiTask {
                 LiveApiState.getInstance().forceUpdate();
             }
             // Wait a bit, and then try again.
-            final @Nullable JsonNode result = safeNullable(() -> {
+            try {
                 //noinspection BusyWait
                 Thread.sleep(delay);
-                return getApiCall(uri);
-            });
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            final @Nullable T result = safeNullable(() -> getApiCall(uri, conditional, bodyReader));
             if (result != null) {
                 return result;
             }
@@ -199,6 +294,27 @@ public abstract class ApiTask {
         return null;
     }
 
+    /**
+     * Same as getApiCallWithRetry() above, with the response body parsed as a JSON document.
+     * For a conditional call that is not modified, the result is a NullNode.
+     *
+     * @param uri the request URI, which is either absolute (https://...) or site-relative (starts with '/')
+     * @param conditional the conditional call state, or null for an unconditional call
+     * @param numTries the maximum number of attempts to make, counting the first attempt as well
+     * @param delay the delay between retries
+     * @return the response body, parsed as a JSON document
+     */
+    @SuppressWarnings("SameParameterValue")
+    private static @Nullable JsonNode getApiCallWithRetry(final String uri, final @Nullable ConditionalCall conditional,
+                                                          final int numTries, final long delay) {
+        return getApiCallWithRetry(uri, conditional, (is, trace) -> {
+            if (conditional != null && conditional.isNotModified()) {
+                return NullNode.getInstance();
+            }
+            return readJsonBody(is, trace);
+        }, numTries, delay);
+    }
+
     /**
      * Helper method to do a POST or PUT WaniKani API call and return the JSON response. This is mostly
      * identical to getApiCall(), but the HTTP method is a parameter, as is the request body. The body
@@ -210,54 +326,54 @@ public abstract class ApiTask {
      * @return the response body, parsed as a JSON document
      */
     private static @Nullable JsonNode postApiCall(final String uri, final String method, final Object requestBody) {
+        return postApiCall(uri, method, requestBody, null);
+    }
+
+    /**
+     * Same as postApiCall() above, but report the status code of a failed call to the caller. A client
+     * error other than the ones handled by postApiCall() means the API has rejected this particular
+     * request, so that doesn't put the API in the error state. It's up to the caller to deal with it.
+     * This makes a single attempt, the caller decides if and when to try again.
+     *
+     * @param uri the request URI, which is either absolute (https://...) or site-relative (starts with '/')
+     * @param method the HTTP method, could be any valid method but should be either POST or PUT
+     * @param requestBody the request body to sent to the server
+     * @param status if not null, receives the status code of a failed call, or 0 if there was no response
+     * @return the response body, parsed as a JSON document
+     */
+    protected static @Nullable JsonNode postApiCall(final String uri, final String method, final Object requestBody,
+                                                    final @Nullable AtomicInteger status) {
         RateLimiter.getInstance().prepare();
         final ObjectMapper mapper = Converters.getObjectMapper();
         final AppDatabase db = WkApplication.getDatabase();
-        @Nullable HttpsURLConnection connection = null;
+        @Nullable Response response = null;
+        @Nullable ApiTrace trace = null;
         try {
             String urlString = uri;
             if (!urlString.startsWith("https://") && !urlString.startsWith("http://")) {
-                urlString = "https://api.wanikani.com" + uri;
-            }
-            final URL url = new URL(urlString);
-            LOGGER.info("Posting: %s", url);
-            LOGGER.info("Request body: %s", mapper.writerWithDefaultPrettyPrinter().writeValueAsString(requestBody));
-            connection = (HttpsURLConnection) url.openConnection();
-            connection.setRequestProperty("Authorization", "Bearer " + GlobalSettings.Api.getApiKey());
-            connection.setRequestProperty("Wanikani-Revision", Constants.API_VERSION);
-            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            connection.setRequestProperty("User-Agent", Identification.APP_NAME_UA + "/" + BuildConfig.VERSION_NAME);
-            connection.setRequestMethod(method);
-            connection.setDoInput(true);
-            connection.setDoOutput(true);
-            connection.setAllowUserInteraction(false);
-            connection.setConnectTimeout((int) (10 * SECOND));
-            connection.setReadTimeout((int) MINUTE);
-            try (final OutputStream os = connection.getOutputStream()) {
-                mapper.writeValue(os, requestBody);
-            }
-            connection.getHeaderFields();
-            LOGGER.info("Response code: %d %s", connection.getResponseCode(), connection.getResponseMessage());
-            try (final InputStream is = connection.getInputStream()) {
-                final JsonNode value = mapper.readTree(is);
-                LOGGER.info("Response body: %s", mapper.writerWithDefaultPrettyPrinter().writeValueAsString(value));
-                return value;
+                urlString = "https://" + HttpStack.API_HOST + uri;
+            }
+            final byte[] requestBytes = mapper.writeValueAsBytes(requestBody);
+            final Request request = new Request.Builder()
+                    .url(urlString)
+                    .method(method, RequestBody.create(requestBytes, JSON))
+                    .build();
+            trace = new ApiTrace(method, request.url().url());
+            trace.onRequestBody(requestBytes);
+            response = HttpStack.getInstance().getClient(HttpStack.Profile.API).newCall(request).execute();
+            trace.onHeaders(response.code());
+            RateLimiter.getInstance().onResponse(response.header("RateLimit-Remaining"), response.header("RateLimit-Reset"));
+            if (!response.isSuccessful()) {
+                throw new IOException(String.format(Locale.ROOT, "API call failed: %d %s", response.code(), response.message()));
+            }
+            try (final InputStream is = trace.wrap(requireNonNull(response.body()).byteStream())) {
+                return readJsonBody(is, trace);
             }
         }
         catch (final Exception e) {
-            int code = 0;
-            if (connection != null) {
-                try {
-                    code = connection.getResponseCode();
-                    // Last resort attempt to log the response body in case of errors
-                    if (code >= 100) {
-                        LOGGER.info("Response code: %d %s", code, connection.getResponseMessage());
-                        final byte[] body = StreamUtil.slurp(connection.getErrorStream());
-                        LOGGER.info("Response body: %s", new String(body, "ISO-8859-1"));
-                    }
-                } catch (final Exception e1) {
-                    //
-                }
+            final int code = getErrorCode(response);
+            if (status != null) {
+                status.set(code);
             }
             if (code == HTTP_UNAUTHORIZED) {
                 // Unauthorized
@@ -267,13 +383,18 @@ public abstract class ApiTask {
             }
             else if (code == HTTP_TOO_MANY_REQUESTS) {
                 // Too many requests
-                RateLimiter.getInstance().pause();
+                RateLimiter.getInstance().pause(response == null ? null : response.header("Retry-After"));
             }
             else if (code == HTTP_UNPROCESSABLE_ENTITY) {
                 // Server refuses the entity, discard the error
                 LOGGER.error(e, "API error");
                 return NullNode.getInstance();
             }
+            else if (status != null && code >= HTTP_BAD_REQUEST && code < HTTP_INTERNAL_ERROR) {
+                // Client error for this request only, the caller handles it
+                LOGGER.error(e, "API rejected request: %s %s", method, uri);
+                return null;
+            }
             else {
                 // Server error >= 500 or some other error
                 db.propertiesDao().setApiInError(true);
@@ -282,6 +403,14 @@ public abstract class ApiTask {
             LOGGER.error(e, "API error");
             return null;
         }
+        finally {
+            if (response != null) {
+                response.close();
+            }
+            if (trace != null) {
+                trace.finish();
+            }
+        }
     }
 
     /**
@@ -343,11 +472,25 @@ public abstract class ApiTask {
      * @return the parsed response or null in case of any error
      */
     protected static @Nullable <T> T singleEntityApiCall(final String uri, final Class<T> cls) {
+        return singleEntityApiCall(uri, cls, null);
+    }
+
+    /**
+     * Same as singleEntityApiCall() above, but as a conditional call. If the API reports the entity
+     * has not been modified, this returns null and the conditional call's isNotModified() returns true.
+     *
+     * @param uri the request URI, which is either absolute (https://...) or site-relative (starts with '/')
+     * @param cls the class to map the response entity to
+     * @param conditional the conditional call state, or null for an unconditional call
+     * @param <T> the type of the response entity
+     * @return the parsed response or null in case of any error or if the entity was not modified
+     */
+    protected static @Nullable <T> T singleEntityApiCall(final String uri, final Class<T> cls, final @Nullable ConditionalCall conditional) {
         final AppDatabase db = WkApplication.getDatabase();
         final ObjectMapper mapper = Converters.getObjectMapper();
         try {
-            final @Nullable JsonNode body = getApiCallWithRetry(uri, NUM_API_TRIES, API_RETRY_DELAY);
-            if (body == null) {
+            final @Nullable JsonNode body = getApiCallWithRetry(uri, conditional, NUM_API_TRIES, API_RETRY_DELAY);
+            if (body == null || conditional != null && conditional.isNotModified()) {
                 return null;
             }
             if (!body.has("data")) {
@@ -364,23 +507,6 @@ public abstract class ApiTask {
         }
     }
 
-    /**
-     * If this is a paged response, extract the URL for the next page from the response body.
-     *
-     * @param body the body to examine
-     * @return the next URL or null if not paged or at the last page
-     */
-    private static @Nullable String getNextUrl(final JsonNode body) {
-        if (!body.has("pages")) {
-            return null;
-        }
-        final JsonNode pages = body.get("pages");
-        if (!pages.has("next_url")) {
-            return null;
-        }
-        return pages.get("next_url").textValue();
-    }
-
     /**
      * Parse an entity from an API response, respecting WK's specific representation of entities.
      * Specifically, the ID, object and data_updated_at properties are outside of the entity data
@@ -409,77 +535,278 @@ public abstract class ApiTask {
         return value;
     }
 
+    /**
+     * Fetch a single page of a collection from the API, with retries. The page is parsed
+     * in a streaming fashion, see ApiCollectionPage.
+     *
+     * @param uri the request URI, which is either absolute (https://...) or site-relative (starts with '/')
+     * @param cls the class to map the response entity to
+     * @param conditional the conditional call state, or null for an unconditional call
+     * @param <T> the type of the response entity
+     * @return the page, or null if it could not be fetched. For a conditional call that is not modified, the page is empty.
+     */
+    private static @Nullable <T extends WaniKaniEntity> ApiCollectionPage<T> getCollectionPage(final String uri, final Class<? extends T> cls,
+                                                                                               final @Nullable ConditionalCall conditional) {
+        final ObjectMapper mapper = Converters.getObjectMapper();
+        return getApiCallWithRetry(uri, conditional, (is, trace) -> {
+            if (conditional != null && conditional.isNotModified()) {
+                return ApiCollectionPage.empty();
+            }
+            final ApiCollectionPage<T> value = ApiCollectionPage.parse(mapper, is, cls);
+            trace.setNumEntities(value.getEntities().size());
+            return value;
+        }, NUM_API_TRIES, API_RETRY_DELAY);
+    }
+
     /**
      * Retrieve a collection from the API, including any subsequent pages in a multi-page response.
-     * Rather than returning a List result, invoke a consumer callback to handle each response entity.
+     * Rather than returning a List result, invoke a consumer callback to handle each page of response entities.
+     * This allows the consumer to store an entire page in a single database transaction.
+     *
+     * <p>
+     *     Fetching and processing are pipelined: a separate fetcher thread retrieves the next page
+     *     while the calling thread hands the current page to the consumer. The two are joined by
+     *     a queue of PREFETCH_QUEUE_SIZE pages, so memory use stays bounded if the consumer is slower
+     *     than the network. Every fetch still goes through getApiCallWithRetry(), so rate limiting,
+     *     retries and API error handling are the same as for any other call. The calling thread
+     *     never waits on the queue indefinitely: if the fetcher stops without handing over a page,
+     *     the call fails. When the call ends for any reason, the fetcher is interrupted and joined.
+     *     The interrupt cuts short any retry delay or rate limit wait it is in, so the calling
+     *     thread only waits for an HTTP request that is already in flight.
+     * </p>
      *
      * @param uri the request URI, which is either absolute (https://...) or site-relative (starts with '/')
      * @param cls the class to map the response entity to
-     * @param consumer the consumer to handle each returned entity
+     * @param consumer the consumer to handle each page of returned entities
      * @param <T> the type of the response entity
      * @return true if the entire response has been received and processed successfully. If false,
      *         some or all of the entities in the response may still have been processed.
      */
-    protected static <T extends WaniKaniEntity> boolean collectionApiCall(final String uri, final Class<? extends T> cls, final Consumer<T> consumer) {
+    protected static <T extends WaniKaniEntity> boolean pagedCollectionApiCall(final String uri, final Class<? extends T> cls,
+                                                                               final Consumer<List<T>> consumer) {
+        return pagedCollectionApiCall(uri, cls, consumer, null);
+    }
+
+    /**
+     * Same as pagedCollectionApiCall() above, but as a conditional call. Only the first page is
+     * fetched conditionally. If the API reports it has not been modified, the consumer is not
+     * invoked at all, and the conditional call's isNotModified() returns true. Validators are only
+     * kept for collections that fit in a single page, since a later page could change without
+     * the first page changing.
+     *
+     * @param uri the request URI, which is either absolute (https://...) or site-relative (starts with '/')
+     * @param cls the class to map the response entity to
+     * @param consumer the consumer to handle each page of returned entities
+     * @param conditional the conditional call state, or null for an unconditional call
+     * @param <T> the type of the response entity
+     * @return true if the entire response has been received and processed successfully, or if it
+     *         was not modified. If false, some or all of the entities in the response may still have been processed.
+     */
+    protected static <T extends WaniKaniEntity> boolean pagedCollectionApiCall(final String uri, final Class<? extends T> cls,
+                                                                               final Consumer<List<T>> consumer,
+                                                                               final @Nullable ConditionalCall conditional) {
         final AppDatabase db = WkApplication.getDatabase();
-        try {
+        final BlockingQueue<FetchedPage<T>> queue = new ArrayBlockingQueue<>(PREFETCH_QUEUE_SIZE);
+        final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        final Thread fetcher = new Thread(() -> safe(() -> {
             @Nullable String nextUrl = uri;
-            while (nextUrl != null) {
-                final @Nullable JsonNode body = getApiCallWithRetry(nextUrl, NUM_API_TRIES, API_RETRY_DELAY);
-                if (body == null) {
+            @Nullable ConditionalCall pageConditional = conditional;
+            while (nextUrl != null && !cancelled.get()) {
+                final @Nullable ApiCollectionPage<T> page = getCollectionPage(nextUrl, cls, pageConditional);
+                if (pageConditional != null && page != null && page.getNextUrl() != null) {
+                    pageConditional.discardValidators();
+                }
+                pageConditional = null;
+                final FetchedPage<T> fetchedPage = new FetchedPage<>(page);
+                try {
+                    while (!queue.offer(fetchedPage, SECOND, TimeUnit.MILLISECONDS)) {
+                        if (cancelled.get()) {
+                            return;
+                        }
+                    }
+                } catch (final InterruptedException e) {
+                    return;
+                }
+                if (page == null || !page.isValid()) {
+                    return;
+                }
+                nextUrl = page.getNextUrl();
+            }
+        }), "ApiPageFetcher");
+        fetcher.start();
+
+        try {
+            while (true) {
+                @Nullable FetchedPage<T> fetchedPage = queue.poll(SECOND, TimeUnit.MILLISECONDS);
+                if (fetchedPage == null) {
+                    if (fetcher.isAlive()) {
+                        continue;
+                    }
+                    // The fetcher may have handed over a page just before it stopped
+                    fetchedPage = queue.poll();
+                    if (fetchedPage == null) {
+                        LOGGER.info("Page fetcher stopped without handing over a page");
+                        return false;
+                    }
+                }
+                final @Nullable ApiCollectionPage<T> page = fetchedPage.page;
+                if (page == null) {
                     return false;
                 }
-                if (!body.has("data")) {
+                if (!page.isValid()) {
                     db.propertiesDao().setApiInError(true);
                     LiveApiState.getInstance().forceUpdate();
                     return false;
                 }
-                final JsonNode data = body.get("data");
-                LiveApiProgress.addEntities(data.size());
-                for (final JsonNode element: data) {
-                    consumer.accept(parseEntity(element, cls));
-                    LiveApiProgress.addProcessedEntity();
+                if (conditional != null && conditional.isNotModified()) {
+                    return true;
+                }
+                LiveApiProgress.addEntities(page.getEntities().size());
+                consumer.accept(page.getEntities());
+                LiveApiProgress.addProcessedEntities(page.getEntities().size());
+                if (page.getNextUrl() == null) {
+                    return true;
                 }
-                nextUrl = getNextUrl(body);
             }
-            return true;
         } catch (final Exception e) {
             LOGGER.error(e, "API data error");
             return false;
+        } finally {
+            cancelled.set(true);
+            fetcher.interrupt();
+            safe(fetcher::join);
         }
     }
 
     /**
-     * Download a file. This is just a straight GET request, and the response is stored in a file.
-     * The download initially writes to a temporary file, and if the download was successful, then
-     * the temporary file is renamed to the final name. This prevents partial downloads from
-     * lingering.
+     * Retrieve a collection from the API, including any subsequent pages in a multi-page response.
+     * Rather than returning a List result, invoke a consumer callback to handle each response entity.
      *
-     * @param urlString the absolute URL to fetch
-     * @param tempFile the temporary file to write to while downloading, must be on the same filesystem as outputFile.
-     * @param outputFile the eventual location for the downloaded file.
+     * @param uri the request URI, which is either absolute (https://...) or site-relative (starts with '/')
+     * @param cls the class to map the response entity to
+     * @param consumer the consumer to handle each returned entity
+     * @param <T> the type of the response entity
+     * @return true if the entire response has been received and processed successfully. If false,
+     *         some or all of the entities in the response may still have been processed.
      */
-    protected static void downloadFile(final String urlString, final File tempFile, final File outputFile) {
-        try {
-            final URL url = new URL(urlString);
-            LOGGER.info("Download: %s", url);
-            final HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setDoInput(true);
-            connection.setDoOutput(false);
-            connection.setAllowUserInteraction(false);
-            connection.setConnectTimeout((int) (10 * SECOND));
-            connection.setReadTimeout((int) MINUTE);
-            connection.getHeaderFields();
-            LOGGER.info("Response code: %d %s", connection.getResponseCode(), connection.getResponseMessage());
-            try (final InputStream is = connection.getInputStream(); final OutputStream os = new FileOutputStream(tempFile)) {
-                StreamUtil.pump(is, os);
-                //noinspection ResultOfMethodCallIgnored
-                tempFile.renameTo(outputFile);
+    protected static <T extends WaniKaniEntity> boolean collectionApiCall(final String uri, final Class<? extends T> cls, final Consumer<T> consumer) {
+        return collectionApiCall(uri, cls, consumer, null);
+    }
+
+    /**
+     * Same as collectionApiCall() above, but as a conditional call, see pagedCollectionApiCall().
+     *
+     * @param uri the request URI, which is either absolute (https://...) or site-relative (starts with '/')
+     * @param cls the class to map the response entity to
+     * @param consumer the consumer to handle each returned entity
+     * @param conditional the conditional call state, or null for an unconditional call
+     * @param <T> the type of the response entity
+     * @return true if the entire response has been received and processed successfully, or if it
+     *         was not modified. If false, some or all of the entities in the response may still have been processed.
+     */
+    protected static <T extends WaniKaniEntity> boolean collectionApiCall(final String uri, final Class<? extends T> cls, final Consumer<T> consumer,
+                                                                          final @Nullable ConditionalCall conditional) {
+        return pagedCollectionApiCall(uri, cls, page -> {
+            for (final T entity: page) {
+                consumer.accept(entity);
             }
+        }, conditional);
+    }
+
+    /**
+     * Functional interface for the code that interprets the body of a successful API response.
+     *
+     * @param <T> the type of the interpreted response body
+     */
+    @FunctionalInterface
+    private interface ResponseBodyReader<T> {
+        /**
+         * Read and interpret the response body.
+         *
+         * @param is the response body stream, which will be closed by the caller
+         * @param trace the trace for this call, to record the number of entities in
+         * @return the interpreted body, or null if it was not acceptable
+         * @throws IOException if the stream could not be read or parsed
+         */
+        @Nullable T read(InputStream is, ApiTrace trace) throws IOException;
+    }
+
+    /**
+     * State of a conditional GET call. The validators stored for the URI are sent with the request,
+     * so the API can answer 304 Not Modified if nothing has changed since the last full response.
+     *
+     * <p>
+     *     The validators of a full response are only stored when the task calls commit(), after
+     *     it has processed the response. If processing fails halfway, the next call fetches the
+     *     full response again. A 304 response doesn't refresh the stored validators, so they
+     *     expire ApiValidators.MAX_AGE after the last full response, and the local data is
+     *     rebuilt from a full response at least that often.
+     * </p>
+     */
+    protected static final class ConditionalCall {
+        private final String uri;
+        private final @Nullable ApiValidators sent;
+        private volatile @Nullable ApiValidators received = null;
+        private volatile boolean notModified = false;
+
+        /**
+         * The constructor.
+         *
+         * @param uri the request URI, exactly as it is passed to the API call
+         */
+        public ConditionalCall(final String uri) {
+            this.uri = uri;
+            final @Nullable ApiValidators stored = WkApplication.getDatabase().propertiesDao().getApiValidators(uri);
+            sent = stored != null && stored.isUsable(System.currentTimeMillis()) ? stored : null;
         }
-        catch (final Exception e) {
-            LOGGER.error(e, "Download error");
+
+        private void prepare(final Request.Builder builder) {
+            if (sent != null) {
+                sent.apply(builder);
+            }
+        }
+
+        private void onResponse(final Response response) {
+            notModified = sent != null && response.code() == HTTP_NOT_MODIFIED;
+            received = notModified ? null : ApiValidators.fromResponse(response, System.currentTimeMillis());
+        }
+
+        private void discardValidators() {
+            received = null;
+        }
+
+        /**
+         * Did the API report that the response has not been modified?.
+         *
+         * @return true if it did
+         */
+        public boolean isNotModified() {
+            return notModified;
+        }
+
+        /**
+         * Store the validators of the full response, after it has been processed successfully.
+         * Nothing is stored if the response was not modified.
+         */
+        public void commit() {
+            if (!notModified) {
+                WkApplication.getDatabase().propertiesDao().setApiValidators(uri, received);
+            }
+        }
+    }
+
+    /**
+     * Holder for a page handed from the fetcher thread to the consumer in pagedCollectionApiCall().
+     * A null page means the fetch failed.
+     *
+     * @param <T> the type of the response entity
+     */
+    private static final class FetchedPage<T extends WaniKaniEntity> {
+        private final @Nullable ApiCollectionPage<T> page;
+
+        private FetchedPage(final @Nullable ApiCollectionPage<T> page) {
+            this.page = page;
         }
     }
 
@@ -488,11 +815,17 @@ public abstract class ApiTask {
      */
     public final void run() {
         LOGGER.info("%s started with data: %s", DbLogger.getSimpleClassName(getClass()), taskDefinition.getData());
+        // Tasks in the other lanes run alongside the API lane, and must leave its progress display alone
+        final boolean reportsProgress = TaskLane.forTaskClass(getClass()).reportsProgress();
         safe(() -> {
-            LiveApiProgress.reset(false, "");
+            if (reportsProgress) {
+                LiveApiProgress.reset(false, "");
+            }
             runLocal();
         });
-        LiveApiProgress.reset(false, "");
+        if (reportsProgress) {
+            LiveApiProgress.reset(false, "");
+        }
         LOGGER.info("%s finished", DbLogger.getSimpleClassName(getClass()));
     }
 
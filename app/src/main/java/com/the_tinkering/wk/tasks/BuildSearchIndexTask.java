@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.tasks;
+
+import com.the_tinkering.wk.WkApplication;
+import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.model.TaskDefinition;
+import com.the_tinkering.wk.livedata.LiveApiProgress;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.the_tinkering.wk.Constants.SEARCH_INDEX_VERSION;
+
+/**
+ * Task to rebuild the full-text search index for all subjects. This is not a network task, the
+ * index is built from the subject table. After this, the index is kept up to date as subjects
+ * and study materials are synced.
+ */
+public final class BuildSearchIndexTask extends ApiTask {
+    /**
+     * Task priority.
+     */
+    public static final int PRIORITY = 1;
+
+    /**
+     * The number of subjects to index in a single transaction.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * The constructor.
+     *
+     * @param taskDefinition the definition of this task in the database
+     */
+    public BuildSearchIndexTask(final TaskDefinition taskDefinition) {
+        super(taskDefinition);
+    }
+
+    @Override
+    public boolean canRun() {
+        return true;
+    }
+
+    @Override
+    protected void runLocal() {
+        final AppDatabase db = WkApplication.getDatabase();
+
+        LiveApiProgress.reset(true, "search index");
+
+        final Collection<Long> subjectIds = db.subjectViewsDao().getAllSubjectIds();
+        LiveApiProgress.addEntities(subjectIds.size());
+
+        db.subjectSyncDao().deleteSearchIndex();
+        final List<Long> batch = new ArrayList<>(BATCH_SIZE);
+        for (final long id: subjectIds) {
+            batch.add(id);
+            if (batch.size() >= BATCH_SIZE) {
+                db.subjectSyncDao().updateSearchIndex(batch);
+                LiveApiProgress.addProcessedEntities(batch.size());
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            db.subjectSyncDao().updateSearchIndex(batch);
+            LiveApiProgress.addProcessedEntities(batch.size());
+        }
+
+        db.propertiesDao().setSearchIndexVersion(SEARCH_INDEX_VERSION);
+
+        db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
+    }
+}
@@ -22,9 +22,15 @@ import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.db.dao.SubjectDao;
 import com.the_tinkering.wk.db.model.Subject;
 import com.the_tinkering.wk.db.model.TaskDefinition;
+import com.the_tinkering.wk.util.AudioDownloader;
 import com.the_tinkering.wk.util.AudioUtil;
+import com.the_tinkering.wk.util.Logger;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
@@ -38,12 +44,21 @@ import static com.the_tinkering.wk.util.ObjectSupport.orElse;
  * the corresponding OGG file is already present.
  *
  * <p>
- *     Afterwards, the audio download status is updated in the database.
+ *     Several of these tasks run in parallel in the audio task lane, sharing the
+ *     connections of the AudioDownloader. A download that fails halfway is resumed
+ *     the next time the file is downloaded.
+ * </p>
+ *
+ * <p>
+ *     When all downloads are done, the files are recorded in the audio inventory
+ *     together with the update of the audio download status in the database.
  *     Errors are ignored, but the audio download status will reflect any
  *     audio files that may still be missing.
  * </p>
  */
 public final class DownloadAudioTask extends ApiTask {
+    private static final Logger LOGGER = Logger.get(DownloadAudioTask.class);
+
     /**
      * Task priority. This is low priority, all API tasks will be taken care of first.
      */
@@ -66,6 +81,33 @@ public final class DownloadAudioTask extends ApiTask {
         return WkApplication.getInstance().getOnlineStatus().canDownloadAudio();
     }
 
+    /**
+     * Download one audio file if it isn't present yet. The file is not recorded in the audio
+     * inventory yet, that is left to the caller.
+     *
+     * @param level the subject's level
+     * @param audio the audio record
+     * @param downloaded the map to add the audio record and its file to if a download was attempted
+     */
+    private static void download(final int level, final PronunciationAudio audio, final Map<PronunciationAudio, File> downloaded) {
+        final @Nullable String url = audio.getUrl();
+        if (url == null || AudioUtil.hasAudioFileFor(level, audio)) {
+            return;
+        }
+        final @Nullable File output = AudioUtil.getNewFileForAudio(level, audio);
+        if (output == null) {
+            return;
+        }
+        try {
+            LOGGER.info("Download: %s", url);
+            AudioDownloader.getInstance().download(url, output);
+        }
+        catch (final IOException e) {
+            LOGGER.error(e, "Download error");
+        }
+        downloaded.put(audio, output);
+    }
+
     @Override
     protected void runLocal() {
         final AppDatabase db = WkApplication.getDatabase();
@@ -74,53 +116,26 @@ public final class DownloadAudioTask extends ApiTask {
         final @Nullable Subject subject = subjectDao.getById(subjectId);
 
         if (subject != null) {
-            boolean scan = false;
-            final Iterable<String> locationValues = AudioUtil.getLocationValues();
+            final int level = subject.getLevel();
+            final List<PronunciationAudio> audios = subject.getParsedPronunciationAudios();
+            final Map<PronunciationAudio, File> downloaded = new LinkedHashMap<>();
 
-            for (final PronunciationAudio audio: subject.getParsedPronunciationAudios()) {
+            for (final PronunciationAudio audio: audios) {
                 if (isEqual(audio.getContentType(), "audio/ogg")) {
                     continue;
                 }
-                if (AudioUtil.hasAudioFileFor(subject.getLevel(), audio, locationValues)) {
-                    continue;
-                }
-                final @Nullable File output = AudioUtil.getNewFileForAudio(subject.getLevel(), audio);
-                if (output == null) {
-                    continue;
-                }
-                final @Nullable File tempFile = AudioUtil.getTempFile(output);
-                if (tempFile == null) {
-                    continue;
-                }
-                if (audio.getUrl() != null) {
-                    downloadFile(audio.getUrl(), tempFile, output);
-                    scan = true;
-                }
+                download(level, audio, downloaded);
             }
 
-            for (final PronunciationAudio audio: subject.getParsedPronunciationAudios()) {
+            for (final PronunciationAudio audio: audios) {
                 if (!isEqual(audio.getContentType(), "audio/ogg")) {
                     continue;
                 }
-                if (AudioUtil.hasAudioFileFor(subject.getLevel(), audio, locationValues)) {
-                    continue;
-                }
-                final @Nullable File output = AudioUtil.getNewFileForAudio(subject.getLevel(), audio);
-                if (output == null) {
-                    continue;
-                }
-                final @Nullable File tempFile = AudioUtil.getTempFile(output);
-                if (tempFile == null) {
-                    continue;
-                }
-                if (audio.getUrl() != null) {
-                    downloadFile(audio.getUrl(), tempFile, output);
-                    scan = true;
-                }
+                download(level, audio, downloaded);
             }
 
-            if (scan) {
-                AudioUtil.updateDownloadStatus(subject.getLevel());
+            if (!downloaded.isEmpty()) {
+                AudioUtil.registerDownloadedFiles(level, audios, downloaded);
             }
         }
 
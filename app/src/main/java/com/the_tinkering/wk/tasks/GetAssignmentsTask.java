@@ -21,6 +21,7 @@ import com.the_tinkering.wk.api.ApiState;
 import com.the_tinkering.wk.api.model.ApiAssignment;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.db.model.TaskDefinition;
+import com.the_tinkering.wk.livedata.DashboardRefresher;
 import com.the_tinkering.wk.livedata.LiveApiProgress;
 import com.the_tinkering.wk.livedata.LiveApiState;
 import com.the_tinkering.wk.livedata.LiveBurnedItems;
@@ -72,7 +73,7 @@ public final class GetAssignmentsTask extends ApiTask {
             uri += "?updated_after=" + formatTimestampForApi(lastGetAssignmentsSuccess);
         }
 
-        if (!collectionApiCall(uri, ApiAssignment.class, t -> db.subjectSyncDao().insertOrUpdateAssignment(t))) {
+        if (!pagedCollectionApiCall(uri, ApiAssignment.class, page -> db.subjectSyncDao().insertOrUpdateAssignments(page))) {
             return;
         }
 
@@ -82,15 +83,16 @@ public final class GetAssignmentsTask extends ApiTask {
         db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
         LiveApiState.getInstance().forceUpdate();
         if (LiveApiProgress.getNumProcessedEntities() > 0) {
-            LiveTimeLine.getInstance().update();
-            LiveSrsBreakDown.getInstance().update();
-            LiveLevelProgress.getInstance().update();
-            LiveJoyoProgress.getInstance().update();
-            LiveJlptProgress.getInstance().update();
-            LiveRecentUnlocks.getInstance().update();
-            LiveCriticalCondition.getInstance().update();
-            LiveBurnedItems.getInstance().update();
-            LiveLevelDuration.getInstance().forceUpdate();
+            DashboardRefresher.getInstance().update(
+                    LiveTimeLine.getInstance(),
+                    LiveSrsBreakDown.getInstance(),
+                    LiveLevelProgress.getInstance(),
+                    LiveJoyoProgress.getInstance(),
+                    LiveJlptProgress.getInstance(),
+                    LiveRecentUnlocks.getInstance(),
+                    LiveCriticalCondition.getInstance(),
+                    LiveBurnedItems.getInstance());
+            DashboardRefresher.getInstance().forceUpdate(LiveLevelDuration.getInstance());
             BackgroundAlarmReceiver.processAlarm(null);
         }
     }
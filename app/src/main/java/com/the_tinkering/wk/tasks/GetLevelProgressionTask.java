@@ -26,11 +26,9 @@ import com.the_tinkering.wk.livedata.LiveApiProgress;
 import com.the_tinkering.wk.livedata.LiveApiState;
 import com.the_tinkering.wk.livedata.LiveLevelDuration;
 
-import static com.the_tinkering.wk.Constants.HOUR;
-import static com.the_tinkering.wk.util.TextUtil.formatTimestampForApi;
-
 /**
- * Task to fetch any level progression records that have been updated since the last time this task was run.
+ * Task to fetch the level progression records. There are at most a few dozen of them, so this always asks
+ * for the full collection, as a conditional call: if nothing has changed, nothing is transferred.
  */
 public final class GetLevelProgressionTask extends ApiTask {
     /**
@@ -56,18 +54,24 @@ public final class GetLevelProgressionTask extends ApiTask {
     protected void runLocal() {
         final AppDatabase db = WkApplication.getDatabase();
         final LevelProgressionDao levelProgressionDao = db.levelProgressionDao();
-        final long lastGetLevelProgressionSuccess = db.propertiesDao().getLastLevelProgressionSyncSuccessDate(HOUR);
 
         LiveApiProgress.reset(true, "Level progression");
 
-        String uri = "/v2/level_progressions";
-        if (lastGetLevelProgressionSuccess != 0) {
-            uri += "?updated_after=" + formatTimestampForApi(lastGetLevelProgressionSuccess);
+        final String uri = "/v2/level_progressions";
+        final ConditionalCall conditional = new ConditionalCall(uri);
+        if (!collectionApiCall(uri, ApiLevelProgression.class, levelProgressionDao::insertOrUpdate, conditional)) {
+            return;
         }
 
-        if (!collectionApiCall(uri, ApiLevelProgression.class, levelProgressionDao::insertOrUpdate)) {
+        if (conditional.isNotModified()) {
+            // The stored level progressions are still current
+            db.propertiesDao().setLastApiSuccessDate(System.currentTimeMillis());
+            db.propertiesDao().setLastLevelProgressionSyncSuccessDate(System.currentTimeMillis());
+            db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
+            LiveApiState.getInstance().forceUpdate();
             return;
         }
+        conditional.commit();
 
         db.propertiesDao().setLastApiSuccessDate(System.currentTimeMillis());
         db.propertiesDao().setLastLevelProgressionSyncSuccessDate(System.currentTimeMillis());
@@ -21,6 +21,7 @@ import com.the_tinkering.wk.api.ApiState;
 import com.the_tinkering.wk.api.model.ApiAssignment;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.db.model.TaskDefinition;
+import com.the_tinkering.wk.livedata.DashboardRefresher;
 import com.the_tinkering.wk.livedata.LiveApiProgress;
 import com.the_tinkering.wk.livedata.LiveApiState;
 import com.the_tinkering.wk.livedata.LiveBurnedItems;
@@ -31,7 +32,6 @@ import com.the_tinkering.wk.livedata.LiveLevelDuration;
 import com.the_tinkering.wk.livedata.LiveLevelProgress;
 import com.the_tinkering.wk.livedata.LiveRecentUnlocks;
 import com.the_tinkering.wk.livedata.LiveSrsBreakDown;
-import com.the_tinkering.wk.livedata.LiveTimeLine;
 import com.the_tinkering.wk.services.BackgroundAlarmReceiver;
 
 import java.util.ArrayList;
@@ -74,7 +74,7 @@ public final class GetPatchedAssignmentsTask extends ApiTask {
         LiveApiProgress.reset(true, "assignments");
 
         final String uri = "/v2/assignments?subject_ids=" + idList;
-        if (!collectionApiCall(uri, ApiAssignment.class, t -> db.subjectSyncDao().insertOrUpdateAssignment(t))) {
+        if (!pagedCollectionApiCall(uri, ApiAssignment.class, page -> db.subjectSyncDao().insertOrUpdateAssignments(page))) {
             return;
         }
 
@@ -88,15 +88,16 @@ public final class GetPatchedAssignmentsTask extends ApiTask {
         db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
         LiveApiState.getInstance().forceUpdate();
         if (LiveApiProgress.getNumProcessedEntities() > 0) {
-            LiveTimeLine.getInstance().update();
-            LiveSrsBreakDown.getInstance().update();
-            LiveLevelProgress.getInstance().update();
-            LiveJoyoProgress.getInstance().update();
-            LiveJlptProgress.getInstance().update();
-            LiveRecentUnlocks.getInstance().update();
-            LiveCriticalCondition.getInstance().update();
-            LiveBurnedItems.getInstance().update();
-            LiveLevelDuration.getInstance().forceUpdate();
+            DashboardRefresher.getInstance().applyTimeLineChanges(subjectIds);
+            DashboardRefresher.getInstance().update(
+                    LiveSrsBreakDown.getInstance(),
+                    LiveLevelProgress.getInstance(),
+                    LiveJoyoProgress.getInstance(),
+                    LiveJlptProgress.getInstance(),
+                    LiveRecentUnlocks.getInstance(),
+                    LiveCriticalCondition.getInstance(),
+                    LiveBurnedItems.getInstance());
+            DashboardRefresher.getInstance().forceUpdate(LiveLevelDuration.getInstance());
             BackgroundAlarmReceiver.processAlarm(null);
         }
     }
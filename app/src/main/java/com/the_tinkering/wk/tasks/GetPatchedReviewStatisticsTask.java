@@ -65,7 +65,7 @@ public final class GetPatchedReviewStatisticsTask extends ApiTask {
         LiveApiProgress.reset(true, "statistics");
 
         final String uri = "/v2/review_statistics?subject_ids=" + idList;
-        if (!collectionApiCall(uri, ApiReviewStatistic.class, t -> db.subjectSyncDao().insertOrUpdateReviewStatistic(t))) {
+        if (!pagedCollectionApiCall(uri, ApiReviewStatistic.class, page -> db.subjectSyncDao().insertOrUpdateReviewStatistics(page))) {
             return;
         }
 
@@ -64,7 +64,7 @@ public final class GetPatchedStudyMaterialsTask extends ApiTask {
         LiveApiProgress.reset(true, "study materials");
 
         final String uri = "/v2/study_materials?subject_ids=" + idList;
-        if (!collectionApiCall(uri, ApiStudyMaterial.class, t -> db.subjectSyncDao().insertOrUpdateStudyMaterial(t, false))) {
+        if (!pagedCollectionApiCall(uri, ApiStudyMaterial.class, page -> db.subjectSyncDao().insertOrUpdateStudyMaterials(page))) {
             return;
         }
 
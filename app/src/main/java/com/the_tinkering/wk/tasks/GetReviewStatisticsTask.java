@@ -21,6 +21,7 @@ import com.the_tinkering.wk.api.ApiState;
 import com.the_tinkering.wk.api.model.ApiReviewStatistic;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.db.model.TaskDefinition;
+import com.the_tinkering.wk.livedata.DashboardRefresher;
 import com.the_tinkering.wk.livedata.LiveApiProgress;
 import com.the_tinkering.wk.livedata.LiveApiState;
 import com.the_tinkering.wk.livedata.LiveCriticalCondition;
@@ -63,7 +64,7 @@ public final class GetReviewStatisticsTask extends ApiTask {
             uri += "?updated_after=" + formatTimestampForApi(lastGetReviewStatisticsSuccess);
         }
 
-        if (!collectionApiCall(uri, ApiReviewStatistic.class, t -> db.subjectSyncDao().insertOrUpdateReviewStatistic(t))) {
+        if (!pagedCollectionApiCall(uri, ApiReviewStatistic.class, page -> db.subjectSyncDao().insertOrUpdateReviewStatistics(page))) {
             return;
         }
 
@@ -72,7 +73,7 @@ public final class GetReviewStatisticsTask extends ApiTask {
         db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
         LiveApiState.getInstance().forceUpdate();
         if (LiveApiProgress.getNumProcessedEntities() > 0) {
-            LiveCriticalCondition.getInstance().update();
+            DashboardRefresher.getInstance().update(LiveCriticalCondition.getInstance());
         }
     }
 }
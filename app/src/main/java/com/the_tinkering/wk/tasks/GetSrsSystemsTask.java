@@ -29,7 +29,9 @@ import com.the_tinkering.wk.livedata.LiveApiProgress;
 import com.the_tinkering.wk.livedata.LiveApiState;
 import com.the_tinkering.wk.livedata.LiveSrsSystems;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import javax.annotation.Nullable;
 
@@ -63,8 +65,9 @@ public final class GetSrsSystemsTask extends ApiTask {
 
         LiveApiProgress.reset(true, "SRS systems");
 
-        srsSystemDao.deleteAll();
         final String uri = "/v2/spaced_repetition_systems";
+        final ConditionalCall conditional = new ConditionalCall(uri);
+        final List<SrsSystemDefinition> definitions = new ArrayList<>();
         if (!collectionApiCall(uri, ApiSrsSystem.class, t -> {
             final SrsSystemDefinition definition = new SrsSystemDefinition();
             definition.id = t.id;
@@ -75,11 +78,26 @@ public final class GetSrsSystemsTask extends ApiTask {
             definition.passingStagePosition = t.passingStagePosition;
             definition.burningStagePosition = t.burningStagePosition;
             definition.stages = serializeToJsonString(t.stages);
-            srsSystemDao.insert(definition);
-        })) {
+            definitions.add(definition);
+        }, conditional)) {
+            return;
+        }
+
+        if (conditional.isNotModified()) {
+            // The stored systems are still current
+            db.propertiesDao().setLastApiSuccessDate(System.currentTimeMillis());
+            db.propertiesDao().setLastSrsSystemSyncSuccessDate(System.currentTimeMillis());
+            db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
+            LiveApiState.getInstance().forceUpdate();
             return;
         }
 
+        srsSystemDao.deleteAll();
+        for (final SrsSystemDefinition definition: definitions) {
+            srsSystemDao.insert(definition);
+        }
+        conditional.commit();
+
         db.propertiesDao().setLastApiSuccessDate(System.currentTimeMillis());
         db.propertiesDao().setLastSrsSystemSyncSuccessDate(System.currentTimeMillis());
         db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
@@ -62,7 +62,7 @@ public final class GetStudyMaterialsTask extends ApiTask {
             uri += "?updated_after=" + formatTimestampForApi(lastGetStudyMaterialsSuccess);
         }
 
-        if (!collectionApiCall(uri, ApiStudyMaterial.class, t -> db.subjectSyncDao().insertOrUpdateStudyMaterial(t, false))) {
+        if (!pagedCollectionApiCall(uri, ApiStudyMaterial.class, page -> db.subjectSyncDao().insertOrUpdateStudyMaterials(page))) {
             return;
         }
 
@@ -22,6 +22,7 @@ import com.the_tinkering.wk.api.model.ApiSubject;
 import com.the_tinkering.wk.api.model.Reading;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.db.model.TaskDefinition;
+import com.the_tinkering.wk.livedata.DashboardRefresher;
 import com.the_tinkering.wk.livedata.LiveApiProgress;
 import com.the_tinkering.wk.livedata.LiveApiState;
 import com.the_tinkering.wk.livedata.LiveBurnedItems;
@@ -75,19 +76,21 @@ public final class GetSubjectsTask extends ApiTask {
 
         final Set<Long> existingSubjectIds = db.subjectViewsDao().getAllSubjectIds();
 
-        if (!collectionApiCall(uri, ApiSubject.class, t -> {
-            if (!t.getReadings().isEmpty()) {
-                int i = 0;
-                while (i < t.getReadings().size()) {
-                    final Reading reading = t.getReadings().get(i);
-                    if (reading.isEmptyOrNone()) {
-                        t.getReadings().remove(i);
-                        continue;
+        if (!pagedCollectionApiCall(uri, ApiSubject.class, page -> {
+            for (final ApiSubject t: page) {
+                if (!t.getReadings().isEmpty()) {
+                    int i = 0;
+                    while (i < t.getReadings().size()) {
+                        final Reading reading = t.getReadings().get(i);
+                        if (reading.isEmptyOrNone()) {
+                            t.getReadings().remove(i);
+                            continue;
+                        }
+                        i++;
                     }
-                    i++;
                 }
             }
-            db.subjectSyncDao().insertOrUpdate(t, existingSubjectIds);
+            db.subjectSyncDao().insertOrUpdateAll(page, existingSubjectIds);
         })) {
             return;
         }
@@ -98,14 +101,15 @@ public final class GetSubjectsTask extends ApiTask {
         LiveApiState.getInstance().forceUpdate();
         if (LiveApiProgress.getNumProcessedEntities() > 0) {
             db.propertiesDao().setLastAudioScanDate(0);
-            LiveTimeLine.getInstance().update();
-            LiveLevelProgress.getInstance().update();
-            LiveJoyoProgress.getInstance().update();
-            LiveJlptProgress.getInstance().update();
-            LiveRecentUnlocks.getInstance().update();
-            LiveCriticalCondition.getInstance().update();
-            LiveBurnedItems.getInstance().update();
-            LiveLevelDuration.getInstance().forceUpdate();
+            DashboardRefresher.getInstance().update(
+                    LiveTimeLine.getInstance(),
+                    LiveLevelProgress.getInstance(),
+                    LiveJoyoProgress.getInstance(),
+                    LiveJlptProgress.getInstance(),
+                    LiveRecentUnlocks.getInstance(),
+                    LiveCriticalCondition.getInstance(),
+                    LiveBurnedItems.getInstance());
+            DashboardRefresher.getInstance().forceUpdate(LiveLevelDuration.getInstance());
         }
     }
 }
@@ -64,7 +64,17 @@ public final class GetSummaryTask extends ApiTask {
             return;
         }
 
-        final @Nullable ApiSummary summary = singleEntityApiCall("/v2/summary", ApiSummary.class);
+        final String uri = "/v2/summary";
+        final ConditionalCall conditional = new ConditionalCall(uri);
+        final @Nullable ApiSummary summary = singleEntityApiCall(uri, ApiSummary.class, conditional);
+        if (conditional.isNotModified()) {
+            // Nothing has changed since the last full summary, so the subjects are already up to date
+            db.propertiesDao().setLastApiSuccessDate(System.currentTimeMillis());
+            db.propertiesDao().setLastSummarySyncSuccessDate(System.currentTimeMillis());
+            db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
+            LiveApiState.getInstance().forceUpdate();
+            return;
+        }
         if (summary == null) {
             return;
         }
@@ -95,6 +105,7 @@ public final class GetSummaryTask extends ApiTask {
             }
         }
         db.subjectSyncDao().forceUpcomingReviewUnavailableExcept(userLevel, maxLevel, subjectIds);
+        conditional.commit();
 
         db.propertiesDao().setLastApiSuccessDate(System.currentTimeMillis());
         db.propertiesDao().setLastSummarySyncSuccessDate(System.currentTimeMillis());
@@ -59,12 +59,24 @@ public final class GetUserTask extends ApiTask {
 
     @Override
     protected void runLocal() {
-        final @Nullable ApiUser user = singleEntityApiCall("/v2/user", ApiUser.class);
+        final AppDatabase db = WkApplication.getDatabase();
+        final String uri = "/v2/user";
+        final ConditionalCall conditional = new ConditionalCall(uri);
+        final @Nullable ApiUser user = singleEntityApiCall(uri, ApiUser.class, conditional);
+        if (conditional.isNotModified()) {
+            // Nothing has changed since the last full user record, only record that the API works
+            db.propertiesDao().setApiKeyRejected(false);
+            db.propertiesDao().setApiInError(false);
+            db.propertiesDao().setLastApiSuccessDate(System.currentTimeMillis());
+            db.propertiesDao().setLastUserSyncSuccessDate(System.currentTimeMillis());
+            db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
+            LiveApiState.getInstance().forceUpdate();
+            return;
+        }
         if (user == null) {
             return;
         }
 
-        final AppDatabase db = WkApplication.getDatabase();
         final @Nullable String oldUserId = db.propertiesDao().getUserId();
         if (!isEqual(user.getId(), oldUserId)) {
             db.resetDatabase();
@@ -89,6 +101,7 @@ public final class GetUserTask extends ApiTask {
         final @Nullable ApiSubscription subscription = user.getSubscription();
         final int maxLevelGranted = subscription == null ? user.getMaxLevelGrantedBySubscription() : subscription.getMaxLevelGranted();
         db.propertiesDao().setUserMaxLevelGranted(maxLevelGranted);
+        conditional.commit();
 
         db.propertiesDao().setApiKeyRejected(false);
         db.propertiesDao().setApiInError(false);
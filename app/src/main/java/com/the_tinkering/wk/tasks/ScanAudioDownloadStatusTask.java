@@ -24,7 +24,8 @@ import com.the_tinkering.wk.util.AudioUtil;
 
 /**
  * Task to batch-updata audio download status. This is not a network task, the data is loaded
- * locally.
+ * locally. The audio file inventory is rebuilt from the audio directories first, so that it picks up
+ * any changes made outside the app.
  */
 public final class ScanAudioDownloadStatusTask extends ApiTask {
     /**
@@ -53,9 +54,11 @@ public final class ScanAudioDownloadStatusTask extends ApiTask {
         LiveApiProgress.reset(true, "scanning audio");
         LiveApiProgress.addEntities(0);
 
+        AudioUtil.rescanInventory();
+
         final int maxLevel = db.subjectAggregatesDao().getMaxLevel();
 
-        for (int i=0; i<maxLevel; i++) {
+        for (int i=1; i<=maxLevel; i++) {
             AudioUtil.updateDownloadStatus(i);
         }
 
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.tasks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.the_tinkering.wk.WkApplication;
+import com.the_tinkering.wk.api.ApiState;
+import com.the_tinkering.wk.api.model.ApiAssignment;
+import com.the_tinkering.wk.api.model.ApiCreateReview;
+import com.the_tinkering.wk.api.model.ApiReviewStatistic;
+import com.the_tinkering.wk.api.model.ApiStartAssignment;
+import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.model.ReviewOutboxItem;
+import com.the_tinkering.wk.db.model.Subject;
+import com.the_tinkering.wk.db.model.TaskDefinition;
+import com.the_tinkering.wk.enums.ExecutionLane;
+import com.the_tinkering.wk.livedata.DashboardRefresher;
+import com.the_tinkering.wk.livedata.LiveApiState;
+import com.the_tinkering.wk.livedata.LiveBurnedItems;
+import com.the_tinkering.wk.livedata.LiveCriticalCondition;
+import com.the_tinkering.wk.livedata.LiveJlptProgress;
+import com.the_tinkering.wk.livedata.LiveJoyoProgress;
+import com.the_tinkering.wk.livedata.LiveLevelDuration;
+import com.the_tinkering.wk.livedata.LiveLevelProgress;
+import com.the_tinkering.wk.livedata.LiveRecentUnlocks;
+import com.the_tinkering.wk.livedata.LiveSrsBreakDown;
+import com.the_tinkering.wk.services.BackgroundAlarmReceiver;
+import com.the_tinkering.wk.util.LaneExecutor;
+import com.the_tinkering.wk.util.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import static com.the_tinkering.wk.Constants.HTTP_TOO_MANY_REQUESTS;
+import static com.the_tinkering.wk.Constants.MINUTE;
+import static com.the_tinkering.wk.enums.SessionType.LESSON;
+import static com.the_tinkering.wk.enums.SessionType.REVIEW;
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static java.net.HttpURLConnection.HTTP_CLIENT_TIMEOUT;
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
+
+/**
+ * Task to report the finished session items in the review outbox to the API. In case of a lesson
+ * session, start the subject's assignment. In case of a review session, create a review.
+ *
+ * <p>
+ *     Items are submitted concurrently in the API execution lane, so the rate limiter's burst budget
+ *     is used instead of waiting for each round trip in turn. Responses are collected as they complete
+ *     and applied in batches, each batch in the same transaction that removes its items from the outbox.
+ *     The dashboard is refreshed once, when the task stops.
+ * </p>
+ *
+ * <p>
+ *     Each item gets a single attempt per run. If that fails, the task stops and the item is tried
+ *     again the next time the task runs, instead of holding up a worker with a retry schedule. If the
+ *     API rejects an item with a client error, the rejection is counted on the item and the task
+ *     carries on with the other items. After ReviewOutboxItem.MAX_FAILURES rejections the item is
+ *     parked, so it can't block the outbox forever.
+ * </p>
+ */
+public final class SubmitReviewOutboxTask extends ApiTask {
+    private static final Logger LOGGER = Logger.get(SubmitReviewOutboxTask.class);
+
+    /**
+     * Task priority. Medium priority ahead of the model refreshes, to make sure the model
+     * refreshes don't force the app to record stale data that will be invalidated by this
+     * task anyway.
+     */
+    public static final int PRIORITY = 15;
+
+    /**
+     * The maximum number of outbox items to pick up in a single round.
+     */
+    private static final int ROUND_SIZE = 50;
+
+    /**
+     * The outcome of submitting a single outbox item.
+     */
+    private static final class Outcome {
+        private final ReviewOutboxItem item;
+        private final boolean done;
+        private final boolean rejected;
+        private @Nullable ApiAssignment assignment = null;
+        private @Nullable ApiReviewStatistic reviewStatistic = null;
+
+        private Outcome(final ReviewOutboxItem item, final boolean done, final boolean rejected) {
+            this.item = item;
+            this.done = done;
+            this.rejected = rejected;
+        }
+
+        private Outcome(final ReviewOutboxItem item, final boolean done) {
+            this(item, done, false);
+        }
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param taskDefinition the definition of this task in the database
+     */
+    public SubmitReviewOutboxTask(final TaskDefinition taskDefinition) {
+        super(taskDefinition);
+    }
+
+    @Override
+    public boolean canRun() {
+        return WkApplication.getInstance().getOnlineStatus().canCallApi() && ApiState.getCurrentApiState() == ApiState.OK;
+    }
+
+    /**
+     * In case the subject's assignment ID isn't known yet, find it. First check the
+     * local database, and ask the API as a fallback if needed.
+     *
+     * <p>
+     *     With the current limited predictive logic, this should never be needed anymore,
+     *     the assignment ID should always be filled in in realistic scenarios. So this
+     *     is only still around as a last-ditch fallback and maybe for future changes to
+     *     predictive logic.
+     * </p>
+     *
+     * @param subjectId the subject ID to find the assignment for
+     * @return the assignment ID, 0 if there is none, or -1 if the API call failed
+     */
+    private static long findAssignmentId(final long subjectId) {
+        final AppDatabase db = WkApplication.getDatabase();
+        final @Nullable Subject subject = db.subjectDao().getById(subjectId);
+        if (subject != null && subject.getAssignmentId() > 0) {
+            return subject.getAssignmentId();
+        }
+
+        final long[] assignmentId = {0};
+        final String uri = "/v2/assignments?subject_ids=" + subjectId;
+        if (!collectionApiCall(uri, ApiAssignment.class, t -> assignmentId[0] = t.getId())) {
+            return -1;
+        }
+        return assignmentId[0];
+    }
+
+    /**
+     * Make the outcome of a failed submission. A client error means the API has rejected this item,
+     * except for the ones that say nothing about the item itself.
+     *
+     * @param item the outbox item
+     * @param status the status code of the failed call, or 0 if there was no response
+     * @return the outcome
+     */
+    private static Outcome failure(final ReviewOutboxItem item, final int status) {
+        final boolean rejected = status >= HTTP_BAD_REQUEST && status < HTTP_INTERNAL_ERROR
+                && status != HTTP_UNAUTHORIZED && status != HTTP_CLIENT_TIMEOUT && status != HTTP_TOO_MANY_REQUESTS;
+        return new Outcome(item, false, rejected);
+    }
+
+    /**
+     * Start the assignment for an item from a lesson session.
+     *
+     * @param item the outbox item
+     * @return the outcome
+     */
+    private static Outcome startAssignment(final ReviewOutboxItem item) {
+        long assignmentId = item.getAssignmentId();
+        if (assignmentId <= 0) {
+            assignmentId = findAssignmentId(item.getSubjectId());
+            if (assignmentId < 0) {
+                return new Outcome(item, false);
+            }
+            if (assignmentId == 0) {
+                return new Outcome(item, true);
+            }
+        }
+
+        final ApiStartAssignment requestBody = new ApiStartAssignment();
+        if (item.getTimestamp() > 0 && System.currentTimeMillis() - item.getTimestamp() > MINUTE * 5) {
+            requestBody.setStartedAt(item.getTimestamp());
+        }
+        final String url = String.format(Locale.ROOT, "/v2/assignments/%d/start", assignmentId);
+        final AtomicInteger status = new AtomicInteger(0);
+        final @Nullable JsonNode responseBody = postApiCall(url, "PUT", requestBody, status);
+        if (responseBody == null) {
+            return failure(item, status.get());
+        }
+        final Outcome outcome = new Outcome(item, true);
+        if (responseBody.has("id")) {
+            try {
+                outcome.assignment = parseEntity(responseBody, ApiAssignment.class);
+            } catch (final Exception e) {
+                LOGGER.error(e, "Error parsing start-assignment response");
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Create a review for an item from a review session.
+     *
+     * @param item the outbox item
+     * @return the outcome
+     */
+    private static Outcome createReview(final ReviewOutboxItem item) {
+        final ApiCreateReview requestBody = new ApiCreateReview();
+        requestBody.getReview().setSubjectId(item.getSubjectId());
+        requestBody.getReview().setIncorrectMeaningAnswers(item.getMeaningIncorrect());
+        requestBody.getReview().setIncorrectReadingAnswers(item.getReadingIncorrect());
+        if (item.getTimestamp() > 0 && System.currentTimeMillis() - item.getTimestamp() > MINUTE * 5) {
+            requestBody.getReview().setCreatedAt(item.getTimestamp());
+        }
+        final AtomicInteger status = new AtomicInteger(0);
+        final @Nullable JsonNode responseBody = postApiCall("/v2/reviews", "POST", requestBody, status);
+        if (responseBody == null) {
+            return failure(item, status.get());
+        }
+        final Outcome outcome = new Outcome(item, true);
+        if (responseBody.has("id") && responseBody.has("resources_updated")) {
+            final JsonNode resourcesUpdated = responseBody.get("resources_updated");
+            if (resourcesUpdated.has("assignment")) {
+                try {
+                    outcome.assignment = parseEntity(resourcesUpdated.get("assignment"), ApiAssignment.class);
+                } catch (final Exception e) {
+                    LOGGER.error(e, "Error parsing create-review response");
+                }
+            }
+            if (resourcesUpdated.has("review_statistic")) {
+                try {
+                    outcome.reviewStatistic = parseEntity(resourcesUpdated.get("review_statistic"), ApiReviewStatistic.class);
+                } catch (final Exception e) {
+                    LOGGER.error(e, "Error parsing create-review response");
+                }
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Submit a single outbox item. Once any submission in the task has failed, the remaining
+     * items are not attempted anymore, they will be retried the next time the task runs.
+     * An item that the API rejects doesn't count as a failure of the task.
+     *
+     * @param item the outbox item
+     * @param failed flag that is set when a submission fails
+     * @return the outcome
+     */
+    private static Outcome submit(final ReviewOutboxItem item, final AtomicBoolean failed) {
+        if (failed.get()) {
+            return new Outcome(item, false);
+        }
+        @Nullable Outcome outcome = null;
+        try {
+            if (item.getType() == LESSON) {
+                outcome = startAssignment(item);
+            }
+            else if (item.getType() == REVIEW) {
+                outcome = createReview(item);
+            }
+            else {
+                outcome = new Outcome(item, true);
+            }
+        } catch (final Exception e) {
+            LOGGER.error(e, "Error submitting review outbox item");
+        }
+        if (outcome != null && outcome.rejected) {
+            return outcome;
+        }
+        if (outcome == null || !outcome.done) {
+            failed.set(true);
+            return new Outcome(item, false);
+        }
+        return outcome;
+    }
+
+    /**
+     * Apply a batch of finished submissions to the database, and remove them from the outbox.
+     * Rejected items are counted, and parked if they have been rejected too often.
+     *
+     * @param outcomes the outcomes of the submissions
+     * @param changedSubjectIds collects the IDs of the subjects that have been updated
+     * @return true if any of the items in the batch caused the subject to pass for the first time
+     */
+    private static boolean applyBatch(final Iterable<Outcome> outcomes, final Collection<Long> changedSubjectIds) {
+        final Collection<ApiAssignment> assignments = new ArrayList<>();
+        final Collection<ApiReviewStatistic> reviewStatistics = new ArrayList<>();
+        final Collection<Long> outboxIds = new ArrayList<>();
+        final Collection<Long> subjectIds = new HashSet<>();
+        boolean justPassed = false;
+        for (final Outcome outcome: outcomes) {
+            if (outcome.rejected) {
+                recordRejection(outcome.item);
+            }
+            if (!outcome.done) {
+                continue;
+            }
+            outboxIds.add(outcome.item.getId());
+            if (outcome.assignment != null) {
+                assignments.add(outcome.assignment);
+                subjectIds.add(outcome.assignment.getSubjectId());
+            }
+            if (outcome.reviewStatistic != null) {
+                reviewStatistics.add(outcome.reviewStatistic);
+                subjectIds.add(outcome.reviewStatistic.getSubjectId());
+            }
+            if (outcome.item.isJustPassed()) {
+                justPassed = true;
+            }
+        }
+        WkApplication.getDatabase().subjectSyncDao().applyReviewOutboxResults(assignments, reviewStatistics, outboxIds, subjectIds);
+        changedSubjectIds.addAll(subjectIds);
+        return justPassed;
+    }
+
+    /**
+     * Count a rejection of an outbox item by the API.
+     *
+     * @param item the outbox item
+     */
+    private static void recordRejection(final ReviewOutboxItem item) {
+        WkApplication.getDatabase().reviewOutboxDao().recordFailure(item.getId());
+        if (item.getNumFailures() + 1 >= ReviewOutboxItem.MAX_FAILURES) {
+            LOGGER.info("Parking review outbox item %d for subject %d after %d rejections",
+                    item.getId(), item.getSubjectId(), ReviewOutboxItem.MAX_FAILURES);
+        }
+        else {
+            LOGGER.info("Review outbox item %d for subject %d was rejected", item.getId(), item.getSubjectId());
+        }
+    }
+
+    /**
+     * Refresh the dashboard once after the outbox has been processed.
+     *
+     * @param changedSubjectIds the IDs of the subjects that have been updated
+     */
+    private static void refreshDashboard(final Collection<Long> changedSubjectIds) {
+        LiveApiState.getInstance().forceUpdate();
+        DashboardRefresher.getInstance().applyTimeLineChanges(changedSubjectIds);
+        DashboardRefresher.getInstance().update(
+                LiveSrsBreakDown.getInstance(),
+                LiveLevelProgress.getInstance(),
+                LiveJoyoProgress.getInstance(),
+                LiveJlptProgress.getInstance(),
+                LiveRecentUnlocks.getInstance(),
+                LiveCriticalCondition.getInstance(),
+                LiveBurnedItems.getInstance());
+        DashboardRefresher.getInstance().forceUpdate(LiveLevelDuration.getInstance());
+        BackgroundAlarmReceiver.processAlarm(null);
+    }
+
+    @Override
+    protected void runLocal() {
+        final AppDatabase db = WkApplication.getDatabase();
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final Collection<Long> changedSubjectIds = new HashSet<>();
+        boolean anyApplied = false;
+        boolean justPassed = false;
+
+        // Items rejected in this run are not tried again until the next run. The same goes for later items
+        // for the same subject, so they are still reported in order.
+        final Set<Long> rejectedSubjectIds = new HashSet<>();
+        final BlockingQueue<Outcome> results = new LinkedBlockingQueue<>();
+        final Collection<LaneExecutor.LaneTask> tasks = new ArrayList<>();
+        try {
+            while (!failed.get()) {
+                final List<ReviewOutboxItem> items = db.reviewOutboxDao().getNextItems(ROUND_SIZE);
+
+                // Only one item per subject in a round, so a lesson and a later review for the same
+                // subject are still reported in order.
+                final Set<Long> seenSubjectIds = new HashSet<>();
+                int pending = 0;
+                for (final ReviewOutboxItem item: items) {
+                    if (!rejectedSubjectIds.contains(item.getSubjectId()) && seenSubjectIds.add(item.getSubjectId())) {
+                        tasks.add(LaneExecutor.getInstance().submit(ExecutionLane.API, LaneExecutor.PRIORITY_NORMAL, null, () -> {
+                            @Nullable Outcome outcome = null;
+                            try {
+                                outcome = submit(item, failed);
+                            }
+                            finally {
+                                results.add(outcome == null ? new Outcome(item, false) : outcome);
+                            }
+                        }));
+                        pending++;
+                    }
+                }
+                if (pending == 0) {
+                    break;
+                }
+
+                // Apply whatever has finished so far as one batch, then wait for the next one.
+                while (pending > 0) {
+                    final Collection<Outcome> batch = new ArrayList<>();
+                    batch.add(results.take());
+                    pending--;
+                    @Nullable Outcome outcome = results.poll();
+                    while (outcome != null) {
+                        batch.add(outcome);
+                        pending--;
+                        outcome = results.poll();
+                    }
+                    for (final Outcome o: batch) {
+                        if (o.rejected) {
+                            rejectedSubjectIds.add(o.item.getSubjectId());
+                        }
+                    }
+                    if (applyBatch(batch, changedSubjectIds)) {
+                        justPassed = true;
+                    }
+                    anyApplied = true;
+                }
+                tasks.clear();
+            }
+        }
+        catch (final InterruptedException e) {
+            LOGGER.error(e, "Review outbox submission interrupted");
+            failed.set(true);
+        }
+        finally {
+            for (final LaneExecutor.LaneTask task: tasks) {
+                task.cancel();
+            }
+        }
+
+        if (justPassed) {
+            db.propertiesDao().setForceLateRefresh(true);
+        }
+
+        if (anyApplied) {
+            refreshDashboard(changedSubjectIds);
+        }
+
+        if (!failed.get()) {
+            // Check and delete in one transaction, so an item added in the meantime is never left without a task
+            db.runInTransaction(() -> {
+                if (db.reviewOutboxDao().getCount() == 0) {
+                    db.taskDefinitionDao().deleteTaskDefinition(taskDefinition);
+                }
+            });
+        }
+    }
+}
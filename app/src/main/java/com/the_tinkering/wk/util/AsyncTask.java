@@ -35,103 +35,36 @@ package com.the_tinkering.wk.util;
 import android.os.Binder;
 import android.os.Handler;
 import android.os.Looper;
-import android.os.Process;
 
-import java.util.ArrayDeque;
-import java.util.concurrent.Executor;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.the_tinkering.wk.enums.ExecutionLane;
+
 import java.util.concurrent.FutureTask;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
 /**
  * Stripped down version of the Android AsyncTask that is now deprecated in Android 11.
+ *
+ * <p>
+ *     Unlike the original, tasks don't share a single serial queue. Each task is submitted to
+ *     one of the lanes of the LaneExecutor, and may be tied to a lifecycle owner so it is dropped
+ *     if the owner is destroyed before the task gets to run.
+ * </p>
  */
 @SuppressWarnings({"AccessToStaticFieldLockedOnInstance", "FieldAccessedSynchronizedAndUnsynchronized", "SynchronizedMethod"})
 public abstract class AsyncTask<Result> {
-    private static final int CORE_POOL_SIZE = 1;
-    private static final int MAXIMUM_POOL_SIZE = 20;
-    private static final int BACKUP_POOL_SIZE = 5;
-    private static final int KEEP_ALIVE_SECONDS = 3;
-
-    private static final ThreadFactory threadFactory = new ThreadFactory() {
-        public Thread newThread(final Runnable r) {
-            return new Thread(r, "AsyncTask #" + count.getAndIncrement());
-        }
-    };
-
-    private static final AtomicInteger count = new AtomicInteger(1);
-
-    private static @Nullable ThreadPoolExecutor backupExecutor = null;
-
-    private static final RejectedExecutionHandler runOnSerialPolicy =
-            new RejectedExecutionHandler() {
-                public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
-                    //noinspection SynchronizeOnThis
-                    synchronized (this) {
-                        if (backupExecutor == null) {
-                            final LinkedBlockingQueue<Runnable> sBackupExecutorQueue = new LinkedBlockingQueue<>();
-                            backupExecutor = new ThreadPoolExecutor(
-                                    BACKUP_POOL_SIZE, BACKUP_POOL_SIZE, KEEP_ALIVE_SECONDS,
-                                    TimeUnit.SECONDS, sBackupExecutorQueue, threadFactory);
-                            backupExecutor.allowCoreThreadTimeOut(true);
-                        }
-                    }
-                    backupExecutor.execute(r);
-                }
-            };
-
-    private static final Executor THREAD_POOL_EXECUTOR;
-
-    static {
-        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
-                CORE_POOL_SIZE, MAXIMUM_POOL_SIZE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
-                new SynchronousQueue<>(), threadFactory);
-        threadPoolExecutor.setRejectedExecutionHandler(runOnSerialPolicy);
-        THREAD_POOL_EXECUTOR = threadPoolExecutor;
-    }
-
-    private static final Executor SERIAL_EXECUTOR = new SerialExecutor();
-
-    private static final Executor defaultExecutor = SERIAL_EXECUTOR;
     private static @Nullable Handler sHandler = null;
 
+    private final ExecutionLane lane;
+    private final int priority;
+    private final @Nullable LifecycleOwner lifecycleOwner;
+
     private final FutureTask<Result> future;
 
     private final Handler handler;
 
-    private static final class SerialExecutor implements Executor {
-        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
-        private @Nullable Runnable active = null;
-
-        public synchronized void execute(final Runnable command) {
-            tasks.offer(() -> {
-                try {
-                    command.run();
-                }
-                finally {
-                    scheduleNext();
-                }
-            });
-            if (active == null) {
-                scheduleNext();
-            }
-        }
-
-        private synchronized void scheduleNext() {
-            active = tasks.poll();
-            if (active != null) {
-                THREAD_POOL_EXECUTOR.execute(active);
-            }
-        }
-    }
-
     private static synchronized Handler getMainHandler() {
         if (sHandler == null) {
             sHandler = new Handler(Looper.getMainLooper());
@@ -141,14 +74,20 @@ public abstract class AsyncTask<Result> {
 
     /**
      * The constructor.
+     *
+     * @param lane the lane to run this task in
+     * @param priority the priority of this task within the lane
+     * @param lifecycleOwner if not null, the task is cancelled if this owner is destroyed before the task starts
      */
-    protected AsyncTask() {
+    protected AsyncTask(final ExecutionLane lane, final int priority, final @Nullable LifecycleOwner lifecycleOwner) {
+        this.lane = lane;
+        this.priority = priority;
+        this.lifecycleOwner = lifecycleOwner;
         handler = getMainHandler();
 
         future = new FutureTask<>(() -> {
             @Nullable Result result = null;
             try {
-                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
                 result = doInBackground();
                 Binder.flushPendingCommands();
             }
@@ -159,6 +98,15 @@ public abstract class AsyncTask<Result> {
         });
     }
 
+    /**
+     * The constructor for a task with normal priority, not tied to a lifecycle owner.
+     *
+     * @param lane the lane to run this task in
+     */
+    protected AsyncTask(final ExecutionLane lane) {
+        this(lane, LaneExecutor.PRIORITY_NORMAL, null);
+    }
+
     private void postResult(final @Nullable Result result) {
         handler.post(() -> onPostExecute(result));
     }
@@ -175,7 +123,7 @@ public abstract class AsyncTask<Result> {
      *
      * <p>
      * If something goes wrong during execution (exception in doInBackground, thread interrupted, ...) this
-     * is still called, but with a null argument.
+     * is still called, but with a null argument. If the task is cancelled before it starts, this is not called.
      * </p>
      *
      * @param result the result or null
@@ -193,7 +141,7 @@ public abstract class AsyncTask<Result> {
      * Run this task in the background. Can only be called once per instance.
      */
     public final void execute() {
-        defaultExecutor.execute(future);
+        LaneExecutor.getInstance().submit(lane, priority, lifecycleOwner, future);
     }
 
     /**
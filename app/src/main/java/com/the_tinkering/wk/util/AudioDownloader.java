@@ -0,0 +1,262 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import com.the_tinkering.wk.BuildConfig;
+import com.the_tinkering.wk.Constants;
+import com.the_tinkering.wk.Identification;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import javax.annotation.Nullable;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Downloader for audio files, shared by all audio download workers.
+ *
+ * <p>
+ *     All downloads go through the shared HttpStack, so connections to the CDN are kept alive and
+ *     reused between files and between workers. Each target file is downloaded into its own
+ *     '.part' file next to it, so downloads into the same directory don't get in each other's
+ *     way. If a download fails halfway, the partial file is kept, and the next attempt asks the
+ *     server for the rest of the file with a Range request. The server's validator for the file
+ *     (a strong ETag or the Last-Modified date) is kept in a '.part.validator' file next to the
+ *     part file and sent as If-Range, so if the file has changed on the server in the meantime,
+ *     the server sends it in full instead of a range that doesn't fit. Without a validator, the
+ *     download starts over. The part file is only renamed to the target when it is complete.
+ *     Part files that haven't been touched for a day are never going to be resumed, and are
+ *     cleaned up when the audio directories are scanned.
+ * </p>
+ *
+ * <p>
+ *     This class has no Android dependencies, so it can be tested on the JVM.
+ * </p>
+ */
+public final class AudioDownloader {
+    /**
+     * The number of idle connections the audio downloads need in the pool. This matches the number of audio download workers.
+     */
+    public static final int MAX_IDLE_CONNECTIONS = 4;
+
+    /**
+     * The age after which a part file or validator file is considered abandoned.
+     */
+    public static final long STALE_PART_FILE_AGE = Constants.DAY;
+
+    private static @Nullable AudioDownloader instance = null;
+
+    private final OkHttpClient client;
+    private final String userAgent;
+
+    /**
+     * The constructor.
+     *
+     * @param client the HTTP client to use
+     * @param userAgent the User-Agent header to send
+     */
+    public AudioDownloader(final OkHttpClient client, final String userAgent) {
+        this.client = client;
+        this.userAgent = userAgent;
+    }
+
+    /**
+     * Get the shared instance.
+     *
+     * @return the instance
+     */
+    public static synchronized AudioDownloader getInstance() {
+        if (instance == null) {
+            instance = new AudioDownloader(HttpStack.getInstance().getClient(HttpStack.Profile.AUDIO),
+                    Identification.APP_NAME_UA + "/" + BuildConfig.VERSION_NAME);
+        }
+        return instance;
+    }
+
+    /**
+     * Get the file a download for a target file is written to until it is complete.
+     *
+     * @param targetFile the target file
+     * @return the part file
+     */
+    public static File getPartFile(final File targetFile) {
+        return new File(targetFile.getParentFile(), targetFile.getName() + ".part");
+    }
+
+    /**
+     * Get the file the server's validator for a part file is kept in.
+     *
+     * @param targetFile the target file
+     * @return the validator file
+     */
+    public static File getValidatorFile(final File targetFile) {
+        return new File(targetFile.getParentFile(), targetFile.getName() + ".part.validator");
+    }
+
+    /**
+     * Is this file an abandoned part file or validator file, that can be deleted?.
+     *
+     * @param file the file to check
+     * @param now the current time
+     * @return true if it is
+     */
+    public static boolean isStalePartFile(final File file, final long now) {
+        final String name = file.getName();
+        return (name.endsWith(".part") || name.endsWith(".part.validator"))
+                && file.isFile() && now - file.lastModified() > STALE_PART_FILE_AGE;
+    }
+
+    /**
+     * Read the validator for a partial download.
+     *
+     * @param validatorFile the validator file
+     * @return the validator, or null if there is none
+     */
+    private static @Nullable String readValidator(final File validatorFile) {
+        if (!validatorFile.isFile()) {
+            return null;
+        }
+        try (final InputStream is = new FileInputStream(validatorFile)) {
+            final String validator = new String(StreamUtil.slurp(is), StandardCharsets.UTF_8).trim();
+            return validator.isEmpty() ? null : validator;
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Store the validator for a download that is about to be written into a part file. If the response
+     * doesn't have a usable validator, any old one is removed, so the download can't be resumed.
+     *
+     * @param validatorFile the validator file
+     * @param response the response that the part file is being written from
+     * @throws IOException if the validator could not be stored
+     */
+    private static void writeValidator(final File validatorFile, final Response response) throws IOException {
+        @Nullable String validator = response.header("ETag");
+        if (validator == null || validator.startsWith("W/")) {
+            // If-Range only works with strong validators
+            validator = response.header("Last-Modified");
+        }
+        if (validator == null) {
+            if (validatorFile.exists() && !validatorFile.delete()) {
+                throw new IOException("Old validator can't be deleted: " + validatorFile);
+            }
+            return;
+        }
+        try (final OutputStream os = new FileOutputStream(validatorFile)) {
+            os.write(validator.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Download a URL to a file. If a partial download for the file exists, it is resumed if
+     * the server supports it. If this returns normally, the target file is complete.
+     *
+     * @param url the URL to download
+     * @param targetFile the file to store the result in
+     * @throws IOException if the download failed. Any partial download is kept for a later attempt.
+     */
+    public void download(final String url, final File targetFile) throws IOException {
+        final File partFile = getPartFile(targetFile);
+        final File validatorFile = getValidatorFile(targetFile);
+        final @Nullable String validator = partFile.isFile() ? readValidator(validatorFile) : null;
+        if (!downloadPart(url, partFile, validatorFile, validator == null ? 0 : partFile.length(), validator)) {
+            // The server refused the range, the part file must be stale
+            if (!partFile.delete()) {
+                throw new IOException("Stale partial download can't be deleted: " + partFile);
+            }
+            downloadPart(url, partFile, validatorFile, 0, null);
+        }
+        if (targetFile.exists() && !targetFile.delete()) {
+            throw new IOException("Existing file can't be replaced: " + targetFile);
+        }
+        if (!partFile.renameTo(targetFile)) {
+            throw new IOException("Partial download can't be renamed: " + partFile);
+        }
+        //noinspection ResultOfMethodCallIgnored
+        validatorFile.delete();
+    }
+
+    /**
+     * Download the remainder of a URL into a part file.
+     *
+     * @param url the URL to download
+     * @param partFile the part file
+     * @param validatorFile the file to keep the server's validator for the part file in
+     * @param offset the number of bytes already present in the part file
+     * @param validator the validator the part file was downloaded with, required if offset is not 0
+     * @return false if the server can't satisfy the range, true if the part file is complete
+     * @throws IOException if the download failed
+     */
+    private boolean downloadPart(final String url, final File partFile, final File validatorFile,
+                                 final long offset, final @Nullable String validator) throws IOException {
+        final Request.Builder builder = new Request.Builder()
+                .url(url)
+                .header("User-Agent", userAgent);
+        if (offset > 0 && validator != null) {
+            builder.header("Range", String.format(Locale.ROOT, "bytes=%d-", offset));
+            builder.header("If-Range", validator);
+        }
+
+        try (final Response response = client.newCall(builder.build()).execute()) {
+            if (offset > 0 && response.code() == 416) {
+                return false;
+            }
+            final boolean append;
+            if (response.code() == 206) {
+                final @Nullable String contentRange = response.header("Content-Range");
+                if (offset == 0 || contentRange == null || !contentRange.startsWith(String.format(Locale.ROOT, "bytes %d-", offset))) {
+                    throw new IOException("Unexpected Content-Range: " + contentRange);
+                }
+                append = true;
+            }
+            else if (response.isSuccessful()) {
+                append = false;
+                writeValidator(validatorFile, response);
+            }
+            else {
+                throw new IOException(String.format(Locale.ROOT, "Download failed: %d %s", response.code(), response.message()));
+            }
+
+            final @Nullable ResponseBody body = response.body();
+            if (body == null) {
+                throw new IOException("Response has no body");
+            }
+            final long expected = body.contentLength();
+            final long start = append ? offset : 0;
+            try (final InputStream is = body.byteStream(); final OutputStream os = new FileOutputStream(partFile, append)) {
+                StreamUtil.pump(is, os);
+            }
+            if (expected >= 0 && partFile.length() != start + expected) {
+                throw new IOException(String.format(Locale.ROOT, "Incomplete download: %d of %d bytes",
+                        partFile.length() - start, expected));
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import com.the_tinkering.wk.db.model.AudioFile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * In-memory index of the downloaded pronunciation audio files, backed by the audio_file table.
+ *
+ * <p>
+ *     The index is loaded from the table on first use. If the table is empty, the audio directories
+ *     are walked once to fill it. After that, questions about which audio files exist are answered
+ *     from memory instead of by probing the filesystem. Every download, move and delete is applied
+ *     to the index and written to the table in a single transaction, in the same order.
+ * </p>
+ *
+ * <p>
+ *     This class has no Android dependencies, so it can be tested on the JVM.
+ * </p>
+ */
+public final class AudioInventory {
+    /**
+     * The order in which files for the same audio are preferred: internal storage first,
+     * then by location, and MP3 before OGG.
+     */
+    private static final Comparator<AudioFile> PREFERENCE_ORDER = (o1, o2) -> {
+        final boolean internal1 = o1.getLocation().equals("Internal");
+        final boolean internal2 = o2.getLocation().equals("Internal");
+        if (internal1 != internal2) {
+            return internal1 ? -1 : 1;
+        }
+        final int n = o1.getLocation().compareTo(o2.getLocation());
+        if (n != 0) {
+            return n;
+        }
+        return o1.getFormat().compareTo(o2.getFormat());
+    };
+
+    /**
+     * The persistent storage and the filesystem behind the inventory.
+     */
+    public interface Backend {
+        /**
+         * Load all records from the table.
+         *
+         * @return the records
+         */
+        List<AudioFile> load();
+
+        /**
+         * Walk the audio directories in all storage locations to find the files that are actually there.
+         *
+         * @return the files found
+         */
+        List<AudioFile> scan();
+
+        /**
+         * Replace the contents of the table, preferably in a single transaction.
+         *
+         * @param files the new contents
+         */
+        void replaceAll(Collection<AudioFile> files);
+
+        /**
+         * Remove and add records in a single transaction.
+         *
+         * @param removed the records to remove
+         * @param added the records to insert or replace
+         */
+        void update(Collection<AudioFile> removed, Collection<AudioFile> added);
+    }
+
+    private final Backend backend;
+    private final Object writeLock = new Object();
+    private final Map<Integer, Map<Long, List<AudioFile>>> byLevel = new HashMap<>();
+    private int numFiles = 0;
+    private boolean loaded = false;
+
+    /**
+     * The constructor.
+     *
+     * @param backend the backend for this inventory
+     */
+    public AudioInventory(final Backend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Parse the name of a file in an audio level directory.
+     *
+     * @param location the storage location the file is in
+     * @param level the level directory the file is in
+     * @param fileName the name of the file
+     * @param size the size of the file in bytes
+     * @return the record for the file, or null if the name is not that of an audio file
+     */
+    public static @Nullable AudioFile parseFileName(final String location, final int level, final String fileName, final long size) {
+        final int p = fileName.lastIndexOf('.');
+        if (p <= 0) {
+            return null;
+        }
+        final String format = fileName.substring(p+1).toLowerCase(Locale.ROOT);
+        if (!format.equals("mp3") && !format.equals("ogg")) {
+            return null;
+        }
+        try {
+            final long sourceId = Long.parseLong(fileName.substring(0, p));
+            if (sourceId <= 0) {
+                return null;
+            }
+            return new AudioFile(location, level, sourceId, format, size);
+        }
+        catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Has the inventory been loaded yet? If not, the first query will load it, which
+     * requires database and possibly filesystem access.
+     *
+     * @return true if it has
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Load the inventory if it hasn't been loaded yet.
+     */
+    public void load() {
+        if (isLoaded()) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (isLoaded()) {
+                return;
+            }
+            List<AudioFile> files = backend.load();
+            if (files.isEmpty()) {
+                files = backend.scan();
+                if (!files.isEmpty()) {
+                    backend.replaceAll(files);
+                }
+            }
+            index(files);
+        }
+    }
+
+    /**
+     * Rebuild the inventory from scratch by walking the audio directories.
+     */
+    public void rescan() {
+        synchronized (writeLock) {
+            final List<AudioFile> files = backend.scan();
+            backend.replaceAll(files);
+            index(files);
+        }
+    }
+
+    private synchronized void index(final Iterable<AudioFile> files) {
+        byLevel.clear();
+        numFiles = 0;
+        for (final AudioFile file: files) {
+            put(file);
+        }
+        loaded = true;
+    }
+
+    private void put(final AudioFile file) {
+        @Nullable Map<Long, List<AudioFile>> level = byLevel.get(file.getLevel());
+        if (level == null) {
+            level = new HashMap<>();
+            byLevel.put(file.getLevel(), level);
+        }
+        @Nullable List<AudioFile> files = level.get(file.getSourceId());
+        if (files == null) {
+            files = new ArrayList<>(1);
+            level.put(file.getSourceId(), files);
+        }
+        take(files, file);
+        files.add(file);
+        Collections.sort(files, PREFERENCE_ORDER);
+        numFiles++;
+    }
+
+    private @Nullable AudioFile unindex(final AudioFile file) {
+        final @Nullable Map<Long, List<AudioFile>> level = byLevel.get(file.getLevel());
+        if (level == null) {
+            return null;
+        }
+        final @Nullable List<AudioFile> files = level.get(file.getSourceId());
+        if (files == null) {
+            return null;
+        }
+        final @Nullable AudioFile previous = take(files, file);
+        if (files.isEmpty()) {
+            level.remove(file.getSourceId());
+        }
+        return previous;
+    }
+
+    private @Nullable AudioFile take(final List<AudioFile> files, final AudioFile file) {
+        for (int i=0; i<files.size(); i++) {
+            final AudioFile candidate = files.get(i);
+            if (candidate.getLocation().equals(file.getLocation()) && candidate.getFormat().equals(file.getFormat())) {
+                files.remove(i);
+                numFiles--;
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the preferred file for an audio record, if any has been downloaded.
+     *
+     * @param level the level of the subject
+     * @param sourceId the source ID of the audio
+     * @return the file or null if there is none
+     */
+    public @Nullable AudioFile get(final int level, final long sourceId) {
+        load();
+        synchronized (this) {
+            final @Nullable Map<Long, List<AudioFile>> files = byLevel.get(level);
+            if (files == null) {
+                return null;
+            }
+            final @Nullable List<AudioFile> candidates = files.get(sourceId);
+            return candidates == null ? null : candidates.get(0);
+        }
+    }
+
+    /**
+     * Has any file been downloaded for an audio record?.
+     *
+     * @param level the level of the subject
+     * @param sourceId the source ID of the audio
+     * @return true if it has
+     */
+    public boolean contains(final int level, final long sourceId) {
+        return get(level, sourceId) != null;
+    }
+
+    /**
+     * The total number of files in the inventory.
+     *
+     * @return the number
+     */
+    public int getNumFiles() {
+        load();
+        synchronized (this) {
+            return numFiles;
+        }
+    }
+
+    /**
+     * Get a snapshot of all files that are not in the given location.
+     *
+     * @param preferredLocation the location files should be in
+     * @return the list of files elsewhere
+     */
+    public List<AudioFile> getMisplaced(final String preferredLocation) {
+        load();
+        final List<AudioFile> result = new ArrayList<>();
+        synchronized (this) {
+            for (final Map<Long, List<AudioFile>> level: byLevel.values()) {
+                for (final List<AudioFile> files: level.values()) {
+                    for (final AudioFile file: files) {
+                        if (!file.getLocation().equals(preferredLocation)) {
+                            result.add(file);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Record a file that has been downloaded, replacing any record for the same file.
+     *
+     * @param file the file
+     */
+    public void add(final AudioFile file) {
+        load();
+        synchronized (writeLock) {
+            synchronized (this) {
+                put(file);
+            }
+            backend.update(Collections.emptyList(), Collections.singletonList(file));
+        }
+    }
+
+    /**
+     * Record that a file has disappeared.
+     *
+     * @param file the file
+     */
+    public void remove(final AudioFile file) {
+        load();
+        synchronized (writeLock) {
+            final @Nullable AudioFile previous;
+            synchronized (this) {
+                previous = unindex(file);
+            }
+            if (previous != null) {
+                backend.update(Collections.singletonList(previous), Collections.emptyList());
+            }
+        }
+    }
+
+    /**
+     * Record that a file has been moved to another location.
+     *
+     * @param from the file before the move
+     * @param to the file after the move
+     */
+    public void move(final AudioFile from, final AudioFile to) {
+        load();
+        synchronized (writeLock) {
+            synchronized (this) {
+                unindex(from);
+                put(to);
+            }
+            backend.update(Collections.singletonList(from), Collections.singletonList(to));
+        }
+    }
+
+    /**
+     * Record that all files have been deleted.
+     */
+    public void clear() {
+        synchronized (writeLock) {
+            backend.replaceAll(Collections.emptyList());
+            index(Collections.emptyList());
+        }
+    }
+}
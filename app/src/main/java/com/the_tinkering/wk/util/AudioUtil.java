@@ -36,9 +36,11 @@ import com.the_tinkering.wk.GlobalSettings;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.api.model.PronunciationAudio;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.model.AudioFile;
 import com.the_tinkering.wk.db.model.PronunciationAudioOwner;
 import com.the_tinkering.wk.db.model.Subject;
 import com.the_tinkering.wk.db.model.SubjectPronunciationAudio;
+import com.the_tinkering.wk.enums.ExecutionLane;
 import com.the_tinkering.wk.enums.VoicePreference;
 import com.the_tinkering.wk.livedata.LiveAudioDownloadStatus;
 import com.the_tinkering.wk.model.GenderedFile;
@@ -52,8 +54,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
@@ -63,9 +67,9 @@ import static com.the_tinkering.wk.enums.VoicePreference.FEMALE;
 import static com.the_tinkering.wk.enums.VoicePreference.MALE;
 import static com.the_tinkering.wk.util.ObjectSupport.isEmpty;
 import static com.the_tinkering.wk.util.ObjectSupport.isEqual;
+import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 import static com.the_tinkering.wk.util.ObjectSupport.shuffle;
-import static java.util.Objects.requireNonNull;
 
 /**
  * Utility methods related to pronunciation audio files.
@@ -82,6 +86,52 @@ public final class AudioUtil {
 
     private static boolean lastWasMale = false;
 
+    /**
+     * Delay before pending audio download status changes are written to the database.
+     */
+    private static final long STATUS_FLUSH_DELAY = 1000;
+
+    /**
+     * Audio download status changes that haven't been written to the database yet, per level.
+     * Each entry holds the change for each of the four status values. Guarded by itself.
+     */
+    private static final Map<Integer, int[]> pendingStatusChanges = new HashMap<>();
+
+    private static boolean statusFlushScheduled = false;
+
+    /**
+     * Lock held while audio download status records are written, for a full recompute of a level
+     * as well as for a flush of pending changes. Without it, a recompute that runs between a flush
+     * taking its snapshot and applying it would already include the changes in the snapshot, and
+     * they would be counted twice. When both are needed, this is taken before pendingStatusChanges.
+     */
+    private static final Object STATUS_WRITE_LOCK = new Object();
+
+    /**
+     * The inventory of downloaded audio files, which is consulted instead of the filesystem.
+     */
+    private static final AudioInventory INVENTORY = new AudioInventory(new AudioInventory.Backend() {
+        @Override
+        public List<AudioFile> load() {
+            return WkApplication.getDatabase().audioFileDao().getAll();
+        }
+
+        @Override
+        public List<AudioFile> scan() {
+            return scanAudioFiles();
+        }
+
+        @Override
+        public void replaceAll(final Collection<AudioFile> files) {
+            WkApplication.getDatabase().audioFileDao().replaceAll(files);
+        }
+
+        @Override
+        public void update(final Collection<AudioFile> removed, final Collection<AudioFile> added) {
+            WkApplication.getDatabase().audioFileDao().update(removed, added);
+        }
+    });
+
     private AudioUtil() {
         //
     }
@@ -152,32 +202,204 @@ public final class AudioUtil {
         return result;
     }
 
+    /**
+     * Get the base directory for a storage location.
+     *
+     * @param location the location, as returned by getLocationValues()
+     * @return the directory or null if something went wrong
+     */
+    private static @Nullable File getBaseDirectory(final String location) {
+        if (location.equals("Internal")) {
+            final @Nullable File dir = ContextCompat.getNoBackupFilesDir(WkApplication.getInstance());
+            if (dir == null) {
+                return WkApplication.getInstance().getFilesDir();
+            }
+            return dir;
+        }
+        return new File(location);
+    }
+
+    /**
+     * Get the File instance for an audio file in the inventory.
+     *
+     * @param file the inventory record
+     * @param male true if the audio has a male voice
+     * @return the file or null if something went wrong
+     */
+    private static @Nullable GenderedFile getFile(final AudioFile file, final boolean male) {
+        final @Nullable File baseDirectory = getBaseDirectory(file.getLocation());
+        if (baseDirectory == null) {
+            return null;
+        }
+        final File audioDir = new File(baseDirectory, AUDIO_DIRECTORY_NAME);
+        final File levelDir = new File(audioDir, Integer.toString(file.getLevel()));
+        return new GenderedFile(levelDir, file.getFileName(), male);
+    }
+
+    /**
+     * Walk the audio directories in all storage locations to find the audio files that exist.
+     * Abandoned partial downloads are deleted along the way.
+     *
+     * @return the files found
+     */
+    private static List<AudioFile> scanAudioFiles() {
+        final List<AudioFile> result = new ArrayList<>();
+        final long now = System.currentTimeMillis();
+        for (final String location: getLocationValues()) {
+            try {
+                final @Nullable File baseDirectory = getBaseDirectory(location);
+                if (baseDirectory == null) {
+                    continue;
+                }
+                @androidx.annotation.Nullable
+                final @Nullable File[] levelDirs = new File(baseDirectory, AUDIO_DIRECTORY_NAME).listFiles();
+                if (levelDirs == null) {
+                    continue;
+                }
+                for (final File levelDir: levelDirs) {
+                    final int level;
+                    try {
+                        level = Integer.parseInt(levelDir.getName());
+                    }
+                    catch (final NumberFormatException e) {
+                        continue;
+                    }
+                    @androidx.annotation.Nullable
+                    final @Nullable File[] files = levelDir.listFiles();
+                    if (files == null) {
+                        continue;
+                    }
+                    for (final File file: files) {
+                        if (AudioDownloader.isStalePartFile(file, now)) {
+                            if (!file.delete()) {
+                                LOGGER.info("Stale partial download can't be deleted: %s", file);
+                            }
+                            continue;
+                        }
+                        final @Nullable AudioFile audioFile = AudioInventory.parseFileName(location, level, file.getName(), file.length());
+                        if (audioFile != null && file.isFile()) {
+                            result.add(audioFile);
+                        }
+                    }
+                }
+            }
+            catch (final Exception e) {
+                LOGGER.error(e, "Error scanning audio files in %s", location);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the inventory if it can be used on this thread. It can't be loaded on the main thread,
+     * so if it hasn't been loaded yet, the caller must fall back to looking at the filesystem.
+     *
+     * @return the inventory or null if it can't be used
+     */
+    private static @Nullable AudioInventory getUsableInventory() {
+        if (Looper.myLooper() == Looper.getMainLooper() && !INVENTORY.isLoaded()) {
+            return null;
+        }
+        return INVENTORY;
+    }
+
+    /**
+     * Load the audio file inventory, if it hasn't been loaded yet. This must be called from a background thread.
+     */
+    public static void preloadInventory() {
+        INVENTORY.load();
+    }
+
+    /**
+     * Rebuild the audio file inventory by walking the audio directories. This must be called from a background thread.
+     */
+    public static void rescanInventory() {
+        INVENTORY.rescan();
+    }
+
+    /**
+     * Record newly downloaded audio files for a subject in the inventory, and update the audio download
+     * status of the subject's level to match. This holds STATUS_WRITE_LOCK, so a full recompute of the
+     * level either runs before the files are recorded, and the change is applied on top of it, or after,
+     * and then it discards the pending change because it has already counted the new files.
+     *
+     * @param level the subject's level
+     * @param audios the subject's audio records
+     * @param files the downloaded files, keyed by the audio record they were downloaded for
+     */
+    public static void registerDownloadedFiles(final int level, final Collection<PronunciationAudio> audios,
+                                               final Map<PronunciationAudio, File> files) {
+        synchronized (STATUS_WRITE_LOCK) {
+            final int oldStatus = findAudioDownloadStatus(level, audios);
+            for (final Map.Entry<PronunciationAudio, File> entry: files.entrySet()) {
+                registerDownloadedFile(level, entry.getKey(), entry.getValue());
+            }
+            updateDownloadStatus(level, oldStatus, findAudioDownloadStatus(level, audios));
+        }
+    }
+
+    /**
+     * Record a newly downloaded audio file in the inventory. If the download failed and the file
+     * doesn't exist, nothing is recorded.
+     *
+     * @param level the subject's level
+     * @param audio the audio record
+     * @param file the file the audio was downloaded to, as returned by getNewFileForAudio()
+     */
+    private static void registerDownloadedFile(final int level, final PronunciationAudio audio, final File file) {
+        if (!file.exists()) {
+            return;
+        }
+        final @Nullable File levelDir = file.getParentFile();
+        final @Nullable File audioDir = levelDir == null ? null : levelDir.getParentFile();
+        final @Nullable File baseDirectory = audioDir == null ? null : audioDir.getParentFile();
+        if (baseDirectory == null) {
+            return;
+        }
+        final String location = baseDirectory.equals(getBaseDirectory("Internal")) ? "Internal" : baseDirectory.getPath();
+        final @Nullable AudioFile audioFile = AudioInventory.parseFileName(location, level, file.getName(), file.length());
+        if (audioFile != null && audioFile.getSourceId() == audio.getMetadata().getSourceId()) {
+            INVENTORY.add(audioFile);
+        }
+    }
+
     /**
      * Get the File instance corresponding to an audio file for the specified audio record.
-     * If no such file exists, return null. If the return value is not null, that file is
-     * guaranteed to exist, but there are no guarantees it will be readable.
+     * If no such file exists, return null. The inventory is consulted if possible, otherwise the
+     * filesystem is probed.
+     *
+     * @param level the subject's level
+     * @param audio the audio record
+     * @return the file if it exists
+     */
+    private static @Nullable GenderedFile getExistingFileForAudio(final int level, final PronunciationAudio audio) {
+        final @Nullable AudioInventory inventory = getUsableInventory();
+        if (inventory == null) {
+            return probeExistingFileForAudio(level, audio, getLocationValues());
+        }
+        final @Nullable AudioFile file = inventory.get(level, audio.getMetadata().getSourceId());
+        if (file == null) {
+            return null;
+        }
+        return getFile(file, audio.getMetadata().isMale());
+    }
+
+    /**
+     * Get the File instance corresponding to an audio file for the specified audio record,
+     * by probing the filesystem. If no such file exists, return null. If the return value is
+     * not null, that file is guaranteed to exist, but there are no guarantees it will be readable.
      *
      * @param level the subject's level
      * @param audio the audio record
      * @param locationValues the available storage locations
      * @return the file if it exists
      */
-    private static @Nullable GenderedFile getExistingFileForAudio(final int level, final PronunciationAudio audio,
-                                                                  final Iterable<String> locationValues) {
+    private static @Nullable GenderedFile probeExistingFileForAudio(final int level, final PronunciationAudio audio,
+                                                                    final Iterable<String> locationValues) {
         for (final String location: locationValues) {
-            final File baseDirectory;
-            if (location.equals("Internal")) {
-                @Nullable File dir = ContextCompat.getNoBackupFilesDir(WkApplication.getInstance());
-                if (dir == null) {
-                    dir = WkApplication.getInstance().getFilesDir();
-                }
-                if (dir == null) {
-                    continue;
-                }
-                baseDirectory = dir;
-            }
-            else {
-                baseDirectory = new File(location);
+            final @Nullable File baseDirectory = getBaseDirectory(location);
+            if (baseDirectory == null) {
+                continue;
             }
             final File audioDir = new File(baseDirectory, AUDIO_DIRECTORY_NAME);
             final File levelDir = new File(audioDir, Integer.toString(level));
@@ -200,11 +422,14 @@ public final class AudioUtil {
      *
      * @param level the subject's level
      * @param audio the audio record from the subject
-     * @param locationValues the available storage locations
      * @return true if any audio file exists
      */
-    public static boolean hasAudioFileFor(final int level, final PronunciationAudio audio, final Iterable<String> locationValues) {
-        return getExistingFileForAudio(level, audio, locationValues) != null;
+    public static boolean hasAudioFileFor(final int level, final PronunciationAudio audio) {
+        final @Nullable AudioInventory inventory = getUsableInventory();
+        if (inventory == null) {
+            return probeExistingFileForAudio(level, audio, getLocationValues()) != null;
+        }
+        return inventory.contains(level, audio.getMetadata().getSourceId());
     }
 
     /**
@@ -230,16 +455,16 @@ public final class AudioUtil {
             if (baseDirectory == null) {
                 return null;
             }
-            if (!baseDirectory.exists() && !baseDirectory.mkdirs()) {
+            if (!baseDirectory.exists() && !baseDirectory.mkdirs() && !baseDirectory.isDirectory()) {
                 return null;
             }
             baseDirectory = new File(baseDirectory, AUDIO_DIRECTORY_NAME);
-            if (!baseDirectory.exists() && !baseDirectory.mkdirs()) {
+            if (!baseDirectory.exists() && !baseDirectory.mkdirs() && !baseDirectory.isDirectory()) {
                 return null;
             }
 
             final File levelDir = new File(baseDirectory, Integer.toString(level));
-            if (!levelDir.exists() && !levelDir.mkdirs()) {
+            if (!levelDir.exists() && !levelDir.mkdirs() && !levelDir.isDirectory()) {
                 return null;
             }
 
@@ -278,16 +503,16 @@ public final class AudioUtil {
             if (!Environment.MEDIA_MOUNTED.equals(status)) {
                 return null;
             }
-            if (!baseDirectory.exists() && !baseDirectory.mkdirs()) {
+            if (!baseDirectory.exists() && !baseDirectory.mkdirs() && !baseDirectory.isDirectory()) {
                 return null;
             }
             baseDirectory = new File(baseDirectory, AUDIO_DIRECTORY_NAME);
-            if (!baseDirectory.exists() && !baseDirectory.mkdirs()) {
+            if (!baseDirectory.exists() && !baseDirectory.mkdirs() && !baseDirectory.isDirectory()) {
                 return null;
             }
 
             final File levelDir = new File(baseDirectory, Integer.toString(level));
-            if (!levelDir.exists() && !levelDir.mkdirs()) {
+            if (!levelDir.exists() && !levelDir.mkdirs() && !levelDir.isDirectory()) {
                 return null;
             }
 
@@ -328,25 +553,6 @@ public final class AudioUtil {
         return getNewFileForAudioOnInternal(level, audio);
     }
 
-    /**
-     * Get the temporary file for downloading a new audio file.
-     *
-     * @param targetFile the eventual target file this temp file is for
-     * @return the file, which may or may not exist
-     */
-    public static @Nullable File getTempFile(final File targetFile) {
-        try {
-            final @Nullable File dir = targetFile.getParentFile();
-            if (dir == null) {
-                return null;
-            }
-            return new File(dir, "downloading.tmp");
-        }
-        catch (final Exception e) {
-            return null;
-        }
-    }
-
     /**
      * Get a random existing audio file, taking into account the user's preference.
      * Prefer the primary reading.
@@ -365,16 +571,15 @@ public final class AudioUtil {
         final boolean femalePreferred = voicePreference == FEMALE || voicePreference == ALTERNATE && lastWasMale;
 
         final int level = subject.getLevel();
-        final Iterable<String> locationValues = getLocationValues();
 
         final Comparator<PronunciationAudio> comparator = (o1, o2) -> {
             if (o1 == o2) {
                 return 0;
             }
-            if (hasAudioFileFor(level, o1, locationValues) && !hasAudioFileFor(level, o2, locationValues)) {
+            if (hasAudioFileFor(level, o1) && !hasAudioFileFor(level, o2)) {
                 return -1;
             }
-            if (hasAudioFileFor(level, o2, locationValues) && !hasAudioFileFor(level, o1, locationValues)) {
+            if (hasAudioFileFor(level, o2) && !hasAudioFileFor(level, o1)) {
                 return 1;
             }
             if (subject.isPrimaryReading(o1.getMetadata().getPronunciation())
@@ -406,7 +611,7 @@ public final class AudioUtil {
 
         Collections.sort(shuffled, comparator);
 
-        return getExistingFileForAudio(level, shuffled.get(0), locationValues);
+        return getExistingFileForAudio(level, shuffled.get(0));
     }
 
     /**
@@ -433,16 +638,15 @@ public final class AudioUtil {
         final boolean femalePreferred = voicePreference == FEMALE || voicePreference == ALTERNATE && lastWasMale;
 
         final int level = subject.getLevel();
-        final Iterable<String> locationValues = getLocationValues();
 
         final Comparator<PronunciationAudio> comparator = (o1, o2) -> {
             if (o1 == o2) {
                 return 0;
             }
-            if (hasAudioFileFor(level, o1, locationValues) && !hasAudioFileFor(level, o2, locationValues)) {
+            if (hasAudioFileFor(level, o1) && !hasAudioFileFor(level, o2)) {
                 return -1;
             }
-            if (hasAudioFileFor(level, o2, locationValues) && !hasAudioFileFor(level, o1, locationValues)) {
+            if (hasAudioFileFor(level, o2) && !hasAudioFileFor(level, o1)) {
                 return 1;
             }
             if (isEqual(o1.getMetadata().getPronunciation(), reading) && !isEqual(o2.getMetadata().getPronunciation(), reading)) {
@@ -474,7 +678,7 @@ public final class AudioUtil {
 
         final PronunciationAudio audio = shuffled.get(0);
         if (isEqual(audio.getMetadata().getPronunciation(), reading)) {
-            return getExistingFileForAudio(level, audio, locationValues);
+            return getExistingFileForAudio(level, audio);
         }
 
         return null;
@@ -511,18 +715,16 @@ public final class AudioUtil {
      *
      * @param level The level of the subject
      * @param pronunciationAudios List of audio records for the subject
-     * @param locationValues the available storage locations
      * @return The audio download status as defined above
      */
-    public static int findAudioDownloadStatus(final int level, final Collection<PronunciationAudio> pronunciationAudios,
-                                              final Iterable<String> locationValues) {
+    public static int findAudioDownloadStatus(final int level, final Collection<PronunciationAudio> pronunciationAudios) {
         if (pronunciationAudios.isEmpty()) {
             return 0;
         }
         int numPresent = 0;
         int numAbsent = 0;
         for (final PronunciationAudio audio: pronunciationAudios) {
-            if (hasAudioFileFor(level, audio, locationValues)) {
+            if (hasAudioFileFor(level, audio)) {
                 numPresent++;
             }
             else {
@@ -546,35 +748,96 @@ public final class AudioUtil {
      * @param level the level
      */
     public static void updateDownloadStatus(final int level) {
-        final AppDatabase db = WkApplication.getDatabase();
-        final Collection<SubjectPronunciationAudio> subjects = db.subjectViewsDao().getAudioByLevel(level);
-        final Iterable<String> locationValues = getLocationValues();
-
-        int numNoAudio = 0;
-        int numMissingAudio = 0;
-        int numPartialAudio = 0;
-        int numFullAudio = 0;
-        for (final PronunciationAudioOwner subject: subjects) {
-            final int status = findAudioDownloadStatus(level, subject.getParsedPronunciationAudios(), locationValues);
-            switch (status) {
-                case 1:
-                    numMissingAudio++;
-                    break;
-                case 2:
-                    numPartialAudio++;
-                    break;
-                case 3:
-                    numFullAudio++;
-                    break;
-                case 0:
-                default:
-                    numNoAudio++;
-                    break;
+        synchronized (STATUS_WRITE_LOCK) {
+            synchronized (pendingStatusChanges) {
+                pendingStatusChanges.remove(level);
+            }
+            final AppDatabase db = WkApplication.getDatabase();
+            final Collection<SubjectPronunciationAudio> subjects = db.subjectViewsDao().getAudioByLevel(level);
+
+            int numNoAudio = 0;
+            int numMissingAudio = 0;
+            int numPartialAudio = 0;
+            int numFullAudio = 0;
+            for (final PronunciationAudioOwner subject: subjects) {
+                final int status = findAudioDownloadStatus(level, subject.getParsedPronunciationAudios());
+                switch (status) {
+                    case 1:
+                        numMissingAudio++;
+                        break;
+                    case 2:
+                        numPartialAudio++;
+                        break;
+                    case 3:
+                        numFullAudio++;
+                        break;
+                    case 0:
+                    default:
+                        numNoAudio++;
+                        break;
+                }
             }
+
+            db.audioDownloadStatusDao().insertOrUpdate(level, subjects.size(), numNoAudio, numMissingAudio, numPartialAudio, numFullAudio);
+            LiveAudioDownloadStatus.getInstance().update();
         }
+    }
+
+    /**
+     * Update the audio download status for a level after the status of one subject has changed.
+     * The change is collected with the changes for other subjects, and a short while later they
+     * are all written in one go, with one update per level. If a level has no status record yet
+     * at that point, the status for the whole level is computed instead.
+     *
+     * @param level the level
+     * @param oldStatus the subject's status before the change, as returned by findAudioDownloadStatus()
+     * @param newStatus the subject's status after the change, as returned by findAudioDownloadStatus()
+     */
+    public static void updateDownloadStatus(final int level, final int oldStatus, final int newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        synchronized (pendingStatusChanges) {
+            @Nullable int[] deltas = pendingStatusChanges.get(level);
+            if (deltas == null) {
+                deltas = new int[4];
+                pendingStatusChanges.put(level, deltas);
+            }
+            deltas[oldStatus]--;
+            deltas[newStatus]++;
+            if (!statusFlushScheduled) {
+                statusFlushScheduled = true;
+                new Handler(Looper.getMainLooper()).postDelayed(
+                        () -> runAsync(ExecutionLane.WRITE, AudioUtil::flushDownloadStatus), STATUS_FLUSH_DELAY);
+            }
+        }
+    }
+
+    /**
+     * Write all pending audio download status changes to the database right now. This must be called from a background thread.
+     */
+    public static void flushDownloadStatus() {
+        synchronized (STATUS_WRITE_LOCK) {
+            final Map<Integer, int[]> changes;
+            synchronized (pendingStatusChanges) {
+                statusFlushScheduled = false;
+                if (pendingStatusChanges.isEmpty()) {
+                    return;
+                }
+                changes = new HashMap<>(pendingStatusChanges);
+                pendingStatusChanges.clear();
+            }
 
-        db.audioDownloadStatusDao().insertOrUpdate(level, subjects.size(), numNoAudio, numMissingAudio, numPartialAudio, numFullAudio);
-        LiveAudioDownloadStatus.getInstance().update();
+            final AppDatabase db = WkApplication.getDatabase();
+            for (final Map.Entry<Integer, int[]> entry: changes.entrySet()) {
+                final int[] deltas = entry.getValue();
+                final int count = db.audioDownloadStatusDao().adjust(entry.getKey(), deltas[0], deltas[1], deltas[2], deltas[3]);
+                if (count == 0) {
+                    updateDownloadStatus(entry.getKey());
+                }
+            }
+            LiveAudioDownloadStatus.getInstance().update();
+        }
     }
 
     /**
@@ -616,6 +879,8 @@ public final class AudioUtil {
             final File dir = new File(location);
             deleteDirectory(new File(dir, AUDIO_DIRECTORY_NAME));
         }
+
+        INVENTORY.clear();
     }
 
     @TargetApi(26)
@@ -820,11 +1085,10 @@ public final class AudioUtil {
                                              final int maxCount) {
         if (GlobalSettings.getFirstTimeSetup() != 0) {
             final AppDatabase db = WkApplication.getDatabase();
-            final Iterable<String> locationValues = getLocationValues();
 
             int count = 0;
             for (final PronunciationAudioOwner subject: subjects) {
-                final int status = findAudioDownloadStatus(subject.getLevel(), subject.getParsedPronunciationAudios(), locationValues);
+                final int status = findAudioDownloadStatus(subject.getLevel(), subject.getParsedPronunciationAudios());
                 if (status == 1 || status == 2) {
                     db.assertDownloadAudioTask(subject);
                     count++;
@@ -836,262 +1100,78 @@ public final class AudioUtil {
         }
     }
 
-    /**
-     * Helper method: does the argument directory contain any regular files, recursively checked?.
-     *
-     * @param dir directory to scan
-     * @return true if it does
-     */
-    private static boolean hasFiles(final File dir) {
-        try {
-            @androidx.annotation.Nullable
-            final @Nullable File[] children = dir.listFiles();
-            if (children != null) {
-                for (final File child: children) {
-                    if (child.isFile()) {
-                        return true;
-                    }
-                    if (child.isDirectory() && hasFiles(child)) {
-                        return true;
-                    }
-                }
-            }
-            return false;
-        }
-        catch (final Exception e) {
-            return false;
-        }
-    }
-
     /**
      * Are there any audio files that are not in the preferred location?.
      *
      * @return true if there are
      */
     public static boolean hasAnyMisplacedAudioFiles() {
-        for (final String location: getLocationValues()) {
-            if (location.equals(GlobalSettings.Api.getAudioLocation())) {
-                continue;
-            }
-            final File baseDirectory;
-            if (location.equals("Internal")) {
-                @Nullable File dir = ContextCompat.getNoBackupFilesDir(WkApplication.getInstance());
-                if (dir == null) {
-                    dir = WkApplication.getInstance().getFilesDir();
-                }
-                if (dir == null) {
-                    continue;
-                }
-                baseDirectory = dir;
-            }
-            else {
-                baseDirectory = new File(location);
-            }
-            final File audioDir = new File(baseDirectory, AUDIO_DIRECTORY_NAME);
-            if (hasFiles(audioDir)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Helper method: get the number of regular files in the argument directory.
-     *
-     * @param dir directory to scan
-     * @return the number of regular files
-     */
-    private static int numFiles(final File dir) {
-        int count = 0;
-        try {
-            @androidx.annotation.Nullable
-            final @Nullable File[] children = dir.listFiles();
-            if (children != null) {
-                for (final File child: children) {
-                    if (child.isFile()) {
-                        count++;
-                    }
-                    if (child.isDirectory()) {
-                        count += numFiles(child);
-                    }
-                }
-            }
-        }
-        catch (final Exception e) {
-            //
-        }
-        return count;
+        final @Nullable AudioInventory inventory = getUsableInventory();
+        return inventory != null && !inventory.getMisplaced(GlobalSettings.Api.getAudioLocation()).isEmpty();
     }
 
     /**
      * How many audio files are there that are not in the preferred location?.
      *
-     * @return the number of regular files
+     * @return the number of files
      */
     public static int getNumMisplacedAudioFiles() {
-        int count = 0;
-        for (final String location: getLocationValues()) {
-            if (location.equals(GlobalSettings.Api.getAudioLocation())) {
-                continue;
-            }
-            final File baseDirectory;
-            if (location.equals("Internal")) {
-                @Nullable File dir = ContextCompat.getNoBackupFilesDir(WkApplication.getInstance());
-                if (dir == null) {
-                    dir = WkApplication.getInstance().getFilesDir();
-                }
-                if (dir == null) {
-                    continue;
-                }
-                baseDirectory = dir;
-            }
-            else {
-                baseDirectory = new File(location);
-            }
-            final File audioDir = new File(baseDirectory, AUDIO_DIRECTORY_NAME);
-            count += numFiles(audioDir);
-        }
-        return count;
-    }
-
-    /**
-     * Helper method: iterate over all files in the argument directory, recursively scanned.
-     * The consumer is called for every regular file found, and it should return true if the
-     * file system walk should be aborted.
-     *
-     * @param dir the directory to walk
-     * @param consumer the consumer for encountered regular files
-     * @return true if the walk should be aborted
-     */
-    private static boolean iterateMisplacedAudioFilesHelper(final File dir, final Function<? super File, Boolean> consumer) {
-        try {
-            @androidx.annotation.Nullable
-            final @Nullable File[] children = dir.listFiles();
-            if (children != null) {
-                for (final File child: children) {
-                    if (child.isFile() && consumer.apply(child)) {
-                        return true;
-                    }
-                    if (child.isDirectory() && iterateMisplacedAudioFilesHelper(child, consumer)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        catch (final Exception e) {
-            //
-        }
-        return false;
+        return INVENTORY.getMisplaced(GlobalSettings.Api.getAudioLocation()).size();
     }
 
     /**
-     * Helper method: iterate over all misplaced audio files, recursively scanned.
-     * The consumer is called for every regular file found, and it should return true if the
-     * file system walk should be aborted.
+     * Iterate over all misplaced audio files in the inventory.
+     * The consumer is called for every file, and it should return true if the iteration should be aborted.
      *
-     * @param consumer the consumer for encountered regular files
+     * @param consumer the consumer for the misplaced files
      */
-    public static void iterateMisplacedAudioFiles(final Function<? super File, Boolean> consumer) {
-        for (final String location: getLocationValues()) {
-            if (location.equals(GlobalSettings.Api.getAudioLocation())) {
-                continue;
-            }
-            final File baseDirectory;
-            if (location.equals("Internal")) {
-                @Nullable File dir = ContextCompat.getNoBackupFilesDir(WkApplication.getInstance());
-                if (dir == null) {
-                    dir = WkApplication.getInstance().getFilesDir();
-                }
-                if (dir == null) {
-                    continue;
-                }
-                baseDirectory = dir;
-            }
-            else {
-                baseDirectory = new File(location);
-            }
-            final File audioDir = new File(baseDirectory, AUDIO_DIRECTORY_NAME);
-            try {
-                iterateMisplacedAudioFilesHelper(audioDir, consumer);
-            }
-            catch (final Exception e) {
-                //
+    public static void iterateMisplacedAudioFiles(final Function<? super AudioFile, Boolean> consumer) {
+        for (final AudioFile file: INVENTORY.getMisplaced(GlobalSettings.Api.getAudioLocation())) {
+            if (consumer.apply(file)) {
+                return;
             }
         }
     }
 
     /**
-     * Get the location of the argument file, mapped to the location specified by the argument
-     * base directory. The part of the file's path before the AUDIO_DIRECTORY_NAME segment is
-     * replaced with the base directory, so that the file's path is mapped to the equivalent
-     * path on another storage.
+     * Move a misplaced audio file to its preferred location, and record the move in the inventory.
      *
-     * @param file the file to map
-     * @param baseDirectory the base directory of the storage location to map to
-     * @return the mapped file or null if something went wrong
-     */
-    private static @Nullable File findDestinationFile(final File file, final File baseDirectory) {
-        if (file.getName().equals(AUDIO_DIRECTORY_NAME)) {
-            return new File(baseDirectory, AUDIO_DIRECTORY_NAME);
-        }
-
-        final @Nullable File parent = file.getParentFile();
-        if (parent == null) {
-            return null;
-        }
-
-        final @Nullable File destinationParent = findDestinationFile(parent, baseDirectory);
-        if (destinationParent == null) {
-            return null;
-        }
-
-        return new File(destinationParent, file.getName());
-    }
-
-    /**
-     * Move a misplaced audio file to its preferred location.
-     *
-     * @param file the file to move
+     * @param audioFile the file to move
      */
     @SuppressWarnings("ResultOfMethodCallIgnored")
-    public static void moveToPreferredLocation(final File file) {
+    public static void moveToPreferredLocation(final AudioFile audioFile) {
+        final String location = GlobalSettings.Api.getAudioLocation();
+        final @Nullable File file = getFile(audioFile, false);
+        final AudioFile destination = new AudioFile(location, audioFile.getLevel(), audioFile.getSourceId(),
+                audioFile.getFormat(), audioFile.getSize());
+        final @Nullable File destinationFile = getFile(destination, false);
+        if (file == null || destinationFile == null) {
+            return;
+        }
         @Nullable InputStream is = null;
         @Nullable OutputStream os = null;
         try {
-            final String location = GlobalSettings.Api.getAudioLocation();
-            final File baseDirectory;
-            if (location.equals("Internal")) {
-                @Nullable File dir = ContextCompat.getNoBackupFilesDir(WkApplication.getInstance());
-                if (dir == null) {
-                    dir = WkApplication.getInstance().getFilesDir();
-                }
-                if (dir == null) {
-                    return;
-                }
-                baseDirectory = dir;
-            }
-            else {
-                baseDirectory = new File(location);
-            }
-            final @Nullable File destinationFile = findDestinationFile(file, baseDirectory);
-            if (destinationFile == null) {
+            if (!file.exists()) {
+                INVENTORY.remove(audioFile);
                 return;
             }
             final @Nullable File parent = destinationFile.getParentFile();
             if (parent == null) {
                 return;
             }
-            if (!parent.exists() && !parent.mkdirs()) {
+            if (!parent.exists() && !parent.mkdirs() && !parent.isDirectory()) {
                 return;
             }
             if (destinationFile.exists() && file.length() <= destinationFile.length()) {
+                destination.setSize(destinationFile.length());
                 file.delete();
+                INVENTORY.move(audioFile, destination);
                 return;
             }
 
             LOGGER.info("Moving file %s to %s...", file, destinationFile);
 
-            final File tempFile = requireNonNull(getTempFile(destinationFile));
+            final File tempFile = AudioDownloader.getPartFile(destinationFile);
             is = new FileInputStream(file);
             os = new FileOutputStream(tempFile);
             StreamUtil.pump(is, os);
@@ -1102,8 +1182,13 @@ public final class AudioUtil {
             if (destinationFile.exists()) {
                 destinationFile.delete();
             }
-            tempFile.renameTo(destinationFile);
+            if (!tempFile.renameTo(destinationFile)) {
+                tempFile.delete();
+                return;
+            }
             file.delete();
+            destination.setSize(destinationFile.length());
+            INVENTORY.move(audioFile, destination);
         }
         catch (final Exception e) {
             //
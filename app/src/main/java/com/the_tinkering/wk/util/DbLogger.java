@@ -18,7 +18,6 @@ package com.the_tinkering.wk.util;
 
 import android.annotation.SuppressLint;
 import android.content.SharedPreferences;
-import android.os.Looper;
 import android.util.Log;
 
 import androidx.preference.PreferenceManager;
@@ -27,47 +26,124 @@ import com.the_tinkering.wk.BuildConfig;
 import com.the_tinkering.wk.Constants;
 import com.the_tinkering.wk.Identification;
 import com.the_tinkering.wk.WkApplication;
+import com.the_tinkering.wk.api.RateLimiter;
 import com.the_tinkering.wk.db.AppDatabase;
+import com.the_tinkering.wk.db.SubjectCache;
 import com.the_tinkering.wk.db.model.LogRecord;
 import com.the_tinkering.wk.db.model.Property;
+import com.the_tinkering.wk.livedata.DashboardRefresher;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.net.URL;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Nullable;
-import javax.net.ssl.HttpsURLConnection;
 
-import static com.the_tinkering.wk.Constants.MINUTE;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+
 import static com.the_tinkering.wk.Constants.SECOND;
 
 /**
  * A logging class that will log both to the Android logger and a circular log in the database.
+ *
+ * <p>
+ *     Log records don't go to the database directly. The logging call puts them in an in-memory
+ *     ring buffer without taking any locks, and a single background thread drains the buffer and
+ *     writes the records in batches, one transaction per batch. The thread waits up to a second
+ *     for a batch to fill up, or until enough records are waiting. If the buffer overflows, records
+ *     are dropped and the number of dropped records is logged instead.
+ * </p>
  */
 public final class DbLogger {
+    /**
+     * The number of slots in the ring buffer. Must be a power of two.
+     */
+    private static final int BUFFER_SIZE = 1024;
+
+    /**
+     * The maximum total length of the messages waiting in the ring buffer, to cap its memory use.
+     */
+    private static final int MAX_PENDING_LENGTH = 1_000_000;
+
+    /**
+     * Number of waiting records that triggers a flush without waiting for the flush interval.
+     */
+    private static final int FLUSH_THRESHOLD = 64;
+
+    /**
+     * The maximum time a record waits in the buffer, in nanoseconds.
+     */
+    private static final long FLUSH_INTERVAL_NANOS = SECOND * 1_000_000L;
+
+    /**
+     * When the log is trimmed, it's trimmed to this much below the maximum size. Small enough to keep
+     * each trim cheap, big enough that there isn't a trim after every batch.
+     */
+    private static final int TRIM_SLACK = Constants.LOG_FILE_SIZE / 16;
+
     private static @Nullable DbLogger instance = null;
 
     private final AppDatabase db;
-    private int mark = -1;
 
     /**
-     * Are we currently on the main thread?. If so, we need to shunt the
-     * database work off to a background thread.
-     *
-     * @return true if this is the main thread
+     * The ring buffer. A slot is non-null when it holds a record that has been published by a logging
+     * thread but not yet taken by the flusher.
      */
-    private static boolean isOnMainThread() {
-        return Looper.myLooper() == Looper.getMainLooper();
-    }
+    private final AtomicReferenceArray<LogRecord> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+
+    /**
+     * The sequence number of the next slot to be claimed by a logging thread.
+     */
+    private final AtomicLong writeSequence = new AtomicLong(0);
+
+    /**
+     * The sequence number of the next slot to be taken by the flusher.
+     */
+    private final AtomicLong readSequence = new AtomicLong(0);
+
+    /**
+     * The total length of the messages in the buffer.
+     */
+    private final AtomicInteger pendingLength = new AtomicInteger(0);
+
+    /**
+     * The number of records dropped since the last flush.
+     */
+    private final AtomicInteger numDropped = new AtomicInteger(0);
+
+    /**
+     * Lock that makes sure there is only one thread draining the buffer at a time. Logging threads never take this.
+     */
+    private final Object flushLock = new Object();
+
+    /**
+     * The background thread that writes records to the database.
+     */
+    private final Thread flusher;
+
+    /**
+     * The total size of the log in the database, or -1 if not known yet. Guarded by flushLock.
+     */
+    private int mark = -1;
 
     /**
      * Get the simple class name of a class, without a package specifier.
@@ -105,6 +181,9 @@ public final class DbLogger {
      */
     private DbLogger(final AppDatabase db) {
         this.db = db;
+        flusher = new Thread(this::runFlusher, "DbLoggerFlusher");
+        flusher.setDaemon(true);
+        flusher.start();
     }
 
     /**
@@ -204,7 +283,8 @@ public final class DbLogger {
     }
 
     /**
-     * Write a logging entry to the database.
+     * Queue a logging entry to be written to the database. This never blocks: if the buffer is full,
+     * the entry is dropped.
      *
      * @param timestamp the timestamp for this entry
      * @param clas the class responsible for this entry
@@ -212,44 +292,126 @@ public final class DbLogger {
      * @param maxLength the maximum length of the message to log
      */
     private void writeRecord(final long timestamp, final Class<?> clas, final String logMessage, final int maxLength) {
-        if (isOnMainThread()) {
-            new AsyncTask<Void>() {
-                @Override
-                public Void doInBackground() {
-                    try {
-                        writeRecord(timestamp, clas, logMessage, maxLength);
-                    } catch (final Exception e) {
-                        logUnexpectedError(getClass(), e);
-                    }
-                    return null;
-                }
+        final String message = logMessage.length() > maxLength ? logMessage.substring(0, maxLength) : logMessage;
+        final int length = message.length();
 
-                @Override
-                public void onPostExecute(@Nullable final Void result) {
-                    //
-                }
-
-                @Override
-                public void onProgressUpdate(final Object[] values) {
-                    //
-                }
-            }.execute();
+        if (pendingLength.addAndGet(length) > MAX_PENDING_LENGTH) {
+            pendingLength.addAndGet(-length);
+            numDropped.incrementAndGet();
             return;
         }
 
-        String message = logMessage;
-        if (message.length() > maxLength) {
-            message = message.substring(0, maxLength);
-        }
-
         final LogRecord record = new LogRecord();
         record.timestamp = timestamp;
         record.tag = getSimpleClassName(clas);
         record.message = message;
-        record.length = message.length();
-        db.logRecordDao().insert(record);
-        if (mark >= 0) {
-            mark += message.length();
+        record.length = length;
+
+        while (true) {
+            final long sequence = writeSequence.get();
+            if (sequence - readSequence.get() >= BUFFER_SIZE) {
+                pendingLength.addAndGet(-length);
+                numDropped.incrementAndGet();
+                return;
+            }
+            if (writeSequence.compareAndSet(sequence, sequence + 1)) {
+                buffer.set((int) (sequence & (BUFFER_SIZE - 1)), record);
+                // Wake up the flusher when the buffer goes from empty to non-empty, to start the flush interval,
+                // and when the batch is big enough to flush right away.
+                final long numPending = sequence + 1 - readSequence.get();
+                if (numPending == 1 || numPending == FLUSH_THRESHOLD) {
+                    LockSupport.unpark(flusher);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Take all published records out of the buffer. Must be called with flushLock held.
+     *
+     * @return the records, in the order they were logged
+     */
+    private List<LogRecord> drain() {
+        final List<LogRecord> records = new ArrayList<>();
+        long sequence = readSequence.get();
+        while (true) {
+            final int index = (int) (sequence & (BUFFER_SIZE - 1));
+            final @Nullable LogRecord record = buffer.get(index);
+            if (record == null) {
+                // Either the buffer is empty, or the next slot has been claimed but not published yet
+                return records;
+            }
+            buffer.set(index, null);
+            sequence++;
+            readSequence.set(sequence);
+            records.add(record);
+        }
+    }
+
+    /**
+     * Write all waiting records to the database in a single transaction, and trim the log if it
+     * has become too large.
+     */
+    private void flushImpl() {
+        synchronized (flushLock) {
+            final List<LogRecord> records = drain();
+            int length = 0;
+            for (final LogRecord record: records) {
+                length += record.length;
+            }
+            pendingLength.addAndGet(-length);
+
+            final int dropped = numDropped.getAndSet(0);
+            if (dropped > 0) {
+                final String message = String.format(Locale.ROOT, "Log buffer overflow: %d records dropped", dropped);
+                final LogRecord record = new LogRecord();
+                record.timestamp = System.currentTimeMillis();
+                record.tag = getSimpleClassName(getClass());
+                record.message = message;
+                record.length = message.length();
+                records.add(record);
+                length += record.length;
+            }
+
+            if (records.isEmpty()) {
+                return;
+            }
+            db.logRecordDao().insertAll(records);
+            if (mark >= 0) {
+                mark += length;
+            }
+            trimImpl();
+        }
+    }
+
+    /**
+     * The main loop of the flusher thread. When the buffer is empty, it waits for the first record
+     * to arrive. Then it gives the batch one flush interval to fill up before writing it.
+     */
+    private void runFlusher() {
+        //noinspection InfiniteLoopStatement
+        while (true) {
+            if (readSequence.get() == writeSequence.get()) {
+                LockSupport.park(this);
+            }
+            else {
+                LockSupport.parkNanos(this, FLUSH_INTERVAL_NANOS);
+            }
+            try {
+                flushImpl();
+            } catch (final Exception e) {
+                Log.e("CircularLogFile", "Exception while writing log records", e);
+            }
+        }
+    }
+
+    /**
+     * Write any records still waiting in the buffer to the database now, on the calling thread.
+     */
+    public static void flush() {
+        if (instance != null) {
+            instance.flushImpl();
         }
     }
 
@@ -309,6 +471,7 @@ public final class DbLogger {
             }
 
             try {
+                db.propertiesDao().flush();
                 for (final Property property: db.propertiesDao().getAll()) {
                     logDebug(getClass(), "Property: %s=%s", property.name, property.value);
                 }
@@ -316,31 +479,40 @@ public final class DbLogger {
                 Log.e(getSimpleClassName(getClass()), "Error uploading debug log", e);
             }
 
-            final URL url = new URL("https://supreme-indifference.com/debug-upload/");
-            final HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setRequestProperty("Content-Type", "application/octet-stream");
-            connection.setRequestProperty("User-Agent", Identification.APP_NAME_UA + "/" + BuildConfig.VERSION_NAME);
-            connection.setRequestMethod("POST");
-            connection.setDoInput(true);
-            connection.setDoOutput(true);
-            connection.setAllowUserInteraction(false);
-            connection.setConnectTimeout((int) (10 * SECOND));
-            connection.setReadTimeout((int) MINUTE);
-            final OutputStream os = connection.getOutputStream();
-            final GZIPOutputStream zos = new GZIPOutputStream(os);
-            try {
-                writeLogContents(zos);
-                zos.flush();
-                os.flush();
-            }
-            finally {
-                zos.close();
-                os.close();
-            }
-            connection.getResponseCode();
-            connection.getHeaderFields();
-            try (final InputStream is = connection.getInputStream()) {
-                StreamUtil.slurp(is);
+            logDebug(getClass(), "API rate limiter: %s", RateLimiter.getInstance().getDiagnostics());
+            logDebug(getClass(), "Subject cache: %s", SubjectCache.getInstance().getDiagnostics());
+            logDebug(getClass(), "Dashboard refresh: %s", DashboardRefresher.getInstance().getDiagnostics());
+            logDebug(getClass(), "Property store: %s", db.propertiesDao().getDiagnostics());
+            logDebug(getClass(), "Lanes: %s", LaneExecutor.getInstance().getDiagnostics());
+            logDebug(getClass(), "HTTP: %s", HttpStack.getInstance().getDiagnostics());
+            flushImpl();
+
+            final RequestBody requestBody = new RequestBody() {
+                @Override
+                public MediaType contentType() {
+                    return MediaType.get("application/octet-stream");
+                }
+
+                @Override
+                public void writeTo(final BufferedSink sink) throws IOException {
+                    final GZIPOutputStream zos = new GZIPOutputStream(sink.outputStream());
+                    writeLogContents(zos);
+                    zos.finish();
+                    zos.flush();
+                }
+            };
+            final Request request = new Request.Builder()
+                    .url("https://supreme-indifference.com/debug-upload/")
+                    .post(requestBody)
+                    .build();
+            try (final Response response = HttpStack.getInstance().getClient(HttpStack.Profile.UPLOAD).newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException(String.format(Locale.ROOT, "Upload failed: %d %s", response.code(), response.message()));
+                }
+                final @Nullable ResponseBody body = response.body();
+                if (body != null) {
+                    body.bytes();
+                }
             }
             return true;
         }
@@ -351,22 +523,31 @@ public final class DbLogger {
     }
 
     /**
-     * Remove old logging records from the database if it has become too large.
+     * Write any waiting records to the database, and remove old logging records from the database if it has become too large.
+     * Normally this is taken care of by the flusher, this is for housekeeping in case the flusher has fallen behind.
      */
     public static void trim() {
         if (instance != null) {
-            instance.trimImpl();
+            instance.flushImpl();
+            synchronized (instance.flushLock) {
+                instance.trimImpl();
+            }
         }
     }
 
+    /**
+     * Trim the log if it has grown beyond its maximum size. Since this is checked after every batch, the
+     * overshoot is small and each trim only removes a small slice of the oldest records. Must be called
+     * with flushLock held.
+     */
     private void trimImpl() {
         if (mark < 0) {
             mark = db.logRecordDao().getTotalSize();
         }
         if (mark > Constants.LOG_FILE_SIZE) {
-            final int excess = mark - Constants.LOG_FILE_SIZE / 2;
+            final int excess = mark - (Constants.LOG_FILE_SIZE - TRIM_SLACK);
             db.logRecordDao().deleteOldest(excess);
+            mark = db.logRecordDao().getTotalSize();
         }
-        mark = db.logRecordDao().getTotalSize();
     }
 }
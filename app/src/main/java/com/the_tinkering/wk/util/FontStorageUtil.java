@@ -18,10 +18,12 @@ package com.the_tinkering.wk.util;
 
 import android.content.Context;
 import android.graphics.Typeface;
+import android.os.Build;
 
 import androidx.core.content.ContextCompat;
 import androidx.core.content.res.ResourcesCompat;
 
+import com.the_tinkering.wk.BuildConfig;
 import com.the_tinkering.wk.R;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.model.TypefaceConfiguration;
@@ -35,11 +37,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import javax.annotation.Nullable;
 
 import static com.the_tinkering.wk.Constants.FONTS_DIRECTORY_NAME;
+import static com.the_tinkering.wk.Constants.FONT_COVERAGE_DIRECTORY_NAME;
+import static com.the_tinkering.wk.Constants.FONT_SIZE_NORMAL;
+import static java.util.Objects.requireNonNull;
 
 /**
  * Utility class for handling font files stored in local storage.
@@ -47,6 +53,8 @@ import static com.the_tinkering.wk.Constants.FONTS_DIRECTORY_NAME;
 public final class FontStorageUtil {
     private static final Logger LOGGER = Logger.get(FontStorageUtil.class);
 
+    private static final String BUILTIN_STAMP = "builtin";
+
     private static final Map<String, TypefaceConfiguration> CACHE = new HashMap<>();
 
     private FontStorageUtil() {
@@ -68,6 +76,34 @@ public final class FontStorageUtil {
         return new File(baseDirectory, fileName);
     }
 
+    /**
+     * Get the file where the glyph coverage index for a font is or would be stored.
+     *
+     * @param name the font ID
+     * @return the File instance for the index, may or may not exist yet
+     */
+    private static File getCoverageFile(final String name) {
+        final File fontsDirectory = requireNonNull(getFontFile(name).getParentFile());
+        return new File(new File(fontsDirectory, FONT_COVERAGE_DIRECTORY_NAME), name);
+    }
+
+    /**
+     * Create a typeface configuration, with a glyph coverage index that is persisted in local storage.
+     *
+     * @param name the font ID
+     * @param typeface the loaded typeface
+     * @param sourceStamp identification of the font source, to detect if the font has been changed since the index was saved
+     * @param paddingPercTop Padding at the top as a percentage
+     * @return the configuration
+     */
+    private static TypefaceConfiguration createConfiguration(final String name, final Typeface typeface,
+                                                             final String sourceStamp, final int paddingPercTop) {
+        final String stamp = String.format(Locale.ROOT, "%d %d %d %s",
+                BuildConfig.VERSION_CODE, Build.VERSION.SDK_INT, FONT_SIZE_NORMAL, sourceStamp);
+        final GlyphCoverage coverage = new GlyphCoverage(typeface, getCoverageFile(name), stamp);
+        return new TypefaceConfiguration(typeface, coverage, paddingPercTop, 0, 0, 0);
+    }
+
     /**
      * Make sure the base directory for font files exists in local storage.
      */
@@ -103,6 +139,7 @@ public final class FontStorageUtil {
      */
     public static void importFontFile(final InputStream source, final String fileName) throws IOException {
         assertBaseDirectoryExists();
+        deleteCoverageFile(fileName);
         try (final OutputStream os = new FileOutputStream(getFontFile(fileName))) {
             StreamUtil.pump(source, os);
         }
@@ -110,11 +147,30 @@ public final class FontStorageUtil {
 
     /**
      * Remove a font ID from the cache to prevent stale data from hanging around.
+     * This also discards the glyph coverage index for the font, since it may no longer
+     * match the font file.
      *
      * @param name the name to flush
      */
     public static void flushCache(final String name) {
-        CACHE.remove(name);
+        final @Nullable TypefaceConfiguration typefaceConfiguration = CACHE.remove(name);
+        if (typefaceConfiguration != null) {
+            typefaceConfiguration.getCoverage().discard();
+        }
+        deleteCoverageFile(name);
+    }
+
+    /**
+     * Delete the persisted glyph coverage index for a font, if there is one.
+     *
+     * @param name the font ID
+     */
+    private static void deleteCoverageFile(final String name) {
+        final File file = getCoverageFile(name);
+        if (file.exists()) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
     }
 
     /**
@@ -135,49 +191,49 @@ public final class FontStorageUtil {
                     case "2": {
                         final @Nullable Typeface typeface = ResourcesCompat.getFont(context, R.font.sawarabi_mincho_medium);
                         if (typeface != null) {
-                            CACHE.put(name, new TypefaceConfiguration(typeface));
+                            CACHE.put(name, createConfiguration(name, typeface, BUILTIN_STAMP, 0));
                         }
                         break;
                     }
                     case "3": {
                         final @Nullable Typeface typeface = ResourcesCompat.getFont(context, R.font.sawarabi_gothic_medium);
                         if (typeface != null) {
-                            CACHE.put(name, new TypefaceConfiguration(typeface));
+                            CACHE.put(name, createConfiguration(name, typeface, BUILTIN_STAMP, 0));
                         }
                         break;
                     }
                     case "4": {
                         final @Nullable Typeface typeface = ResourcesCompat.getFont(context, R.font.mplus_1p_regular);
                         if (typeface != null) {
-                            CACHE.put(name, new TypefaceConfiguration(typeface));
+                            CACHE.put(name, createConfiguration(name, typeface, BUILTIN_STAMP, 0));
                         }
                         break;
                     }
                     case "5": {
                         final @Nullable Typeface typeface = ResourcesCompat.getFont(context, R.font.kosugi_regular);
                         if (typeface != null) {
-                            CACHE.put(name, new TypefaceConfiguration(typeface));
+                            CACHE.put(name, createConfiguration(name, typeface, BUILTIN_STAMP, 0));
                         }
                         break;
                     }
                     case "6": {
                         final @Nullable Typeface typeface = ResourcesCompat.getFont(context, R.font.kosugi_maru_regular);
                         if (typeface != null) {
-                            CACHE.put(name, new TypefaceConfiguration(typeface));
+                            CACHE.put(name, createConfiguration(name, typeface, BUILTIN_STAMP, 0));
                         }
                         break;
                     }
                     case "7": {
                         final @Nullable Typeface typeface = ResourcesCompat.getFont(context, R.font.otsutomefont_ver3);
                         if (typeface != null) {
-                            CACHE.put(name, new TypefaceConfiguration(typeface, 15, 0, 0, 0));
+                            CACHE.put(name, createConfiguration(name, typeface, BUILTIN_STAMP, 15));
                         }
                         break;
                     }
                     case "8": {
                         final @Nullable Typeface typeface = ResourcesCompat.getFont(context, R.font.gochikakutto);
                         if (typeface != null) {
-                            CACHE.put(name, new TypefaceConfiguration(typeface));
+                            CACHE.put(name, createConfiguration(name, typeface, BUILTIN_STAMP, 0));
                         }
                         break;
                     }
@@ -188,7 +244,8 @@ public final class FontStorageUtil {
                             typeface = Typeface.createFromFile(fontFile);
                         }
                         if (typeface != null) {
-                            CACHE.put(name, new TypefaceConfiguration(typeface));
+                            final String stamp = String.format(Locale.ROOT, "%d %d", fontFile.length(), fontFile.lastModified());
+                            CACHE.put(name, createConfiguration(name, typeface, stamp, 0));
                         }
                         break;
                     }
@@ -246,5 +303,6 @@ public final class FontStorageUtil {
             //noinspection ResultOfMethodCallIgnored
             file.delete();
         }
+        deleteCoverageFile(name);
     }
 }
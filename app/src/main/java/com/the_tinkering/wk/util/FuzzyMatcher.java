@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import com.the_tinkering.wk.enums.CloseEnoughAction;
+import com.the_tinkering.wk.model.AnswerVerdict;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * A precompiled version of FuzzyMatching.matches() for a fixed set of accepted and rejected answers.
+ *
+ * <p>
+ *     The reference answers are cleaned up once, and grouped into buckets by length. When an answer
+ *     is checked, only the buckets whose typo lenience threshold can allow a match are looked at, and
+ *     the OSA distance is only computed as far as the threshold allows. The verdicts are exactly
+ *     the same as those of FuzzyMatching.matches() for the same input, including which accepted
+ *     answer is reported as the match if there is more than one equally good candidate.
+ * </p>
+ *
+ * <p>
+ *     Instances keep scratch buffers for the matching, so the matches() method is synchronized.
+ * </p>
+ */
+public final class FuzzyMatcher {
+    private final References accepted;
+    private final References rejected;
+    private final int[][] rows;
+    private char[] answerBuffer = new char[64];
+
+    /**
+     * The cleaned up reference answers for one side of the match, bucketed by length.
+     */
+    private static final class References {
+        private final String[] originals;
+        private final char[][] cleaned;
+        private final int[] order;
+        private final int[] bucketStart;
+        private final int maxLength;
+        private final int maxThreshold;
+        private int bestPosition = -1;
+
+        private References(final Iterable<String> references) {
+            final List<String> list = new ArrayList<>();
+            for (final String reference: references) {
+                list.add(reference);
+            }
+            final int size = list.size();
+            final char[][] forms = new char[size][];
+            int longest = 0;
+            int largestThreshold = 0;
+            for (int i=0; i<size; i++) {
+                forms[i] = FuzzyMatching.cleanString(list.get(i)).toCharArray();
+                longest = Math.max(longest, forms[i].length);
+                largestThreshold = Math.max(largestThreshold, FuzzyMatching.getThreshold(forms[i].length));
+            }
+            maxLength = longest;
+            maxThreshold = largestThreshold;
+
+            bucketStart = new int[longest + 2];
+            for (final char[] form: forms) {
+                bucketStart[form.length + 1]++;
+            }
+            for (int length=1; length<bucketStart.length; length++) {
+                bucketStart[length] += bucketStart[length-1];
+            }
+
+            originals = new String[size];
+            cleaned = new char[size][];
+            order = new int[size];
+            final int[] fill = new int[longest + 1];
+            for (int i=0; i<size; i++) {
+                final int length = forms[i].length;
+                final int position = bucketStart[length] + fill[length]++;
+                originals[position] = list.get(i);
+                cleaned[position] = forms[i];
+                order[position] = i;
+            }
+        }
+
+        /**
+         * Find the best matching reference for a cleaned up answer. If there are several equally good
+         * references, the one that came first in the original iteration order wins, like in FuzzyMatching.
+         * The position of the best reference is left in bestPosition.
+         *
+         * @param answer the cleaned up answer
+         * @param answerLength the length of the answer
+         * @param rows scratch space for the OSA computation
+         * @return the best score, or Integer.MAX_VALUE if no reference matched
+         */
+        private int findBest(final char[] answer, final int answerLength, final int[][] rows) {
+            int bestScore = Integer.MAX_VALUE;
+            bestPosition = -1;
+            final int from = Math.max(0, answerLength - maxThreshold);
+            final int to = Math.min(maxLength, answerLength + maxThreshold);
+            for (int length=from; length<=to; length++) {
+                final int threshold = FuzzyMatching.getThreshold(length);
+                if (Math.abs(answerLength - length) > threshold) {
+                    continue;
+                }
+                for (int position=bucketStart[length]; position<bucketStart[length+1]; position++) {
+                    final int score = OptimalStringAlignmentDistance.getBoundedDistance(
+                            answer, answerLength, cleaned[position], length, threshold, rows);
+                    if (score > threshold) {
+                        continue;
+                    }
+                    if (score < bestScore || score == bestScore && order[position] < order[bestPosition]) {
+                        bestScore = score;
+                        bestPosition = position;
+                    }
+                }
+            }
+            return bestScore;
+        }
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param accepted the good candidates, in the order that FuzzyMatching.matches() would see them
+     * @param rejected the bad candidates
+     */
+    public FuzzyMatcher(final Iterable<String> accepted, final Iterable<String> rejected) {
+        this.accepted = new References(accepted);
+        this.rejected = new References(rejected);
+        final int rowLength = Math.max(this.accepted.maxLength, this.rejected.maxLength) + 1;
+        rows = new int[][] {new int[rowLength], new int[rowLength], new int[rowLength]};
+    }
+
+    /**
+     * Match an answer against the accepted and rejected answers. See FuzzyMatching.matches().
+     *
+     * @param answer the answer to test
+     * @param closeEnoughAction what to do if the answer is not exactly correct but 'close enough'
+     * @return the verdict for this check
+     */
+    public synchronized AnswerVerdict matches(final String answer, final CloseEnoughAction closeEnoughAction) {
+        if (answerBuffer.length < answer.length()) {
+            answerBuffer = new char[answer.length()];
+        }
+        char[] cleanAnswer = answerBuffer;
+        int cleanLength = FuzzyMatching.cleanInto(answer, answerBuffer);
+        if (cleanLength < 0) {
+            cleanAnswer = FuzzyMatching.cleanString(answer).toCharArray();
+            cleanLength = cleanAnswer.length;
+        }
+
+        final int bestRejectedScore = rejected.findBest(cleanAnswer, cleanLength, rows);
+        final int bestAcceptedScore = accepted.findBest(cleanAnswer, cleanLength, rows);
+        final @Nullable String bestAcceptedAnswer =
+                accepted.bestPosition < 0 ? null : accepted.originals[accepted.bestPosition];
+
+        return FuzzyMatching.getVerdict(answer, bestAcceptedScore, bestRejectedScore, bestAcceptedAnswer, closeEnoughAction);
+    }
+}
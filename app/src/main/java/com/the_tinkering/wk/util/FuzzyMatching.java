@@ -614,7 +614,7 @@ public final class FuzzyMatching {
      * @param s the string to clean up
      * @return the cleaned up string
      */
-    private static String cleanString(final String s) {
+    static String cleanString(final String s) {
         final StringBuilder sb = new StringBuilder();
         int i = 0;
         while (i < s.length()) {
@@ -650,6 +650,61 @@ public final class FuzzyMatching {
         return sb.toString().toLowerCase(Locale.ENGLISH);
     }
 
+    /**
+     * Same as cleanString(), but writes the result into a caller-supplied buffer instead of
+     * allocating new strings.
+     *
+     * <p>
+     *     This doesn't handle the few characters where lower-casing a string is not the same as
+     *     lower-casing each character separately. If the string contains one of those, or if the
+     *     result doesn't fit in the buffer, this returns -1 and the caller should use cleanString() instead.
+     * </p>
+     *
+     * @param s the string to clean up
+     * @param buffer the buffer to write the result into
+     * @return the length of the cleaned up string, or -1 if it couldn't be produced
+     */
+    static int cleanInto(final CharSequence s, final char[] buffer) {
+        int length = 0;
+        int i = 0;
+        while (i < s.length()) {
+            final int cp = Character.codePointAt(s, i);
+            final int type = Character.getType(cp);
+            i += Character.charCount(cp);
+            if (type == 0 || type >= SPACE_SEPARATOR && type <= SURROGATE) {
+                if (length > 0 && buffer[length-1] != ' ') {
+                    if (length >= buffer.length) {
+                        return -1;
+                    }
+                    buffer[length++] = ' ';
+                }
+                continue;
+            }
+            final int replaced = type == DECIMAL_DIGIT_NUMBER || type >= DASH_PUNCTUATION ? cleanReplace(cp) : cp;
+            final int lower;
+            if (replaced < 0x80) {
+                lower = replaced >= 'A' && replaced <= 'Z' ? replaced + ('a' - 'A') : replaced;
+            }
+            else if (replaced == 0x130 || replaced == 0x3A3 || replaced >= 0x10000) {
+                return -1;
+            }
+            else {
+                lower = Character.toLowerCase(replaced);
+                if (lower >= 0x10000) {
+                    return -1;
+                }
+            }
+            if (length >= buffer.length) {
+                return -1;
+            }
+            buffer[length++] = (char) lower;
+        }
+        if (length > 0 && buffer[length-1] == ' ') {
+            length--;
+        }
+        return length;
+    }
+
     /**
      * Compare two strings and return their edit distance if that edit distance
      * is within the typo lenience threshold.
@@ -659,27 +714,32 @@ public final class FuzzyMatching {
      * @return the edit distance or Integer.MAX_VALUE if rejected
      */
     private static int getMatchScore(final CharSequence answer, final CharSequence reference) {
-        final int threshold;
-        switch (reference.length()) {
+        final int threshold = getThreshold(reference.length());
+        final int score = OptimalStringAlignmentDistance.getDistance(answer, reference);
+        return score <= threshold ? score : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Get the typo lenience threshold for a cleaned up reference answer of a given length.
+     *
+     * @param length the length of the reference answer
+     * @return the maximum edit distance that is still accepted as a match
+     */
+    static int getThreshold(final int length) {
+        switch (length) {
             case 1:
             case 2:
             case 3:
-                threshold = 0;
-                break;
+                return 0;
             case 4:
             case 5:
-                threshold = 1;
-                break;
+                return 1;
             case 6:
             case 7:
-                threshold = 2;
-                break;
+                return 2;
             default:
-                threshold = reference.length() / 7 + 2;
-                break;
+                return length / 7 + 2;
         }
-        final int score = OptimalStringAlignmentDistance.getDistance(answer, reference);
-        return score <= threshold ? score : Integer.MAX_VALUE;
     }
 
     /**
@@ -719,6 +779,21 @@ public final class FuzzyMatching {
             }
         }
 
+        return getVerdict(answer, bestAcceptedScore, bestRejectedScore, bestAcceptedAnswer, closeEnoughAction);
+    }
+
+    /**
+     * Turn the best scores found for an answer into a verdict.
+     *
+     * @param answer the answer that was tested
+     * @param bestAcceptedScore the best score among the good candidates, or Integer.MAX_VALUE if none matched
+     * @param bestRejectedScore the best score among the bad candidates, or Integer.MAX_VALUE if none matched
+     * @param bestAcceptedAnswer the good candidate with the best score
+     * @param closeEnoughAction what to do if the answer is not exactly correct but 'close enough'
+     * @return the verdict for this check
+     */
+    static AnswerVerdict getVerdict(final String answer, final int bestAcceptedScore, final int bestRejectedScore,
+                                    final @Nullable String bestAcceptedAnswer, final CloseEnoughAction closeEnoughAction) {
         switch (closeEnoughAction) {
             case SHAKE_AND_RETRY:
                 if (bestAcceptedScore < Integer.MAX_VALUE && bestAcceptedScore <= bestRejectedScore) {
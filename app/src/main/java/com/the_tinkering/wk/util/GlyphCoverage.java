@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import android.graphics.Typeface;
+
+import com.the_tinkering.wk.enums.ExecutionLane;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
+import static com.the_tinkering.wk.util.ObjectSupport.isEmpty;
+import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
+
+/**
+ * Index of which codepoints a typeface has a visible glyph for.
+ *
+ * <p>
+ *     Finding out if a typeface can display a character requires rendering it and comparing
+ *     the result with the typeface's 'missing glyph' rendering. This is done once per codepoint
+ *     per typeface, and the results are kept in a pair of bitsets. If the index has a file,
+ *     the results are also saved there in the background and loaded again when the app restarts,
+ *     as long as the stamp still matches. The stamp identifies the exact font and rendering
+ *     environment the results were computed for.
+ * </p>
+ */
+public final class GlyphCoverage {
+    private static final Logger LOGGER = Logger.get(GlyphCoverage.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final Typeface typeface;
+    private final @Nullable File file;
+    private final String stamp;
+    private final Object saveLock = new Object();
+    private final BitSet known = new BitSet();
+    private final BitSet present = new BitSet();
+    private @Nullable int[] tofuPixels = null;
+    private boolean loaded = false;
+    private boolean saveScheduled = false;
+    private boolean discarded = false;
+
+    /**
+     * The constructor.
+     *
+     * @param typeface the typeface this index is for
+     * @param file the file to persist the index in, or null to keep it in memory only
+     * @param stamp identification of the font that the persisted index must match to be used
+     */
+    public GlyphCoverage(final Typeface typeface, final @Nullable File file, final String stamp) {
+        this.typeface = typeface;
+        this.file = file;
+        this.stamp = stamp;
+    }
+
+    /**
+     * Determine if the typeface has non-empty glyphs for every character in s.
+     *
+     * @param s the text to be rendered
+     * @return true if it has
+     */
+    public boolean hasGlyphs(final @Nullable String s) {
+        if (isEmpty(s)) {
+            return true;
+        }
+        int i = 0;
+        while (i < s.length()) {
+            final int cp = s.codePointAt(i);
+            if (!hasGlyph(cp)) {
+                return false;
+            }
+            i += Character.charCount(cp);
+        }
+        return true;
+    }
+
+    /**
+     * Determine if the typeface has a non-empty glyph for a codepoint.
+     *
+     * @param cp the codepoint to test
+     * @return true if it has
+     */
+    public synchronized boolean hasGlyph(final int cp) {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+        if (known.get(cp)) {
+            return present.get(cp);
+        }
+
+        final boolean result;
+        try {
+            if (tofuPixels == null) {
+                tofuPixels = TextUtil.render(typeface, "\\uFFFE");
+            }
+            final int[] actualPixels = TextUtil.render(typeface, new String(Character.toChars(cp)));
+            result = !TextUtil.emptyPixels(actualPixels) && !Arrays.equals(actualPixels, tofuPixels);
+        }
+        catch (final Exception e) {
+            LOGGER.error(e, "Exception during hasGlyph");
+            return false;
+        }
+
+        known.set(cp);
+        present.set(cp, result);
+        scheduleSave();
+        return result;
+    }
+
+    /**
+     * Stop using the persisted index, and delete it. Called when the font is removed or replaced.
+     */
+    public void discard() {
+        synchronized (saveLock) {
+            discarded = true;
+            if (file != null && file.exists()) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+
+    private void load() {
+        if (file == null || !file.exists()) {
+            return;
+        }
+        try (final DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (is.readInt() != FORMAT_VERSION || !is.readUTF().equals(stamp)) {
+                return;
+            }
+            final long[] knownWords = new long[is.readInt()];
+            for (int i=0; i<knownWords.length; i++) {
+                knownWords[i] = is.readLong();
+            }
+            final long[] presentWords = new long[is.readInt()];
+            for (int i=0; i<presentWords.length; i++) {
+                presentWords[i] = is.readLong();
+            }
+            known.or(BitSet.valueOf(knownWords));
+            present.or(BitSet.valueOf(presentWords));
+        }
+        catch (final Exception e) {
+            LOGGER.error(e, "Exception loading glyph coverage for %s", file.getName());
+            known.clear();
+            present.clear();
+        }
+    }
+
+    private void scheduleSave() {
+        if (file == null || saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        runAsync(ExecutionLane.WRITE, this::save);
+    }
+
+    private void save() {
+        final long[] knownWords;
+        final long[] presentWords;
+        synchronized (this) {
+            saveScheduled = false;
+            knownWords = known.toLongArray();
+            presentWords = present.toLongArray();
+        }
+
+        synchronized (saveLock) {
+            if (discarded || file == null) {
+                return;
+            }
+            final @Nullable File directory = file.getParentFile();
+            if (directory != null && !directory.exists()) {
+                //noinspection ResultOfMethodCallIgnored
+                directory.mkdirs();
+            }
+            final File tempFile = new File(file.getPath() + ".tmp");
+            try (final DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                os.writeInt(FORMAT_VERSION);
+                os.writeUTF(stamp);
+                os.writeInt(knownWords.length);
+                for (final long word: knownWords) {
+                    os.writeLong(word);
+                }
+                os.writeInt(presentWords.length);
+                for (final long word: presentWords) {
+                    os.writeLong(word);
+                }
+            }
+            catch (final Exception e) {
+                LOGGER.error(e, "Exception saving glyph coverage for %s", file.getName());
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+                return;
+            }
+            if (file.exists()) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.renameTo(file);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import com.the_tinkering.wk.BuildConfig;
+import com.the_tinkering.wk.Constants;
+import com.the_tinkering.wk.GlobalSettings;
+import com.the_tinkering.wk.Identification;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * The HTTP stack that all network traffic of the app goes through.
+ *
+ * <p>
+ *     There is one base OkHttpClient, so all calls share one connection pool and dispatcher.
+ *     Connections are kept alive and reused, HTTP/2 is used where the server offers it, and
+ *     responses are transparently gzip-decoded. Each kind of traffic gets a client derived from
+ *     the base client with its own timeouts, see Profile. An interceptor adds the User-Agent
+ *     header to every request, and the authorization and revision headers to every request
+ *     for the WaniKani API host, so callers don't have to.
+ * </p>
+ *
+ * <p>
+ *     An event listener keeps per-endpoint statistics: the number of calls and failures, the
+ *     bytes sent and received on the wire, and the latencies. The endpoint is the method, host
+ *     and path, with IDs in the path folded together. The statistics are available via
+ *     getDiagnostics().
+ * </p>
+ *
+ * <p>
+ *     Apart from getInstance(), this class has no Android dependencies, so it can be tested on the JVM.
+ * </p>
+ */
+public final class HttpStack {
+    /**
+     * The host name of the WaniKani API.
+     */
+    public static final String API_HOST = "api.wanikani.com";
+
+    /**
+     * The maximum number of idle connections kept in the pool. Room for the audio download
+     * workers, plus one connection for each other kind of traffic.
+     */
+    public static final int MAX_IDLE_CONNECTIONS = AudioDownloader.MAX_IDLE_CONNECTIONS + 4;
+
+    /**
+     * The maximum number of endpoints to keep statistics for. Calls to further endpoints are
+     * counted under a catch-all endpoint for their host.
+     */
+    private static final int MAX_ENDPOINTS = 100;
+
+    private static @Nullable HttpStack instance = null;
+
+    private final OkHttpClient baseClient;
+    private final Map<Profile, OkHttpClient> clients = new EnumMap<>(Profile.class);
+    private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+
+    /**
+     * The kinds of traffic, each with their own timeouts.
+     */
+    public enum Profile {
+        /**
+         * WaniKani API calls.
+         */
+        API(10, 60, 60),
+
+        /**
+         * Audio downloads from the WaniKani CDN.
+         */
+        AUDIO(10, 60, 60),
+
+        /**
+         * Pitch info lookups on Weblio. These pages can be slow to generate.
+         */
+        WEBLIO(10, 90, 60),
+
+        /**
+         * Page fetches and form posts on the WaniKani web site.
+         */
+        WEB(10, 30, 30),
+
+        /**
+         * Debug log uploads. The request body can be large.
+         */
+        UPLOAD(10, 60, 120);
+
+        private final int connectTimeout;
+        private final int readTimeout;
+        private final int writeTimeout;
+
+        Profile(final int connectTimeout, final int readTimeout, final int writeTimeout) {
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+            this.writeTimeout = writeTimeout;
+        }
+    }
+
+    /**
+     * Source for the credentials to send to the WaniKani API.
+     */
+    public interface Credentials {
+        /**
+         * Get the API token to send, if any.
+         *
+         * @return the token or null if none is configured
+         */
+        @Nullable String getApiKey();
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param userAgent the User-Agent header to send with every request
+     * @param apiHost the host to send the WaniKani API headers to
+     * @param apiRevision the value of the Wanikani-Revision header
+     * @param credentials the source of the API token
+     */
+    public HttpStack(final String userAgent, final String apiHost, final String apiRevision, final Credentials credentials) {
+        baseClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, 5, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .addInterceptor(new HeaderInterceptor(userAgent, apiHost, apiRevision, credentials))
+                .eventListenerFactory(call -> new MetricsListener())
+                .build();
+    }
+
+    /**
+     * Get the shared instance.
+     *
+     * @return the instance
+     */
+    public static synchronized HttpStack getInstance() {
+        if (instance == null) {
+            instance = new HttpStack(Identification.APP_NAME_UA + "/" + BuildConfig.VERSION_NAME,
+                    API_HOST, Constants.API_VERSION, GlobalSettings.Api::getApiKey);
+        }
+        return instance;
+    }
+
+    /**
+     * Get the client for a kind of traffic. All clients share the same connection pool.
+     *
+     * @param profile the kind of traffic
+     * @return the client
+     */
+    public synchronized OkHttpClient getClient(final Profile profile) {
+        @Nullable OkHttpClient client = clients.get(profile);
+        if (client == null) {
+            client = baseClient.newBuilder()
+                    .connectTimeout(profile.connectTimeout, TimeUnit.SECONDS)
+                    .readTimeout(profile.readTimeout, TimeUnit.SECONDS)
+                    .writeTimeout(profile.writeTimeout, TimeUnit.SECONDS)
+                    .build();
+            clients.put(profile, client);
+        }
+        return client;
+    }
+
+    /**
+     * Get the statistics for one endpoint, for testing purposes.
+     *
+     * @param endpoint the endpoint, as reported by getEndpoint()
+     * @return the statistics, as a summary string, or null if no calls to the endpoint have been made
+     */
+    public synchronized @Nullable String getDiagnostics(final String endpoint) {
+        final @Nullable EndpointStats stats = endpoints.get(endpoint);
+        return stats == null ? null : stats.toString();
+    }
+
+    /**
+     * Get a summary of the per-endpoint statistics, for debugging purposes.
+     *
+     * @return the summary
+     */
+    public synchronized String getDiagnostics() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%d connections (%d idle)",
+                baseClient.connectionPool().connectionCount(), baseClient.connectionPool().idleConnectionCount()));
+        for (final Map.Entry<String, EndpointStats> entry: endpoints.entrySet()) {
+            sb.append("; ").append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get the endpoint a request is counted under in the statistics. Path segments that look like
+     * IDs, hashes or file names are replaced by '*', see isIdSegment(). The query string is dropped.
+     *
+     * @param method the HTTP method
+     * @param url the URL
+     * @return the endpoint
+     */
+    public static String getEndpoint(final String method, final HttpUrl url) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(method).append(' ').append(url.host());
+        for (final String segment: url.pathSegments()) {
+            sb.append('/').append(isIdSegment(segment) ? "*" : segment);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Does this path segment identify a specific resource, rather than an endpoint? That is the case if
+     * it starts with a digit, or if it is long and contains a digit somewhere.
+     *
+     * @param segment the path segment
+     * @return true if it does
+     */
+    private static boolean isIdSegment(final CharSequence segment) {
+        if (segment.length() == 0) {
+            return false;
+        }
+        if (Character.isDigit(segment.charAt(0))) {
+            return true;
+        }
+        if (segment.length() < 16) {
+            return false;
+        }
+        for (int i=0; i<segment.length(); i++) {
+            if (Character.isDigit(segment.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void record(final String endpoint, final String host, final boolean failed,
+                                     final long bytesSent, final long bytesReceived, final long headersNanos, final long totalNanos) {
+        @Nullable EndpointStats stats = endpoints.get(endpoint);
+        if (stats == null) {
+            final String key = endpoints.size() < MAX_ENDPOINTS ? endpoint : host + " (other)";
+            stats = endpoints.get(key);
+            if (stats == null) {
+                stats = new EndpointStats();
+                endpoints.put(key, stats);
+            }
+        }
+        stats.numCalls++;
+        if (failed) {
+            stats.numFailed++;
+        }
+        stats.bytesSent += bytesSent;
+        stats.bytesReceived += bytesReceived;
+        stats.totalHeadersTime += headersNanos;
+        stats.totalTime += totalNanos;
+        stats.maxTime = Math.max(stats.maxTime, totalNanos);
+    }
+
+    /**
+     * Accumulated statistics for one endpoint.
+     */
+    private static final class EndpointStats {
+        private int numCalls = 0;
+        private int numFailed = 0;
+        private long bytesSent = 0;
+        private long bytesReceived = 0;
+        private long totalHeadersTime = 0;
+        private long totalTime = 0;
+        private long maxTime = 0;
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d calls, %d failed, %d bytes sent, %d bytes received,"
+                            + " %d ms average to headers, %d ms average, %d ms max",
+                    numCalls, numFailed, bytesSent, bytesReceived,
+                    totalHeadersTime / numCalls / 1_000_000L, totalTime / numCalls / 1_000_000L, maxTime / 1_000_000L);
+        }
+    }
+
+    /**
+     * Interceptor that adds the common request headers.
+     */
+    private static final class HeaderInterceptor implements Interceptor {
+        private final String userAgent;
+        private final String apiHost;
+        private final String apiRevision;
+        private final Credentials credentials;
+
+        private HeaderInterceptor(final String userAgent, final String apiHost, final String apiRevision, final Credentials credentials) {
+            this.userAgent = userAgent;
+            this.apiHost = apiHost;
+            this.apiRevision = apiRevision;
+            this.credentials = credentials;
+        }
+
+        @Override
+        public Response intercept(final Chain chain) throws IOException {
+            final Request request = chain.request();
+            final Request.Builder builder = request.newBuilder();
+            if (request.header("User-Agent") == null) {
+                builder.header("User-Agent", userAgent);
+            }
+            if (request.url().host().equals(apiHost)) {
+                final @Nullable String apiKey = credentials.getApiKey();
+                if (request.header("Authorization") == null && apiKey != null) {
+                    builder.header("Authorization", "Bearer " + apiKey);
+                }
+                if (request.header("Wanikani-Revision") == null) {
+                    builder.header("Wanikani-Revision", apiRevision);
+                }
+            }
+            return chain.proceed(builder.build());
+        }
+    }
+
+    /**
+     * Event listener that measures a single call, and records the result when the call ends.
+     * The byte counts are what went over the wire, i.e. before gzip decoding.
+     */
+    private final class MetricsListener extends EventListener {
+        private long startTime = 0;
+        private long headersTime = 0;
+        private long bytesSent = 0;
+        private long bytesReceived = 0;
+
+        @Override
+        public void callStart(final Call call) {
+            startTime = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(final Call call, final long byteCount) {
+            bytesSent += byteCount;
+        }
+
+        @Override
+        public void responseHeadersEnd(final Call call, final Response response) {
+            if (headersTime == 0) {
+                headersTime = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void responseBodyEnd(final Call call, final long byteCount) {
+            bytesReceived += byteCount;
+        }
+
+        @Override
+        public void callEnd(final Call call) {
+            finish(call, false);
+        }
+
+        @Override
+        public void callFailed(final Call call, final IOException ioe) {
+            finish(call, true);
+        }
+
+        private void finish(final Call call, final boolean failed) {
+            final long now = System.nanoTime();
+            final Request request = call.request();
+            record(getEndpoint(request.method(), request.url()), request.url().host(), failed,
+                    bytesSent, bytesReceived, (headersTime == 0 ? now : headersTime) - startTime, now - startTime);
+        }
+    }
+}
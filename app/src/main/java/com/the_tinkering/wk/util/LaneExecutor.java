@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.the_tinkering.wk.enums.ExecutionLane;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+/**
+ * Executor for in-process background work, with a separate worker pool and queue for each
+ * ExecutionLane.
+ *
+ * <p>
+ *     Within a lane, tasks with a higher priority are started first, and tasks with the same
+ *     priority are started in submission order. A task can be tied to a lifecycle owner, in which
+ *     case it is cancelled if the owner is destroyed before the task has started. Tasks that have
+ *     started are never interrupted.
+ * </p>
+ *
+ * <p>
+ *     Each lane keeps statistics about its queue depth, queueing latency and run time, which are
+ *     available via getDiagnostics().
+ * </p>
+ */
+public final class LaneExecutor {
+    private static final Logger LOGGER = Logger.get(LaneExecutor.class);
+
+    /**
+     * Priority for regular tasks.
+     */
+    public static final int PRIORITY_NORMAL = 0;
+
+    /**
+     * Priority for tasks that should jump the queue of their lane.
+     */
+    public static final int PRIORITY_HIGH = 10;
+
+    private static final long KEEP_ALIVE_SECONDS = 10;
+    private static final LaneExecutor instance = new LaneExecutor();
+
+    private final Map<ExecutionLane, Lane> lanes = new EnumMap<>(ExecutionLane.class);
+    private final AtomicLong sequence = new AtomicLong(0);
+
+    /**
+     * Get the singleton instance.
+     *
+     * @return the instance
+     */
+    public static LaneExecutor getInstance() {
+        return instance;
+    }
+
+    private LaneExecutor() {
+        for (final ExecutionLane lane: ExecutionLane.values()) {
+            lanes.put(lane, new Lane(lane));
+        }
+    }
+
+    /**
+     * The worker pool, queue and statistics for one lane.
+     */
+    private static final class Lane {
+        private final ExecutionLane lane;
+        private final ThreadPoolExecutor executor;
+        private long numSubmitted = 0;
+        private long numCompleted = 0;
+        private long numCancelled = 0;
+        private int maxQueueDepth = 0;
+        private long totalWaitTime = 0;
+        private long maxWaitTime = 0;
+        private long totalRunTime = 0;
+
+        private Lane(final ExecutionLane lane) {
+            this.lane = lane;
+            final AtomicInteger count = new AtomicInteger(1);
+            executor = new ThreadPoolExecutor(lane.getMaxWorkers(), lane.getMaxWorkers(),
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+                    r -> new Thread(() -> {
+                        Process.setThreadPriority(lane.getThreadPriority());
+                        r.run();
+                    }, "Lane " + lane + " #" + count.getAndIncrement()));
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        private synchronized void onSubmitted(final int queueDepth) {
+            numSubmitted++;
+            if (queueDepth > maxQueueDepth) {
+                maxQueueDepth = queueDepth;
+            }
+        }
+
+        private synchronized void onCancelled() {
+            numCancelled++;
+        }
+
+        private synchronized void onCompleted(final long waitTime, final long runTime) {
+            numCompleted++;
+            totalWaitTime += waitTime;
+            if (waitTime > maxWaitTime) {
+                maxWaitTime = waitTime;
+            }
+            totalRunTime += runTime;
+        }
+
+        private synchronized String getDiagnostics() {
+            final long averageWait = numCompleted == 0 ? 0 : totalWaitTime / numCompleted;
+            final long averageRun = numCompleted == 0 ? 0 : totalRunTime / numCompleted;
+            return String.format(Locale.ROOT, "%s: %d submitted, %d completed, %d cancelled, %d queued (max %d),"
+                            + " %d ms average wait, %d ms max wait, %d ms average run",
+                    lane, numSubmitted, numCompleted, numCancelled, executor.getQueue().size(), maxQueueDepth,
+                    averageWait, maxWaitTime, averageRun);
+        }
+    }
+
+    /**
+     * A task submitted to a lane. The natural order puts the task that should start first at the head.
+     */
+    public static final class LaneTask implements Runnable, Comparable<LaneTask> {
+        private final Lane lane;
+        private final int priority;
+        private final long sequence;
+        private final long submitTime;
+        private final Runnable body;
+        private volatile boolean cancelled = false;
+        private volatile boolean started = false;
+        private @Nullable Runnable onDone = null;
+
+        private LaneTask(final Lane lane, final int priority, final long sequence, final Runnable body) {
+            this.lane = lane;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.body = body;
+            submitTime = System.nanoTime();
+        }
+
+        /**
+         * Cancel this task, if it hasn't started yet.
+         */
+        public void cancel() {
+            if (!started && !cancelled) {
+                cancelled = true;
+                if (lane.executor.remove(this)) {
+                    lane.onCancelled();
+                }
+            }
+        }
+
+        /**
+         * Has this task been cancelled before it could start?
+         *
+         * @return true if it has
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                lane.onCancelled();
+                return;
+            }
+            started = true;
+            final long start = System.nanoTime();
+            try {
+                body.run();
+            }
+            catch (final Exception e) {
+                LOGGER.uerr(e);
+            }
+            finally {
+                final long end = System.nanoTime();
+                lane.onCompleted((start - submitTime) / 1000000L, (end - start) / 1000000L);
+                if (onDone != null) {
+                    onDone.run();
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(final LaneTask o) {
+            if (priority != o.priority) {
+                return priority > o.priority ? -1 : 1;
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+
+        @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
+        @Override
+        public boolean equals(final @Nullable Object obj) {
+            return this == obj;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (sequence ^ (sequence >>> 32));
+        }
+    }
+
+    /**
+     * Submit a task to a lane.
+     *
+     * @param lane the lane to run the task in
+     * @param priority the priority of the task within the lane, higher is started earlier
+     * @param lifecycleOwner if not null, the task is cancelled if this owner is destroyed before the task starts
+     * @param body the task body
+     * @return the submitted task, which can be used to cancel it
+     */
+    public LaneTask submit(final ExecutionLane lane, final int priority, final @Nullable LifecycleOwner lifecycleOwner,
+                           final Runnable body) {
+        final Lane theLane = lanes.get(lane);
+        if (theLane == null) {
+            throw new IllegalArgumentException("Unknown lane: " + lane);
+        }
+        final LaneTask task = new LaneTask(theLane, priority, sequence.getAndIncrement(), body);
+
+        if (lifecycleOwner != null && Looper.myLooper() == Looper.getMainLooper()) {
+            final Lifecycle lifecycle = lifecycleOwner.getLifecycle();
+            if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+                task.cancelled = true;
+                theLane.onCancelled();
+                return task;
+            }
+            final Handler handler = new Handler(Looper.getMainLooper());
+            final LifecycleEventObserver observer = (source, event) -> {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    task.cancel();
+                }
+            };
+            lifecycle.addObserver(observer);
+            task.onDone = () -> handler.post(() -> lifecycle.removeObserver(observer));
+        }
+
+        theLane.executor.execute(task);
+        theLane.onSubmitted(theLane.executor.getQueue().size());
+        return task;
+    }
+
+    /**
+     * Get a summary of the lane statistics, for debugging purposes.
+     *
+     * @return the summary
+     */
+    public String getDiagnostics() {
+        final StringBuilder sb = new StringBuilder();
+        for (final Lane lane: lanes.values()) {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append(lane.getDiagnostics());
+        }
+        return sb.toString();
+    }
+}
@@ -21,6 +21,8 @@ import android.annotation.SuppressLint;
 import androidx.lifecycle.Lifecycle;
 import androidx.lifecycle.LifecycleOwner;
 
+import com.the_tinkering.wk.enums.ExecutionLane;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -344,7 +346,8 @@ public final class ObjectSupport {
     }
 
     /**
-     * Run an AsyncTask with the supplied handler bodies.
+     * Run an AsyncTask with the supplied handler bodies in the write lane, since the background work
+     * usually changes the database, and must not run concurrently with other writers.
      * Only call the progress and post callbacks if the supplied lifecycleowner is started or resumed.
      *
      * @param lifecycleOwner the lifecycle owner to check for callbacks
@@ -357,7 +360,7 @@ public final class ObjectSupport {
                                                            final Function<Consumer<Object[]>, Result> background,
                                                            final Consumer<Object[]> progress,
                                                            final Consumer<? super Result> post) {
-        new AsyncTask<Result>() {
+        new AsyncTask<Result>(ExecutionLane.WRITE) {
             @SuppressLint("NewApi")
             @Override
             public @Nullable Result doInBackground() {
@@ -388,6 +391,7 @@ public final class ObjectSupport {
 
     /**
      * Same as runAsyncWithProgress, but without the progress callback, and without a publisher parameter for the background worker.
+     * Like runAsyncWithProgress, this runs in the write lane, so tasks submitted this way are executed in submission order.
      *
      * @param lifecycleOwner the lifecycle owner to check for callbacks
      * @param background run on the background thread, returns a result
@@ -397,7 +401,43 @@ public final class ObjectSupport {
     public static <Result> void runAsync(final @Nullable LifecycleOwner lifecycleOwner,
                                          final NullableThrowingSupplier<Result> background,
                                          final Consumer<? super Result> post) {
-        new AsyncTask<Result>() {
+        runAsyncHelper(lifecycleOwner, ExecutionLane.WRITE, LaneExecutor.PRIORITY_NORMAL, false, background, post);
+    }
+
+    /**
+     * Same as runAsync, but for read-only background work whose only purpose is to produce a result
+     * for the lifecycle owner. This jumps the queue of the interactive lane, and is dropped if the owner
+     * is destroyed before it starts. Don't use this for anything that writes to the database.
+     *
+     * @param lifecycleOwner the lifecycle owner to check for callbacks
+     * @param background run on the background thread, returns a result
+     * @param post run on the UI thread to report the result
+     * @param <Result> the type of the result
+     */
+    public static <Result> void loadAsync(final LifecycleOwner lifecycleOwner,
+                                          final NullableThrowingSupplier<Result> background,
+                                          final Consumer<? super Result> post) {
+        runAsyncHelper(lifecycleOwner, ExecutionLane.INTERACTIVE, LaneExecutor.PRIORITY_HIGH, true, background, post);
+    }
+
+    /**
+     * Common implementation of runAsync and loadAsync.
+     *
+     * @param lifecycleOwner the lifecycle owner to check for callbacks
+     * @param lane the lane to run the task in
+     * @param priority the priority within the lane
+     * @param cancellable true if the task should be dropped if the owner is destroyed before it starts
+     * @param background run on the background thread, returns a result
+     * @param post run on the UI thread to report the result
+     * @param <Result> the type of the result
+     */
+    private static <Result> void runAsyncHelper(final @Nullable LifecycleOwner lifecycleOwner,
+                                                final ExecutionLane lane,
+                                                final int priority,
+                                                final boolean cancellable,
+                                                final NullableThrowingSupplier<Result> background,
+                                                final Consumer<? super Result> post) {
+        new AsyncTask<Result>(lane, priority, cancellable ? lifecycleOwner : null) {
             @Override
             public @Nullable Result doInBackground() {
                 return safeNullable(background);
@@ -423,11 +463,22 @@ public final class ObjectSupport {
 
     /**
      * Same as runAsyncWithProgress, but without the progress and result callbacks, and without a publisher parameter for the background worker.
+     * This runs in the write lane, so tasks submitted this way are executed in submission order.
      *
      * @param background run on the background thread
      */
     public static void runAsync(final ThrowingRunnable background) {
-        new AsyncTask<Void>() {
+        runAsync(ExecutionLane.WRITE, background);
+    }
+
+    /**
+     * Same as runAsync, but in a specific lane.
+     *
+     * @param lane the lane to run the task in
+     * @param background run on the background thread
+     */
+    public static void runAsync(final ExecutionLane lane, final ThrowingRunnable background) {
+        new AsyncTask<Void>(lane) {
             @Override
             public @Nullable Void doInBackground() {
                 safe(background);
@@ -65,4 +65,82 @@ public final class OptimalStringAlignmentDistance {
 
         return d[a.length()][b.length()];
     }
+
+    /**
+     * Get the edit distance between two strings, but only if it doesn't exceed a threshold.
+     *
+     * <p>
+     *     Only the diagonal band of the distance matrix that can contain a path within the threshold
+     *     is computed, and the computation stops as soon as no such path is possible anymore. The
+     *     rows array must contain three arrays of at least bLength+1 elements, which are used as
+     *     scratch space so this method doesn't need to allocate anything.
+     * </p>
+     *
+     * @param a one string
+     * @param aLength the number of characters of a to use
+     * @param b another string
+     * @param bLength the number of characters of b to use
+     * @param threshold the maximum distance that is of interest
+     * @param rows scratch space for the computation
+     * @return the edit distance between a and b according to OSA, or threshold+1 if the distance is larger than threshold
+     */
+    public static int getBoundedDistance(final char[] a, final int aLength, final char[] b, final int bLength,
+                                         final int threshold, final int[][] rows) {
+        final int outside = threshold + 1;
+        if (Math.abs(aLength - bLength) > threshold) {
+            return outside;
+        }
+        if (aLength == 0) {
+            return bLength;
+        }
+        if (bLength == 0) {
+            return aLength;
+        }
+
+        int[] older = rows[0];
+        int[] previous = rows[1];
+        int[] current = rows[2];
+
+        final int firstEnd = min(bLength, threshold);
+        for (int j=0; j<=firstEnd; j++) {
+            previous[j] = j;
+        }
+        if (firstEnd < bLength) {
+            previous[firstEnd+1] = outside;
+        }
+        int previousMin = 0;
+
+        for (int i=0; i<aLength; i++) {
+            final int row = i + 1;
+            final int start = Math.max(1, row - threshold);
+            final int end = min(bLength, row + threshold);
+            current[start-1] = start == 1 ? row : outside;
+            int currentMin = current[start-1];
+            for (int j=start-1; j<end; j++) {
+                final int cost = a[i] == b[j] ? 0 : 1;
+                int value = min(min(previous[j+1] + 1, current[j] + 1), previous[j] + cost);
+                if (i > 0 && j > 0 && a[i] == b[j-1] && a[i-1] == b[j]) {
+                    value = min(value, older[j-1] + cost);
+                }
+                current[j+1] = value;
+                if (value < currentMin) {
+                    currentMin = value;
+                }
+            }
+            if (end < bLength) {
+                current[end+1] = outside;
+            }
+            if (currentMin > threshold && previousMin > threshold) {
+                return outside;
+            }
+            previousMin = currentMin;
+
+            final int[] temp = older;
+            older = previous;
+            previous = current;
+            current = temp;
+        }
+
+        return min(previous[bLength], outside);
+    }
 }
@@ -33,7 +33,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.URL;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -46,10 +45,10 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
-import javax.net.ssl.HttpsURLConnection;
 
-import static com.the_tinkering.wk.Constants.MINUTE;
-import static com.the_tinkering.wk.Constants.SECOND;
+import okhttp3.Request;
+import okhttp3.Response;
+
 import static com.the_tinkering.wk.util.ObjectSupport.isEmpty;
 import static java.util.Objects.requireNonNull;
 
@@ -155,19 +154,18 @@ public final class PitchInfoUtil {
             final File file = getWeblioFile(characters);
             final File tempFile = getTempFile();
 
-            final URL url = new URL(urlString);
-            LOGGER.info("Weblio fetch for %s: %s", characters, url);
-            final HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setDoInput(true);
-            connection.setDoOutput(false);
-            connection.setAllowUserInteraction(false);
-            connection.setConnectTimeout((int) (10 * SECOND));
-            connection.setReadTimeout((int) MINUTE);
-            connection.setInstanceFollowRedirects(true);
-            connection.getHeaderFields();
-            try (final InputStream is = connection.getInputStream(); final OutputStream os = new FileOutputStream(tempFile)) {
-                StreamUtil.pump(is, os);
+            LOGGER.info("Weblio fetch for %s: %s", characters, urlString);
+            final Request request = new Request.Builder()
+                    .url(urlString)
+                    .get()
+                    .build();
+            try (final Response response = HttpStack.getInstance().getClient(HttpStack.Profile.WEBLIO).newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException(String.format(Locale.ROOT, "Weblio fetch failed: %d %s", response.code(), response.message()));
+                }
+                try (final InputStream is = requireNonNull(response.body()).byteStream(); final OutputStream os = new FileOutputStream(tempFile)) {
+                    StreamUtil.pump(is, os);
+                }
             }
             if (file.exists()) {
                 //noinspection ResultOfMethodCallIgnored
@@ -192,19 +190,16 @@ public final class PitchInfoUtil {
             final String urlString = "https://www.weblio.jp/content?query="
                     + URLEncoder.encode(TILDE_PATTERN.matcher(characters).replaceAll(""), "UTF-8");
 
-            final URL url = new URL(urlString);
-            LOGGER.info("Weblio fetch for %s: %s", characters, url);
-            final HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setDoInput(true);
-            connection.setDoOutput(false);
-            connection.setAllowUserInteraction(false);
-            connection.setConnectTimeout((int) (10 * SECOND));
-            connection.setReadTimeout((int) MINUTE);
-            connection.setInstanceFollowRedirects(true);
-            connection.getHeaderFields();
-            try (final InputStream is = connection.getInputStream()) {
-                final byte[] body = StreamUtil.slurp(is);
+            LOGGER.info("Weblio fetch for %s: %s", characters, urlString);
+            final Request request = new Request.Builder()
+                    .url(urlString)
+                    .get()
+                    .build();
+            try (final Response response = HttpStack.getInstance().getClient(HttpStack.Profile.WEBLIO).newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException(String.format(Locale.ROOT, "Weblio fetch failed: %d %s", response.code(), response.message()));
+                }
+                final byte[] body = requireNonNull(response.body()).bytes();
                 LOGGER.info("Weblio fetch done");
                 return new String(body, "UTF-8");
             }
@@ -17,14 +17,13 @@
 package com.the_tinkering.wk.util;
 
 import android.text.Editable;
-import android.text.InputFilter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
-import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import static com.the_tinkering.wk.util.ObjectSupport.orElse;
@@ -36,9 +35,11 @@ import static com.the_tinkering.wk.util.ObjectSupport.orElse;
  */
 public final class PseudoIme {
     private static final Map<String, String> KANA_MAP = new HashMap<>();
+    private static final RomajiConverter converter;
 
     static {
         fillKanaMap();
+        converter = new RomajiConverter(new RomajiConverter.Table(KANA_MAP));
     }
 
     private PseudoIme() {
@@ -391,63 +392,54 @@ public final class PseudoIme {
         }
     }
 
+    /**
+     * The romaji to kana table, for testing.
+     *
+     * @return the table, keyed by romaji sequence
+     */
+    static Map<String, String> getKanaMap() {
+        return Collections.unmodifiableMap(KANA_MAP);
+    }
+
     /**
      * Advance the IME processing. If any modifications are necessary,
      * they are applied to the Editable in place.
      *
+     * <p>
+     *     The text is converted in a separate buffer, and the result is written back to the
+     *     Editable with a single replace that only covers the part that actually changed, so
+     *     any text watchers are triggered at most once.
+     * </p>
+     *
      * @param s the Editable containing the input text
      * @param editStart the start of the latest change to process
      * @param editEnd the end of the latest change to process
      */
-    public static void fixup(final Editable s, final int editStart, final int editEnd) {
-        int start = editStart;
-        int end = editEnd;
-
-        while (start >= 0 && start < end) {
-            if (start > 0) {
-                final char c1 = s.charAt(start-1);
-                final char c2 = s.charAt(start);
-                if (c1 == 'n' && "aiueoyn ".indexOf(c2) < 0) {
-                    s.replace(start-1, start, "ん");
-                    continue;
-                }
-                if (c1 == c2 && "bcdfghjklmpqrstvwxz".indexOf(c1) >= 0) {
-                    s.replace(start-1, start, "っ");
-                    continue;
-                }
-            }
-
-            boolean found = false;
-            for (int i=start-3; i<=start; i++) {
-                if (i < 0) {
-                    continue;
-                }
-                final String key = s.subSequence(i, start+1).toString();
-                final @Nullable String replacement = KANA_MAP.get(key);
-                if (replacement != null) {
-                    s.replace(i, start+1, replacement);
-                    end -= start + 1 - i;
-                    end += replacement.length();
-                    if (end > s.length()) {
-                        end = s.length();
-                    }
-                    start = i + replacement.length();
-                    found = true;
-                    break;
-                }
-            }
-            if (found) {
-                continue;
-            }
+    public static synchronized void fixup(final Editable s, final int editStart, final int editEnd) {
+        final int length = s.length();
+        final int end = Math.min(editEnd, length);
+        if (editStart < 0 || editStart >= end) {
+            return;
+        }
 
-            if (Character.isWhitespace(s.charAt(start))) {
-                s.delete(start, start+1);
-                end--;
-                continue;
-            }
+        converter.reset(s, 0, editStart);
+        converter.feed(s, editStart, end);
+        converter.append(s, end, length);
 
-            start++;
+        int prefix = 0;
+        final int maxPrefix = Math.min(length, converter.length());
+        while (prefix < maxPrefix && s.charAt(prefix) == converter.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix == length && prefix == converter.length()) {
+            return;
         }
+        int suffix = 0;
+        final int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && s.charAt(length-1-suffix) == converter.charAt(converter.length()-1-suffix)) {
+            suffix++;
+        }
+        s.replace(prefix, length - suffix, converter.subSequence(prefix, converter.length() - suffix));
     }
 
     /**
@@ -456,13 +448,11 @@ public final class PseudoIme {
      * @param input the input to simulate
      * @return the transformed text
      */
-    public static String simulateInput(final String input) {
-        final Editable editable = new DummyEditable(input);
-        fixup(editable, 0, input.length());
-        if (editable.charAt(editable.length()-1) == 'n') {
-            editable.replace(editable.length()-1, editable.length(), "ん");
-        }
-        return editable.toString();
+    public static synchronized String simulateInput(final String input) {
+        converter.reset(input, 0, 0);
+        converter.feed(input, 0, input.length());
+        converter.finish();
+        return converter.toString();
     }
 
     /**
@@ -485,146 +475,4 @@ public final class PseudoIme {
         }
         return sb.toString();
     }
-
-    /**
-     * A dummy implementation of Editable that is just capable enough for the fixup() method.
-      */
-    private static final class DummyEditable implements Editable {
-        /**
-         * The current contents of the editable.
-         */
-        private String value;
-
-        /**
-         * The constructor.
-         *
-         * @param value initial value for the editable
-         */
-        DummyEditable(final String value) {
-            this.value = value;
-        }
-
-        @Override
-        public @Nonnull Editable replace(final int st, final int en, final CharSequence source, final int start, final int end) {
-            value = value.substring(0, st) + source.subSequence(start, end) + value.substring(en);
-            return this;
-        }
-
-        @Override
-        public Editable replace(final int st, final int en, final CharSequence text) {
-            return replace(st, en, text, 0, text.length());
-        }
-
-        @Override
-        public Editable insert(final int where, final CharSequence text, final int start, final int end) {
-            return replace(where, where, text, start, end);
-        }
-
-        @Override
-        public Editable insert(final int where, final CharSequence text) {
-            return replace(where, where, text, 0, text.length());
-        }
-
-        @Override
-        public Editable delete(final int st, final int en) {
-            return replace(st, en, "", 0, 0);
-        }
-
-        @Override
-        public @Nonnull Editable append(final @Nonnull CharSequence text) {
-            return replace(length(), length(), text, 0, text.length());
-        }
-
-        @Override
-        public @Nonnull Editable append(final @Nonnull CharSequence text, final int start, final int end) {
-            return replace(length(), length(), text, start, end);
-        }
-
-        @Override
-        public @Nonnull Editable append(final char text) {
-            return append(String.valueOf(text));
-        }
-
-        @Override
-        public void clear() {
-            value = "";
-        }
-
-        @Override
-        public void clearSpans() {
-            //
-        }
-
-        @Override
-        public void setFilters(final InputFilter[] filters) {
-            //
-        }
-
-        @Override
-        public InputFilter[] getFilters() {
-            return new InputFilter[0];
-        }
-
-        @Override
-        public void getChars(final int start, final int end, final char[] dest, final int destoff) {
-            //
-        }
-
-        @Override
-        public void setSpan(final Object what, final int start, final int end, final int flags) {
-            //
-        }
-
-        @Override
-        public void removeSpan(final Object what) {
-            //
-        }
-
-        @SuppressWarnings("RedundantSuppression")
-        @Override
-        public <T> T[] getSpans(final int start, final int end, final Class<T> type) {
-            //noinspection ConstantConditions,ReturnOfNull
-            return null;
-        }
-
-        @Override
-        public int getSpanStart(final Object tag) {
-            return 0;
-        }
-
-        @Override
-        public int getSpanEnd(final Object tag) {
-            return 0;
-        }
-
-        @Override
-        public int getSpanFlags(final Object tag) {
-            return 0;
-        }
-
-        @Override
-        public int nextSpanTransition(final int start, final int limit, final Class type) {
-            return limit;
-        }
-
-        @Override
-        public int length() {
-            return value.length();
-        }
-
-        @Override
-        public char charAt(final int index) {
-            return value.charAt(index);
-        }
-
-        @Override
-        public CharSequence subSequence(final int start, final int end) {
-            return value.subSequence(start, end);
-        }
-
-        @Override
-        public @Nonnull String toString() {
-            return value;
-        }
-    }
 }
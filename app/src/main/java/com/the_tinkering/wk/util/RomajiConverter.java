@@ -0,0 +1,265 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Streaming Romaji to Kana conversion engine for the PseudoIme.
+ *
+ * <p>
+ *     Characters are fed in one at a time, and each one is processed as soon as it arrives,
+ *     the same way the IME processes a keystroke: an 'n' followed by a consonant becomes 'ん',
+ *     a doubled consonant becomes 'っ', the longest romaji sequence ending at the new character
+ *     is replaced by its kana, and whitespace is dropped. The text is kept in an internal buffer
+ *     that is reused between conversions, so processing a character doesn't allocate anything.
+ * </p>
+ *
+ * <p>
+ *     The romaji sequences are looked up in a Table, which is a trie over the reversed romaji
+ *     keys. Walking it backwards from the latest character finds all sequences that end there
+ *     in one pass, without creating substrings.
+ * </p>
+ */
+public final class RomajiConverter implements CharSequence {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Table table;
+    private char[] buffer = new char[INITIAL_CAPACITY];
+    private int length = 0;
+
+    /**
+     * A compiled romaji to kana table.
+     */
+    public static final class Table {
+        private final char[] label;
+        private final int[] firstChild;
+        private final int[] nextSibling;
+        private final char[][] output;
+        private final int maxKeyLength;
+
+        /**
+         * Compile a table from a map of romaji sequences to their kana.
+         *
+         * @param map the map
+         */
+        public Table(final Map<String, String> map) {
+            int numNodes = 1;
+            for (final String key: map.keySet()) {
+                numNodes += key.length();
+            }
+            label = new char[numNodes];
+            firstChild = new int[numNodes];
+            nextSibling = new int[numNodes];
+            output = new char[numNodes][];
+            for (int i=0; i<numNodes; i++) {
+                firstChild[i] = -1;
+                nextSibling[i] = -1;
+            }
+
+            int used = 1;
+            int longest = 0;
+            for (final Map.Entry<String, String> entry: map.entrySet()) {
+                final String key = entry.getKey();
+                int node = 0;
+                for (int i=key.length()-1; i>=0; i--) {
+                    final char c = key.charAt(i);
+                    int child = findChild(node, c);
+                    if (child < 0) {
+                        child = used++;
+                        label[child] = c;
+                        nextSibling[child] = firstChild[node];
+                        firstChild[node] = child;
+                    }
+                    node = child;
+                }
+                output[node] = entry.getValue().toCharArray();
+                if (key.length() > longest) {
+                    longest = key.length();
+                }
+            }
+            maxKeyLength = longest;
+        }
+
+        private int findChild(final int node, final char c) {
+            int child = firstChild[node];
+            while (child >= 0 && label[child] != c) {
+                child = nextSibling[child];
+            }
+            return child;
+        }
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param table the table to use for the conversion
+     */
+    public RomajiConverter(final Table table) {
+        this.table = table;
+    }
+
+    /**
+     * Start a new conversion, with the buffer containing text that has already been processed.
+     *
+     * @param text the text
+     * @param start the start of the already processed text in text
+     * @param end the end of the already processed text in text
+     */
+    public void reset(final CharSequence text, final int start, final int end) {
+        length = 0;
+        append(text, start, end);
+    }
+
+    /**
+     * Append text to the buffer without processing it.
+     *
+     * @param text the text
+     * @param start the start of the range to append
+     * @param end the end of the range to append
+     */
+    public void append(final CharSequence text, final int start, final int end) {
+        ensureCapacity(length + end - start);
+        for (int i=start; i<end; i++) {
+            buffer[length++] = text.charAt(i);
+        }
+    }
+
+    /**
+     * Feed a range of characters to the converter, processing each in turn.
+     *
+     * @param text the text
+     * @param start the start of the range to feed
+     * @param end the end of the range to feed
+     */
+    public void feed(final CharSequence text, final int start, final int end) {
+        for (int i=start; i<end; i++) {
+            feed(text.charAt(i));
+        }
+    }
+
+    /**
+     * Feed one character to the converter and process it.
+     *
+     * @param c the character
+     */
+    public void feed(final char c) {
+        ensureCapacity(length + 1);
+        buffer[length++] = c;
+        final int pos = length - 1;
+
+        if (pos > 0) {
+            final char c1 = buffer[pos-1];
+            if (c1 == 'n' && !isKeptAfterN(c)) {
+                buffer[pos-1] = 'ん';
+            }
+            else if (c1 == c && isDoubledConsonant(c1)) {
+                buffer[pos-1] = 'っ';
+            }
+        }
+
+        int node = 0;
+        int matchLength = 0;
+        @Nullable char[] match = null;
+        for (int depth=0; depth<table.maxKeyLength && depth<=pos; depth++) {
+            node = table.findChild(node, buffer[pos-depth]);
+            if (node < 0) {
+                break;
+            }
+            if (table.output[node] != null) {
+                matchLength = depth + 1;
+                match = table.output[node];
+            }
+        }
+        if (match != null) {
+            length = pos + 1 - matchLength;
+            ensureCapacity(length + match.length);
+            System.arraycopy(match, 0, buffer, length, match.length);
+            length += match.length;
+            return;
+        }
+
+        if (Character.isWhitespace(c)) {
+            length--;
+        }
+    }
+
+    /**
+     * Finish the input, turning a trailing 'n' into 'ん'.
+     */
+    public void finish() {
+        if (length > 0 && buffer[length-1] == 'n') {
+            buffer[length-1] = 'ん';
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > buffer.length) {
+            final char[] newBuffer = new char[Math.max(capacity, buffer.length * 2)];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+    }
+
+    private static boolean isKeptAfterN(final char c) {
+        switch (c) {
+            case 'a':
+            case 'i':
+            case 'u':
+            case 'e':
+            case 'o':
+            case 'y':
+            case 'n':
+            case ' ':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isDoubledConsonant(final char c) {
+        return c >= 'b' && c <= 'z' && c != 'e' && c != 'i' && c != 'n' && c != 'o' && c != 'u' && c != 'y';
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException();
+        }
+        return buffer[index];
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException();
+        }
+        return new String(buffer, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+}
@@ -28,6 +28,7 @@ import com.the_tinkering.wk.api.model.Meaning;
 import com.the_tinkering.wk.api.model.Reading;
 import com.the_tinkering.wk.db.Converters;
 import com.the_tinkering.wk.db.model.Subject;
+import com.the_tinkering.wk.db.model.SubjectSearchEntityDefinition;
 import com.the_tinkering.wk.enums.SubjectType;
 import com.the_tinkering.wk.model.AdvancedSearchParameters;
 import com.the_tinkering.wk.model.SrsSystemRepository;
@@ -50,221 +51,359 @@ import static com.the_tinkering.wk.util.ObjectSupport.safe;
 
 /**
  * Utility methods for searching.
+ *
+ * <p>
+ *     Keyword searches go through the subject_search FTS4 table. On API 16 the only usable FTS tokenizer
+ *     is 'simple', which doesn't know about Japanese, so the text is tokenized here before it goes into
+ *     the index: Japanese characters become single-character tokens, everything else is split into
+ *     words of letters and digits. A Japanese search term then becomes a phrase query, which amounts to
+ *     a substring match, and other terms become prefix queries.
+ * </p>
+ *
+ * <p>
+ *     So for other text, a term only matches at the start of a word: 'rea' finds 'reason', but 'son'
+ *     doesn't. If the index has no hits at all, the search falls back to a substring match on the
+ *     index columns. That scans the whole table, but only for queries that would otherwise find nothing.
+ * </p>
  */
 public final class SearchUtil {
     private static final Logger LOGGER = Logger.get(SearchUtil.class);
     private static final Pattern TERM_PATTERN = Pattern.compile("[\\p{Z}\\s]");
-    private static final Pattern PERC_PATTERN = Pattern.compile("%");
-    private static final Pattern US_PATTERN = Pattern.compile("_");
+
+    /**
+     * The columns of the subject_search table, with the weight of a hit in each column for ranking.
+     */
+    private static final String[] SEARCH_COLUMNS = {"characters", "meanings", "readings", "synonyms", "mnemonics"};
+    private static final int[] SEARCH_COLUMN_WEIGHTS = {100, 30, 30, 3, 1};
 
     private SearchUtil() {
         //
     }
 
     /**
-     * Split a query into words suitable for searching in Java code.
+     * Is this code point a Japanese character that should be indexed as a token of its own?.
      *
-     * @param query the search query
-     * @return the list of words
+     * @param codePoint the code point
+     * @return true if it is
      */
-    private static List<String> splitTermsForJava(final CharSequence query) {
-        final String[] terms = TERM_PATTERN.split(query);
-        final List<String> result = new ArrayList<>();
-        for (final String term: terms) {
-            if (!isEmpty(term)) {
-                result.add(term.toUpperCase(Locale.ROOT));
+    private static boolean isJapanese(final int codePoint) {
+        final Character.UnicodeBlock block = Character.UnicodeBlock.of(codePoint);
+        return block == Character.UnicodeBlock.HIRAGANA
+                || block == Character.UnicodeBlock.KATAKANA
+                || block == Character.UnicodeBlock.KATAKANA_PHONETIC_EXTENSIONS
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_B
+                || block == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS;
+    }
+
+    /**
+     * Split text into tokens for the search index: each Japanese character is a token by itself,
+     * other runs of letters and digits form a token, and everything else is a separator. Tokens
+     * are lower-cased.
+     *
+     * @param text the text to split
+     * @param tokens the list to add the tokens to
+     */
+    private static void addTokens(final @Nullable CharSequence text, final List<String> tokens) {
+        if (isEmpty(text)) {
+            return;
+        }
+        final String s = text.toString().toLowerCase(Locale.ROOT);
+        final StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (i < s.length()) {
+            final int codePoint = s.codePointAt(i);
+            if (isJapanese(codePoint)) {
+                if (sb.length() > 0) {
+                    tokens.add(sb.toString());
+                    sb.setLength(0);
+                }
+                tokens.add(new String(Character.toChars(codePoint)));
+            }
+            else if (Character.isLetterOrDigit(codePoint)) {
+                sb.appendCodePoint(codePoint);
             }
+            else if (sb.length() > 0) {
+                tokens.add(sb.toString());
+                sb.setLength(0);
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (sb.length() > 0) {
+            tokens.add(sb.toString());
         }
-        return result;
     }
 
     /**
-     * Split a query into words suitable for searching in an SQL query.
+     * Tokenize one or more pieces of text for a column of the search index.
      *
-     * @param query the search query
-     * @return the list of words
+     * @param texts the text to tokenize, null or empty entries are skipped
+     * @return the tokens, separated by spaces
      */
-    private static List<String> splitTermsForSql(final CharSequence query) {
-        final String[] terms = TERM_PATTERN.split(query);
-        final List<String> result = new ArrayList<>();
-        for (final String term: terms) {
-            if (!isEmpty(term)) {
-                result.add(
-                        US_PATTERN.matcher(PERC_PATTERN.matcher(term).replaceAll("\\%")).replaceAll("\\_"));
-            }
+    private static String tokenize(final Iterable<? extends CharSequence> texts) {
+        final List<String> tokens = new ArrayList<>();
+        for (final CharSequence text: texts) {
+            addTokens(text, tokens);
         }
-        return result;
+        return join(" ", "", "", tokens);
     }
 
     /**
-     * Get a search ranking for a search term in a haystack of body text.
-     * This ranking reflects how well the term matches: number of times,
-     * whole word or partial, etc.
+     * Build a search index record from the parts of a subject.
      *
-     * @param haystack the body to search in
-     * @param term the term to search for
-     * @param weight the weight for this search, higher weight means hits in this haystack are more important
-     * @return the calculated score, higher means a better match
+     * @param id the subject ID
+     * @param characters the subject's characters
+     * @param slug the subject's slug
+     * @param meanings the subject's meanings
+     * @param auxiliaryMeanings the subject's auxiliary meanings
+     * @param readings the subject's readings
+     * @param synonyms the user's meaning synonyms
+     * @param mnemonics the mnemonics, hints, notes and parts of speech
+     * @param contextSentences the subject's context sentences
+     * @return the record
      */
-    private static int getRanking(final @Nullable String haystack, final String term, final int weight) {
-        if (isEmpty(haystack)) {
-            return 0;
+    private static SubjectSearchEntityDefinition buildSearchIndexEntry(final long id,
+                                                                       final @Nullable String characters,
+                                                                       final @Nullable String slug,
+                                                                       final Iterable<Meaning> meanings,
+                                                                       final Iterable<AuxiliaryMeaning> auxiliaryMeanings,
+                                                                       final Iterable<Reading> readings,
+                                                                       final Iterable<String> synonyms,
+                                                                       final Collection<String> mnemonics,
+                                                                       final Iterable<ContextSentence> contextSentences) {
+        final SubjectSearchEntityDefinition entry = new SubjectSearchEntityDefinition();
+        entry.id = id;
+
+        entry.characters = tokenize(Collections.singletonList(characters));
+
+        final Collection<String> meaningTexts = new ArrayList<>();
+        meaningTexts.add(slug);
+        for (final Meaning meaning: meanings) {
+            meaningTexts.add(meaning.getMeaning());
         }
+        for (final AuxiliaryMeaning meaning: auxiliaryMeanings) {
+            meaningTexts.add(meaning.getMeaning());
+        }
+        entry.meanings = tokenize(meaningTexts);
 
-        final String uHaystack = haystack.toUpperCase(Locale.ROOT);
+        final Collection<String> readingTexts = new ArrayList<>();
+        for (final Reading reading: readings) {
+            readingTexts.add(reading.getValue(false));
+        }
+        entry.readings = tokenize(readingTexts);
 
-        int base = 0;
-        int count = 0;
-        while (true) {
-            final int p = uHaystack.indexOf(term, base);
-            if (p < 0) {
-                return count * weight;
-            }
-            count++;
-            if (p == 0 || !Character.isLetterOrDigit(uHaystack.charAt(p-1))) {
-                count++;
-            }
-            if (p+term.length() >= uHaystack.length() || !Character.isLetterOrDigit(uHaystack.charAt(p+term.length()))) {
-                count++;
-            }
-            base = p + term.length();
+        entry.synonyms = tokenize(synonyms);
+
+        for (final ContextSentence sentence: contextSentences) {
+            mnemonics.add(sentence.getEnglish());
+            mnemonics.add(sentence.getJapanese());
         }
+        entry.mnemonics = tokenize(mnemonics);
+
+        return entry;
     }
 
     /**
-     * Get a search ranking: how many terms are hits in this subject,
-     * and how important are those hits?. The result is summarized as an int.
+     * Build the search index record for a subject.
      *
      * @param subject the subject
-     * @param terms the search query, split into words
-     * @return the ranking
+     * @return the record
      */
-    private static int getSearchRanking(final Subject subject, final Iterable<String> terms) {
-        int ranking = 0;
-
-        for (final String term: terms) {
-            ranking += getRanking(subject.getCharacters(), term, 100);
-            ranking += getRanking(subject.getSlug(), term, 10);
-            ranking += getRanking(subject.getMeaningMnemonic(), term, 1);
-            ranking += getRanking(subject.getMeaningHint(), term, 1);
-            ranking += getRanking(subject.getMeaningNote(), term, 1);
-            ranking += getRanking(subject.getReadingMnemonic(), term, 1);
-            ranking += getRanking(subject.getReadingHint(), term, 1);
-            ranking += getRanking(subject.getReadingNote(), term, 1);
-
-            ranking += getRanking(subject.getOneMeaning(), term, 100);
-
-            for (final Meaning meaning: subject.getMeanings()) {
-                ranking += getRanking(meaning.getMeaning(), term, 30);
-            }
-
-            for (final AuxiliaryMeaning meaning: subject.getAuxiliaryMeanings()) {
-                ranking += getRanking(meaning.getMeaning(), term, 30);
-            }
-
-            for (final Reading reading: subject.getReadings()) {
-                ranking += getRanking(reading.getValue(false), term, 30);
-            }
-
-            for (final String s: subject.getPartsOfSpeech()) {
-                ranking += getRanking(s, term, 1);
-            }
+    public static SubjectSearchEntityDefinition getSearchIndexEntry(final Subject subject) {
+        final Collection<String> mnemonics = new ArrayList<>();
+        mnemonics.add(subject.getMeaningMnemonic());
+        mnemonics.add(subject.getMeaningHint());
+        mnemonics.add(subject.getMeaningNote());
+        mnemonics.add(subject.getReadingMnemonic());
+        mnemonics.add(subject.getReadingHint());
+        mnemonics.add(subject.getReadingNote());
+        mnemonics.addAll(subject.getPartsOfSpeech());
+        return buildSearchIndexEntry(subject.getId(), subject.getCharacters(), subject.getSlug(),
+                subject.getMeanings(), subject.getAuxiliaryMeanings(), subject.getReadings(),
+                subject.getMeaningSynonyms(), mnemonics, subject.getContextSentences());
+    }
 
-            for (final ContextSentence sentence: subject.getContextSentences()) {
-                ranking += getRanking(sentence.getEnglish(), term, 1);
-                ranking += getRanking(sentence.getJapanese(), term, 1);
-            }
+    /**
+     * Build the search index record for a subject that has just been synced from the API. The subject data
+     * comes from the API instance, only the user's own study material data is taken from the database.
+     *
+     * @param apiSubject the API subject
+     * @param studyMaterial the subject as stored in the database, only the study material fields are used
+     * @return the record
+     */
+    public static SubjectSearchEntityDefinition getSearchIndexEntry(final ApiSubject apiSubject, final Subject studyMaterial) {
+        final Collection<String> mnemonics = new ArrayList<>();
+        mnemonics.add(apiSubject.getMeaningMnemonic());
+        mnemonics.add(apiSubject.getMeaningHint());
+        mnemonics.add(studyMaterial.getMeaningNote());
+        mnemonics.add(apiSubject.getReadingMnemonic());
+        mnemonics.add(apiSubject.getReadingHint());
+        mnemonics.add(studyMaterial.getReadingNote());
+        mnemonics.addAll(apiSubject.getPartsOfSpeech());
+        return buildSearchIndexEntry(apiSubject.getId(), apiSubject.getCharacters(), apiSubject.getSlug(),
+                apiSubject.getMeanings(), apiSubject.getAuxiliaryMeanings(), apiSubject.getReadings(),
+                studyMaterial.getMeaningSynonyms(), mnemonics, apiSubject.getContextSentences());
+    }
 
-            for (final String s: subject.getMeaningSynonyms()) {
-                ranking += getRanking(s, term, 3);
+    /**
+     * Split a query into search terms, each a list of tokens as they would appear in the search index.
+     * Terms without any tokens are left out.
+     *
+     * @param query the search query
+     * @return the list of terms
+     */
+    private static List<List<String>> getTermTokens(final CharSequence query) {
+        final List<List<String>> result = new ArrayList<>();
+        for (final String term: TERM_PATTERN.split(query)) {
+            final List<String> tokens = new ArrayList<>();
+            addTokens(term, tokens);
+            if (!tokens.isEmpty()) {
+                result.add(tokens);
             }
         }
-
-        return ranking;
+        return result;
     }
 
-    private static List<Subject> runQuery(final String sql, final String[] args) {
-        final SupportSQLiteQuery query = new SimpleSQLiteQuery(sql, args);
-        return WkApplication.getDatabase().subjectCollectionsDao().getSubjectsWithRawQuery(query);
+    /**
+     * Split a query into FTS match expressions, one per search term. A term is turned into a
+     * phrase of its tokens, with a prefix match on the last token unless it is a Japanese character.
+     * Since the tokens only contain letters and digits, there is no need for escaping.
+     *
+     * @param query the search query
+     * @return the list of match expressions
+     */
+    private static List<String> getMatchExpressions(final CharSequence query) {
+        final List<String> result = new ArrayList<>();
+        for (final List<String> tokens: getTermTokens(query)) {
+            final String lastToken = tokens.get(tokens.size() - 1);
+            final boolean prefix = !isJapanese(lastToken.codePointAt(0));
+            result.add(join(" ", "\"", prefix ? "*\"" : "\"", tokens));
+        }
+        return result;
     }
 
     /**
-     * Run a search query for subjects, for the search auto-complete.
+     * Run a keyword search query for subjects against the search index. The ranking is done in SQL: a
+     * hit for a term in a column adds that column's weight to the subject's score.
      *
      * @param query the query text
-     * @return the list of found subjects
+     * @param limit the maximum number of results, or 0 for no limit
+     * @return the list of found subjects, best match first
      */
-    public static List<Subject> searchSubjectSuggestions(final String query) {
-        if (query.trim().length() < 3) {
-            return Collections.emptyList();
-        }
-
-        final List<String> terms = splitTermsForSql(query);
-        if (terms.isEmpty()) {
+    private static List<Subject> searchSubjectsFullText(final CharSequence query, final int limit) {
+        final List<String> expressions = getMatchExpressions(query);
+        if (expressions.isEmpty()) {
             return Collections.emptyList();
         }
 
         final StringBuilder sb = new StringBuilder();
-        final String[] args = new String[terms.size()];
-        sb.append("SELECT * FROM subject WHERE hiddenAt=0 AND object IS NOT NULL");
-        int i = 0;
-        for (final String term: terms) {
-            sb.append(" AND smallSearchTarget LIKE ?");
-            args[i++] = "%" + term + "%";
-        }
-        sb.append(" LIMIT ").append(MAX_SEARCH_HITS);
-        List<Subject> subjects = runQuery(sb.toString(), args);
-
-        if (subjects.size() < MAX_SEARCH_HITS) {
-            final StringBuilder sb2 = new StringBuilder();
-            sb2.append("SELECT * FROM subject WHERE hiddenAt=0 AND object IS NOT NULL");
-            for (int j=0; j<terms.size(); j++) {
-                sb2.append(" AND searchTarget LIKE ?");
+        final List<String> args = new ArrayList<>();
+        sb.append("SELECT subject.* FROM subject JOIN (SELECT docid, SUM(weight) AS ranking FROM (");
+        boolean first = true;
+        for (final String expression: expressions) {
+            for (int i=0; i<SEARCH_COLUMNS.length; i++) {
+                if (!first) {
+                    sb.append(" UNION ALL ");
+                }
+                first = false;
+                sb.append("SELECT docid, ").append(SEARCH_COLUMN_WEIGHTS[i]).append(" AS weight FROM subject_search WHERE ");
+                sb.append(SEARCH_COLUMNS[i]).append(" MATCH ?");
+                args.add(expression);
             }
-            sb2.append(" LIMIT ").append(MAX_SEARCH_HITS);
-            subjects = runQuery(sb2.toString(), args);
         }
-
-        final List<String> javaTerms = splitTermsForJava(query);
-        for (final Subject subject: subjects) {
-            subject.setRanking(getSearchRanking(subject, javaTerms));
+        sb.append(") GROUP BY docid) AS hits ON hits.docid = subject.id");
+        sb.append(" WHERE subject.id IN (SELECT docid FROM subject_search WHERE subject_search MATCH ?)");
+        args.add(join(" ", "", "", expressions));
+        sb.append(" AND subject.hiddenAt = 0 AND subject.object IS NOT NULL");
+        sb.append(" ORDER BY hits.ranking DESC, subject.level, subject.lessonPosition, subject.id");
+        if (limit > 0) {
+            sb.append(" LIMIT ").append(limit);
         }
 
-        Collections.sort(subjects, (o1, o2) -> Integer.compare(o2.getRanking(), o1.getRanking()));
-
-        return subjects;
+        final SupportSQLiteQuery sqlQuery = new SimpleSQLiteQuery(sb.toString(), args.toArray());
+        return WkApplication.getDatabase().subjectCollectionsDao().getSubjectsWithRawQuery(sqlQuery);
     }
 
     /**
-     * Run a search query for subjects.
+     * Run a substring search query for subjects against the search index. This is the fallback for terms
+     * that don't match the start of a word. The columns of the index hold space-separated tokens, so
+     * a term's tokens joined by spaces can be matched as a plain substring. Tokens only contain letters
+     * and digits, so there is no need for escaping.
      *
      * @param query the query text
+     * @param limit the maximum number of results, or 0 for no limit
      * @return the list of found subjects
      */
-    private static List<Subject> searchSubjects(final CharSequence query) {
-        final List<String> terms = splitTermsForSql(query);
+    private static List<Subject> searchSubjectsSubstring(final CharSequence query, final int limit) {
+        final List<List<String>> terms = getTermTokens(query);
         if (terms.isEmpty()) {
             return Collections.emptyList();
         }
 
         final StringBuilder sb = new StringBuilder();
-        final String[] args = new String[terms.size()];
-        sb.append("SELECT * FROM subject WHERE hiddenAt=0 AND object IS NOT NULL");
-        int i = 0;
-        for (final String term: terms) {
-            sb.append(" AND searchTarget LIKE ?");
-            args[i++] = "%" + term + "%";
+        final List<String> args = new ArrayList<>();
+        sb.append("SELECT subject.* FROM subject JOIN subject_search ON subject_search.docid = subject.id");
+        sb.append(" WHERE subject.hiddenAt = 0 AND subject.object IS NOT NULL");
+        for (final List<String> tokens: terms) {
+            final String pattern = join(" ", "%", "%", tokens);
+            sb.append(" AND (");
+            for (int i=0; i<SEARCH_COLUMNS.length; i++) {
+                if (i > 0) {
+                    sb.append(" OR ");
+                }
+                sb.append("subject_search.").append(SEARCH_COLUMNS[i]).append(" LIKE ?");
+                args.add(pattern);
+            }
+            sb.append(")");
+        }
+        sb.append(" ORDER BY subject.level, subject.lessonPosition, subject.id");
+        if (limit > 0) {
+            sb.append(" LIMIT ").append(limit);
         }
-        final List<Subject> subjects = runQuery(sb.toString(), args);
 
-        final List<String> javaTerms = splitTermsForJava(query);
-        for (final Subject subject: subjects) {
-            subject.setRanking(getSearchRanking(subject, javaTerms));
+        final SupportSQLiteQuery sqlQuery = new SimpleSQLiteQuery(sb.toString(), args.toArray());
+        return WkApplication.getDatabase().subjectCollectionsDao().getSubjectsWithRawQuery(sqlQuery);
+    }
+
+    /**
+     * Run a keyword search query for subjects. The search index is used first, a substring match
+     * only if that finds nothing.
+     *
+     * @param query the query text
+     * @param limit the maximum number of results, or 0 for no limit
+     * @return the list of found subjects
+     */
+    private static List<Subject> searchSubjectsByKeyword(final CharSequence query, final int limit) {
+        final List<Subject> result = searchSubjectsFullText(query, limit);
+        if (!result.isEmpty()) {
+            return result;
         }
+        return searchSubjectsSubstring(query, limit);
+    }
 
-        Collections.sort(subjects, (o1, o2) -> Integer.compare(o2.getRanking(), o1.getRanking()));
+    /**
+     * Run a search query for subjects, for the search auto-complete.
+     *
+     * @param query the query text
+     * @return the list of found subjects
+     */
+    public static List<Subject> searchSubjectSuggestions(final String query) {
+        if (query.trim().length() < 3) {
+            return Collections.emptyList();
+        }
 
-        return subjects;
+        return searchSubjectsByKeyword(query, MAX_SEARCH_HITS);
+    }
+
+    /**
+     * Run a search query for subjects.
+     *
+     * @param query the query text
+     * @return the list of found subjects
+     */
+    private static List<Subject> searchSubjects(final CharSequence query) {
+        return searchSubjectsByKeyword(query, 0);
     }
 
     /**
@@ -418,87 +557,4 @@ public final class SearchUtil {
 
         return Collections.emptyList();
     }
-
-    /**
-     * Build a string field for the database that contains the searchable text for
-     * a subject.
-     *
-     * @param apiSubject the subject to examine
-     * @return a string with all searchable text for the subject
-     */
-    public static String findSearchTarget(final ApiSubject apiSubject) {
-        final Collection<String> result = new ArrayList<>();
-
-        if (!isEmpty(apiSubject.getCharacters())) {
-            result.add(apiSubject.getCharacters());
-        }
-        if (!isEmpty(apiSubject.getSlug())) {
-            result.add(apiSubject.getSlug());
-        }
-        if (!isEmpty(apiSubject.getMeaningMnemonic())) {
-            result.add(apiSubject.getMeaningMnemonic());
-        }
-        if (!isEmpty(apiSubject.getMeaningHint())) {
-            result.add(apiSubject.getMeaningHint());
-        }
-        if (!isEmpty(apiSubject.getReadingMnemonic())) {
-            result.add(apiSubject.getReadingMnemonic());
-        }
-        if (!isEmpty(apiSubject.getReadingHint())) {
-            result.add(apiSubject.getReadingHint());
-        }
-
-        for (final Meaning meaning: apiSubject.getMeanings()) {
-            result.add(meaning.getMeaning());
-        }
-
-        for (final AuxiliaryMeaning meaning: apiSubject.getAuxiliaryMeanings()) {
-            result.add(meaning.getMeaning());
-        }
-
-        for (final Reading reading: apiSubject.getReadings()) {
-            result.add(reading.getValue(false));
-        }
-
-        result.addAll(apiSubject.getPartsOfSpeech());
-
-        for (final ContextSentence sentence: apiSubject.getContextSentences()) {
-            result.add(sentence.getEnglish());
-            result.add(sentence.getJapanese());
-        }
-
-        return join(" ", "", "", result);
-    }
-
-    /**
-     * Build a string field for the database that contains the searchable text for
-     * a subject. This variant only includes the high-priority fields.
-     *
-     * @param apiSubject the subject to examine
-     * @return a string with all searchable text for the subject
-     */
-    public static String findSmallSearchTarget(final ApiSubject apiSubject) {
-        final Collection<String> result = new ArrayList<>();
-
-        if (!isEmpty(apiSubject.getCharacters())) {
-            result.add(apiSubject.getCharacters());
-        }
-        if (!isEmpty(apiSubject.getSlug())) {
-            result.add(apiSubject.getSlug());
-        }
-
-        for (final Meaning meaning: apiSubject.getMeanings()) {
-            result.add(meaning.getMeaning());
-        }
-
-        for (final AuxiliaryMeaning meaning: apiSubject.getAuxiliaryMeanings()) {
-            result.add(meaning.getMeaning());
-        }
-
-        for (final Reading reading: apiSubject.getReadings()) {
-            result.add(reading.getValue(false));
-        }
-
-        return join(" ", "", "", result);
-    }
 }
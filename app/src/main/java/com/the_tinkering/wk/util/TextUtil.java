@@ -40,10 +40,7 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
@@ -53,21 +50,12 @@ import static com.the_tinkering.wk.Constants.HOUR;
 import static com.the_tinkering.wk.Constants.MINUTE;
 import static com.the_tinkering.wk.Constants.SECOND;
 import static com.the_tinkering.wk.util.ObjectSupport.isEmpty;
-import static com.the_tinkering.wk.util.ObjectSupport.isTrue;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 
 /**
  * Utility class for dealing with text rendering.
  */
 public final class TextUtil {
-    private static final Logger LOGGER = Logger.get(TextUtil.class);
-
-    /**
-     * A map to indicate if a font can display the tile-like wavy line that some
-     * vocab subjects use.
-     */
-    private static final Map<Typeface, Boolean> TILDE_CAPABLE = new HashMap<>();
-
     private static final Pattern AMP_PATTERN = Pattern.compile("&");
     private static final Pattern LT_PATTERN = Pattern.compile("<");
     private static final Pattern GT_PATTERN = Pattern.compile(">");
@@ -76,42 +64,13 @@ public final class TextUtil {
         //
     }
 
-    /**
-     * Determine if the typeface has non-empty glyphs for every character in s.
-     *
-     * @param typeface the typeface to test
-     * @param s the text to be rendered
-     * @return true if it has
-     */
-    public static boolean hasGlyphs(final Typeface typeface, final @Nullable String s) {
-        if (isEmpty(s)) {
-            return true;
-        }
-        int i = 0;
-        while (i < s.length()) {
-            if (i < s.length() - 1 && Character.isHighSurrogate(s.charAt(i)) && Character.isLowSurrogate(s.charAt(i+1))) {
-                if (!hasGlyph(typeface, s.substring(i, i+2))) {
-                    return false;
-                }
-                i += 2;
-            }
-            else {
-                if (!hasGlyph(typeface, s.substring(i, i+1))) {
-                    return false;
-                }
-                i++;
-            }
-        }
-        return true;
-    }
-
     /**
      * Is the pixel array all empty or all filled?.
      *
      * @param pixels the pixels to test
      * @return true if it is
      */
-    private static boolean emptyPixels(final int[] pixels) {
+    static boolean emptyPixels(final int[] pixels) {
         boolean all0 = true;
         boolean all1 = true;
         for (final int i: pixels) {
@@ -125,25 +84,6 @@ public final class TextUtil {
         return all0 || all1;
     }
 
-    /**
-     * Determine if the typeface has a non-empty glyph for a character.
-     *
-     * @param typeface the typeface to test
-     * @param c the single-character string to test
-     * @return true if it has
-     */
-    private static boolean hasGlyph(final Typeface typeface, final String c) {
-        try {
-            final int[] tofuPixels = render(typeface, "\\uFFFE");
-            final int[] actualPixels = render(typeface, c);
-            return !emptyPixels(actualPixels) && !Arrays.equals(actualPixels, tofuPixels);
-        }
-        catch (final Exception e) {
-            LOGGER.error(e, "Exception during hasGlyph");
-            return false;
-        }
-    }
-
     @SuppressWarnings({"deprecation", "RedundantSuppression"})
     private static int[] renderPre23(final Typeface typeface, final String c) {
         final TextPaint textPaint = new TextPaint();
@@ -190,7 +130,7 @@ public final class TextUtil {
      * @param c the single-character string to render
      * @return the pixels
      */
-    private static int[] render(final Typeface typeface, final String c) {
+    static int[] render(final Typeface typeface, final String c) {
         //noinspection IfMayBeConditional
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             return renderPost23(typeface, c);
@@ -200,19 +140,6 @@ public final class TextUtil {
         }
     }
 
-    /**
-     * Can a typeface display the tile-like wavy line that some vocab subjects use.
-     *
-     * @param typeface the typeface to test
-     * @return true if it can
-     */
-    public static boolean isTildeCapable(final Typeface typeface) {
-        if (!TILDE_CAPABLE.containsKey(typeface)) {
-            TILDE_CAPABLE.put(typeface, hasGlyph(typeface, "〜"));
-        }
-        return isTrue(TILDE_CAPABLE.get(typeface));
-    }
-
     /**
      * Escape HTML in the text.
      *
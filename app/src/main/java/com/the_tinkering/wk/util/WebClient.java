@@ -16,9 +16,7 @@
 
 package com.the_tinkering.wk.util;
 
-import com.the_tinkering.wk.BuildConfig;
 import com.the_tinkering.wk.GlobalSettings;
-import com.the_tinkering.wk.Identification;
 import com.the_tinkering.wk.WkApplication;
 import com.the_tinkering.wk.db.AppDatabase;
 import com.the_tinkering.wk.db.model.Subject;
@@ -117,32 +115,36 @@ public final class WebClient {
         });
     }
 
+    /**
+     * Get the HTTP client for the web site. This is derived from the shared client, with the
+     * current default cookie handler attached.
+     *
+     * @return the client
+     */
+    private static OkHttpClient getClient() {
+        return HttpStack.getInstance().getClient(HttpStack.Profile.WEB).newBuilder()
+                .cookieJar(new JavaNetCookieJar(CookieHandler.getDefault()))
+                .build();
+    }
+
     private static @Nullable Response getUrl(final String url) {
         return safeNullable(() -> {
             LOGGER.info("Fetching: %s", url);
-            final OkHttpClient client = new OkHttpClient.Builder()
-                    .cookieJar(new JavaNetCookieJar(CookieHandler.getDefault()))
-                    .build();
             final Request request = new Request.Builder()
-                    .header("User-Agent", Identification.APP_NAME_UA + "/" + BuildConfig.VERSION_NAME)
                     .url(url)
                     .build();
-            return client.newCall(request).execute();
+            return getClient().newCall(request).execute();
         });
     }
 
     private static @Nullable Response postUrl(final String url, final RequestBody requestBody) {
         return safeNullable(() -> {
             LOGGER.info("Posting: %s", url);
-            final OkHttpClient client = new OkHttpClient.Builder()
-                    .cookieJar(new JavaNetCookieJar(CookieHandler.getDefault()))
-                    .build();
             final Request request = new Request.Builder()
-                    .header("User-Agent", Identification.APP_NAME_UA + "/" + BuildConfig.VERSION_NAME)
                     .url(url)
                     .post(requestBody)
                     .build();
-            return client.newCall(request).execute();
+            return getClient().newCall(request).execute();
         });
     }
 
@@ -41,7 +41,7 @@ import java.util.List;
 
 import javax.annotation.Nullable;
 
-import static com.the_tinkering.wk.util.ObjectSupport.runAsync;
+import static com.the_tinkering.wk.util.ObjectSupport.loadAsync;
 import static com.the_tinkering.wk.util.ObjectSupport.safe;
 
 /**
@@ -120,7 +120,7 @@ public final class SubjectGridView extends RigidGridLayout implements SubjectCha
         actmentRef = new WeakLcoRef<>(actment);
         currentSubjectIds = new ArrayList<>(subjectIds);
 
-        runAsync(actment,
+        loadAsync(actment,
                 () -> WkApplication.getDatabase().subjectCollectionsDao().getByIds(subjectIds),
                 result -> {
                     if (result != null) {
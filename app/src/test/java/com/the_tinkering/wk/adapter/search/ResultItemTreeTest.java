@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.adapter.search;
+
+import androidx.core.util.Consumer;
+
+import com.the_tinkering.wk.db.model.Subject;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the position index of the search result item tree.
+ */
+@SuppressWarnings("JavaDoc")
+public final class ResultItemTreeTest {
+    private static final int NUM_TOP_HEADERS = 10;
+    private static final int NUM_SUB_HEADERS = 10;
+    private static final int NUM_LEAVES = 100;
+
+    /**
+     * Leaf item that stands in for a subject.
+     */
+    private static final class LeafItem extends ResultItem {
+        @Override
+        protected int getCount() {
+            return 1;
+        }
+
+        @Override
+        protected @Nullable ResultItem getItem(final int position) {
+            return position == 0 ? this : null;
+        }
+
+        @Override
+        public int getViewType() {
+            return 1;
+        }
+
+        @Override
+        protected void iterateSubjects(final Consumer<? super Subject> consumer) {
+            //
+        }
+
+        @Override
+        public int getSpanSize(final int spans) {
+            return 1;
+        }
+    }
+
+    /**
+     * Plain header item.
+     */
+    private static final class TestHeaderItem extends HeaderItem {
+        private TestHeaderItem(final String tag) {
+            super(tag);
+        }
+
+        @Override
+        public int getViewType() {
+            return 2;
+        }
+
+        @Override
+        public int getSpanSize(final int spans) {
+            return spans;
+        }
+    }
+
+    private final RootItem root = new RootItem();
+    private final List<HeaderItem> headers = new ArrayList<>();
+
+    /**
+     * Build a two-level tree with 10,000 leaf items.
+     */
+    private void buildTree() {
+        for (int i=0; i<NUM_TOP_HEADERS; i++) {
+            final HeaderItem top = new TestHeaderItem(String.format(Locale.ROOT, "top%d", i));
+            root.addItem(top);
+            headers.add(top);
+            for (int j=0; j<NUM_SUB_HEADERS; j++) {
+                final HeaderItem sub = new TestHeaderItem(String.format(Locale.ROOT, "sub%d", j));
+                top.addItem(sub);
+                headers.add(sub);
+                for (int k=0; k<NUM_LEAVES; k++) {
+                    sub.addItem(new LeafItem());
+                }
+            }
+        }
+    }
+
+    /**
+     * Flatten the visible rows of the tree the slow way, as a reference.
+     */
+    private static void flatten(final ResultItem item, final List<ResultItem> result) {
+        if (item instanceof HeaderItem) {
+            result.add(item);
+            if (((HeaderItem) item).isCollapsed()) {
+                return;
+            }
+        }
+        if (item instanceof ContainerItem) {
+            for (final ResultItem child: ((ContainerItem) item).items) {
+                flatten(child, result);
+            }
+            return;
+        }
+        result.add(item);
+    }
+
+    private void assertMatchesReference() {
+        final List<ResultItem> expected = new ArrayList<>();
+        flatten(root, expected);
+        assertEquals(expected.size(), root.getCount());
+        for (int i=0; i<expected.size(); i++) {
+            assertSame(expected.get(i), root.getItem(i));
+        }
+        assertNull(root.getItem(-1));
+        assertNull(root.getItem(expected.size()));
+    }
+
+    @Test
+    public void testFullyExpanded() {
+        buildTree();
+        assertEquals(NUM_TOP_HEADERS * (1 + NUM_SUB_HEADERS * (1 + NUM_LEAVES)), root.getCount());
+        assertMatchesReference();
+    }
+
+    @Test
+    public void testCollapseAndExpand() {
+        buildTree();
+        final Random random = new Random(1234);
+        for (int i=0; i<200; i++) {
+            final HeaderItem header = headers.get(random.nextInt(headers.size()));
+            header.setCollapsed(!header.isCollapsed());
+            assertMatchesReference();
+        }
+    }
+
+    @Test
+    public void testAddAfterLookup() {
+        buildTree();
+        assertMatchesReference();
+        final HeaderItem sub = headers.get(1);
+        sub.setCollapsed(true);
+        sub.addItem(new LeafItem());
+        assertMatchesReference();
+        sub.setCollapsed(false);
+        assertMatchesReference();
+        root.clear();
+        assertEquals(0, root.getCount());
+        assertNull(root.getItem(0));
+    }
+
+    @Test
+    public void testScrollAfterToggles() {
+        buildTree();
+        final Random random = new Random(5678);
+        for (int pass=0; pass<20; pass++) {
+            final HeaderItem header = headers.get(random.nextInt(headers.size()));
+            header.setCollapsed(!header.isCollapsed());
+            final List<ResultItem> expected = new ArrayList<>();
+            flatten(root, expected);
+            for (int i=0; i<expected.size(); i++) {
+                // A RecyclerView asks for the count and the item itself for every row it binds
+                assertEquals(expected.size(), root.getCount());
+                assertSame(expected.get(i), root.getItem(i));
+            }
+        }
+    }
+}
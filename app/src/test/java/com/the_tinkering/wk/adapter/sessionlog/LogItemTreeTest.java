@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.adapter.sessionlog;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the position index of the session log item tree.
+ */
+@SuppressWarnings("JavaDoc")
+public final class LogItemTreeTest {
+    private static final int NUM_TOP_HEADERS = 10;
+    private static final int NUM_SUB_HEADERS = 10;
+    private static final int NUM_LEAVES = 100;
+
+    /**
+     * Leaf item that stands in for a session item or event.
+     */
+    private static final class LeafItem extends LogItem {
+        @Override
+        protected int getCount() {
+            return 1;
+        }
+
+        @Override
+        protected @Nullable LogItem getItem(final int position) {
+            return position == 0 ? this : null;
+        }
+
+        @Override
+        public int getViewType() {
+            return 1;
+        }
+
+        @Override
+        public int getSpanSize(final int spans) {
+            return 1;
+        }
+    }
+
+    /**
+     * Plain header item.
+     */
+    private static final class TestHeaderItem extends HeaderItem {
+        private TestHeaderItem(final String tag, final boolean collapsed) {
+            super(tag, collapsed);
+        }
+
+        @Override
+        public String getTitleText() {
+            return getTag();
+        }
+
+        @Override
+        public String getDetailsText() {
+            return "";
+        }
+    }
+
+    private final RootItem root = new RootItem();
+    private final List<HeaderItem> headers = new ArrayList<>();
+
+    /**
+     * Build a two-level tree with 10,000 leaf items, with some of the sub-headers initially collapsed.
+     */
+    private void buildTree() {
+        for (int i=0; i<NUM_TOP_HEADERS; i++) {
+            final HeaderItem top = new TestHeaderItem(String.format(Locale.ROOT, "top%d", i), false);
+            root.addItem(top);
+            headers.add(top);
+            for (int j=0; j<NUM_SUB_HEADERS; j++) {
+                final HeaderItem sub = new TestHeaderItem(String.format(Locale.ROOT, "sub%d", j), j % 3 == 0);
+                top.addItem(sub);
+                headers.add(sub);
+                for (int k=0; k<NUM_LEAVES; k++) {
+                    sub.addItem(new LeafItem());
+                }
+            }
+        }
+    }
+
+    /**
+     * Flatten the visible rows of the tree the slow way, as a reference.
+     */
+    private static void flatten(final LogItem item, final List<LogItem> result) {
+        if (item instanceof HeaderItem) {
+            result.add(item);
+            if (((HeaderItem) item).isCollapsed()) {
+                return;
+            }
+        }
+        if (item instanceof ContainerItem) {
+            for (final LogItem child: ((ContainerItem) item).items) {
+                flatten(child, result);
+            }
+            return;
+        }
+        result.add(item);
+    }
+
+    private void assertMatchesReference() {
+        final List<LogItem> expected = new ArrayList<>();
+        flatten(root, expected);
+        assertEquals(expected.size(), root.getCount());
+        for (int i=0; i<expected.size(); i++) {
+            assertSame(expected.get(i), root.getItem(i));
+        }
+        assertNull(root.getItem(-1));
+        assertNull(root.getItem(expected.size()));
+    }
+
+    @Test
+    public void testInitiallyCollapsed() {
+        buildTree();
+        final int numCollapsed = (NUM_SUB_HEADERS + 2) / 3;
+        assertEquals(NUM_TOP_HEADERS * (1 + NUM_SUB_HEADERS + (NUM_SUB_HEADERS - numCollapsed) * NUM_LEAVES), root.getCount());
+        assertMatchesReference();
+    }
+
+    @Test
+    public void testCollapseAndExpand() {
+        buildTree();
+        final Random random = new Random(1234);
+        for (int i=0; i<200; i++) {
+            final HeaderItem header = headers.get(random.nextInt(headers.size()));
+            header.setCollapsed(!header.isCollapsed());
+            assertMatchesReference();
+        }
+    }
+
+    @Test
+    public void testAddAfterLookup() {
+        buildTree();
+        assertMatchesReference();
+        final HeaderItem sub = headers.get(2);
+        sub.setCollapsed(true);
+        sub.addItem(new LeafItem());
+        assertMatchesReference();
+        sub.setCollapsed(false);
+        assertMatchesReference();
+        root.clear();
+        assertEquals(0, root.getCount());
+        assertNull(root.getItem(0));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.the_tinkering.wk.util.HttpStack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nullable;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the API cache validators, including a round trip against a local HTTP server
+ * that honors conditional requests.
+ */
+@SuppressWarnings("JavaDoc")
+public final class ApiValidatorsTest {
+    private static final long NOW = 1_600_000_000_000L;
+    private static final String ETAG = "W/\"5f3c2a9e1b\"";
+    private static final String LAST_MODIFIED = "Sun, 13 Sep 2020 12:26:40 GMT";
+
+    private final byte[] content = new byte[20000];
+    private @Nullable HttpServer server = null;
+
+    static {
+        // Without this, small responses on a kept-alive connection stall on delayed ACKs
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        Arrays.fill(content, (byte) 'x');
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final @Nullable String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+        if (ETAG.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, content.length);
+        try (final OutputStream os = exchange.getResponseBody()) {
+            os.write(content);
+        }
+    }
+
+    private String url(final String path) {
+        if (server == null) {
+            throw new IllegalStateException();
+        }
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        final ApiValidators validators = new ApiValidators(ETAG, LAST_MODIFIED, NOW);
+        final @Nullable ApiValidators decoded = ApiValidators.decode(validators.encode());
+        assertEquals(ETAG, requireNonNull(decoded).getEtag());
+        assertEquals(LAST_MODIFIED, decoded.getLastModified());
+        assertEquals(NOW, decoded.getReceivedAt());
+
+        final @Nullable ApiValidators partial = ApiValidators.decode(new ApiValidators(null, LAST_MODIFIED, NOW).encode());
+        assertNull(requireNonNull(partial).getEtag());
+        assertEquals(LAST_MODIFIED, partial.getLastModified());
+
+        assertNull(ApiValidators.decode(null));
+        assertNull(ApiValidators.decode(""));
+        assertNull(ApiValidators.decode("abc\netag\n"));
+        assertNull(ApiValidators.decode("123\netag"));
+    }
+
+    @Test
+    public void testUsable() {
+        final ApiValidators validators = new ApiValidators(ETAG, null, NOW);
+        assertTrue(validators.isUsable(NOW));
+        assertTrue(validators.isUsable(NOW + ApiValidators.MAX_AGE - 1));
+        assertFalse(validators.isUsable(NOW + ApiValidators.MAX_AGE));
+        // Clock was set back
+        assertFalse(validators.isUsable(NOW - 1));
+    }
+
+    @Test
+    public void testApply() {
+        final Request.Builder builder = new Request.Builder().url("https://api.wanikani.com/v2/user");
+        new ApiValidators(ETAG, LAST_MODIFIED, NOW).apply(builder);
+        final Request request = builder.build();
+        assertEquals(ETAG, request.header("If-None-Match"));
+        assertEquals(LAST_MODIFIED, request.header("If-Modified-Since"));
+
+        final Request.Builder builder2 = new Request.Builder().url("https://api.wanikani.com/v2/user");
+        new ApiValidators(ETAG, null, NOW).apply(builder2);
+        assertNull(builder2.build().header("If-Modified-Since"));
+    }
+
+    @Test
+    public void testConditionalRoundTrip() throws IOException {
+        final HttpStack stack = new HttpStack("test-agent/1.0", "localhost", "20170710", () -> "secret");
+        final OkHttpClient client = stack.getClient(HttpStack.Profile.API);
+
+        final @Nullable ApiValidators validators;
+        try (final Response response = client.newCall(new Request.Builder().url(url("/v2/summary")).build()).execute()) {
+            assertEquals(200, response.code());
+            assertEquals(content.length, requireNonNull(response.body()).bytes().length);
+            validators = ApiValidators.fromResponse(response, NOW);
+        }
+        assertEquals(ETAG, requireNonNull(validators).getEtag());
+        assertTrue(requireNonNull(stack.getDiagnostics("GET 127.0.0.1/v2/summary")).startsWith(
+                String.format(Locale.ROOT, "1 calls, 0 failed, 0 bytes sent, %d bytes received,", content.length)));
+
+        final Request.Builder builder = new Request.Builder().url(url("/v2/summary"));
+        requireNonNull(ApiValidators.decode(validators.encode())).apply(builder);
+        try (final Response response = client.newCall(builder.build()).execute()) {
+            assertEquals(304, response.code());
+            assertEquals(0, requireNonNull(response.body()).bytes().length);
+        }
+
+        assertTrue(requireNonNull(stack.getDiagnostics("GET 127.0.0.1/v2/summary")).startsWith(
+                String.format(Locale.ROOT, "2 calls, 0 failed, 0 bytes sent, %d bytes received,", content.length)));
+    }
+
+    @Test
+    public void testNoValidators() throws IOException {
+        final OkHttpClient client = new OkHttpClient.Builder().build();
+        try (final Response response = client.newCall(new Request.Builder().url(url("/v2/user")).build()).execute()) {
+            assertEquals(ETAG, requireNonNull(ApiValidators.fromResponse(response, NOW)).getEtag());
+        }
+        final Response response = new Response.Builder()
+                .request(new Request.Builder().url(url("/v2/user")).build())
+                .protocol(okhttp3.Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .build();
+        assertNull(ApiValidators.fromResponse(response, NOW));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the token bucket API rate limiter, driven by a fake clock.
+ */
+@SuppressWarnings("JavaDoc")
+public final class RateLimiterTest {
+    private static final long START = 1_600_000_000_000L;
+
+    /**
+     * A fake clock where sleeping simply advances the time.
+     */
+    private static final class FakeTimeSource implements RateLimiter.TimeSource {
+        private long now = START;
+        private long slept = 0;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public void sleep(final long ms) {
+            now += ms;
+            slept += ms;
+        }
+
+        private void advance(final long ms) {
+            now += ms;
+        }
+    }
+
+    @Test
+    public void testBurstDoesNotWait() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        for (int i=0; i<RateLimiter.BURST; i++) {
+            limiter.prepare();
+        }
+        assertEquals(0, clock.slept);
+        assertEquals(0, limiter.getNumWaits());
+        assertEquals(RateLimiter.BURST, limiter.getNumRequests());
+    }
+
+    @Test
+    public void testSteadyRateAfterBurst() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        for (int i=0; i<RateLimiter.BURST + 10; i++) {
+            limiter.prepare();
+        }
+        assertEquals(10 * RateLimiter.REFILL_INTERVAL, clock.slept);
+        assertEquals(10, limiter.getNumWaits());
+        assertEquals(10 * RateLimiter.REFILL_INTERVAL, limiter.getTotalWaitTime());
+    }
+
+    @Test
+    public void testSustainedSixtyPerMinute() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        int count = 0;
+        while (clock.now - START < 600_000) {
+            limiter.prepare();
+            if (clock.now - START < 600_000) {
+                count++;
+            }
+        }
+        assertTrue(count >= 600);
+        assertTrue(count <= 600 + RateLimiter.BURST);
+    }
+
+    @Test
+    public void testIdleRefillsUpToBurst() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        for (int i=0; i<RateLimiter.BURST; i++) {
+            limiter.prepare();
+        }
+        assertEquals(0, limiter.getAvailableTokens());
+        clock.advance(2 * RateLimiter.REFILL_INTERVAL + 10);
+        assertEquals(2, limiter.getAvailableTokens());
+        clock.advance(100 * RateLimiter.REFILL_INTERVAL);
+        assertEquals(RateLimiter.BURST, limiter.getAvailableTokens());
+    }
+
+    @Test
+    public void testRemainingHeaderClampsBucket() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        limiter.onResponse("2", Long.toString(START / 1000 + 30));
+        assertEquals(2, limiter.getAvailableTokens());
+        limiter.onResponse("50", Long.toString(START / 1000 + 30));
+        assertEquals(2, limiter.getAvailableTokens());
+    }
+
+    @Test
+    public void testExhaustedWindowBlocksUntilReset() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        limiter.onResponse("0", Long.toString(START / 1000 + 20));
+        limiter.prepare();
+        assertEquals(20_000, clock.slept);
+    }
+
+    @Test
+    public void testResetTooFarInTheFutureIsCapped() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        limiter.onResponse("0", Long.toString(START / 1000 + 3600));
+        limiter.prepare();
+        assertEquals(RateLimiter.MAX_PAUSE, clock.slept);
+    }
+
+    @Test
+    public void testMalformedHeadersAreIgnored() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        limiter.onResponse("lots", "soon");
+        limiter.onResponse(null, null);
+        assertEquals(RateLimiter.BURST, limiter.getAvailableTokens());
+    }
+
+    @Test
+    public void testTooManyRequestsHonoursRetryAfter() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        limiter.pause("12");
+        limiter.prepare();
+        assertEquals(12_000, clock.slept);
+        assertEquals(1, limiter.getNumTooManyRequests());
+    }
+
+    @Test
+    public void testTooManyRequestsWithoutRetryAfter() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        limiter.pause(null);
+        limiter.prepare();
+        assertEquals(RateLimiter.DEFAULT_PAUSE, clock.slept);
+    }
+
+    @Test
+    public void testClockGoingBackwards() {
+        final FakeTimeSource clock = new FakeTimeSource();
+        final RateLimiter limiter = new RateLimiter(clock);
+        for (int i=0; i<RateLimiter.BURST; i++) {
+            limiter.prepare();
+        }
+        clock.advance(-10_000);
+        limiter.prepare();
+        assertEquals(RateLimiter.REFILL_INTERVAL, clock.slept);
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.db;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the property store, including stress tests with many threads reading, writing and flushing.
+ */
+@SuppressWarnings("JavaDoc")
+public final class PropertyStoreTest {
+    private static final int NUM_THREADS = 8;
+    private static final int NUM_ITERATIONS = 5000;
+
+    /**
+     * A fake backend that keeps the persisted properties in a map.
+     */
+    private static final class FakeBackend implements PropertyStore.Backend {
+        private final Map<String, String> persisted = new HashMap<>();
+        private final AtomicInteger numLoads = new AtomicInteger();
+        private final AtomicInteger numWrites = new AtomicInteger();
+        private final List<Map<String, String>> batches = new ArrayList<>();
+        private final AtomicInteger numFailingLoads = new AtomicInteger();
+        private final AtomicInteger numFailingWrites = new AtomicInteger();
+        private final AtomicInteger numBackgroundLoads = new AtomicInteger();
+        private volatile @Nullable Thread restrictedThread = null;
+
+        @Override
+        public Map<String, String> loadAll() {
+            numLoads.incrementAndGet();
+            if (numFailingLoads.getAndDecrement() > 0) {
+                throw new IllegalStateException("Load failed");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (persisted) {
+                return new HashMap<>(persisted);
+            }
+        }
+
+        @Override
+        public boolean canLoadOnCurrentThread() {
+            return Thread.currentThread() != restrictedThread;
+        }
+
+        @Override
+        public void loadInBackground(final Runnable load) {
+            numBackgroundLoads.incrementAndGet();
+            new Thread(load).start();
+        }
+
+        @Override
+        public void write(final Map<String, String> changes) {
+            if (numFailingWrites.getAndDecrement() > 0) {
+                throw new IllegalStateException("Write failed");
+            }
+            numWrites.incrementAndGet();
+            synchronized (persisted) {
+                batches.add(new HashMap<>(changes));
+                for (final Map.Entry<String, String> entry: changes.entrySet()) {
+                    if (entry.getValue() == null) {
+                        persisted.remove(entry.getKey());
+                    }
+                    else {
+                        persisted.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private static void runThreads(final int numThreads, final ThreadBody body) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i=0; i<numThreads; i++) {
+            final int index = i;
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    body.run(index);
+                } catch (final Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (final Thread thread: threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int index) throws Exception;
+    }
+
+    @Test
+    public void testTypedReads() {
+        final FakeBackend backend = new FakeBackend();
+        backend.persisted.put("int", "42");
+        backend.persisted.put("long", "1600000000000");
+        backend.persisted.put("bool", "TRUE");
+        backend.persisted.put("bad", "x");
+        final PropertyStore store = new PropertyStore(backend, () -> {});
+
+        assertEquals(42, store.getInt("int"));
+        assertEquals(42, store.getInt("int"));
+        assertEquals(1600000000000L, store.getLong("long"));
+        assertTrue(store.getBoolean("bool"));
+        assertEquals("TRUE", store.getString("bool"));
+        assertEquals(0, store.getInt("bad"));
+        assertEquals(0, store.getLong("missing"));
+        assertFalse(store.getBoolean("missing"));
+        assertNull(store.getString("missing"));
+        assertEquals("42", store.getString("int"));
+        assertEquals(1, backend.numLoads.get());
+        assertFalse(store.hasPendingChanges());
+    }
+
+    @Test
+    public void testWritesAreCoalesced() {
+        final FakeBackend backend = new FakeBackend();
+        final AtomicInteger notifications = new AtomicInteger();
+        final PropertyStore store = new PropertyStore(backend, notifications::incrementAndGet);
+
+        for (int i=1; i<=100; i++) {
+            store.setInt("counter", i);
+            store.setBoolean("flag", i % 2 == 0);
+        }
+        store.setString("gone", "value");
+        store.delete("gone");
+        assertEquals(1, notifications.get());
+        assertEquals(100, store.getInt("counter"));
+
+        store.flush();
+        assertEquals(1, backend.numWrites.get());
+        assertEquals(3, backend.batches.get(0).size());
+        assertEquals("100", backend.persisted.get("counter"));
+        assertEquals("true", backend.persisted.get("flag"));
+        assertFalse(backend.persisted.containsKey("gone"));
+
+        store.flush();
+        assertEquals(1, backend.numWrites.get());
+
+        store.setInt("counter", 100);
+        assertFalse(store.hasPendingChanges());
+        store.setInt("counter", 101);
+        assertTrue(store.hasPendingChanges());
+        assertEquals(2, notifications.get());
+    }
+
+    @Test
+    public void testDeleteWithPrefix() {
+        final FakeBackend backend = new FakeBackend();
+        backend.persisted.put("api_validators:/v2/user", "1\na\n");
+        backend.persisted.put("api_validators:/v2/summary", "1\nb\n");
+        backend.persisted.put("api_key", "secret");
+        final PropertyStore store = new PropertyStore(backend, () -> {});
+        store.setString("api_validators:/v2/srs_systems", "1\nc\n");
+
+        store.deleteWithPrefix("api_validators:");
+        assertNull(store.getString("api_validators:/v2/user"));
+        assertNull(store.getString("api_validators:/v2/srs_systems"));
+        assertEquals("secret", store.getString("api_key"));
+
+        store.flush();
+        assertEquals(1, backend.persisted.size());
+        assertEquals("secret", backend.persisted.get("api_key"));
+    }
+
+    @Test
+    public void testConcurrentFirstAccessLoadsOnce() throws InterruptedException {
+        final FakeBackend backend = new FakeBackend();
+        backend.persisted.put("value", "7");
+        final PropertyStore store = new PropertyStore(backend, () -> {});
+        runThreads(NUM_THREADS, index -> assertEquals(7, store.getInt("value")));
+        assertEquals(1, backend.numLoads.get());
+    }
+
+    @Test
+    public void testConcurrentWritersAndReaders() throws InterruptedException {
+        final FakeBackend backend = new FakeBackend();
+        final PropertyStore store = new PropertyStore(backend, () -> {});
+        runThreads(NUM_THREADS, index -> {
+            final String ownKey = "thread_" + index;
+            for (int i=0; i<NUM_ITERATIONS; i++) {
+                store.setLong(ownKey, i);
+                assertEquals(i, store.getLong(ownKey));
+                store.setInt("shared", i);
+                final int shared = store.getInt("shared");
+                assertTrue(shared >= 0 && shared < NUM_ITERATIONS);
+                store.setBoolean("toggle", i % 2 == 0);
+                store.getBoolean("toggle");
+            }
+        });
+        store.flush();
+        for (int i=0; i<NUM_THREADS; i++) {
+            assertEquals(NUM_ITERATIONS - 1, store.getLong("thread_" + i));
+            assertEquals(Long.toString(NUM_ITERATIONS - 1), backend.persisted.get("thread_" + i));
+        }
+        assertEquals(store.getString("shared"), backend.persisted.get("shared"));
+        assertEquals(store.getString("toggle"), backend.persisted.get("toggle"));
+    }
+
+    @Test
+    public void testConcurrentWritersAndFlushers() throws InterruptedException {
+        final FakeBackend backend = new FakeBackend();
+        final AtomicInteger notifications = new AtomicInteger();
+        final PropertyStore store = new PropertyStore(backend, notifications::incrementAndGet);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final Thread flusher = new Thread(() -> {
+            while (!done.get()) {
+                store.flush();
+            }
+        });
+        flusher.start();
+        runThreads(NUM_THREADS, index -> {
+            for (int i=0; i<NUM_ITERATIONS; i++) {
+                store.setInt("thread_" + index, i);
+                if (i % 10 == 0) {
+                    store.delete("temp_" + index);
+                }
+                else {
+                    store.setInt("temp_" + index, i);
+                }
+            }
+        });
+        done.set(true);
+        flusher.join();
+        store.flush();
+
+        assertFalse(store.hasPendingChanges());
+        for (int i=0; i<NUM_THREADS; i++) {
+            assertEquals(Integer.toString(NUM_ITERATIONS - 1), backend.persisted.get("thread_" + i));
+            assertEquals(store.getString("temp_" + i), backend.persisted.get("temp_" + i));
+        }
+        assertTrue(notifications.get() >= 1);
+        assertTrue(backend.numWrites.get() <= notifications.get());
+    }
+
+    @Test
+    public void testFailedLoadIsRetried() {
+        final FakeBackend backend = new FakeBackend();
+        backend.persisted.put("value", "7");
+        backend.numFailingLoads.set(1);
+        final PropertyStore store = new PropertyStore(backend, () -> {});
+
+        assertEquals(0, store.getInt("value"));
+        store.setInt("other", 3);
+        assertEquals(7, store.getInt("value"));
+        assertEquals(3, store.getInt("other"));
+        assertEquals(7, store.getInt("value"));
+        assertEquals(2, backend.numLoads.get());
+    }
+
+    @Test
+    public void testRestrictedThreadLoadsInBackground() throws InterruptedException {
+        final FakeBackend backend = new FakeBackend();
+        backend.persisted.put("value", "7");
+        final PropertyStore store = new PropertyStore(backend, () -> {});
+        final AtomicInteger result = new AtomicInteger();
+        final Thread thread = new Thread(() -> result.set(store.getInt("value")));
+        backend.restrictedThread = thread;
+        thread.start();
+        thread.join();
+
+        assertEquals(7, result.get());
+        assertEquals(1, backend.numBackgroundLoads.get());
+        assertEquals(7, store.getInt("value"));
+        assertEquals(1, backend.numLoads.get());
+    }
+
+    @Test
+    public void testFailedWriteIsRequeued() {
+        final FakeBackend backend = new FakeBackend();
+        final AtomicInteger notifications = new AtomicInteger();
+        final PropertyStore store = new PropertyStore(backend, notifications::incrementAndGet);
+        store.setInt("a", 1);
+        store.setInt("b", 1);
+        backend.numFailingWrites.set(1);
+        try {
+            store.flush();
+            fail("Failed write must be reported");
+        } catch (final IllegalStateException e) {
+            // Expected
+        }
+        assertTrue(store.hasPendingChanges());
+        assertEquals(2, notifications.get());
+
+        store.setInt("b", 2);
+        store.flush();
+        assertEquals("1", backend.persisted.get("a"));
+        assertEquals("2", backend.persisted.get("b"));
+        assertFalse(store.hasPendingChanges());
+    }
+}
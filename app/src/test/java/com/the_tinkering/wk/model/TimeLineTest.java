@@ -0,0 +1,158 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.model;
+
+import com.the_tinkering.wk.db.model.Subject;
+import com.the_tinkering.wk.db.model.SubjectEntity;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.the_tinkering.wk.Constants.HOUR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the incremental updates of the dashboard timeline.
+ */
+@SuppressWarnings("JavaDoc")
+public final class TimeLineTest {
+    private static Subject lesson(final long id, final int level, final int lessonPosition) {
+        final SubjectEntity entity = new SubjectEntity();
+        entity.id = id;
+        entity.level = level;
+        entity.lessonPosition = lessonPosition;
+        return new Subject(entity);
+    }
+
+    private static Subject review(final long id, final long availableAt) {
+        final SubjectEntity entity = new SubjectEntity();
+        entity.id = id;
+        entity.level = 1;
+        entity.availableAt = availableAt;
+        return new Subject(entity);
+    }
+
+    private static List<Long> ids(final Iterable<Subject> subjects) {
+        final List<Long> result = new ArrayList<>();
+        for (final Subject subject: subjects) {
+            result.add(subject.getId());
+        }
+        return result;
+    }
+
+    private static List<Long> ids(final long... values) {
+        final List<Long> result = new ArrayList<>();
+        for (final long value: values) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        final TimeLine timeLine = new TimeLine(24);
+        timeLine.addLesson(lesson(1, 1, 1));
+        timeLine.addReview(review(2, timeLine.getFirstSlot() + 2 * HOUR), true);
+        timeLine.setLongTermUpcomingReviewDate(12345);
+        timeLine.setNumLongTermUpcomingReviews(3);
+
+        final TimeLine copy = timeLine.copy();
+        assertEquals(timeLine.getFirstSlot(), copy.getFirstSlot());
+        assertEquals(timeLine.getSize(), copy.getSize());
+        assertEquals(12345, copy.getLongTermUpcomingReviewDate());
+        assertEquals(3, copy.getNumLongTermUpcomingReviews());
+
+        copy.removeSubject(1);
+        copy.removeSubject(2);
+        copy.insertLesson(lesson(3, 1, 2));
+        assertEquals(ids(1), ids(timeLine.getAvailableLessons()));
+        assertEquals(ids(2), ids(timeLine.getTimeLine().get(2)));
+        assertEquals(1, (int) timeLine.getNumRequiredForLevelUp().get(2));
+        assertEquals(ids(3), ids(copy.getAvailableLessons()));
+        assertTrue(copy.getTimeLine().get(2).isEmpty());
+        assertEquals(0, (int) copy.getNumRequiredForLevelUp().get(2));
+    }
+
+    @Test
+    public void testRemoveSubject() {
+        final TimeLine timeLine = new TimeLine(24);
+        final long now = System.currentTimeMillis();
+        timeLine.addLesson(lesson(1, 1, 1));
+        timeLine.addReview(review(2, now - HOUR), false);
+        timeLine.addReview(review(3, timeLine.getFirstSlot() + 5 * HOUR), false);
+        timeLine.addReview(review(4, timeLine.getFirstSlot() + 5 * HOUR), false);
+
+        timeLine.removeSubject(2);
+        assertFalse(timeLine.hasAvailableReviews());
+        assertTrue(timeLine.getTimeLine().get(0).isEmpty());
+
+        timeLine.removeSubject(3);
+        assertEquals(ids(4), ids(timeLine.getTimeLine().get(5)));
+        assertEquals(1, timeLine.getNumUpcomingReviews());
+
+        // Removing a subject that isn't there changes nothing
+        timeLine.removeSubject(99);
+        assertEquals(ids(1), ids(timeLine.getAvailableLessons()));
+        assertEquals(1, timeLine.getNumUpcomingReviews());
+    }
+
+    @Test
+    public void testInsertLessonKeepsQueryOrder() {
+        final TimeLine timeLine = new TimeLine(24);
+        timeLine.addLesson(lesson(10, 1, 1));
+        timeLine.addLesson(lesson(11, 1, 3));
+        timeLine.addLesson(lesson(20, 2, 1));
+
+        timeLine.insertLesson(lesson(12, 1, 2));
+        timeLine.insertLesson(lesson(5, 1, 3));
+        timeLine.insertLesson(lesson(30, 3, 0));
+        timeLine.insertLesson(lesson(1, 0, 9));
+        assertEquals(ids(1, 10, 12, 5, 11, 20, 30), ids(timeLine.getAvailableLessons()));
+    }
+
+    @Test
+    public void testRequiredForLevelUpCounts() {
+        final TimeLine timeLine = new TimeLine(24);
+        final long slot3 = timeLine.getFirstSlot() + 3 * HOUR;
+        timeLine.addReview(review(1, slot3), true);
+        timeLine.addReview(review(2, slot3), true);
+        timeLine.addReview(review(3, slot3), false);
+        assertEquals(2, (int) timeLine.getNumRequiredForLevelUp().get(3));
+
+        // Only subjects that were added as required for level-up lower the count when removed
+        timeLine.removeSubject(3);
+        assertEquals(2, (int) timeLine.getNumRequiredForLevelUp().get(3));
+        timeLine.removeSubject(1);
+        assertEquals(1, (int) timeLine.getNumRequiredForLevelUp().get(3));
+
+        // A re-added subject that is no longer required doesn't count again
+        timeLine.addReview(review(1, slot3), false);
+        timeLine.removeSubject(1);
+        assertEquals(1, (int) timeLine.getNumRequiredForLevelUp().get(3));
+
+        // Reviews beyond the timeline aren't counted, and can't be removed from the count either
+        timeLine.addReview(review(4, timeLine.getFirstSlot() + 30 * HOUR), true);
+        timeLine.removeSubject(4);
+        assertEquals(1, (int) timeLine.getNumRequiredForLevelUp().get(3));
+        timeLine.removeSubject(2);
+        assertEquals(0, (int) timeLine.getNumRequiredForLevelUp().get(3));
+    }
+}
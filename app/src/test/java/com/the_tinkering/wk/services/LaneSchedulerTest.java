@@ -0,0 +1,352 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the lane scheduler, with a fake backend that keeps its tasks in memory.
+ */
+@SuppressWarnings("JavaDoc")
+public final class LaneSchedulerTest {
+    private enum Lane {
+        API(1), AUDIO(4);
+
+        private final int maxWorkers;
+
+        Lane(final int maxWorkers) {
+            this.maxWorkers = maxWorkers;
+        }
+    }
+
+    private static class FakeTask {
+        private final int id;
+        private final Lane lane;
+        private final long sleepMillis;
+        private final @Nullable CountDownLatch done;
+        private boolean canRun = true;
+
+        private FakeTask(final int id, final Lane lane, final long sleepMillis, final @Nullable CountDownLatch done) {
+            this.id = id;
+            this.lane = lane;
+            this.sleepMillis = sleepMillis;
+            this.done = done;
+        }
+
+        void onRun() {
+            //
+        }
+
+        void onDone() {
+            //
+        }
+    }
+
+    /**
+     * A fake backend that keeps the queued tasks in a list, in priority order.
+     */
+    private static final class FakeBackend implements LaneScheduler.Backend<Lane, FakeTask> {
+        private final List<FakeTask> tasks = new ArrayList<>();
+        private final ConcurrentHashMap<Integer, AtomicInteger> runCounts = new ConcurrentHashMap<>();
+        private final AtomicInteger numIdleCallbacks = new AtomicInteger();
+        private final AtomicInteger numBusyChanges = new AtomicInteger();
+        private final AtomicInteger numClaims = new AtomicInteger();
+        private @Nullable CountDownLatch audioClaimGate = null;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private @Nullable Runnable onIdleAction = null;
+
+        private void add(final FakeTask task) {
+            synchronized (tasks) {
+                tasks.add(task);
+            }
+        }
+
+        private int countQueued(final Lane lane) {
+            synchronized (tasks) {
+                int count = 0;
+                for (final FakeTask task: tasks) {
+                    if (task.lane == lane) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+        }
+
+        @Override
+        public int getMaxWorkers(final Lane lane) {
+            return lane.maxWorkers;
+        }
+
+        @Override
+        public @Nullable FakeTask claimNextTask(final Lane lane, final Collection<Integer> runningTaskIds) throws Exception {
+            numClaims.incrementAndGet();
+            if (lane == Lane.AUDIO && audioClaimGate != null) {
+                // Stand-in for a slow database query
+                audioClaimGate.await();
+            }
+            synchronized (tasks) {
+                for (final FakeTask task: tasks) {
+                    if (task.lane == lane && !runningTaskIds.contains(task.id)) {
+                        return task;
+                    }
+                }
+                return null;
+            }
+        }
+
+        @Override
+        public int getTaskId(final FakeTask task) {
+            return task.id;
+        }
+
+        @Override
+        public boolean runTask(final Lane lane, final FakeTask task) throws Exception {
+            if (!task.canRun) {
+                return false;
+            }
+            runCounts.computeIfAbsent(task.id, id -> new AtomicInteger()).incrementAndGet();
+            task.onRun();
+            if (task.sleepMillis > 0) {
+                Thread.sleep(task.sleepMillis);
+            }
+            task.onDone();
+            // The task removes itself when it's done, just like a real one
+            synchronized (tasks) {
+                tasks.remove(task);
+            }
+            if (task.done != null) {
+                task.done.countDown();
+            }
+            return true;
+        }
+
+        @Override
+        public void onIdle() {
+            numIdleCallbacks.incrementAndGet();
+            if (onIdleAction != null) {
+                onIdleAction.run();
+            }
+        }
+
+        @Override
+        public void onBusyChanged(final boolean busy) {
+            numBusyChanges.incrementAndGet();
+        }
+
+        @Override
+        public void onError(final Exception e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private static LaneScheduler<Lane, FakeTask> createScheduler(final FakeBackend backend) {
+        final List<Lane> lanes = new ArrayList<>();
+        for (final Lane lane: Lane.values()) {
+            lanes.add(lane);
+        }
+        return new LaneScheduler<>(lanes, backend);
+    }
+
+    @Test
+    public void testReviewReportIsNotHeldUpByAudioBacklog() throws Exception {
+        final FakeBackend backend = new FakeBackend();
+        final LaneScheduler<Lane, FakeTask> scheduler = createScheduler(backend);
+        final int numAudioTasks = 500;
+        final CountDownLatch audioDone = new CountDownLatch(numAudioTasks);
+        for (int i=0; i<numAudioTasks; i++) {
+            backend.add(new FakeTask(i, Lane.AUDIO, 5, audioDone));
+        }
+        scheduler.dispatch();
+        assertTrue(scheduler.isBusy());
+
+        // A review report is queued while the audio lane is working through its backlog
+        Thread.sleep(20);
+        final CountDownLatch reportDone = new CountDownLatch(1);
+        backend.add(new FakeTask(numAudioTasks, Lane.API, 0, reportDone));
+        scheduler.dispatch();
+
+        assertTrue(reportDone.await(5, TimeUnit.SECONDS));
+        assertTrue(backend.countQueued(Lane.AUDIO) > numAudioTasks / 2);
+        assertTrue(scheduler.isBusy());
+        assertEquals(0, backend.numIdleCallbacks.get());
+
+        assertTrue(audioDone.await(30, TimeUnit.SECONDS));
+        scheduler.awaitIdle();
+        assertFalse(scheduler.isBusy());
+        assertEquals(1, backend.numIdleCallbacks.get());
+        assertEquals(2, backend.numBusyChanges.get());
+        assertNull(backend.failure.get());
+    }
+
+    @Test
+    public void testEveryTaskRunsExactlyOnce() throws Exception {
+        final FakeBackend backend = new FakeBackend();
+        final LaneScheduler<Lane, FakeTask> scheduler = createScheduler(backend);
+        final int numTasks = 2000;
+        for (int i=0; i<numTasks; i++) {
+            backend.add(new FakeTask(i, i % 10 == 0 ? Lane.API : Lane.AUDIO, 0, null));
+        }
+        // Dispatch from several threads at once, like concurrent schedule() calls would
+        final List<Thread> threads = new ArrayList<>();
+        for (int i=0; i<4; i++) {
+            final Thread thread = new Thread(scheduler::dispatch);
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread: threads) {
+            thread.join();
+        }
+        scheduler.awaitIdle();
+
+        assertEquals(numTasks, backend.runCounts.size());
+        for (final AtomicInteger count: backend.runCounts.values()) {
+            assertEquals(1, count.get());
+        }
+        assertEquals(0, backend.countQueued(Lane.API) + backend.countQueued(Lane.AUDIO));
+        assertTrue(backend.numIdleCallbacks.get() >= 1);
+        assertNull(backend.failure.get());
+    }
+
+    @Test
+    public void testStoppedLaneRestartsOnNextDispatch() throws Exception {
+        final FakeBackend backend = new FakeBackend();
+        final LaneScheduler<Lane, FakeTask> scheduler = createScheduler(backend);
+        final FakeTask blocked = new FakeTask(1, Lane.API, 0, null);
+        blocked.canRun = false;
+        backend.add(blocked);
+        scheduler.dispatch();
+        scheduler.awaitIdle();
+        assertEquals(1, backend.countQueued(Lane.API));
+        assertEquals(1, backend.numIdleCallbacks.get());
+
+        blocked.canRun = true;
+        scheduler.dispatch();
+        scheduler.awaitIdle();
+        assertEquals(0, backend.countQueued(Lane.API));
+        assertEquals(2, backend.numIdleCallbacks.get());
+        assertEquals(4, backend.numBusyChanges.get());
+        assertNull(backend.failure.get());
+    }
+
+    @Test
+    public void testSlowClaimDoesNotHoldUpOtherLanes() throws Exception {
+        final FakeBackend backend = new FakeBackend();
+        final LaneScheduler<Lane, FakeTask> scheduler = createScheduler(backend);
+        final CountDownLatch gate = new CountDownLatch(1);
+        backend.audioClaimGate = gate;
+        backend.add(new FakeTask(1, Lane.AUDIO, 0, null));
+        scheduler.dispatch();
+
+        final CountDownLatch reportDone = new CountDownLatch(1);
+        backend.add(new FakeTask(2, Lane.API, 0, reportDone));
+        scheduler.dispatch();
+        assertTrue(reportDone.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduler.isBusy());
+
+        gate.countDown();
+        scheduler.awaitIdle();
+        assertEquals(0, backend.countQueued(Lane.AUDIO));
+        assertNull(backend.failure.get());
+    }
+
+    @Test
+    public void testIdleLanesStartOneWorkerPerDispatch() throws Exception {
+        final FakeBackend backend = new FakeBackend();
+        final LaneScheduler<Lane, FakeTask> scheduler = createScheduler(backend);
+        final int numDispatches = 10;
+        for (int i=0; i<numDispatches; i++) {
+            scheduler.dispatch();
+            scheduler.awaitIdle();
+        }
+        assertEquals(numDispatches * Lane.values().length, backend.numClaims.get());
+        assertEquals(numDispatches, backend.numIdleCallbacks.get());
+        assertNull(backend.failure.get());
+    }
+
+    @Test
+    public void testBusyLaneRampsUpToMaxWorkers() throws Exception {
+        final FakeBackend backend = new FakeBackend();
+        final LaneScheduler<Lane, FakeTask> scheduler = createScheduler(backend);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final int numTasks = 100;
+        final CountDownLatch done = new CountDownLatch(numTasks);
+        for (int i=0; i<numTasks; i++) {
+            backend.add(new FakeTask(i, Lane.AUDIO, 5, done) {
+                @Override
+                void onRun() {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                }
+
+                @Override
+                void onDone() {
+                    running.decrementAndGet();
+                }
+            });
+        }
+        scheduler.dispatch();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        scheduler.awaitIdle();
+        assertEquals(Lane.AUDIO.maxWorkers, maxRunning.get());
+        assertNull(backend.failure.get());
+    }
+
+    @Test
+    public void testIdleCallbackCountsAsBusy() throws Exception {
+        final FakeBackend backend = new FakeBackend();
+        final LaneScheduler<Lane, FakeTask> scheduler = createScheduler(backend);
+        final CountDownLatch inCallback = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean(false);
+        backend.onIdleAction = () -> {
+            inCallback.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                interrupted.set(true);
+            }
+        };
+        backend.add(new FakeTask(1, Lane.API, 0, null));
+        scheduler.dispatch();
+
+        assertTrue(inCallback.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduler.isBusy());
+        release.countDown();
+        scheduler.awaitIdle();
+        assertFalse(scheduler.isBusy());
+        assertFalse(interrupted.get());
+        assertNull(backend.failure.get());
+    }
+}
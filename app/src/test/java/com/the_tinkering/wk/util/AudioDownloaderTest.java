@@ -0,0 +1,319 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the audio downloader against a local HTTP server, and a simple benchmark comparing
+ * sequential downloads over fresh connections with parallel downloads over pooled connections.
+ */
+@SuppressWarnings("JavaDoc")
+public final class AudioDownloaderTest {
+    private final byte[] content = new byte[100000];
+    private final AtomicInteger numRequests = new AtomicInteger();
+    private final AtomicInteger numRangeRequests = new AtomicInteger();
+    private volatile boolean supportRanges = true;
+    private volatile String etag = "\"v1\"";
+    private volatile int truncateNextResponses = 0;
+    private volatile long latency = 0;
+    private @Nullable HttpServer server = null;
+    private @Nullable File directory = null;
+
+    @Before
+    public void setUp() throws IOException {
+        new Random(1234).nextBytes(content);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        directory = Files.createTempDirectory("download").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (directory != null) {
+            final @Nullable File[] files = directory.listFiles();
+            if (files != null) {
+                for (final File file: files) {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+            }
+            //noinspection ResultOfMethodCallIgnored
+            directory.delete();
+        }
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        numRequests.incrementAndGet();
+        try {
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int start = 0;
+        final @Nullable String range = exchange.getRequestHeaders().getFirst("Range");
+        final @Nullable String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (range != null && supportRanges && (ifRange == null || ifRange.equals(etag))) {
+            numRangeRequests.incrementAndGet();
+            start = Integer.parseInt(range.substring(6, range.length() - 1));
+            if (start >= content.length) {
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range",
+                    String.format(Locale.ROOT, "bytes %d-%d/%d", start, content.length - 1, content.length));
+            exchange.sendResponseHeaders(206, content.length - start);
+        }
+        else {
+            exchange.sendResponseHeaders(200, content.length);
+        }
+
+        try (final OutputStream os = exchange.getResponseBody()) {
+            if (truncateNextResponses > 0) {
+                truncateNextResponses--;
+                // Closing the stream before the declared length has been written drops the connection
+                os.write(content, start, (content.length - start) / 2);
+                return;
+            }
+            os.write(content, start, content.length - start);
+        }
+    }
+
+    private String url(final String path) {
+        return "http://127.0.0.1:" + requireServer().getAddress().getPort() + "/" + path;
+    }
+
+    private HttpServer requireServer() {
+        if (server == null) {
+            throw new IllegalStateException();
+        }
+        return server;
+    }
+
+    private File file(final String name) {
+        return new File(directory, name);
+    }
+
+    private void writePartFile(final File target, final byte[] data, final int length, final String validator) throws IOException {
+        try (final FileOutputStream os = new FileOutputStream(AudioDownloader.getPartFile(target))) {
+            os.write(data, 0, length);
+        }
+        try (final FileOutputStream os = new FileOutputStream(AudioDownloader.getValidatorFile(target))) {
+            os.write(validator.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static AudioDownloader createDownloader() {
+        final OkHttpClient client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(AudioDownloader.MAX_IDLE_CONNECTIONS, 5, TimeUnit.MINUTES))
+                .build();
+        return new AudioDownloader(client, "test");
+    }
+
+    @Test
+    public void testDownload() throws IOException {
+        final File target = file("1.mp3");
+        createDownloader().download(url("1.mp3"), target);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertFalse(AudioDownloader.getPartFile(target).exists());
+        assertEquals(0, numRangeRequests.get());
+    }
+
+    @Test
+    public void testResumeAfterPartialDownload() throws IOException {
+        final File target = file("2.mp3");
+        writePartFile(target, content, 12345, etag);
+        createDownloader().download(url("2.mp3"), target);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertFalse(AudioDownloader.getValidatorFile(target).exists());
+        assertEquals(1, numRangeRequests.get());
+    }
+
+    @Test
+    public void testNoResumeWithoutValidator() throws IOException {
+        final File target = file("7.mp3");
+        try (final FileOutputStream os = new FileOutputStream(AudioDownloader.getPartFile(target))) {
+            os.write(new byte[500]);
+        }
+        createDownloader().download(url("7.mp3"), target);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(0, numRangeRequests.get());
+    }
+
+    @Test
+    public void testRestartWhenFileHasChanged() throws IOException {
+        final File target = file("8.mp3");
+        writePartFile(target, new byte[500], 500, "\"v0\"");
+        createDownloader().download(url("8.mp3"), target);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(1, numRequests.get());
+        assertEquals(0, numRangeRequests.get());
+    }
+
+    @Test
+    public void testRestartWhenRangeIsIgnored() throws IOException {
+        supportRanges = false;
+        final File target = file("3.mp3");
+        writePartFile(target, new byte[500], 500, etag);
+        createDownloader().download(url("3.mp3"), target);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void testRestartWhenRangeIsNotSatisfiable() throws IOException {
+        final File target = file("4.mp3");
+        final byte[] tooLong = Arrays.copyOf(content, content.length + 10);
+        writePartFile(target, tooLong, tooLong.length, etag);
+        createDownloader().download(url("4.mp3"), target);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(2, numRequests.get());
+    }
+
+    @Test
+    public void testInterruptedDownloadIsKeptAndResumed() throws IOException {
+        truncateNextResponses = 1;
+        final File target = file("5.mp3");
+        try {
+            createDownloader().download(url("5.mp3"), target);
+            fail("Truncated download must fail");
+        }
+        catch (final IOException e) {
+            // Expected
+        }
+        assertFalse(target.exists());
+        final File partFile = AudioDownloader.getPartFile(target);
+        assertTrue(partFile.exists());
+        assertTrue(partFile.length() > 0 && partFile.length() < content.length);
+        assertTrue(AudioDownloader.getValidatorFile(target).exists());
+
+        createDownloader().download(url("5.mp3"), target);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertFalse(partFile.exists());
+        assertFalse(AudioDownloader.getValidatorFile(target).exists());
+        assertEquals(1, numRangeRequests.get());
+    }
+
+    @Test
+    public void testReplaceExistingFile() throws IOException {
+        final File target = file("6.mp3");
+        try (final FileOutputStream os = new FileOutputStream(target)) {
+            os.write(new byte[10]);
+        }
+        createDownloader().download(url("6.mp3"), target);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void testStalePartFiles() throws IOException {
+        final File target = file("9.mp3");
+        writePartFile(target, content, 10, etag);
+        try (final FileOutputStream os = new FileOutputStream(target)) {
+            os.write(new byte[10]);
+        }
+        final File partFile = AudioDownloader.getPartFile(target);
+        final File validatorFile = AudioDownloader.getValidatorFile(target);
+        final long now = System.currentTimeMillis();
+        assertFalse(AudioDownloader.isStalePartFile(partFile, now));
+        assertFalse(AudioDownloader.isStalePartFile(validatorFile, now));
+
+        final long later = now + AudioDownloader.STALE_PART_FILE_AGE + 1000;
+        assertTrue(AudioDownloader.isStalePartFile(partFile, later));
+        assertTrue(AudioDownloader.isStalePartFile(validatorFile, later));
+        assertFalse(AudioDownloader.isStalePartFile(target, later));
+    }
+
+    @Ignore("benchmark: the timing depends on the machine, run it by hand")
+    @Test
+    public void testDownloadBenchmark() throws Exception {
+        latency = 20;
+        final int numFiles = 60;
+
+        final long sequentialStart = System.nanoTime();
+        for (int i=0; i<numFiles; i++) {
+            createDownloader().download(url("s" + i + ".mp3"), file("s" + i + ".mp3"));
+        }
+        final long sequentialElapsed = System.nanoTime() - sequentialStart;
+
+        final AudioDownloader downloader = createDownloader();
+        final ExecutorService executor = Executors.newFixedThreadPool(AudioDownloader.MAX_IDLE_CONNECTIONS);
+        final List<Future<?>> futures = new ArrayList<>();
+        final long parallelStart = System.nanoTime();
+        for (int i=0; i<numFiles; i++) {
+            final String name = "p" + i + ".mp3";
+            futures.add(executor.submit(() -> {
+                downloader.download(url(name), file(name));
+                return null;
+            }));
+        }
+        for (final Future<?> future: futures) {
+            future.get();
+        }
+        final long parallelElapsed = System.nanoTime() - parallelStart;
+        executor.shutdown();
+
+        for (int i=0; i<numFiles; i++) {
+            assertTrue(Arrays.equals(content, Files.readAllBytes(file("p" + i + ".mp3").toPath())));
+        }
+        assertTrue(parallelElapsed < sequentialElapsed);
+    }
+}
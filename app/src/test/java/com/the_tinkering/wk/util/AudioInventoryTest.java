@@ -0,0 +1,312 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import com.the_tinkering.wk.db.model.AudioFile;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the audio file inventory, and a simple benchmark comparing inventory lookups
+ * with probing the filesystem.
+ */
+@SuppressWarnings("JavaDoc")
+public final class AudioInventoryTest {
+    /**
+     * A backend that keeps the 'table' in a map, and counts the calls made to it.
+     */
+    private static final class TestBackend implements AudioInventory.Backend {
+        private final Map<String, AudioFile> table = new HashMap<>();
+        private final List<AudioFile> filesystem = new ArrayList<>();
+        private int numLoads = 0;
+        private int numScans = 0;
+        private int numWrites = 0;
+
+        private static String key(final AudioFile file) {
+            return file.getLocation() + "/" + file.getLevel() + "/" + file.getFileName();
+        }
+
+        @Override
+        public synchronized List<AudioFile> load() {
+            numLoads++;
+            return new ArrayList<>(table.values());
+        }
+
+        @Override
+        public synchronized List<AudioFile> scan() {
+            numScans++;
+            return new ArrayList<>(filesystem);
+        }
+
+        @Override
+        public synchronized void replaceAll(final Collection<AudioFile> files) {
+            numWrites++;
+            table.clear();
+            for (final AudioFile file: files) {
+                table.put(key(file), file);
+            }
+        }
+
+        @Override
+        public synchronized void update(final Collection<AudioFile> removed, final Collection<AudioFile> added) {
+            numWrites++;
+            for (final AudioFile file: removed) {
+                table.remove(key(file));
+            }
+            for (final AudioFile file: added) {
+                table.put(key(file), file);
+            }
+        }
+    }
+
+    private static AudioFile file(final String location, final int level, final long sourceId, final String format) {
+        return new AudioFile(location, level, sourceId, format, 1000);
+    }
+
+    @Test
+    public void testParseFileName() {
+        final @Nullable AudioFile file = AudioInventory.parseFileName("Internal", 3, "1234.mp3", 500);
+        assertNotNull(file);
+        assertEquals("Internal", file.getLocation());
+        assertEquals(3, file.getLevel());
+        assertEquals(1234, file.getSourceId());
+        assertEquals("mp3", file.getFormat());
+        assertEquals(500, file.getSize());
+        assertEquals("1234.mp3", file.getFileName());
+
+        assertNotNull(AudioInventory.parseFileName("Internal", 3, "1234.OGG", 500));
+        assertNull(AudioInventory.parseFileName("Internal", 3, "downloading.tmp", 500));
+        assertNull(AudioInventory.parseFileName("Internal", 3, "abc.mp3", 500));
+        assertNull(AudioInventory.parseFileName("Internal", 3, "0.mp3", 500));
+        assertNull(AudioInventory.parseFileName("Internal", 3, ".mp3", 500));
+        assertNull(AudioInventory.parseFileName("Internal", 3, "1234.wav", 500));
+        assertNull(AudioInventory.parseFileName("Internal", 3, "1234", 500));
+    }
+
+    @Test
+    public void testLoadScansOnlyWhenTableIsEmpty() {
+        final TestBackend backend = new TestBackend();
+        backend.filesystem.add(file("Internal", 1, 10, "mp3"));
+        backend.filesystem.add(file("/sdcard", 2, 20, "ogg"));
+
+        final AudioInventory inventory = new AudioInventory(backend);
+        assertFalse(inventory.isLoaded());
+        assertTrue(inventory.contains(1, 10));
+        assertTrue(inventory.contains(2, 20));
+        assertFalse(inventory.contains(1, 20));
+        assertTrue(inventory.isLoaded());
+        assertEquals(1, backend.numScans);
+        assertEquals(2, backend.table.size());
+
+        final AudioInventory reloaded = new AudioInventory(backend);
+        assertEquals(2, reloaded.getNumFiles());
+        assertEquals(1, backend.numScans);
+        assertEquals(2, backend.numLoads);
+    }
+
+    @Test
+    public void testUpdatesAreMirroredInTable() {
+        final TestBackend backend = new TestBackend();
+        final AudioInventory inventory = new AudioInventory(backend);
+
+        inventory.add(file("/sdcard", 1, 10, "mp3"));
+        inventory.add(file("/sdcard", 1, 10, "mp3"));
+        inventory.add(file("Internal", 1, 10, "ogg"));
+        inventory.add(file("Internal", 1, 10, "mp3"));
+        assertEquals(3, inventory.getNumFiles());
+        assertEquals(3, backend.table.size());
+
+        final @Nullable AudioFile preferred = inventory.get(1, 10);
+        assertNotNull(preferred);
+        assertEquals("Internal", preferred.getLocation());
+        assertEquals("mp3", preferred.getFormat());
+
+        assertEquals(1, inventory.getMisplaced("Internal").size());
+        assertEquals(2, inventory.getMisplaced("/sdcard").size());
+
+        inventory.move(file("/sdcard", 1, 10, "mp3"), file("Internal", 1, 10, "mp3"));
+        assertEquals(2, inventory.getNumFiles());
+        assertEquals(2, backend.table.size());
+        assertTrue(inventory.getMisplaced("Internal").isEmpty());
+
+        inventory.remove(file("Internal", 1, 10, "mp3"));
+        inventory.remove(file("Internal", 1, 10, "mp3"));
+        final @Nullable AudioFile remaining = inventory.get(1, 10);
+        assertNotNull(remaining);
+        assertEquals("ogg", remaining.getFormat());
+        assertEquals(1, backend.table.size());
+
+        inventory.remove(remaining);
+        assertFalse(inventory.contains(1, 10));
+        assertEquals(0, inventory.getNumFiles());
+        assertTrue(backend.table.isEmpty());
+
+        inventory.add(file("Internal", 5, 50, "mp3"));
+        inventory.clear();
+        assertFalse(inventory.contains(5, 50));
+        assertTrue(backend.table.isEmpty());
+    }
+
+    @Test
+    public void testRescan() {
+        final TestBackend backend = new TestBackend();
+        final AudioInventory inventory = new AudioInventory(backend);
+        inventory.add(file("Internal", 1, 10, "mp3"));
+
+        backend.filesystem.add(file("Internal", 2, 20, "mp3"));
+        inventory.rescan();
+        assertFalse(inventory.contains(1, 10));
+        assertTrue(inventory.contains(2, 20));
+        assertEquals(1, backend.table.size());
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        final TestBackend backend = new TestBackend();
+        final AudioInventory inventory = new AudioInventory(backend);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t=0; t<4; t++) {
+            final int level = t + 1;
+            threads.add(new Thread(() -> {
+                for (int i=1; i<=1000; i++) {
+                    inventory.add(file("Internal", level, i, "mp3"));
+                    inventory.contains(level, i);
+                    if (i % 2 == 0) {
+                        inventory.move(file("Internal", level, i, "mp3"), file("/sdcard", level, i, "mp3"));
+                    }
+                    if (i % 3 == 0) {
+                        inventory.remove(file("Internal", level, i, "mp3"));
+                    }
+                }
+            }));
+        }
+        for (final Thread thread: threads) {
+            thread.start();
+        }
+        for (final Thread thread: threads) {
+            thread.join();
+        }
+
+        int expected = 0;
+        for (int i=1; i<=1000; i++) {
+            if (i % 2 == 0 || i % 3 != 0) {
+                expected++;
+            }
+        }
+        assertEquals(4 * expected, inventory.getNumFiles());
+        assertEquals(4 * expected, backend.table.size());
+        assertEquals(4 * (1000 / 2), inventory.getMisplaced("Internal").size());
+    }
+
+    @Ignore("benchmark: the timing depends on the machine, run it by hand")
+    @Test
+    public void testLookupBenchmark() throws IOException {
+        final File root = Files.createTempDirectory("audio").toFile();
+        try {
+            final String[] locations = {"Internal", "external"};
+            final Random random = new Random(1234);
+            final TestBackend backend = new TestBackend();
+            for (int level=1; level<=10; level++) {
+                for (int i=1; i<=100; i++) {
+                    final long sourceId = level * 1000 + i;
+                    if (random.nextInt(3) == 0) {
+                        continue;
+                    }
+                    final String location = locations[random.nextInt(locations.length)];
+                    final String format = random.nextBoolean() ? "mp3" : "ogg";
+                    final File dir = new File(new File(root, location), Integer.toString(level));
+                    //noinspection ResultOfMethodCallIgnored
+                    dir.mkdirs();
+                    try (final FileOutputStream os = new FileOutputStream(new File(dir, sourceId + "." + format))) {
+                        os.write(0);
+                    }
+                    backend.filesystem.add(file(location, level, sourceId, format));
+                }
+            }
+            final AudioInventory inventory = new AudioInventory(backend);
+            inventory.load();
+
+            int probed = 0;
+            final long probeStart = System.nanoTime();
+            for (int round=0; round<10; round++) {
+                for (int level=1; level<=10; level++) {
+                    for (int i=1; i<=100; i++) {
+                        final long sourceId = level * 1000 + i;
+                        for (final String location: locations) {
+                            final File dir = new File(new File(root, location), Integer.toString(level));
+                            if (new File(dir, sourceId + ".mp3").exists() || new File(dir, sourceId + ".ogg").exists()) {
+                                probed++;
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+            final long probeElapsed = System.nanoTime() - probeStart;
+
+            int found = 0;
+            final long lookupStart = System.nanoTime();
+            for (int round=0; round<10; round++) {
+                for (int level=1; level<=10; level++) {
+                    for (int i=1; i<=100; i++) {
+                        if (inventory.contains(level, level * 1000 + i)) {
+                            found++;
+                        }
+                    }
+                }
+            }
+            final long lookupElapsed = System.nanoTime() - lookupStart;
+
+            assertEquals(probed, found);
+            assertTrue(lookupElapsed < probeElapsed);
+        }
+        finally {
+            deleteRecursively(root);
+        }
+    }
+
+    private static void deleteRecursively(final File file) {
+        final @Nullable File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child: children) {
+                deleteRecursively(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+}
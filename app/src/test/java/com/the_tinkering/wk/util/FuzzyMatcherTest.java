@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import com.the_tinkering.wk.enums.CloseEnoughAction;
+import com.the_tinkering.wk.model.AnswerVerdict;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests and a simple benchmark for the precompiled fuzzy matcher, checking that it gives the same
+ * verdicts as FuzzyMatching.matches().
+ */
+@SuppressWarnings("JavaDoc")
+public final class FuzzyMatcherTest {
+    private static final String[] WORDS = {
+            "one", "two", "three", "ten", "person", "big", "small", "mountain", "river", "tree",
+            "forest", "sun", "day", "moon", "month", "fire", "water", "gold", "money", "earth",
+            "ground", "up", "above", "down", "below", "middle", "inside", "power", "strength",
+            "to go out", "to enter", "entrance", "exit", "heavenly stem", "fortune-telling",
+            "Mr. Sato", "it's okay", "20 years old", "the day before yesterday",
+    };
+
+    private static final String NOISE = "aeiourstnlmkxyz '-.,0123456789\t　’“１–ABC";
+
+    private static String randomWord(final Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String mutate(final Random random, final String s) {
+        final StringBuilder sb = new StringBuilder(s);
+        final int edits = random.nextInt(4);
+        for (int i=0; i<edits; i++) {
+            final int op = random.nextInt(5);
+            final int pos = sb.length() == 0 ? 0 : random.nextInt(sb.length());
+            final char c = NOISE.charAt(random.nextInt(NOISE.length()));
+            if (op == 0 || sb.length() == 0) {
+                sb.insert(pos, c);
+            }
+            else if (op == 1) {
+                sb.deleteCharAt(pos);
+            }
+            else if (op == 2) {
+                sb.setCharAt(pos, c);
+            }
+            else if (op == 3 && pos + 1 < sb.length()) {
+                final char tmp = sb.charAt(pos);
+                sb.setCharAt(pos, sb.charAt(pos + 1));
+                sb.setCharAt(pos + 1, tmp);
+            }
+            else {
+                sb.setCharAt(pos, Character.toUpperCase(sb.charAt(pos)));
+            }
+        }
+        if (random.nextInt(5) == 0) {
+            sb.insert(0, "  ");
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static Collection<String> randomSet(final Random random, final int maxSize) {
+        final Collection<String> result = new HashSet<>();
+        final int size = random.nextInt(maxSize + 1);
+        for (int i=0; i<size; i++) {
+            result.add(random.nextInt(3) == 0 ? mutate(random, randomWord(random)) : randomWord(random));
+        }
+        return result;
+    }
+
+    private static void assertSameVerdict(final AnswerVerdict expected, final AnswerVerdict actual) {
+        assertEquals(expected.isOk(), actual.isOk());
+        assertEquals(expected.isRetry(), actual.isRetry());
+        assertEquals(expected.isNearMatch(), actual.isNearMatch());
+        assertEquals(expected.getGivenAnswer(), actual.getGivenAnswer());
+        assertEquals(expected.getMatchedAnswer(), actual.getMatchedAnswer());
+    }
+
+    @Test
+    public void testBoundedDistance() {
+        final Random random = new Random(1234);
+        final String alphabet = "abcab ";
+        final int[][] rows = {new int[16], new int[16], new int[16]};
+        for (int i=0; i<100000; i++) {
+            final String a = mutate(random, alphabet.substring(random.nextInt(alphabet.length())));
+            final String b = mutate(random, alphabet.substring(random.nextInt(alphabet.length())));
+            final int threshold = random.nextInt(5);
+            final int distance = OptimalStringAlignmentDistance.getDistance(a, b);
+            final int bounded = OptimalStringAlignmentDistance.getBoundedDistance(
+                    a.toCharArray(), a.length(), b.toCharArray(), b.length(), threshold, rows);
+            assertEquals(a + " / " + b, Math.min(distance, threshold + 1), bounded);
+        }
+    }
+
+    @Test
+    public void testCleanInto() {
+        final char[] buffer = new char[8];
+        for (int cp=0; cp<0x10000; cp++) {
+            final String s = "A" + new String(Character.toChars(cp)) + " x ";
+            final int length = FuzzyMatching.cleanInto(s, buffer);
+            if (length >= 0) {
+                assertEquals(FuzzyMatching.cleanString(s), new String(buffer, 0, length));
+            }
+        }
+    }
+
+    @Test
+    public void testVerdictParity() {
+        final Random random = new Random(5678);
+        for (int i=0; i<2000; i++) {
+            final Collection<String> accepted = randomSet(random, 5);
+            final Collection<String> rejected = randomSet(random, 2);
+            final FuzzyMatcher matcher = new FuzzyMatcher(accepted, rejected);
+            for (int j=0; j<20; j++) {
+                final String answer = mutate(random, randomWord(random));
+                for (final CloseEnoughAction action: CloseEnoughAction.values()) {
+                    assertSameVerdict(FuzzyMatching.matches(answer, accepted, rejected, action), matcher.matches(answer, action));
+                }
+            }
+        }
+    }
+
+    @Ignore("benchmark: the timing depends on the machine, run it by hand")
+    @Test
+    public void testMatchBenchmark() {
+        final Random random = new Random(9012);
+        final List<Collection<String>> acceptedSets = new ArrayList<>();
+        final List<Collection<String>> rejectedSets = new ArrayList<>();
+        final List<FuzzyMatcher> matchers = new ArrayList<>();
+        for (int i=0; i<100; i++) {
+            final Collection<String> accepted = randomSet(random, 5);
+            final Collection<String> rejected = randomSet(random, 2);
+            acceptedSets.add(accepted);
+            rejectedSets.add(rejected);
+            matchers.add(new FuzzyMatcher(accepted, rejected));
+        }
+        final List<String> answers = new ArrayList<>();
+        for (int i=0; i<1000; i++) {
+            answers.add(mutate(random, randomWord(random)));
+        }
+
+        int oldOk = 0;
+        final long oldStart = System.nanoTime();
+        for (int i=0; i<matchers.size(); i++) {
+            for (final String answer: answers) {
+                if (FuzzyMatching.matches(answer, acceptedSets.get(i), rejectedSets.get(i), CloseEnoughAction.ACCEPT_WITH_TOAST).isOk()) {
+                    oldOk++;
+                }
+            }
+        }
+        final long oldElapsed = System.nanoTime() - oldStart;
+
+        int newOk = 0;
+        final long newStart = System.nanoTime();
+        for (final FuzzyMatcher matcher: matchers) {
+            for (final String answer: answers) {
+                if (matcher.matches(answer, CloseEnoughAction.ACCEPT_WITH_TOAST).isOk()) {
+                    newOk++;
+                }
+            }
+        }
+        final long newElapsed = System.nanoTime() - newStart;
+
+        assertEquals(oldOk, newOk);
+        // The uncompiled matcher runs first and warms up the shared code, so this is a lenient comparison
+        assertTrue(newElapsed < oldElapsed);
+    }
+}
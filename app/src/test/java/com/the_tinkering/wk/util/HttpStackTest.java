@@ -0,0 +1,273 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Nullable;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the shared HTTP stack against a local HTTP server, and a simple benchmark comparing
+ * a new client for every call with the shared client.
+ */
+@SuppressWarnings("JavaDoc")
+public final class HttpStackTest {
+    private final byte[] content = new byte[50000];
+    private final Map<String, String> lastHeaders = new ConcurrentHashMap<>();
+    private final Collection<Integer> clientPorts = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile int lastCompressedLength = 0;
+    private volatile @Nullable String apiKey = "secret";
+    private @Nullable HttpServer server = null;
+
+    static {
+        // Without this, small responses on a kept-alive connection stall on delayed ACKs
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        for (int i=0; i<content.length; i++) {
+            content[i] = (byte) ('a' + i % 7);
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        lastHeaders.clear();
+        for (final String name: Arrays.asList("User-Agent", "Authorization", "Wanikani-Revision")) {
+            final @Nullable String value = exchange.getRequestHeaders().getFirst(name);
+            if (value != null) {
+                lastHeaders.put(name, value);
+            }
+        }
+        //noinspection StatementWithEmptyBody
+        while (exchange.getRequestBody().read() >= 0) {
+            // Drain the request body
+        }
+
+        if (exchange.getRequestURI().getPath().startsWith("/missing")) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        final @Nullable String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        byte[] body = content;
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (final GZIPOutputStream zos = new GZIPOutputStream(bos)) {
+                zos.write(content);
+            }
+            body = bos.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        lastCompressedLength = body.length;
+        exchange.sendResponseHeaders(200, body.length);
+        try (final OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private String url(final String host, final String path) {
+        return "http://" + host + ":" + requireServer().getAddress().getPort() + path;
+    }
+
+    private HttpServer requireServer() {
+        if (server == null) {
+            throw new IllegalStateException();
+        }
+        return server;
+    }
+
+    private HttpStack createStack() {
+        return new HttpStack("test-agent/1.0", "localhost", "20170710", () -> apiKey);
+    }
+
+    private static byte[] get(final OkHttpClient client, final String url) throws IOException {
+        final Request request = new Request.Builder().url(url).build();
+        try (final Response response = client.newCall(request).execute()) {
+            return requireNonNull(response.body()).bytes();
+        }
+    }
+
+    @Test
+    public void testEndpoint() {
+        assertEquals("GET api.wanikani.com/v2/assignments",
+                HttpStack.getEndpoint("GET", requireNonNull(HttpUrl.parse("https://api.wanikani.com/v2/assignments?page_after_id=1234"))));
+        assertEquals("PUT api.wanikani.com/v2/assignments/*/start",
+                HttpStack.getEndpoint("PUT", requireNonNull(HttpUrl.parse("https://api.wanikani.com/v2/assignments/1234/start"))));
+        assertEquals("GET cdn.wanikani.com/audios/*",
+                HttpStack.getEndpoint("GET", requireNonNull(HttpUrl.parse("https://cdn.wanikani.com/audios/3020-subject-2467.mp3"))));
+        assertEquals("GET files.wanikani.com/*",
+                HttpStack.getEndpoint("GET", requireNonNull(HttpUrl.parse("https://files.wanikani.com/w4yp5o02betioucki05lp6x78quy"))));
+        assertEquals("GET www.weblio.jp/content",
+                HttpStack.getEndpoint("GET", requireNonNull(HttpUrl.parse("https://www.weblio.jp/content?query=%E5%A4%A7"))));
+    }
+
+    @Test
+    public void testHeaders() throws IOException {
+        final HttpStack stack = createStack();
+        final OkHttpClient client = stack.getClient(HttpStack.Profile.API);
+
+        get(client, url("localhost", "/v2/user"));
+        assertEquals("test-agent/1.0", lastHeaders.get("User-Agent"));
+        assertEquals("Bearer secret", lastHeaders.get("Authorization"));
+        assertEquals("20170710", lastHeaders.get("Wanikani-Revision"));
+
+        // Other hosts don't get the API credentials
+        get(stack.getClient(HttpStack.Profile.AUDIO), url("127.0.0.1", "/v2/user"));
+        assertEquals("test-agent/1.0", lastHeaders.get("User-Agent"));
+        assertNull(lastHeaders.get("Authorization"));
+        assertNull(lastHeaders.get("Wanikani-Revision"));
+
+        // Headers set by the caller take precedence, and no token means no Authorization header
+        apiKey = null;
+        final Request request = new Request.Builder()
+                .url(url("localhost", "/v2/user"))
+                .header("User-Agent", "other")
+                .build();
+        try (final Response response = client.newCall(request).execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals("other", lastHeaders.get("User-Agent"));
+        assertNull(lastHeaders.get("Authorization"));
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        final HttpStack stack = createStack();
+        assertArrayEquals(content, get(stack.getClient(HttpStack.Profile.WEB), url("127.0.0.1", "/page")));
+        assertTrue(lastCompressedLength < content.length);
+        assertTrue(requireNonNull(stack.getDiagnostics("GET 127.0.0.1/page")).startsWith(
+                String.format(Locale.ROOT, "1 calls, 0 failed, 0 bytes sent, %d bytes received,", lastCompressedLength)));
+    }
+
+    @Test
+    public void testMetrics() throws IOException {
+        final HttpStack stack = createStack();
+        final OkHttpClient client = stack.getClient(HttpStack.Profile.API);
+        for (int i=0; i<5; i++) {
+            get(client, url("127.0.0.1", "/v2/assignments/" + (1000 + i) + "?x=" + i));
+        }
+        get(client, url("127.0.0.1", "/missing/1"));
+        final Request request = new Request.Builder()
+                .url(url("127.0.0.1", "/v2/reviews"))
+                .post(RequestBody.create(new byte[123], MediaType.get("application/json; charset=utf-8")))
+                .build();
+        try (final Response response = client.newCall(request).execute()) {
+            assertEquals(200, response.code());
+        }
+
+        assertTrue(requireNonNull(stack.getDiagnostics("GET 127.0.0.1/v2/assignments/*")).startsWith("5 calls, 0 failed, 0 bytes sent"));
+        assertTrue(requireNonNull(stack.getDiagnostics("GET 127.0.0.1/missing/*")).startsWith("1 calls, 0 failed"));
+        assertTrue(requireNonNull(stack.getDiagnostics("POST 127.0.0.1/v2/reviews")).startsWith("1 calls, 0 failed, 123 bytes sent"));
+        assertTrue(stack.getDiagnostics().contains("GET 127.0.0.1/v2/assignments/*: 5 calls"));
+
+        // Connection refused
+        final int port = requireServer().getAddress().getPort();
+        requireServer().stop(0);
+        server = null;
+        try {
+            get(client, "http://127.0.0.1:" + port + "/gone");
+        }
+        catch (final IOException e) {
+            //
+        }
+        assertTrue(requireNonNull(stack.getDiagnostics("GET 127.0.0.1/gone")).startsWith("1 calls, 1 failed"));
+    }
+
+    @Test
+    public void testConnectionReuse() throws IOException {
+        final HttpStack stack = createStack();
+        for (final HttpStack.Profile profile: HttpStack.Profile.values()) {
+            get(stack.getClient(profile), url("127.0.0.1", "/reuse"));
+        }
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Ignore("benchmark: the timing depends on the machine, run it by hand")
+    @Test
+    public void testCallBenchmark() throws IOException {
+        final int numCalls = 300;
+
+        clientPorts.clear();
+        final long freshStart = System.nanoTime();
+        for (int i=0; i<numCalls; i++) {
+            final OkHttpClient client = new OkHttpClient.Builder().build();
+            get(client, url("127.0.0.1", "/fresh"));
+            client.connectionPool().evictAll();
+        }
+        final long freshElapsed = System.nanoTime() - freshStart;
+        final int freshConnections = clientPorts.size();
+
+        clientPorts.clear();
+        final HttpStack stack = createStack();
+        final long sharedStart = System.nanoTime();
+        for (int i=0; i<numCalls; i++) {
+            get(stack.getClient(HttpStack.Profile.API), url("127.0.0.1", "/shared"));
+        }
+        final long sharedElapsed = System.nanoTime() - sharedStart;
+        final int sharedConnections = clientPorts.size();
+
+        assertEquals(numCalls, freshConnections);
+        assertEquals(1, sharedConnections);
+        assertTrue(sharedElapsed < freshElapsed);
+    }
+}
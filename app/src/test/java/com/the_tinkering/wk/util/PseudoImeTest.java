@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019-2020 Ernst Jan Plugge <rmc@dds.nl>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.the_tinkering.wk.util;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests and a throughput benchmark for the romaji to kana conversion, checking it against
+ * the original substring-based implementation of the IME.
+ */
+@SuppressWarnings("JavaDoc")
+public final class PseudoImeTest {
+    private static final String ALPHABET = "aiueonnkstyhmrwgzjdbpfvcxlq- AIUEONKSTY";
+
+    /**
+     * The original implementation of PseudoIme.fixup(), working on a StringBuilder.
+     */
+    private static void referenceFixup(final StringBuilder s, final int editStart, final int editEnd) {
+        final Map<String, String> map = PseudoIme.getKanaMap();
+        int start = editStart;
+        int end = editEnd;
+
+        while (start >= 0 && start < end) {
+            if (start > 0) {
+                final char c1 = s.charAt(start-1);
+                final char c2 = s.charAt(start);
+                if (c1 == 'n' && "aiueoyn ".indexOf(c2) < 0) {
+                    s.replace(start-1, start, "ん");
+                    continue;
+                }
+                if (c1 == c2 && "bcdfghjklmpqrstvwxz".indexOf(c1) >= 0) {
+                    s.replace(start-1, start, "っ");
+                    continue;
+                }
+            }
+
+            boolean found = false;
+            for (int i=start-3; i<=start; i++) {
+                if (i < 0) {
+                    continue;
+                }
+                final @Nullable String replacement = map.get(s.substring(i, start+1));
+                if (replacement != null) {
+                    s.replace(i, start+1, replacement);
+                    end -= start + 1 - i;
+                    end += replacement.length();
+                    if (end > s.length()) {
+                        end = s.length();
+                    }
+                    start = i + replacement.length();
+                    found = true;
+                    break;
+                }
+            }
+            if (found) {
+                continue;
+            }
+
+            if (Character.isWhitespace(s.charAt(start))) {
+                s.deleteCharAt(start);
+                end--;
+                continue;
+            }
+
+            start++;
+        }
+    }
+
+    private static String referenceSimulateInput(final String input) {
+        final StringBuilder sb = new StringBuilder(input);
+        referenceFixup(sb, 0, input.length());
+        if (sb.length() > 0 && sb.charAt(sb.length()-1) == 'n') {
+            sb.setCharAt(sb.length()-1, 'ん');
+        }
+        return sb.toString();
+    }
+
+    private static String randomInput(final Random random, final int maxLength) {
+        final int length = random.nextInt(maxLength + 1);
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i=0; i<length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testFullTable() {
+        for (final String key: PseudoIme.getKanaMap().keySet()) {
+            assertEquals(key, referenceSimulateInput(key), PseudoIme.simulateInput(key));
+            for (final String context: new String[] {"n", "k", "a", "nn", "tt", " "}) {
+                assertEquals(key, referenceSimulateInput(context + key), PseudoIme.simulateInput(context + key));
+                assertEquals(key, referenceSimulateInput(key + context), PseudoIme.simulateInput(key + context));
+            }
+        }
+    }
+
+    @Test
+    public void testRandomInput() {
+        final Random random = new Random(1234);
+        for (int i=0; i<100000; i++) {
+            final String input = randomInput(random, 12);
+            assertEquals(input, referenceSimulateInput(input), PseudoIme.simulateInput(input));
+        }
+    }
+
+    @Test
+    public void testIncrementalTyping() {
+        final Random random = new Random(5678);
+        final RomajiConverter converter = new RomajiConverter(new RomajiConverter.Table(PseudoIme.getKanaMap()));
+        for (int i=0; i<10000; i++) {
+            final StringBuilder reference = new StringBuilder();
+            final String input = randomInput(random, 16);
+            for (int j=0; j<input.length(); j++) {
+                final String before = reference.toString();
+                reference.append(input.charAt(j));
+                referenceFixup(reference, reference.length() - 1, reference.length());
+                converter.reset(before, 0, before.length());
+                converter.feed(input.charAt(j));
+                assertEquals(input, reference.toString(), converter.toString());
+            }
+        }
+    }
+
+    @Ignore("benchmark: the timing depends on the machine, run it by hand")
+    @Test
+    public void testThroughputBenchmark() {
+        final Random random = new Random(9012);
+        final List<String> inputs = new ArrayList<>();
+        long numChars = 0;
+        for (int i=0; i<20000; i++) {
+            final String input = randomInput(random, 20);
+            inputs.add(input);
+            numChars += input.length();
+        }
+
+        final long referenceStart = System.nanoTime();
+        for (final String input: inputs) {
+            referenceSimulateInput(input);
+        }
+        final long referenceElapsed = System.nanoTime() - referenceStart;
+
+        final long start = System.nanoTime();
+        for (final String input: inputs) {
+            PseudoIme.simulateInput(input);
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        assertTrue(numChars > 0);
+        assertTrue(elapsed < referenceElapsed);
+    }
+}